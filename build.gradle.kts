@@ -1,5 +1,7 @@
 plugins {
     id("java")
+    id("java-test-fixtures")
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 repositories {
@@ -10,6 +12,17 @@ dependencies {
     compileOnly("net.portswigger.burp.extensions:montoya-api:2025.10")
     implementation("org.apache.commons:commons-compress:1.25.0")
     implementation("org.tukaani:xz:1.9")
+
+    // compileOnly dependencies are not on the benchmark runtime classpath
+    jmh("net.portswigger.burp.extensions:montoya-api:2025.10")
+    // Montoya stubs shared by tests and benchmarks, in src/testFixtures
+    testFixturesImplementation("net.portswigger.burp.extensions:montoya-api:2025.10")
+    jmh(testFixtures(project))
+
+    testImplementation(platform("org.junit:junit-bom:5.10.2"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+    testImplementation("net.portswigger.burp.extensions:montoya-api:2025.10")
 }
 
 tasks.withType<JavaCompile>().configureEach {
@@ -18,6 +31,21 @@ tasks.withType<JavaCompile>().configureEach {
     options.encoding = "UTF-8"
 }
 
+// Parser tests: ./gradlew test
+tasks.test {
+    useJUnitPlatform()
+}
+
+// Parser benchmarks: ./gradlew jmh (results in build/results/jmh/results.json)
+jmh {
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    project.findProperty("jmhInclude")?.let { includes.add(it.toString()) }
+}
+
 tasks.named<Jar>("jar") {
     duplicatesStrategy = DuplicatesStrategy.EXCLUDE
     from(configurations.runtimeClasspath.get().filter { it.isDirectory })
@@ -0,0 +1,69 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Benchmark inputs. Real-world exports live in src/jmh/resources/curl-corpus; large
+ * and adversarial inputs are generated so the repository doesn't carry megabytes of text.
+ */
+final class Corpus {
+    private Corpus() {
+    }
+
+    static String load(String name) throws IOException {
+        return switch (name) {
+            case "large-json" -> largeJson(1 << 20);
+            case "many-headers" -> manyHeaders(500);
+            // One word of 1MB of escaped characters
+            case "adversarial-backslashes" -> "curl https://example.com/ -H 'X: y' -d " + "\\a".repeat(512 * 1024);
+            // Quote never closed: the tokenizer must still finish in one pass
+            case "adversarial-unterminated-quote" -> "curl https://example.com/ -d '" + "x".repeat(1 << 20);
+            case "adversarial-ansi-c-escapes" -> "curl https://example.com/ --data-raw $'" + "\\x41\\u00e9\\n\\'".repeat(50_000) + "'";
+            case "adversarial-continuations" -> "curl https://example.com/" + " \\\n  -s".repeat(50_000);
+            // Every character a short option: -sSLkvi... combined into one huge word
+            case "adversarial-short-options" -> "curl https://example.com/ -" + "sSLkvi".repeat(100_000);
+            default -> resource(name);
+        };
+    }
+
+    private static String resource(String name) throws IOException {
+        try (InputStream in = Corpus.class.getResourceAsStream("/curl-corpus/" + name + ".txt")) {
+            if (in == null) {
+                throw new IOException("No corpus entry named " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String largeJson(int targetSize) {
+        StringBuilder json = new StringBuilder(targetSize + 256);
+        json.append("{\"events\":[");
+        for (int i = 0; json.length() < targetSize; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(i)
+                    .append(",\"type\":\"screen_view\",\"screen\":\"ProductDetail\",\"ts\":").append(1_700_000_000_000L + i)
+                    .append(",\"props\":{\"sku\":\"SKU-").append(100_000 + i)
+                    .append("\",\"price\":19.99,\"tags\":[\"sale\",\"new\"],\"note\":\"it\\u2019s fine\"}}");
+        }
+        json.append("]}");
+
+        return "curl 'https://telemetry.example.com/v1/batch' \\\n"
+                + "  -H 'content-type: application/json' \\\n"
+                + "  -H 'authorization: Bearer token' \\\n"
+                + "  --data-raw '" + json + "' \\\n"
+                + "  --compressed";
+    }
+
+    private static String manyHeaders(int count) {
+        StringBuilder command = new StringBuilder("curl 'https://api.example.com/v1/me'");
+        for (int i = 0; i < count; i++) {
+            command.append(" \\\n  -H 'x-custom-header-").append(i).append(": value-").append(i)
+                    .append("; with=attributes; and=\"quoted parts\"'");
+        }
+        return command.toString();
+    }
+}
@@ -0,0 +1,81 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import utils.CurlCommandSplitter;
+import utils.CurlParser;
+import utils.MontoyaStubs;
+import utils.ShellTokenizer;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of curl parsing over the corpus. Run with the gc profiler (the default
+ * in build.gradle.kts) to see allocation per operation alongside ops/s.
+ *
+ * ./gradlew jmh -PjmhInclude=CurlParserBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CurlParserBenchmark {
+
+    @Param({
+            "devtools-get",
+            "devtools-post-json",
+            "firefox-post-form",
+            "quoted",
+            "large-json",
+            "many-headers",
+            "adversarial-backslashes",
+            "adversarial-unterminated-quote",
+            "adversarial-ansi-c-escapes",
+            "adversarial-continuations",
+            "adversarial-short-options"
+    })
+    public String input;
+
+    private String command;
+    private CurlParser parser;
+
+    @Setup
+    public void setup() throws IOException {
+        MontoyaStubs.install();
+        command = Corpus.load(input);
+        parser = new CurlParser();
+    }
+
+    /**
+     * Full parse: tokenizing, option handling and request assembly
+     */
+    @Benchmark
+    public Object parse() {
+        try {
+            return parser.parse(command, null);
+        } catch (Exception e) {
+            // Rejecting bad input quickly is part of what is measured
+            return e;
+        }
+    }
+
+    @Benchmark
+    public List<ShellTokenizer.Word> tokenize() {
+        return ShellTokenizer.words(command);
+    }
+
+    /**
+     * Finding command boundaries, as the bulk importer does before parsing
+     */
+    @Benchmark
+    public int split() throws IOException {
+        int count = 0;
+        try (CurlCommandSplitter splitter = new CurlCommandSplitter(new StringReader(command))) {
+            while (splitter.next() != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
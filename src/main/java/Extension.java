@@ -1,6 +1,14 @@
 import burp.api.montoya.BurpExtension;
 import burp.api.montoya.MontoyaApi;
+import ui.CurlExportMenuProvider;
+import ui.LogcatEditorProvider;
 import ui.MainUI;
+import utils.LogFileAppender;
+import utils.LogcatRequestRecorder;
+import utils.NetworkConditionRecorder;
+import utils.ProxyVerifier;
+import utils.SecretLeakDetector;
+import utils.TaskManager;
 
 public class Extension implements BurpExtension {
     @Override
@@ -9,8 +17,30 @@ public class Extension implements BurpExtension {
 
         montoyaApi.logging().logToOutput("BMA Extension loaded successfully!");
 
+        // Where the JSON log file reports write errors
+        LogFileAppender.init(montoyaApi);
+
+        // Record emulator network conditions on proxied traffic
+        montoyaApi.proxy().registerRequestHandler(new NetworkConditionRecorder());
+
+        // Note when and from which device proxied requests arrived, and show the logcat around them
+        montoyaApi.proxy().registerRequestHandler(new LogcatRequestRecorder());
+        montoyaApi.userInterface().registerHttpRequestEditorProvider(new LogcatEditorProvider(montoyaApi));
+
+        // Raise an issue when a token from proxied traffic shows up in a device log
+        montoyaApi.proxy().registerRequestHandler(new SecretLeakDetector(montoyaApi));
+
+        // Answer the tagged requests sent by Verify Proxy
+        montoyaApi.proxy().registerRequestHandler(new ProxyVerifier());
+
+        // "Copy as curl" for selected requests
+        montoyaApi.userInterface().registerContextMenuItemsProvider(new CurlExportMenuProvider(montoyaApi));
+
         // Register UI
         MainUI mainUI = new MainUI(montoyaApi);
         montoyaApi.userInterface().registerSuiteTab("BMA", mainUI.getComponent());
+
+        // Release threads, child processes and timers when BMA is unloaded or reloaded
+        montoyaApi.extension().registerUnloadingHandler(() -> TaskManager.shutdown(montoyaApi));
     }
 }
\ No newline at end of file
@@ -0,0 +1,167 @@
+package ui;
+
+import burp.api.montoya.core.ByteArray;
+import utils.PrettyPrinter;
+import utils.TaskManager;
+
+import javax.swing.*;
+import java.awt.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Read-only body viewer for bodies of any size. Only the first window of the body is
+ * decoded and laid out; "Load more" appends the next window. Pretty-printing runs in
+ * the background and only when asked for.
+ */
+public class BodyPreview extends JPanel {
+    private static final int WINDOW_BYTES = 256 * 1024;
+    private static final int PRETTY_LIMIT_BYTES = 8 * 1024 * 1024;
+
+    private final JTextArea textArea;
+    private final JLabel infoLabel;
+    private final JButton loadMoreButton;
+    private final JToggleButton prettyToggle;
+
+    private ByteArray body;
+    private String prettyText;
+    private long shown;
+    private SwingWorker<String, Void> prettyWorker;
+
+    public BodyPreview() {
+        super(new BorderLayout(5, 5));
+
+        textArea = new JTextArea();
+        textArea.setEditable(false);
+        textArea.setFont(new Font("Monospaced", Font.PLAIN, 11));
+
+        infoLabel = new JLabel(" ");
+        loadMoreButton = new JButton("Load More");
+        loadMoreButton.addActionListener(e -> appendWindow());
+        prettyToggle = new JToggleButton("Pretty");
+        prettyToggle.addActionListener(e -> togglePretty());
+
+        JPanel toolbar = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        toolbar.add(prettyToggle);
+        toolbar.add(loadMoreButton);
+        toolbar.add(infoLabel);
+
+        add(toolbar, BorderLayout.NORTH);
+        add(new JScrollPane(textArea), BorderLayout.CENTER);
+        setBody(null);
+    }
+
+    /**
+     * Show a new body; the same instance is ignored so re-parses don't reset the view
+     */
+    public void setBody(ByteArray newBody) {
+        if (newBody != null && newBody == body) {
+            return;
+        }
+        if (prettyWorker != null) {
+            prettyWorker.cancel(true);
+        }
+
+        body = newBody;
+        prettyText = null;
+        shown = 0;
+        prettyToggle.setSelected(false);
+        textArea.setText("");
+
+        if (body == null || body.length() == 0) {
+            textArea.setText("[No body]");
+            prettyToggle.setEnabled(false);
+            loadMoreButton.setEnabled(false);
+            infoLabel.setText(" ");
+            return;
+        }
+
+        prettyToggle.setEnabled(body.length() <= PRETTY_LIMIT_BYTES);
+        appendWindow();
+        textArea.setCaretPosition(0);
+    }
+
+    private void appendWindow() {
+        if (prettyText != null) {
+            int end = (int) Math.min(prettyText.length(), shown + WINDOW_BYTES);
+            textArea.append(prettyText.substring((int) shown, end));
+            shown = end;
+            updateInfo(prettyText.length(), "chars");
+            return;
+        }
+
+        if (body == null) {
+            return;
+        }
+
+        int start = (int) shown;
+        int windowEnd = (int) Math.min(body.length(), shown + WINDOW_BYTES);
+        // Don't split a UTF-8 sequence across windows. A sequence has at most 3 continuation
+        // bytes; binary bodies may have none before the boundary, so keep the full window then.
+        int end = windowEnd;
+        while (end < body.length() && end > start && windowEnd - end < 3 && (body.getByte(end) & 0xC0) == 0x80) {
+            end--;
+        }
+        if (end == start || (end < body.length() && (body.getByte(end) & 0xC0) == 0x80)) {
+            end = windowEnd;
+        }
+        textArea.append(new String(body.subArray(start, end).getBytes(), StandardCharsets.UTF_8));
+        shown = end;
+        updateInfo(body.length(), "bytes");
+    }
+
+    private void updateInfo(long total, String unit) {
+        boolean more = shown < total;
+        loadMoreButton.setEnabled(more);
+        infoLabel.setText(more ? "Showing " + shown + " of " + total + " " + unit : total + " " + unit);
+    }
+
+    private void togglePretty() {
+        if (body == null) {
+            return;
+        }
+
+        if (!prettyToggle.isSelected()) {
+            ByteArray current = body;
+            body = null;
+            setBody(current);
+            return;
+        }
+
+        ByteArray current = body;
+        prettyToggle.setEnabled(false);
+        infoLabel.setText("Formatting...");
+
+        prettyWorker = new SwingWorker<>() {
+            @Override
+            protected String doInBackground() {
+                return PrettyPrinter.format(new String(current.getBytes(), StandardCharsets.UTF_8));
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled() || current != body) {
+                    return;
+                }
+                prettyToggle.setEnabled(true);
+                try {
+                    String formatted = get();
+                    if (formatted == null) {
+                        prettyToggle.setSelected(false);
+                        updateInfo(body.length(), "bytes");
+                        infoLabel.setText(infoLabel.getText() + " (not JSON or XML)");
+                        return;
+                    }
+                    prettyText = formatted;
+                    shown = 0;
+                    textArea.setText("");
+                    appendWindow();
+                    textArea.setCaretPosition(0);
+                } catch (Exception e) {
+                    prettyToggle.setSelected(false);
+                    infoLabel.setText("✗ " + e.getMessage());
+                }
+            }
+        };
+        TaskManager.execute("pretty print", prettyWorker);
+    }
+}
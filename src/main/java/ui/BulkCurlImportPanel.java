@@ -0,0 +1,592 @@
+package ui;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import utils.CurlCommandSplitter;
+import utils.CurlParser;
+import utils.HarImporter;
+import utils.TaskManager;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.TableRowSorter;
+import java.awt.*;
+import java.awt.datatransfer.DataFlavor;
+import java.io.File;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Imports many curl commands at once (e.g. DevTools "Copy all as cURL"),
+ * parses them in parallel and sends the selected ones to Repeater, Intruder
+ * or the site map.
+ */
+public class BulkCurlImportPanel extends JPanel {
+    private static final int MAX_IN_FLIGHT_PER_THREAD = 8;
+    // Bodies are hashed a slice at a time so a large body isn't copied whole
+    private static final int DIGEST_CHUNK_BYTES = 64 * 1024;
+
+    private final MontoyaApi api;
+    private final BulkTableModel tableModel;
+    private final JTable table;
+    private final TableRowSorter<BulkTableModel> sorter;
+    private final JTextField filterField;
+    private final JComboBox<String> statusFilterCombo;
+    private final JCheckBox skipDuplicatesCheck;
+    private final JTextField groupNameField;
+    private final JProgressBar progressBar;
+    private final JLabel statusLabel;
+    private SwingWorker<Void, BulkEntry> importWorker;
+    private SwingWorker<Integer, String> harWorker;
+
+    /**
+     * One imported command: its parsed request or the parse error
+     */
+    private static class BulkEntry {
+        final int index;
+        final HttpRequest request;
+        final String method;
+        final String host;
+        final String path;
+        final String error;
+        boolean selected;
+
+        BulkEntry(int index, HttpRequest request, String error) {
+            this.index = index;
+            this.request = request;
+            this.error = error;
+            this.selected = request != null;
+            this.method = request != null ? request.method() : "";
+            this.host = request != null ? request.httpService().host() : "";
+            this.path = request != null ? request.path() : "";
+        }
+    }
+
+    private static class BulkTableModel extends AbstractTableModel {
+        private static final String[] COLUMNS = {"", "#", "Method", "Host", "Path", "Status"};
+        private final List<BulkEntry> entries = new ArrayList<>();
+
+        void addAll(List<BulkEntry> newEntries) {
+            int first = entries.size();
+            entries.addAll(newEntries);
+            fireTableRowsInserted(first, entries.size() - 1);
+        }
+
+        void clear() {
+            entries.clear();
+            fireTableDataChanged();
+        }
+
+        BulkEntry get(int row) {
+            return entries.get(row);
+        }
+
+        @Override
+        public int getRowCount() {
+            return entries.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return switch (column) {
+                case 0 -> Boolean.class;
+                case 1 -> Integer.class;
+                default -> String.class;
+            };
+        }
+
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return column == 0 && entries.get(row).request != null;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            BulkEntry entry = entries.get(row);
+            return switch (column) {
+                case 0 -> entry.selected;
+                case 1 -> entry.index;
+                case 2 -> entry.method;
+                case 3 -> entry.host;
+                case 4 -> entry.path;
+                default -> entry.error != null ? "✗ " + entry.error : "✓ Parsed";
+            };
+        }
+
+        @Override
+        public void setValueAt(Object value, int row, int column) {
+            if (column == 0) {
+                entries.get(row).selected = Boolean.TRUE.equals(value);
+                fireTableCellUpdated(row, column);
+            }
+        }
+    }
+
+    public BulkCurlImportPanel(MontoyaApi api) {
+        this.api = api;
+        setLayout(new BorderLayout(10, 10));
+        setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        JLabel titleLabel = new JLabel("Bulk Curl Import");
+        titleLabel.setFont(new Font("Arial", Font.BOLD, 16));
+        add(titleLabel, BorderLayout.NORTH);
+
+        tableModel = new BulkTableModel();
+        table = new JTable(tableModel);
+        table.setFillsViewportHeight(true);
+        table.setFont(new Font("Monospaced", Font.PLAIN, 11));
+        table.getColumnModel().getColumn(0).setMaxWidth(30);
+        table.getColumnModel().getColumn(1).setMaxWidth(60);
+        table.getColumnModel().getColumn(2).setMaxWidth(80);
+        sorter = new TableRowSorter<>(tableModel);
+        table.setRowSorter(sorter);
+
+        filterField = new JTextField(20);
+        statusFilterCombo = new JComboBox<>(new String[]{"All", "Parsed", "Errors"});
+        skipDuplicatesCheck = new JCheckBox("Skip duplicates", true);
+        groupNameField = new JTextField("Bulk", 10);
+        progressBar = new JProgressBar();
+        progressBar.setStringPainted(true);
+        statusLabel = new JLabel("Paste or open a file of curl commands");
+
+        // Import controls
+        JPanel importPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        importPanel.setBorder(BorderFactory.createTitledBorder("Import"));
+
+        JButton pasteBtn = new JButton("Import from Clipboard");
+        pasteBtn.addActionListener(e -> importFromClipboard());
+        importPanel.add(pasteBtn);
+
+        JButton fileBtn = new JButton("Import File...");
+        fileBtn.addActionListener(e -> importFromFile());
+        importPanel.add(fileBtn);
+
+        JButton harBtn = new JButton("Import HAR...");
+        harBtn.addActionListener(e -> importHar());
+        importPanel.add(harBtn);
+
+        JButton cancelBtn = new JButton("Cancel");
+        cancelBtn.addActionListener(e -> {
+            if (importWorker != null) {
+                importWorker.cancel(true);
+            }
+            if (harWorker != null) {
+                harWorker.cancel(true);
+            }
+        });
+        importPanel.add(cancelBtn);
+
+        importPanel.add(skipDuplicatesCheck);
+
+        // Filter controls
+        JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        filterPanel.setBorder(BorderFactory.createTitledBorder("Filter"));
+        filterPanel.add(new JLabel("Contains:"));
+        filterPanel.add(filterField);
+        filterPanel.add(statusFilterCombo);
+
+        filterField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                applyFilter();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                applyFilter();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                applyFilter();
+            }
+        });
+        statusFilterCombo.addActionListener(e -> applyFilter());
+
+        JPanel topPanel = new JPanel(new GridLayout(1, 2, 10, 10));
+        topPanel.add(importPanel);
+        topPanel.add(filterPanel);
+
+        JPanel centerPanel = new JPanel(new BorderLayout(5, 5));
+        centerPanel.add(topPanel, BorderLayout.NORTH);
+        centerPanel.add(new JScrollPane(table), BorderLayout.CENTER);
+
+        // Send controls
+        JPanel actionPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        actionPanel.setBorder(BorderFactory.createTitledBorder("Send Selected"));
+
+        JButton selectAllBtn = new JButton("Select Visible");
+        selectAllBtn.addActionListener(e -> setVisibleSelected(true));
+        actionPanel.add(selectAllBtn);
+
+        JButton selectNoneBtn = new JButton("Deselect Visible");
+        selectNoneBtn.addActionListener(e -> setVisibleSelected(false));
+        actionPanel.add(selectNoneBtn);
+
+        actionPanel.add(new JLabel("Tab group:"));
+        actionPanel.add(groupNameField);
+
+        JButton repeaterBtn = new JButton("Send to Repeater");
+        repeaterBtn.addActionListener(e -> sendSelected("Repeater"));
+        actionPanel.add(repeaterBtn);
+
+        JButton intruderBtn = new JButton("Send to Intruder");
+        intruderBtn.addActionListener(e -> sendSelected("Intruder"));
+        actionPanel.add(intruderBtn);
+
+        JButton siteMapBtn = new JButton("Add to Site Map");
+        siteMapBtn.addActionListener(e -> sendSelected("Site Map"));
+        actionPanel.add(siteMapBtn);
+
+        JPanel statusPanel = new JPanel(new BorderLayout(5, 5));
+        statusPanel.add(statusLabel, BorderLayout.WEST);
+        statusPanel.add(progressBar, BorderLayout.CENTER);
+
+        JPanel bottomPanel = new JPanel(new BorderLayout(5, 5));
+        bottomPanel.add(actionPanel, BorderLayout.CENTER);
+        bottomPanel.add(statusPanel, BorderLayout.SOUTH);
+        centerPanel.add(bottomPanel, BorderLayout.SOUTH);
+
+        add(centerPanel, BorderLayout.CENTER);
+    }
+
+    private void importFromClipboard() {
+        try {
+            String text = (String) Toolkit.getDefaultToolkit().getSystemClipboard().getData(DataFlavor.stringFlavor);
+            startImport(() -> new StringReader(text), "clipboard", text.length());
+        } catch (Exception e) {
+            statusLabel.setText("✗ Clipboard does not contain text");
+        }
+    }
+
+    private void importFromFile() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Select File with curl Commands");
+        if (fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+
+        File file = fileChooser.getSelectedFile();
+        startImport(() -> Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8), file.getName(), file.length());
+    }
+
+    /**
+     * Stream a HAR file straight into the site map or Repeater, without going through the table
+     */
+    private void importHar() {
+        if (harWorker != null && !harWorker.isDone()) {
+            statusLabel.setText("HAR import already running");
+            return;
+        }
+
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Select HAR File");
+        fileChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("HAR files", "har", "json"));
+        if (fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = fileChooser.getSelectedFile();
+
+        String[] options = {"Site Map", "Repeater"};
+        int choice = JOptionPane.showOptionDialog(this,
+                "Import all entries of " + file.getName() + " into:",
+                "Import HAR", JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE,
+                null, options, options[0]);
+        if (choice < 0) {
+            return;
+        }
+        HarImporter.Destination destination = choice == 0 ? HarImporter.Destination.SITE_MAP : HarImporter.Destination.REPEATER;
+        if (destination == HarImporter.Destination.REPEATER) {
+            int confirm = JOptionPane.showConfirmDialog(this,
+                    "Repeater opens a tab per entry, so only the first " + HarImporter.MAX_REPEATER_ENTRIES
+                            + " entries will be sent.\nUse Site Map to import the whole file. Continue?",
+                    "Import HAR", JOptionPane.YES_NO_OPTION);
+            if (confirm != JOptionPane.YES_OPTION) {
+                return;
+            }
+        }
+
+        progressBar.setValue(0);
+        statusLabel.setText("Importing " + file.getName() + "...");
+
+        harWorker = new SwingWorker<>() {
+            @Override
+            protected Integer doInBackground() throws Exception {
+                return new HarImporter(api).importHar(file.toPath(), destination, this::publish,
+                        this::setProgress, this::isCancelled);
+            }
+
+            @Override
+            protected void process(List<String> chunks) {
+                statusLabel.setText(chunks.get(chunks.size() - 1));
+                for (String message : chunks) {
+                    if (message.startsWith("✗")) {
+                        api.logging().logToError("[HAR Import] " + message);
+                    }
+                }
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    statusLabel.setText("✓ Imported " + get() + " HAR entries from " + file.getName());
+                    progressBar.setValue(100);
+                } catch (CancellationException e) {
+                    statusLabel.setText("HAR import cancelled");
+                } catch (Exception e) {
+                    statusLabel.setText("✗ HAR import failed: " + e.getMessage());
+                    api.logging().logToError("HAR import failed: " + e.getMessage());
+                }
+            }
+        };
+        harWorker.addPropertyChangeListener(evt -> {
+            if ("progress".equals(evt.getPropertyName())) {
+                progressBar.setValue((Integer) evt.getNewValue());
+            }
+        });
+        TaskManager.execute("har import", harWorker);
+    }
+
+    private interface ReaderSource {
+        Reader open() throws Exception;
+    }
+
+    private void startImport(ReaderSource source, String sourceName, long totalChars) {
+        if (importWorker != null && !importWorker.isDone()) {
+            statusLabel.setText("Import already running");
+            return;
+        }
+
+        tableModel.clear();
+        progressBar.setValue(0);
+        statusLabel.setText("Importing from " + sourceName + "...");
+        boolean skipDuplicates = skipDuplicatesCheck.isSelected();
+        int threads = TaskManager.cpuThreads();
+
+        importWorker = new SwingWorker<>() {
+            // Counted on the worker thread, shown on the Swing thread
+            private final AtomicInteger parsed = new AtomicInteger();
+            private final AtomicInteger failed = new AtomicInteger();
+            private final AtomicInteger duplicates = new AtomicInteger();
+
+            @Override
+            protected Void doInBackground() throws Exception {
+                CompletionService<BulkEntry> completion = new ExecutorCompletionService<>(TaskManager.cpuExecutor());
+                Set<Future<BulkEntry>> pending = new HashSet<>();
+                Set<String> seen = new HashSet<>();
+                int index = 0;
+
+                try (CurlCommandSplitter splitter = new CurlCommandSplitter(source.open())) {
+                    String command;
+                    while ((command = splitter.next()) != null && !isCancelled()) {
+                        int commandIndex = ++index;
+                        String curl = command;
+                        pending.add(completion.submit(() -> parseEntry(commandIndex, curl)));
+
+                        // Bound the number of commands held in memory at once
+                        while (pending.size() >= threads * MAX_IN_FLIGHT_PER_THREAD) {
+                            collect(take(completion, pending), seen);
+                        }
+
+                        if (totalChars > 0) {
+                            setProgress((int) Math.min(99, splitter.getCharsRead() * 100 / totalChars));
+                        }
+                    }
+
+                    while (!pending.isEmpty() && !isCancelled()) {
+                        collect(take(completion, pending), seen);
+                    }
+                } finally {
+                    // The pool is shared, so only this import's parses are cancelled
+                    pending.forEach(future -> future.cancel(true));
+                }
+                return null;
+            }
+
+            private void collect(BulkEntry entry, Set<String> seen) {
+                if (entry.request != null) {
+                    if (skipDuplicates && !seen.add(entry.method + " " + entry.request.url() + " "
+                            + bodyDigest(entry.request.body()))) {
+                        duplicates.incrementAndGet();
+                        return;
+                    }
+                    parsed.incrementAndGet();
+                } else {
+                    failed.incrementAndGet();
+                }
+                publish(entry);
+            }
+
+            @Override
+            protected void process(List<BulkEntry> chunks) {
+                tableModel.addAll(chunks);
+                statusLabel.setText(parsed.get() + " parsed, " + failed.get() + " failed, " + duplicates.get() + " duplicates");
+            }
+
+            @Override
+            protected void done() {
+                progressBar.setValue(100);
+                try {
+                    get();
+                    statusLabel.setText("✓ " + parsed.get() + " parsed, " + failed.get() + " failed, "
+                            + duplicates.get() + " duplicates skipped");
+                } catch (CancellationException e) {
+                    statusLabel.setText("Import cancelled: " + parsed.get() + " parsed");
+                } catch (Exception e) {
+                    statusLabel.setText("✗ Import failed: " + e.getMessage());
+                    api.logging().logToError("Bulk curl import failed: " + e.getMessage());
+                }
+            }
+        };
+        importWorker.addPropertyChangeListener(evt -> {
+            if ("progress".equals(evt.getPropertyName())) {
+                progressBar.setValue((Integer) evt.getNewValue());
+            }
+        });
+        TaskManager.execute("bulk curl import", importWorker);
+    }
+
+    private static BulkEntry take(CompletionService<BulkEntry> completion, Set<Future<BulkEntry>> pending) throws Exception {
+        Future<BulkEntry> future = completion.take();
+        pending.remove(future);
+        return future.get();
+    }
+
+    /**
+     * The body's length and SHA-256, for telling duplicate requests apart
+     */
+    private static String bodyDigest(ByteArray body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (int start = 0; start < body.length(); start += DIGEST_CHUNK_BYTES) {
+                digest.update(body.subArray(start, Math.min(body.length(), start + DIGEST_CHUNK_BYTES)).getBytes());
+            }
+            return body.length() + ":" + HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private BulkEntry parseEntry(int index, String command) {
+        try {
+            return new BulkEntry(index, new CurlParser().parse(command, api), null);
+        } catch (Exception e) {
+            return new BulkEntry(index, null, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+    }
+
+    private void applyFilter() {
+        String text = filterField.getText().trim().toLowerCase();
+        String status = (String) statusFilterCombo.getSelectedItem();
+
+        sorter.setRowFilter(new RowFilter<>() {
+            @Override
+            public boolean include(Entry<? extends BulkTableModel, ? extends Integer> entry) {
+                BulkEntry bulkEntry = entry.getModel().get(entry.getIdentifier());
+                if ("Parsed".equals(status) && bulkEntry.request == null) {
+                    return false;
+                }
+                if ("Errors".equals(status) && bulkEntry.request != null) {
+                    return false;
+                }
+                return text.isEmpty()
+                        || bulkEntry.method.toLowerCase().contains(text)
+                        || bulkEntry.host.toLowerCase().contains(text)
+                        || bulkEntry.path.toLowerCase().contains(text);
+            }
+        });
+    }
+
+    private void setVisibleSelected(boolean selected) {
+        for (int viewRow = 0; viewRow < table.getRowCount(); viewRow++) {
+            BulkEntry entry = tableModel.get(table.convertRowIndexToModel(viewRow));
+            if (entry.request != null) {
+                entry.selected = selected;
+            }
+        }
+        tableModel.fireTableDataChanged();
+    }
+
+    private void sendSelected(String destination) {
+        List<BulkEntry> selected = new ArrayList<>();
+        for (int viewRow = 0; viewRow < table.getRowCount(); viewRow++) {
+            BulkEntry entry = tableModel.get(table.convertRowIndexToModel(viewRow));
+            if (entry.selected && entry.request != null) {
+                selected.add(entry);
+            }
+        }
+
+        if (selected.isEmpty()) {
+            statusLabel.setText("No requests selected");
+            return;
+        }
+        // Repeater and Intruder open a tab per request, so they get the same cap as HAR imports
+        if (!destination.equals("Site Map") && selected.size() > HarImporter.MAX_REPEATER_ENTRIES) {
+            int confirm = JOptionPane.showConfirmDialog(this,
+                    destination + " opens a tab per request, so only the first " + HarImporter.MAX_REPEATER_ENTRIES
+                            + " of " + selected.size() + " will be sent.\nUse Site Map to send them all. Continue?",
+                    "Send to " + destination, JOptionPane.YES_NO_OPTION);
+            if (confirm != JOptionPane.YES_OPTION) {
+                return;
+            }
+            selected.subList(HarImporter.MAX_REPEATER_ENTRIES, selected.size()).clear();
+        }
+
+        String group = groupNameField.getText().trim().isEmpty() ? "Bulk" : groupNameField.getText().trim();
+        statusLabel.setText("Sending " + selected.size() + " request(s) to " + destination + "...");
+
+        SwingWorker<Integer, Void> worker = new SwingWorker<>() {
+            @Override
+            protected Integer doInBackground() {
+                int sent = 0;
+                for (BulkEntry entry : selected) {
+                    try {
+                        String tabName = group + " #" + entry.index + " " + entry.host;
+                        switch (destination) {
+                            case "Repeater" -> api.repeater().sendToRepeater(entry.request, tabName);
+                            case "Intruder" -> api.intruder().sendToIntruder(entry.request, tabName);
+                            default -> api.siteMap().add(HttpRequestResponse.httpRequestResponse(entry.request, null));
+                        }
+                        sent++;
+                    } catch (Exception e) {
+                        api.logging().logToError("Error sending #" + entry.index + " to " + destination + ": " + e.getMessage());
+                    }
+                }
+                return sent;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    statusLabel.setText("✓ Sent " + get() + " request(s) to " + destination);
+                    api.logging().logToOutput("Bulk import: sent " + get() + " request(s) to " + destination);
+                } catch (Exception e) {
+                    statusLabel.setText("✗ Error: " + e.getMessage());
+                }
+            }
+        };
+        TaskManager.execute("send selected", worker);
+    }
+}
@@ -0,0 +1,123 @@
+package ui;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.ui.contextmenu.ContextMenuEvent;
+import burp.api.montoya.ui.contextmenu.ContextMenuItemsProvider;
+import utils.CurlExporter;
+import utils.TaskManager;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.datatransfer.StringSelection;
+import java.io.File;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Context menu entries that turn the selected requests into curl commands,
+ * either on the clipboard or streamed to a file.
+ */
+public class CurlExportMenuProvider implements ContextMenuItemsProvider {
+    private final MontoyaApi api;
+
+    public CurlExportMenuProvider(MontoyaApi api) {
+        this.api = api;
+    }
+
+    @Override
+    public List<Component> provideMenuItems(ContextMenuEvent event) {
+        List<HttpRequest> requests = new ArrayList<>();
+        for (HttpRequestResponse item : event.selectedRequestResponses()) {
+            requests.add(item.request());
+        }
+        if (requests.isEmpty()) {
+            event.messageEditorRequestResponse().ifPresent(editor -> requests.add(editor.requestResponse().request()));
+        }
+        if (requests.isEmpty()) {
+            return List.of();
+        }
+
+        String suffix = requests.size() > 1 ? " (" + requests.size() + ")" : "";
+
+        JMenuItem copyItem = new JMenuItem("BMA: Copy as curl" + suffix);
+        copyItem.addActionListener(e -> copyToClipboard(requests));
+
+        JMenuItem exportItem = new JMenuItem("BMA: Export as curl to file..." + suffix);
+        exportItem.addActionListener(e -> exportToFile(requests));
+
+        return List.of(copyItem, exportItem);
+    }
+
+    private void copyToClipboard(List<HttpRequest> requests) {
+        SwingWorker<String, Void> worker = new SwingWorker<>() {
+            @Override
+            protected String doInBackground() throws Exception {
+                // Binary bodies are inlined as $'...' so the pasted commands don't depend on files
+                CurlExporter exporter = new CurlExporter();
+                StringWriter out = new StringWriter();
+                for (HttpRequest request : requests) {
+                    exporter.write(request, out);
+                }
+                return out.toString();
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    Toolkit.getDefaultToolkit().getSystemClipboard().setContents(new StringSelection(get()), null);
+                    api.logging().logToOutput("Copied " + requests.size() + " request(s) as curl");
+                } catch (Exception e) {
+                    api.logging().logToError("Error copying as curl: " + e.getMessage());
+                }
+            }
+        };
+        TaskManager.execute("copy to clipboard", worker);
+    }
+
+    private void exportToFile(List<HttpRequest> requests) {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Export as curl");
+        fileChooser.setSelectedFile(new File("requests.sh"));
+        if (fileChooser.showSaveDialog(api.userInterface().swingUtils().suiteFrame()) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+
+        Path file = fileChooser.getSelectedFile().toPath();
+        Path bodyDir = file.resolveSibling(file.getFileName() + "-bodies");
+
+        SwingWorker<Void, Void> worker = new SwingWorker<>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                CurlExporter exporter = new CurlExporter(bodyDir);
+                try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                    out.write("#!/bin/sh\n");
+                    for (HttpRequest request : requests) {
+                        exporter.write(request, out);
+                        out.write('\n');
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    get();
+                    api.logging().logToOutput("Exported " + requests.size() + " request(s) as curl to " + file);
+                } catch (Exception e) {
+                    api.logging().logToError("Error exporting as curl: " + e.getMessage());
+                    JOptionPane.showMessageDialog(api.userInterface().swingUtils().suiteFrame(), "Error exporting as curl:\n" + e.getMessage(),
+                            "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        TaskManager.execute("export to file", worker);
+    }
+}
@@ -0,0 +1,218 @@
+package ui;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import utils.CurlParser;
+import utils.Diagnostics;
+import utils.TaskManager;
+
+import javax.swing.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Parses curl commands typed into a text area off the Swing thread.
+ * Keystrokes are debounced, a newer parse cancels the previous one, and recent
+ * results (including their rendered preview) are kept in a small LRU cache keyed
+ * by a SHA-256 digest of the command, so a large paste isn't held twice or rehashed on the EDT.
+ */
+public class CurlParseScheduler<T> {
+    private static final int CACHE_SIZE = 16;
+    // Requests with larger bodies aren't cached, so a few big pastes can't pin hundreds of MB
+    private static final int MAX_CACHED_BODY_BYTES = 1024 * 1024;
+
+    public interface Listener<T> {
+        /**
+         * Called on the Swing thread with the parsed request and its rendered form
+         */
+        void parsed(HttpRequest request, T rendered);
+
+        /**
+         * Called on the Swing thread when the command could not be parsed
+         */
+        void failed(String error);
+
+        /**
+         * Called on the Swing thread when the input is empty
+         */
+        void cleared();
+    }
+
+    private record Key(int length, String sha256) {
+        // SHA-256 over the trimmed command, so distinct commands can't share a cached request; runs on the worker thread
+        static Key of(String command) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(command.getBytes(StandardCharsets.UTF_8));
+                return new Key(command.length(), HexFormat.of().formatHex(digest));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static class Result<T> {
+        final HttpRequest request;
+        final T rendered;
+        final String error;
+
+        Result(HttpRequest request, T rendered, String error) {
+            this.request = request;
+            this.rendered = rendered;
+            this.error = error;
+        }
+    }
+
+    private final MontoyaApi api;
+    private final Function<HttpRequest, T> renderer;
+    private final Listener<T> listener;
+    private final Timer debounceTimer;
+    // Read and written from parse workers
+    private final Map<Key, Result<T>> cache = Collections.synchronizedMap(new LinkedHashMap<>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Result<T>> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    });
+    private Supplier<String> pendingInput;
+    private SwingWorker<Result<T>, Void> currentWorker;
+    private Runnable afterParse;
+    private long generation = 0;
+
+    /**
+     * @param renderer turns a parsed request into what the listener displays; runs off the Swing thread
+     */
+    public CurlParseScheduler(MontoyaApi api, int delayMs, Function<HttpRequest, T> renderer, Listener<T> listener) {
+        this.api = api;
+        this.renderer = renderer;
+        this.listener = listener;
+        this.debounceTimer = TaskManager.timer(delayMs, e -> parseNow(pendingInput.get()));
+        this.debounceTimer.setRepeats(false);
+    }
+
+    /**
+     * Parse the input once it has not changed for the debounce delay. Call on the Swing thread.
+     */
+    public void schedule(Supplier<String> input) {
+        pendingInput = input;
+        debounceTimer.restart();
+    }
+
+    /**
+     * Run {@code action} once the listener has seen the current input: immediately if nothing is
+     * pending, otherwise after the debounced or running parse delivers. Call on the Swing thread.
+     */
+    public void flush(Runnable action) {
+        if (debounceTimer.isRunning()) {
+            parseNow(pendingInput.get());
+        }
+        if (currentWorker == null) {
+            action.run();
+        } else {
+            afterParse = action;
+        }
+    }
+
+    /**
+     * Parse immediately, cancelling any pending or running parse. Call on the Swing thread.
+     */
+    public void parseNow(String input) {
+        debounceTimer.stop();
+        long myGeneration = ++generation;
+
+        if (currentWorker != null) {
+            currentWorker.cancel(true);
+            currentWorker = null;
+        }
+
+        if (input.isBlank()) {
+            listener.cleared();
+            runAfterParse();
+            return;
+        }
+
+        SwingWorker<Result<T>, Void> worker = new SwingWorker<>() {
+            @Override
+            protected Result<T> doInBackground() {
+                String command = input.trim();
+                Key key = Key.of(command);
+                Result<T> cached = cache.get(key);
+                if (cached != null) {
+                    Diagnostics.cacheHit("curl-preview");
+                    return cached;
+                }
+                Diagnostics.cacheMiss("curl-preview");
+
+                Result<T> result;
+                try {
+                    HttpRequest request = new CurlParser().parse(command, api);
+                    if (isCancelled()) {
+                        return null;
+                    }
+                    result = new Result<>(request, renderer.apply(request), null);
+                } catch (Exception e) {
+                    result = new Result<>(null, null, e.getMessage());
+                }
+                if (result.request == null || result.request.body().length() <= MAX_CACHED_BODY_BYTES) {
+                    cache.put(key, result);
+                }
+                return result;
+            }
+
+            @Override
+            protected void done() {
+                // A newer keystroke superseded this parse
+                if (isCancelled() || myGeneration != generation) {
+                    return;
+                }
+                currentWorker = null;
+                try {
+                    Result<T> result = get();
+                    if (result != null) {
+                        deliver(result);
+                    }
+                } catch (Exception e) {
+                    listener.failed(e.getMessage());
+                }
+                runAfterParse();
+            }
+        };
+        currentWorker = worker;
+        TaskManager.execute("curl preview parse", worker);
+    }
+
+    /**
+     * Stop the debounce timer and cancel any running parse
+     */
+    public void cancel() {
+        debounceTimer.stop();
+        generation++;
+        afterParse = null;
+        if (currentWorker != null) {
+            currentWorker.cancel(true);
+            currentWorker = null;
+        }
+    }
+
+    private void runAfterParse() {
+        Runnable action = afterParse;
+        afterParse = null;
+        if (action != null) {
+            action.run();
+        }
+    }
+
+    private void deliver(Result<T> result) {
+        if (result.error == null) {
+            listener.parsed(result.request, result.rendered);
+        } else {
+            listener.failed(result.error);
+        }
+    }
+}
@@ -2,6 +2,8 @@ package ui;
 
 import burp.api.montoya.MontoyaApi;
 import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.ui.editor.EditorOptions;
+import burp.api.montoya.ui.editor.HttpRequestEditor;
 import utils.CurlParser;
 
 import javax.swing.*;
@@ -14,9 +16,12 @@ import java.awt.event.ActionListener;
 public class CurlPreviewPanel extends JPanel {
     private MontoyaApi api;
     private JTextArea curlTextArea;
-    private JTextArea previewTextArea;
+    private HttpRequestEditor requestEditor;
+    private JTextArea messageTextArea;
+    private JPanel previewCards;
     private JButton sendToRepeaterButton;
     private HttpRequest lastParsedRequest;
+    private CurlParseScheduler<HttpRequest> parseScheduler;
 
     public CurlPreviewPanel(MontoyaApi api) {
         this.api = api;
@@ -46,6 +51,30 @@ public class CurlPreviewPanel extends JPanel {
         curlTextArea.setWrapStyleWord(true);
         curlTextArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
 
+        parseScheduler = new CurlParseScheduler<>(api, 250, request -> request,
+                new CurlParseScheduler.Listener<>() {
+                    @Override
+                    public void parsed(HttpRequest request, HttpRequest preview) {
+                        lastParsedRequest = request;
+                        showRequest(request);
+                        sendToRepeaterButton.setEnabled(true);
+                    }
+
+                    @Override
+                    public void failed(String error) {
+                        showMessage("Error parsing cURL command:\n" + error);
+                        sendToRepeaterButton.setEnabled(false);
+                        lastParsedRequest = null;
+                    }
+
+                    @Override
+                    public void cleared() {
+                        showMessage("");
+                        sendToRepeaterButton.setEnabled(false);
+                        lastParsedRequest = null;
+                    }
+                });
+
         // Add real-time parsing listener
         curlTextArea.getDocument().addDocumentListener(new DocumentListener() {
             @Override
@@ -74,12 +103,16 @@ public class CurlPreviewPanel extends JPanel {
         JLabel previewLabel = new JLabel("Burp Repeater Format Preview:");
         previewPanel.add(previewLabel, BorderLayout.NORTH);
 
-        previewTextArea = new JTextArea();
-        previewTextArea.setEditable(false);
-        previewTextArea.setFont(new Font("Monospaced", Font.PLAIN, 11));
-        // Don't set background - let it use default theme colors
-        JScrollPane previewScrollPane = new JScrollPane(previewTextArea);
-        previewPanel.add(previewScrollPane, BorderLayout.CENTER);
+        // Burp's editor lays out only what is visible, so large bodies preview cheaply
+        requestEditor = api.userInterface().createHttpRequestEditor(EditorOptions.READ_ONLY);
+        messageTextArea = new JTextArea();
+        messageTextArea.setEditable(false);
+        messageTextArea.setFont(new Font("Monospaced", Font.PLAIN, 11));
+
+        previewCards = new JPanel(new CardLayout());
+        previewCards.add(requestEditor.uiComponent(), "editor");
+        previewCards.add(new JScrollPane(messageTextArea), "message");
+        previewPanel.add(previewCards, BorderLayout.CENTER);
 
         splitPane.setRightComponent(previewPanel);
 
@@ -93,7 +126,8 @@ public class CurlPreviewPanel extends JPanel {
         sendToRepeaterButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                sendToRepeater();
+                // Send what the text area holds now, not the last debounced parse
+                parseScheduler.flush(CurlPreviewPanel.this::sendToRepeater);
             }
         });
         buttonPanel.add(sendToRepeaterButton);
@@ -102,31 +136,7 @@ public class CurlPreviewPanel extends JPanel {
     }
 
     private void parseCurlCommandSilently() {
-        String curlCommand = curlTextArea.getText().trim();
-
-        if (curlCommand.isEmpty()) {
-            previewTextArea.setText("");
-            sendToRepeaterButton.setEnabled(false);
-            lastParsedRequest = null;
-            return;
-        }
-
-        try {
-            CurlParser parser = new CurlParser();
-            lastParsedRequest = parser.parse(curlCommand, api);
-
-            // Display the request in Burp format
-            String requestPreview = formatRequestForDisplay(lastParsedRequest);
-            previewTextArea.setText(requestPreview);
-            sendToRepeaterButton.setEnabled(true);
-
-            api.logging().logToOutput("✓ Successfully parsed curl command");
-
-        } catch (Exception ex) {
-            previewTextArea.setText("Error parsing cURL command:\n" + ex.getMessage());
-            sendToRepeaterButton.setEnabled(false);
-            lastParsedRequest = null;
-        }
+        parseScheduler.schedule(curlTextArea::getText);
     }
 
     private void parseCurlCommand() {
@@ -140,22 +150,24 @@ public class CurlPreviewPanel extends JPanel {
             return;
         }
 
+        parseScheduler.cancel();
+
         try {
             api.logging().logToOutput("Parsing curl command...");
             CurlParser parser = new CurlParser();
             lastParsedRequest = parser.parse(curlCommand, api);
 
             // Display the request in Burp format
-            String requestPreview = formatRequestForDisplay(lastParsedRequest);
-            previewTextArea.setText(requestPreview);
+            showRequest(lastParsedRequest);
             sendToRepeaterButton.setEnabled(true);
 
             api.logging().logToOutput("✓ Successfully parsed curl command");
 
         } catch (Exception ex) {
             api.logging().logToError("✗ Error: " + ex.getMessage());
-            previewTextArea.setText("Error parsing cURL command:\n" + ex.getMessage());
+            showMessage("Error parsing cURL command:\n" + ex.getMessage());
             sendToRepeaterButton.setEnabled(false);
+            lastParsedRequest = null;
 
             JOptionPane.showMessageDialog(this,
                 "Error parsing cURL command:\n" + ex.getMessage(),
@@ -164,20 +176,15 @@ public class CurlPreviewPanel extends JPanel {
         }
     }
 
-    private String formatRequestForDisplay(HttpRequest request) {
-        StringBuilder display = new StringBuilder();
-
-        // Add service info
-        display.append("═══════════════════════════════════════════════════════════════\n");
-        display.append("Target: ").append(request.httpService().host());
-        display.append(":").append(request.httpService().port());
-        display.append(" [").append(request.httpService().secure() ? "HTTPS" : "HTTP").append("]\n");
-        display.append("═══════════════════════════════════════════════════════════════\n\n");
-
-        // Add the request
-        display.append(request.toString());
+    private void showRequest(HttpRequest request) {
+        requestEditor.setRequest(request);
+        ((CardLayout) previewCards.getLayout()).show(previewCards, "editor");
+    }
 
-        return display.toString();
+    private void showMessage(String message) {
+        messageTextArea.setText(message);
+        messageTextArea.setCaretPosition(0);
+        ((CardLayout) previewCards.getLayout()).show(previewCards, "message");
     }
 
     private void sendToRepeater() {
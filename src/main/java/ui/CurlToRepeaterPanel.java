@@ -2,6 +2,8 @@ package ui;
 
 import burp.api.montoya.MontoyaApi;
 import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.ui.editor.EditorOptions;
+import burp.api.montoya.ui.editor.HttpRequestEditor;
 import utils.CurlParser;
 
 import javax.swing.*;
@@ -12,13 +14,34 @@ import java.awt.*;
 public class CurlToRepeaterPanel extends JPanel {
     private final MontoyaApi api;
     private final JTextArea curlInput;
-    private final JTextArea previewOutput;
-    private final JTextArea rawTextArea;
+    private final HttpRequestEditor requestEditor;
+    private final JTextArea messageTextArea;
+    private final JPanel rawPanel;
     private final JTextArea headersTextArea;
-    private final JTextArea bodyTextArea;
-    private final JTextArea logOutput;
+    private final BodyPreview bodyPreview;
+    private final LogView logView;
+    private static final String EDITOR_CARD = "editor";
+    private static final String MESSAGE_CARD = "message";
+    private static final String RENDERED_TEXT = "bma.renderedText";
+    private final CurlParseScheduler<InspectorView> parseScheduler;
     private HttpRequest lastParsedRequest;
 
+    /**
+     * What the inspector shows: a parsed request, or a message when there is none.
+     * Raw and body views read from the request itself, so its text is never copied here.
+     */
+    private static class InspectorView {
+        final HttpRequest request;
+        final String headers;
+        final String message;
+
+        InspectorView(HttpRequest request, String headers, String message) {
+            this.request = request;
+            this.headers = headers;
+            this.message = message;
+        }
+    }
+
     public CurlToRepeaterPanel(MontoyaApi api) {
         this.api = api;
         setLayout(new BorderLayout(10, 10));
@@ -42,27 +65,45 @@ public class CurlToRepeaterPanel extends JPanel {
         curlInput.setFont(new Font("Monospaced", Font.PLAIN, 12));
 
         // Initialize these before using in lambdas
-        previewOutput = new JTextArea(15, 50);
-        previewOutput.setEditable(false);
-        previewOutput.setFont(new Font("Monospaced", Font.PLAIN, 11));
-        // Don't set background - let it use default theme colors
+        logView = new LogView("Curl to Repeater");
 
-        logOutput = new JTextArea(5, 50);
-        logOutput.setEditable(false);
-        logOutput.setFont(new Font("Monospaced", Font.PLAIN, 11));
+        // Burp's own editor handles large messages, highlighting and pretty-printing
+        requestEditor = api.userInterface().createHttpRequestEditor(EditorOptions.READ_ONLY);
 
-        // Initialize inspector text areas
-        rawTextArea = new JTextArea();
-        rawTextArea.setEditable(false);
-        rawTextArea.setFont(new Font("Monospaced", Font.PLAIN, 11));
+        messageTextArea = new JTextArea();
+        messageTextArea.setEditable(false);
+        messageTextArea.setFont(new Font("Monospaced", Font.PLAIN, 11));
+
+        rawPanel = new JPanel(new CardLayout());
+        rawPanel.add(requestEditor.uiComponent(), EDITOR_CARD);
+        rawPanel.add(new JScrollPane(messageTextArea), MESSAGE_CARD);
 
         headersTextArea = new JTextArea();
         headersTextArea.setEditable(false);
         headersTextArea.setFont(new Font("Monospaced", Font.PLAIN, 11));
 
-        bodyTextArea = new JTextArea();
-        bodyTextArea.setEditable(false);
-        bodyTextArea.setFont(new Font("Monospaced", Font.PLAIN, 11));
+        bodyPreview = new BodyPreview();
+
+        parseScheduler = new CurlParseScheduler<>(api, 250, this::renderInspectorView,
+                new CurlParseScheduler.Listener<>() {
+                    @Override
+                    public void parsed(HttpRequest request, InspectorView view) {
+                        lastParsedRequest = request;
+                        showInspectorView(view);
+                    }
+
+                    @Override
+                    public void failed(String error) {
+                        showInspectorView(new InspectorView(null, "", "Error parsing cURL command:\n" + error));
+                        lastParsedRequest = null;
+                    }
+
+                    @Override
+                    public void cleared() {
+                        showInspectorView(new InspectorView(null, "", ""));
+                        lastParsedRequest = null;
+                    }
+                });
 
         // Add real-time parsing listener
         curlInput.getDocument().addDocumentListener(new DocumentListener() {
@@ -88,16 +129,15 @@ public class CurlToRepeaterPanel extends JPanel {
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
 
         JButton sendToRepeaterBtn = new JButton("Send to Repeater");
-        sendToRepeaterBtn.addActionListener(e -> sendToRepeater());
+        // Send what the text area holds now, not the last debounced parse
+        sendToRepeaterBtn.addActionListener(e -> parseScheduler.flush(this::sendToRepeater));
 
         JButton clearBtn = new JButton("Clear");
         clearBtn.addActionListener(e -> {
             curlInput.setText("");
-            previewOutput.setText("");
-            rawTextArea.setText("");
-            headersTextArea.setText("");
-            bodyTextArea.setText("");
-            logOutput.setText("");
+            parseScheduler.cancel();
+            showInspectorView(new InspectorView(null, "", ""));
+            logView.clear();
             lastParsedRequest = null;
         });
 
@@ -118,16 +158,14 @@ public class CurlToRepeaterPanel extends JPanel {
         JTabbedPane inspectorTabs = new JTabbedPane();
 
         // Raw tab
-        JScrollPane rawScroll = new JScrollPane(rawTextArea);
-        inspectorTabs.addTab("Raw", rawScroll);
+        inspectorTabs.addTab("Raw", rawPanel);
 
         // Headers tab
         JScrollPane headersScroll = new JScrollPane(headersTextArea);
         inspectorTabs.addTab("Headers", headersScroll);
 
         // Body tab
-        JScrollPane bodyScroll = new JScrollPane(bodyTextArea);
-        inspectorTabs.addTab("Body", bodyScroll);
+        inspectorTabs.addTab("Body", bodyPreview);
 
         previewPanel.add(inspectorTabs, BorderLayout.CENTER);
 
@@ -137,8 +175,7 @@ public class CurlToRepeaterPanel extends JPanel {
         JPanel logPanel = new JPanel(new BorderLayout(5, 5));
         logPanel.add(new JLabel("Log:"), BorderLayout.NORTH);
 
-        JScrollPane logScroll = new JScrollPane(logOutput);
-        logPanel.add(logScroll, BorderLayout.CENTER);
+        logPanel.add(logView, BorderLayout.CENTER);
 
         bottomSplitPane.setBottomComponent(logPanel);
 
@@ -148,42 +185,7 @@ public class CurlToRepeaterPanel extends JPanel {
     }
 
     private void parseAndPreviewSilently() {
-        String curlCommand = curlInput.getText().trim();
-
-        if (curlCommand.isEmpty()) {
-            previewOutput.setText("");
-            rawTextArea.setText("");
-            headersTextArea.setText("");
-            bodyTextArea.setText("");
-            lastParsedRequest = null;
-            return;
-        }
-
-        try {
-            CurlParser parser = new CurlParser();
-            lastParsedRequest = parser.parse(curlCommand, api);
-
-            if (lastParsedRequest != null) {
-                // Update preview output
-                String preview = formatRequestForDisplay(lastParsedRequest);
-                previewOutput.setText(preview);
-
-                // Update inspector tabs
-                updateInspectorTabs(lastParsedRequest);
-            } else {
-                previewOutput.setText("");
-                rawTextArea.setText("");
-                headersTextArea.setText("");
-                bodyTextArea.setText("");
-            }
-        } catch (Exception e) {
-            String errorMsg = "Error parsing cURL command:\n" + e.getMessage();
-            previewOutput.setText(errorMsg);
-            rawTextArea.setText(errorMsg);
-            headersTextArea.setText("");
-            bodyTextArea.setText("");
-            lastParsedRequest = null;
-        }
+        parseScheduler.schedule(curlInput::getText);
     }
 
     private void parseAndPreview() {
@@ -201,39 +203,31 @@ public class CurlToRepeaterPanel extends JPanel {
             lastParsedRequest = parser.parse(curlCommand, api);
 
             if (lastParsedRequest != null) {
-                // Display the request in Burp format
-                String preview = formatRequestForDisplay(lastParsedRequest);
-                previewOutput.setText(preview);
-
-                // Update inspector tabs
+                // Display the request in Burp format and update inspector tabs
                 updateInspectorTabs(lastParsedRequest);
 
                 log("✓ Successfully parsed curl command");
                 log("Ready to send to Repeater");
             } else {
                 log("✗ Failed to parse curl command");
-                previewOutput.setText("");
-                rawTextArea.setText("");
-                headersTextArea.setText("");
-                bodyTextArea.setText("");
+                showInspectorView(new InspectorView(null, "", ""));
             }
         } catch (Exception e) {
             log("✗ Error: " + e.getMessage());
             api.logging().logToError("Error parsing curl: " + e.getMessage());
-            String errorMsg = "Error parsing cURL command:\n" + e.getMessage();
-            previewOutput.setText(errorMsg);
-            rawTextArea.setText(errorMsg);
-            headersTextArea.setText("");
-            bodyTextArea.setText("");
+            showInspectorView(new InspectorView(null, "", "Error parsing cURL command:\n" + e.getMessage()));
             lastParsedRequest = null;
         }
     }
 
     private void updateInspectorTabs(HttpRequest request) {
-        // Raw tab - full request
-        rawTextArea.setText(request.toString());
+        showInspectorView(renderInspectorView(request));
+    }
 
-        // Headers tab - just headers
+    /**
+     * Build the headers text. Safe to call off the Swing thread.
+     */
+    private InspectorView renderInspectorView(HttpRequest request) {
         StringBuilder headersBuilder = new StringBuilder();
         headersBuilder.append("Target: ").append(request.httpService().host())
                      .append(":").append(request.httpService().port())
@@ -242,31 +236,37 @@ public class CurlToRepeaterPanel extends JPanel {
         request.headers().forEach(header -> {
             headersBuilder.append(header.name()).append(": ").append(header.value()).append("\n");
         });
-        headersTextArea.setText(headersBuilder.toString());
 
-        // Body tab - just body
-        String body = request.bodyToString();
-        if (body != null && !body.isEmpty()) {
-            bodyTextArea.setText(body);
+        return new InspectorView(request, headersBuilder.toString(), "");
+    }
+
+    /**
+     * Update only the inspector tabs whose content changed, so unchanged large bodies aren't laid out again
+     */
+    private void showInspectorView(InspectorView view) {
+        CardLayout cards = (CardLayout) rawPanel.getLayout();
+        if (view.request != null) {
+            if (requestEditor.getRequest() != view.request) {
+                requestEditor.setRequest(view.request);
+            }
+            cards.show(rawPanel, EDITOR_CARD);
+            bodyPreview.setBody(view.request.body());
         } else {
-            bodyTextArea.setText("[No body]");
+            setTextIfChanged(messageTextArea, view.message);
+            cards.show(rawPanel, MESSAGE_CARD);
+            bodyPreview.setBody(null);
         }
+        setTextIfChanged(headersTextArea, view.headers);
     }
 
-    private String formatRequestForDisplay(HttpRequest request) {
-        StringBuilder display = new StringBuilder();
-
-        // Add service info
-        display.append("═══════════════════════════════════════════════════════════════\n");
-        display.append("Target: ").append(request.httpService().host());
-        display.append(":").append(request.httpService().port());
-        display.append(" [").append(request.httpService().secure() ? "HTTPS" : "HTTP").append("]\n");
-        display.append("═══════════════════════════════════════════════════════════════\n\n");
-
-        // Add the raw request
-        display.append(request.toString());
-
-        return display.toString();
+    private void setTextIfChanged(JTextArea textArea, String text) {
+        Object rendered = textArea.getClientProperty(RENDERED_TEXT);
+        if (rendered instanceof String && rendered.equals(text)) {
+            return;
+        }
+        textArea.setText(text);
+        textArea.setCaretPosition(0);
+        textArea.putClientProperty(RENDERED_TEXT, text);
     }
 
     private void sendToRepeater() {
@@ -289,8 +289,7 @@ public class CurlToRepeaterPanel extends JPanel {
     }
 
     private void log(String message) {
-        logOutput.append(message + "\n");
-        logOutput.setCaretPosition(logOutput.getDocument().getLength());
+        logView.log(message);
     }
 }
 
@@ -0,0 +1,279 @@
+package ui;
+
+import burp.api.montoya.MontoyaApi;
+import utils.Diagnostics;
+import utils.LatencyHistogram;
+import utils.TaskManager;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.awt.datatransfer.StringSelection;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Live view of operation timings and counters recorded by {@link Diagnostics},
+ * and of the background tasks currently running in {@link TaskManager}
+ */
+public class DiagnosticsPanel extends JPanel {
+    private final MontoyaApi api;
+    private final OperationTableModel operationModel;
+    private final CounterTableModel counterModel;
+    private final TaskTableModel taskModel;
+    private final JLabel statusLabel;
+
+    private static class OperationTableModel extends AbstractTableModel {
+        private static final String[] COLUMNS = {"Operation", "Device", "Count", "Failures", "p50 ms", "p95 ms", "p99 ms", "Max ms"};
+        private List<Diagnostics.Operation> operations = new ArrayList<>();
+
+        void setOperations(List<Diagnostics.Operation> operations) {
+            this.operations = operations;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return operations.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return column == 2 || column == 3 ? Long.class : String.class;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            Diagnostics.Operation operation = operations.get(row);
+            LatencyHistogram latency = operation.getLatency();
+            return switch (column) {
+                case 0 -> operation.getName();
+                case 1 -> operation.getDevice();
+                case 2 -> latency.count();
+                case 3 -> operation.getFailures();
+                case 4 -> millis(latency.percentileMicros(50));
+                case 5 -> millis(latency.percentileMicros(95));
+                case 6 -> millis(latency.percentileMicros(99));
+                default -> millis(latency.maxMicros());
+            };
+        }
+    }
+
+    private static class CounterTableModel extends AbstractTableModel {
+        private static final String[] COLUMNS = {"Counter", "Value"};
+        private final List<String[]> rows = new ArrayList<>();
+
+        void setCounters(Map<String, Long> counters) {
+            rows.clear();
+            for (Map.Entry<String, Long> counter : counters.entrySet()) {
+                rows.add(new String[]{counter.getKey(), String.valueOf(counter.getValue())});
+
+                // Show a hit rate under each cache's miss counter
+                String name = counter.getKey();
+                if (name.startsWith("cache.") && name.endsWith(".misses")) {
+                    String cache = name.substring(0, name.length() - ".misses".length());
+                    long hits = counters.getOrDefault(cache + ".hits", 0L);
+                    long total = hits + counter.getValue();
+                    rows.add(new String[]{cache + ".hit-rate", total == 0 ? "-" : String.format("%.1f%%", hits * 100.0 / total)});
+                }
+            }
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            return rows.get(row)[column];
+        }
+    }
+
+    private static class TaskTableModel extends AbstractTableModel {
+        private static final String[] COLUMNS = {"Task", "Progress", "Running s"};
+        private List<TaskManager.Task> tasks = new ArrayList<>();
+
+        void setTasks(List<TaskManager.Task> tasks) {
+            boolean sameTasks = tasks.equals(this.tasks);
+            this.tasks = tasks;
+            if (sameTasks && !tasks.isEmpty()) {
+                // Keeps the selection while progress and running time tick
+                fireTableRowsUpdated(0, tasks.size() - 1);
+            } else {
+                fireTableDataChanged();
+            }
+        }
+
+        TaskManager.Task get(int row) {
+            return tasks.get(row);
+        }
+
+        @Override
+        public int getRowCount() {
+            return tasks.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            TaskManager.Task task = tasks.get(row);
+            return switch (column) {
+                case 0 -> task.getName();
+                case 1 -> task.getProgress() > 0 ? task.getProgress() + "%" : "-";
+                default -> String.format("%.1f", task.getElapsedMillis() / 1000.0);
+            };
+        }
+    }
+
+    public DiagnosticsPanel(MontoyaApi api) {
+        this.api = api;
+        setLayout(new BorderLayout(10, 10));
+        setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        JLabel titleLabel = new JLabel("Diagnostics");
+        titleLabel.setFont(new Font("Arial", Font.BOLD, 16));
+        add(titleLabel, BorderLayout.NORTH);
+
+        operationModel = new OperationTableModel();
+        JTable operationTable = new JTable(operationModel);
+        operationTable.setAutoCreateRowSorter(true);
+        operationTable.setFillsViewportHeight(true);
+        operationTable.setFont(new Font("Monospaced", Font.PLAIN, 11));
+
+        counterModel = new CounterTableModel();
+        JTable counterTable = new JTable(counterModel);
+        counterTable.setFillsViewportHeight(true);
+        counterTable.setFont(new Font("Monospaced", Font.PLAIN, 11));
+
+        JPanel operationPanel = new JPanel(new BorderLayout());
+        operationPanel.setBorder(BorderFactory.createTitledBorder("Operation Timings"));
+        operationPanel.add(new JScrollPane(operationTable), BorderLayout.CENTER);
+
+        JPanel counterPanel = new JPanel(new BorderLayout());
+        counterPanel.setBorder(BorderFactory.createTitledBorder("Counters"));
+        counterPanel.add(new JScrollPane(counterTable), BorderLayout.CENTER);
+
+        JSplitPane splitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, operationPanel, counterPanel);
+        splitPane.setResizeWeight(0.7);
+
+        taskModel = new TaskTableModel();
+        JTable taskTable = new JTable(taskModel);
+        taskTable.setFillsViewportHeight(true);
+        taskTable.setFont(new Font("Monospaced", Font.PLAIN, 11));
+
+        JButton cancelTaskBtn = new JButton("Cancel Task");
+        cancelTaskBtn.addActionListener(e -> {
+            int row = taskTable.getSelectedRow();
+            if (row >= 0) {
+                taskModel.get(row).cancel();
+                refresh();
+            }
+        });
+
+        JPanel taskPanel = new JPanel(new BorderLayout());
+        taskPanel.setBorder(BorderFactory.createTitledBorder("Background Tasks"));
+        taskPanel.add(new JScrollPane(taskTable), BorderLayout.CENTER);
+        taskPanel.add(cancelTaskBtn, BorderLayout.EAST);
+
+        JSplitPane mainSplit = new JSplitPane(JSplitPane.VERTICAL_SPLIT, splitPane, taskPanel);
+        mainSplit.setResizeWeight(0.8);
+        add(mainSplit, BorderLayout.CENTER);
+
+        statusLabel = new JLabel(" ");
+
+        JPanel actionPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JButton exportBtn = new JButton("Export JSON...");
+        exportBtn.addActionListener(e -> exportJson());
+        actionPanel.add(exportBtn);
+
+        JButton copyBtn = new JButton("Copy JSON");
+        copyBtn.addActionListener(e -> {
+            Toolkit.getDefaultToolkit().getSystemClipboard().setContents(new StringSelection(Diagnostics.toJson()), null);
+            statusLabel.setText("✓ Copied to clipboard");
+        });
+        actionPanel.add(copyBtn);
+
+        JButton resetBtn = new JButton("Reset");
+        resetBtn.addActionListener(e -> {
+            Diagnostics.reset();
+            refresh();
+            statusLabel.setText("Statistics reset");
+        });
+        actionPanel.add(resetBtn);
+
+        actionPanel.add(statusLabel);
+        add(actionPanel, BorderLayout.SOUTH);
+
+        // Refresh only while the tab is on screen
+        Timer refreshTimer = TaskManager.timer(1000, e -> {
+            if (isShowing()) {
+                refresh();
+            }
+        });
+        refreshTimer.start();
+    }
+
+    private void refresh() {
+        operationModel.setOperations(Diagnostics.getOperations());
+        counterModel.setCounters(Diagnostics.getCounters());
+        taskModel.setTasks(TaskManager.getTasks());
+    }
+
+    private void exportJson() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Export Diagnostics");
+        fileChooser.setSelectedFile(new File("bma-diagnostics.json"));
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+
+        File file = fileChooser.getSelectedFile();
+        try {
+            Files.writeString(file.toPath(), Diagnostics.toJson(), StandardCharsets.UTF_8);
+            statusLabel.setText("✓ Exported to " + file.getName());
+            api.logging().logToOutput("Diagnostics exported to " + file);
+        } catch (Exception e) {
+            statusLabel.setText("✗ Export failed: " + e.getMessage());
+            api.logging().logToError("Diagnostics export failed: " + e.getMessage());
+        }
+    }
+
+    private static String millis(long micros) {
+        return String.format("%.1f", micros / 1000.0);
+    }
+}
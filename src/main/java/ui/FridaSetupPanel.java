@@ -3,6 +3,7 @@ package ui;
 import burp.api.montoya.MontoyaApi;
 import utils.ADBHelper;
 import utils.FridaHelper;
+import utils.TaskManager;
 
 import javax.swing.*;
 import java.awt.*;
@@ -13,7 +14,7 @@ public class FridaSetupPanel extends JPanel {
     private final JPanel deviceSelectorPanel;
     private final ButtonGroup deviceButtonGroup;
     private final JTextField customVersionField;
-    private final JTextArea logOutput;
+    private final LogView logView;
     private final FridaHelper fridaHelper;
     private final ADBHelper adbHelper;
 
@@ -146,15 +147,8 @@ public class FridaSetupPanel extends JPanel {
         JPanel logPanel = new JPanel(new BorderLayout(5, 5));
         logPanel.setBorder(BorderFactory.createTitledBorder("Log"));
 
-        logOutput = new JTextArea(10, 50);
-        logOutput.setEditable(false);
-        logOutput.setFont(new Font("Monospaced", Font.PLAIN, 11));
-        JScrollPane logScroll = new JScrollPane(logOutput);
-        logPanel.add(logScroll, BorderLayout.CENTER);
-
-        JButton clearLogBtn = new JButton("Clear Log");
-        clearLogBtn.addActionListener(e -> logOutput.setText(""));
-        logPanel.add(clearLogBtn, BorderLayout.SOUTH);
+        logView = new LogView("Frida Setup");
+        logPanel.add(logView, BorderLayout.CENTER);
 
         contentPanel.add(logPanel, BorderLayout.SOUTH);
 
@@ -165,7 +159,8 @@ public class FridaSetupPanel extends JPanel {
     }
 
     private void detectArchitecture() {
-        log("Detecting device architecture...");
+        String serial = fridaHelper.getSelectedDevice();
+        log(serial, "Detecting device architecture...");
 
         SwingWorker<String, Void> worker = new SwingWorker<String, Void>() {
             @Override
@@ -179,22 +174,22 @@ public class FridaSetupPanel extends JPanel {
                     String arch = get();
                     if (arch != null && !arch.isEmpty()) {
                         architectureCombo.setSelectedItem(arch);
-                        log("✓ Detected architecture: " + arch);
+                        log(serial, "✓ Detected architecture: " + arch);
                         JOptionPane.showMessageDialog(FridaSetupPanel.this,
                                 "Detected architecture: " + arch,
                                 "Success", JOptionPane.INFORMATION_MESSAGE);
                     } else {
-                        log("✗ Failed to detect architecture");
+                        log(serial, "✗ Failed to detect architecture");
                         JOptionPane.showMessageDialog(FridaSetupPanel.this,
                                 "Failed to detect architecture",
                                 "Error", JOptionPane.ERROR_MESSAGE);
                     }
                 } catch (Exception e) {
-                    log("✗ Error: " + e.getMessage());
+                    log(serial, "✗ Error: " + e.getMessage());
                 }
             }
         };
-        worker.execute();
+        TaskManager.execute("detect architecture", worker);
     }
 
     private void downloadFrida() {
@@ -235,11 +230,12 @@ public class FridaSetupPanel extends JPanel {
                 }
             }
         };
-        worker.execute();
+        TaskManager.execute("download frida", worker);
     }
 
     private void pushFrida() {
-        log("Pushing Frida server to device...");
+        String serial = fridaHelper.getSelectedDevice();
+        log(serial, "Pushing Frida server to device...");
 
         SwingWorker<Boolean, Void> worker = new SwingWorker<Boolean, Void>() {
             @Override
@@ -251,26 +247,27 @@ public class FridaSetupPanel extends JPanel {
             protected void done() {
                 try {
                     if (get()) {
-                        log("✓ Frida server pushed successfully");
+                        log(serial, "✓ Frida server pushed successfully");
                         JOptionPane.showMessageDialog(FridaSetupPanel.this,
                                 "Frida server pushed to device",
                                 "Success", JOptionPane.INFORMATION_MESSAGE);
                     } else {
-                        log("✗ Failed to push Frida server");
+                        log(serial, "✗ Failed to push Frida server");
                         JOptionPane.showMessageDialog(FridaSetupPanel.this,
                                 "Failed to push Frida server to device",
                                 "Error", JOptionPane.ERROR_MESSAGE);
                     }
                 } catch (Exception e) {
-                    log("✗ Error: " + e.getMessage());
+                    log(serial, "✗ Error: " + e.getMessage());
                 }
             }
         };
-        worker.execute();
+        TaskManager.execute("push frida", worker);
     }
 
     private void startFrida() {
-        log("Starting Frida server...");
+        String serial = fridaHelper.getSelectedDevice();
+        log(serial, "Starting Frida server...");
 
         SwingWorker<Boolean, Void> worker = new SwingWorker<Boolean, Void>() {
             @Override
@@ -282,26 +279,27 @@ public class FridaSetupPanel extends JPanel {
             protected void done() {
                 try {
                     if (get()) {
-                        log("✓ Frida server started successfully");
+                        log(serial, "✓ Frida server started successfully");
                         JOptionPane.showMessageDialog(FridaSetupPanel.this,
                                 "Frida server is now running",
                                 "Success", JOptionPane.INFORMATION_MESSAGE);
                     } else {
-                        log("✗ Failed to start Frida server");
+                        log(serial, "✗ Failed to start Frida server");
                         JOptionPane.showMessageDialog(FridaSetupPanel.this,
                                 "Failed to start Frida server",
                                 "Error", JOptionPane.ERROR_MESSAGE);
                     }
                 } catch (Exception e) {
-                    log("✗ Error: " + e.getMessage());
+                    log(serial, "✗ Error: " + e.getMessage());
                 }
             }
         };
-        worker.execute();
+        TaskManager.execute("start frida", worker);
     }
 
     private void stopFrida() {
-        log("Stopping Frida server...");
+        String serial = fridaHelper.getSelectedDevice();
+        log(serial, "Stopping Frida server...");
 
         SwingWorker<Boolean, Void> worker = new SwingWorker<Boolean, Void>() {
             @Override
@@ -313,23 +311,24 @@ public class FridaSetupPanel extends JPanel {
             protected void done() {
                 try {
                     if (get()) {
-                        log("✓ Frida server stopped");
+                        log(serial, "✓ Frida server stopped");
                         JOptionPane.showMessageDialog(FridaSetupPanel.this,
                                 "Frida server stopped",
                                 "Success", JOptionPane.INFORMATION_MESSAGE);
                     } else {
-                        log("✗ Failed to stop Frida server");
+                        log(serial, "✗ Failed to stop Frida server");
                     }
                 } catch (Exception e) {
-                    log("✗ Error: " + e.getMessage());
+                    log(serial, "✗ Error: " + e.getMessage());
                 }
             }
         };
-        worker.execute();
+        TaskManager.execute("stop frida", worker);
     }
 
     private void checkFridaStatus() {
-        log("Checking Frida server status...");
+        String serial = fridaHelper.getSelectedDevice();
+        log(serial, "Checking Frida server status...");
 
         SwingWorker<String, Void> worker = new SwingWorker<String, Void>() {
             @Override
@@ -341,19 +340,20 @@ public class FridaSetupPanel extends JPanel {
             protected void done() {
                 try {
                     String status = get();
-                    log("Status: " + status);
+                    log(serial, "Status: " + status);
                     JOptionPane.showMessageDialog(FridaSetupPanel.this,
                             status,
                             "Frida Status", JOptionPane.INFORMATION_MESSAGE);
                 } catch (Exception e) {
-                    log("✗ Error: " + e.getMessage());
+                    log(serial, "✗ Error: " + e.getMessage());
                 }
             }
         };
-        worker.execute();
+        TaskManager.execute("check frida status", worker);
     }
 
     private void fullAutoSetup() {
+        String serial = fridaHelper.getSelectedDevice();
         int result = JOptionPane.showConfirmDialog(this,
                 "This will:\n1. Detect device architecture\n2. Download latest Frida server\n3. Push to device\n4. Start Frida server\n\nContinue?",
                 "Full Auto Setup",
@@ -363,7 +363,7 @@ public class FridaSetupPanel extends JPanel {
             return;
         }
 
-        log("========== Starting Full Auto Setup ==========");
+        log(serial, "========== Starting Full Auto Setup ==========");
 
         SwingWorker<Void, String> worker = new SwingWorker<Void, String>() {
             @Override
@@ -408,7 +408,7 @@ public class FridaSetupPanel extends JPanel {
             @Override
             protected void process(java.util.List<String> chunks) {
                 for (String message : chunks) {
-                    log(message);
+                    log(serial, message);
                 }
             }
 
@@ -420,19 +420,25 @@ public class FridaSetupPanel extends JPanel {
                             "Full setup completed successfully!",
                             "Success", JOptionPane.INFORMATION_MESSAGE);
                 } catch (Exception e) {
-                    log("✗ Error during setup: " + e.getMessage());
+                    log(serial, "✗ Error during setup: " + e.getMessage());
                     JOptionPane.showMessageDialog(FridaSetupPanel.this,
                             "Setup failed: " + e.getMessage(),
                             "Error", JOptionPane.ERROR_MESSAGE);
                 }
             }
         };
-        worker.execute();
+        TaskManager.execute("full auto setup", worker);
     }
 
     private void log(String message) {
-        logOutput.append(message + "\n");
-        logOutput.setCaretPosition(logOutput.getDocument().getLength());
+        log(null, message);
+    }
+
+    /**
+     * @param device serial the message is about, captured when the action started; null for none
+     */
+    private void log(String device, String message) {
+        logView.log(device, message);
         api.logging().logToOutput("[Frida Setup] " + message);
     }
 
@@ -492,7 +498,7 @@ public class FridaSetupPanel extends JPanel {
                 }
             }
         };
-        worker.execute();
+        TaskManager.execute("refresh devices", worker);
     }
 
     private void updateSelectedDevice() {
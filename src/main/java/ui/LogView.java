@@ -0,0 +1,295 @@
+package ui;
+
+import utils.LogBuffer;
+import utils.LogFileAppender;
+import utils.TaskManager;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.io.File;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Log panel backed by a fixed-size {@link LogBuffer}. Only the visible rows are rendered,
+ * so appending a line costs the same at the end of a long session as at the start.
+ * Lines can be filtered by level, device and text, and are also written to the JSON log file.
+ */
+public class LogView extends JPanel {
+    private static final int CAPACITY = 5000;
+    private static final String ALL_LEVELS = "All levels";
+    private static final String ALL_DEVICES = "All devices";
+
+    private final String source;
+    private final LogBuffer buffer = new LogBuffer(CAPACITY);
+    private final EntryListModel model = new EntryListModel();
+    private final JList<LogBuffer.Entry> list;
+    private final JScrollPane scrollPane;
+    private final JComboBox<Object> levelFilter;
+    private final JComboBox<String> deviceFilter;
+    private final JTextField searchField;
+    private final JLabel countLabel;
+    private final Set<String> devices = new HashSet<>();
+
+    /**
+     * The whole buffer, or when a filter is set, the matching entries from {@code offset} on
+     */
+    private class EntryListModel extends AbstractListModel<LogBuffer.Entry> {
+        private List<LogBuffer.Entry> filtered;
+        private int offset;
+
+        @Override
+        public int getSize() {
+            return filtered == null ? buffer.size() : filtered.size() - offset;
+        }
+
+        @Override
+        public LogBuffer.Entry getElementAt(int index) {
+            return filtered == null ? buffer.get(index) : filtered.get(offset + index);
+        }
+
+        void setFiltered(List<LogBuffer.Entry> entries) {
+            filtered = entries;
+            offset = 0;
+            fireContentsChanged(this, 0, Math.max(0, getSize() - 1));
+        }
+
+        void added(LogBuffer.Entry entry, boolean evicted) {
+            if (filtered == null) {
+                if (evicted) {
+                    fireIntervalRemoved(this, 0, 0);
+                }
+                fireIntervalAdded(this, getSize() - 1, getSize() - 1);
+                return;
+            }
+
+            // Drop matches the buffer has evicted; compact now and then instead of shifting every time
+            long oldest = buffer.get(0).getSequence();
+            int removed = 0;
+            while (offset < filtered.size() && filtered.get(offset).getSequence() < oldest) {
+                offset++;
+                removed++;
+            }
+            if (removed > 0) {
+                fireIntervalRemoved(this, 0, removed - 1);
+            }
+            if (offset > CAPACITY) {
+                filtered = new ArrayList<>(filtered.subList(offset, filtered.size()));
+                offset = 0;
+            }
+
+            if (matches(entry)) {
+                filtered.add(entry);
+                fireIntervalAdded(this, getSize() - 1, getSize() - 1);
+            }
+        }
+    }
+
+    private static class EntryRenderer extends DefaultListCellRenderer {
+        @Override
+        public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+            super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+            LogBuffer.Entry entry = (LogBuffer.Entry) value;
+            setToolTipText(entry.getMessage());
+            if (!isSelected) {
+                switch (entry.getLevel()) {
+                    case ERROR -> setForeground(new Color(190, 30, 30));
+                    case WARNING -> setForeground(new Color(180, 110, 0));
+                    case SUCCESS -> setForeground(new Color(30, 130, 50));
+                    default -> setForeground(list.getForeground());
+                }
+            }
+            return this;
+        }
+    }
+
+    /**
+     * @param source name written with each line to the log file, e.g. "Mobile Proxy"
+     */
+    public LogView(String source) {
+        super(new BorderLayout(5, 5));
+        this.source = source;
+
+        list = new JList<>(model);
+        list.setFont(new Font("Monospaced", Font.PLAIN, 11));
+        list.setCellRenderer(new EntryRenderer());
+        // Fixed cell size means the list never measures rows it is not showing
+        list.setFixedCellHeight(list.getFontMetrics(list.getFont()).getHeight() + 2);
+        list.setFixedCellWidth(10);
+        ToolTipManager.sharedInstance().registerComponent(list);
+        scrollPane = new JScrollPane(list);
+
+        levelFilter = new JComboBox<>(new Object[]{ALL_LEVELS, LogBuffer.Level.ERROR, LogBuffer.Level.WARNING,
+                LogBuffer.Level.SUCCESS, LogBuffer.Level.INFO});
+        levelFilter.addActionListener(e -> applyFilter());
+
+        deviceFilter = new JComboBox<>(new String[]{ALL_DEVICES});
+        deviceFilter.addActionListener(e -> applyFilter());
+
+        searchField = new JTextField(15);
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                applyFilter();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                applyFilter();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                applyFilter();
+            }
+        });
+
+        countLabel = new JLabel(" ");
+
+        JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        filterPanel.add(levelFilter);
+        filterPanel.add(deviceFilter);
+        filterPanel.add(new JLabel("Search:"));
+        filterPanel.add(searchField);
+        filterPanel.add(countLabel);
+
+        JButton clearBtn = new JButton("Clear Log");
+        clearBtn.addActionListener(e -> clear());
+        JButton exportBtn = new JButton("Export...");
+        exportBtn.addActionListener(e -> exportView());
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        buttonPanel.add(clearBtn);
+        buttonPanel.add(exportBtn);
+
+        add(filterPanel, BorderLayout.NORTH);
+        add(scrollPane, BorderLayout.CENTER);
+        add(buttonPanel, BorderLayout.SOUTH);
+        updateCount();
+    }
+
+    public void log(String message) {
+        log(null, message);
+    }
+
+    /**
+     * Append a message, one entry per line; safe to call from any thread
+     */
+    public void log(String device, String message) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(() -> log(device, message));
+            return;
+        }
+
+        boolean atBottom = isAtBottom();
+        for (String line : message.split("\r?\n")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            boolean evicting = buffer.size() == buffer.capacity();
+            LogBuffer.Entry entry = buffer.add(device, line);
+            LogFileAppender.append(source, entry);
+            model.added(entry, evicting);
+        }
+
+        if (device != null && devices.add(device)) {
+            deviceFilter.addItem(device);
+        }
+        if (atBottom && model.getSize() > 0) {
+            list.ensureIndexIsVisible(model.getSize() - 1);
+        }
+        updateCount();
+    }
+
+    public void clear() {
+        buffer.clear();
+        model.setFiltered(isFiltered() ? new ArrayList<>() : null);
+        updateCount();
+    }
+
+    private boolean isAtBottom() {
+        JScrollBar bar = scrollPane.getVerticalScrollBar();
+        return bar.getValue() + bar.getVisibleAmount() >= bar.getMaximum() - list.getFixedCellHeight();
+    }
+
+    private boolean isFiltered() {
+        return levelFilter.getSelectedItem() instanceof LogBuffer.Level
+                || !ALL_DEVICES.equals(deviceFilter.getSelectedItem())
+                || !searchField.getText().isEmpty();
+    }
+
+    private boolean matches(LogBuffer.Entry entry) {
+        Object level = levelFilter.getSelectedItem();
+        if (level instanceof LogBuffer.Level && entry.getLevel() != level) {
+            return false;
+        }
+        Object device = deviceFilter.getSelectedItem();
+        if (!ALL_DEVICES.equals(device) && !device.equals(entry.getDevice())) {
+            return false;
+        }
+        String query = searchField.getText();
+        return query.isEmpty() || entry.getMessage().toLowerCase(Locale.ROOT).contains(query.toLowerCase(Locale.ROOT));
+    }
+
+    private void applyFilter() {
+        if (!isFiltered()) {
+            model.setFiltered(null);
+        } else {
+            String query = searchField.getText();
+            List<LogBuffer.Entry> candidates = query.isEmpty() ? buffer.snapshot() : buffer.search(query);
+            List<LogBuffer.Entry> matching = new ArrayList<>();
+            for (LogBuffer.Entry entry : candidates) {
+                if (matches(entry)) {
+                    matching.add(entry);
+                }
+            }
+            model.setFiltered(matching);
+        }
+        updateCount();
+        if (model.getSize() > 0) {
+            list.ensureIndexIsVisible(model.getSize() - 1);
+        }
+    }
+
+    private void updateCount() {
+        int shown = model.getSize();
+        int total = buffer.size();
+        countLabel.setText(shown == total ? total + " lines" : shown + " of " + total + " lines");
+    }
+
+    /**
+     * Save the lines currently shown as plain text, writing in the background
+     */
+    private void exportView() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Export Log");
+        fileChooser.setSelectedFile(new File("bma-" + source.toLowerCase(Locale.ROOT).replace(' ', '-') + ".log"));
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+
+        File file = fileChooser.getSelectedFile();
+        List<LogBuffer.Entry> lines = new ArrayList<>(model.getSize());
+        for (int i = 0; i < model.getSize(); i++) {
+            lines.add(model.getElementAt(i));
+        }
+
+        TaskManager.io("log export", () -> {
+            try (PrintWriter writer = new PrintWriter(file, StandardCharsets.UTF_8)) {
+                for (LogBuffer.Entry entry : lines) {
+                    writer.println(entry);
+                }
+                SwingUtilities.invokeLater(() -> countLabel.setText("✓ Exported " + lines.size() + " lines"));
+            } catch (Exception e) {
+                SwingUtilities.invokeLater(() -> countLabel.setText("✗ Export failed: " + e.getMessage()));
+            }
+        });
+    }
+}
@@ -0,0 +1,215 @@
+package ui;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.ui.Selection;
+import burp.api.montoya.ui.editor.extension.EditorCreationContext;
+import burp.api.montoya.ui.editor.extension.ExtensionProvidedHttpRequestEditor;
+import burp.api.montoya.ui.editor.extension.HttpRequestEditorProvider;
+import utils.LogcatBuffer;
+import utils.LogcatRequestRecorder;
+import utils.LogcatSession;
+import utils.RequestTimeIndex;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+
+/**
+ * "Logcat" tab on request editors: the lines the sending device logged within a few
+ * seconds of the request. The item's own send time is used when Burp has it; otherwise the
+ * request time index supplies it. The index also tells which device sent the request.
+ */
+public class LogcatEditorProvider implements HttpRequestEditorProvider {
+    private static final String WINDOW_KEY = "bma.logcat.window.ms";
+    private static final int DEFAULT_WINDOW_MS = 2000;
+    private static final int MAX_LINES = 2000;
+
+    private final MontoyaApi api;
+
+    public LogcatEditorProvider(MontoyaApi api) {
+        this.api = api;
+    }
+
+    @Override
+    public ExtensionProvidedHttpRequestEditor provideHttpRequestEditor(EditorCreationContext creationContext) {
+        return new LogcatRequestEditor();
+    }
+
+    private int getWindowMs() {
+        Integer stored = api.persistence().preferences().getInteger(WINDOW_KEY);
+        return stored != null ? stored : DEFAULT_WINDOW_MS;
+    }
+
+    private class LogcatRequestEditor implements ExtensionProvidedHttpRequestEditor {
+        private final JPanel panel = new JPanel(new BorderLayout(5, 5));
+        private final JLabel headerLabel = new JLabel(" ");
+        private final JComboBox<String> deviceCombo = new JComboBox<>();
+        private final JSpinner windowSpinner = new JSpinner(new SpinnerNumberModel(getWindowMs() / 1000.0, 0.1, 600.0, 0.5));
+        private final JCheckBox appOnlyCheck = new JCheckBox("Target app only", true);
+        private final DefaultTableModel tableModel = new DefaultTableModel(
+                new String[]{"Offset", "Time", "PID", "Level", "Tag", "Message"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        private HttpRequestResponse requestResponse;
+        private RequestTimeIndex.Match match;
+        private long sentMicros;  // from the item's timing data, -1 if it has none
+        private boolean updating;
+
+        LogcatRequestEditor() {
+            JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+            controls.add(new JLabel("Device:"));
+            controls.add(deviceCombo);
+            controls.add(new JLabel("Window ± s:"));
+            controls.add(windowSpinner);
+            controls.add(appOnlyCheck);
+
+            deviceCombo.addActionListener(e -> {
+                if (!updating) {
+                    showLines();
+                }
+            });
+            windowSpinner.addChangeListener(e -> {
+                int windowMs = (int) Math.round((Double) windowSpinner.getValue() * 1000);
+                api.persistence().preferences().setInteger(WINDOW_KEY, windowMs);
+                showLines();
+            });
+            appOnlyCheck.addActionListener(e -> showLines());
+
+            JPanel top = new JPanel(new GridLayout(0, 1, 0, 5));
+            top.add(headerLabel);
+            top.add(controls);
+
+            JTable table = new JTable(tableModel);
+            table.setFont(new Font("Monospaced", Font.PLAIN, 11));
+            table.setAutoResizeMode(JTable.AUTO_RESIZE_LAST_COLUMN);
+            int[] widths = {70, 90, 55, 40, 140};
+            for (int i = 0; i < widths.length; i++) {
+                table.getColumnModel().getColumn(i).setPreferredWidth(widths[i]);
+            }
+            table.getColumnModel().getColumn(5).setPreferredWidth(700);
+
+            panel.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+            panel.add(top, BorderLayout.NORTH);
+            panel.add(new JScrollPane(table), BorderLayout.CENTER);
+        }
+
+        @Override
+        public HttpRequest getRequest() {
+            return requestResponse.request();
+        }
+
+        @Override
+        public void setRequestResponse(HttpRequestResponse requestResponse) {
+            this.requestResponse = requestResponse;
+            this.sentMicros = sentMicros(requestResponse);
+            this.match = lookup(requestResponse, sentMicros);
+
+            updating = true;
+            deviceCombo.removeAllItems();
+            for (LogcatSession session : LogcatSession.getSessions()) {
+                deviceCombo.addItem(session.getSerial());
+            }
+            if (match != null && match.getDevice() != null) {
+                deviceCombo.setSelectedItem(match.getDevice());
+            }
+            updating = false;
+            showLines();
+        }
+
+        @Override
+        public boolean isEnabledFor(HttpRequestResponse requestResponse) {
+            return LogcatSession.hasSessions()
+                    && (sentMicros(requestResponse) >= 0
+                    || lookup(requestResponse, -1) != null);
+        }
+
+        private RequestTimeIndex.Match lookup(HttpRequestResponse requestResponse, long nearMicros) {
+            RequestTimeIndex index = LogcatRequestRecorder.getIndex();
+            return index != null ? index.lookup(RequestTimeIndex.key(requestResponse.request()), nearMicros) : null;
+        }
+
+        private long sentMicros(HttpRequestResponse requestResponse) {
+            return requestResponse.timingData()
+                    .map(timing -> timing.timeRequestSent().toInstant())
+                    .map(instant -> instant.getEpochSecond() * 1_000_000L + instant.getNano() / 1000)
+                    .orElse(-1L);
+        }
+
+        private void showLines() {
+            tableModel.setRowCount(0);
+            String serial = (String) deviceCombo.getSelectedItem();
+            if ((match == null && sentMicros < 0) || serial == null) {
+                headerLabel.setText("⚠ This request was not seen while logcat was streaming");
+                return;
+            }
+            long requestMicros = sentMicros >= 0 ? sentMicros : match.getTimeMicros();
+
+            LogcatSession session = LogcatSession.forDevice(serial);
+            LogcatBuffer buffer = session.getBuffer();
+            long windowMicros = Math.round((Double) windowSpinner.getValue() * 1_000_000);
+            long center = requestMicros + session.getClockOffsetMicros();
+
+            LogcatBuffer.Filter filter = new LogcatBuffer.Filter();
+            if (appOnlyCheck.isSelected()) {
+                session.applyTarget(filter);
+            }
+
+            // Both ends are binary searches, so this stays fast however long the log is
+            long from = buffer.seqAtOrAfter(center - windowMicros);
+            long to = buffer.seqAtOrAfter(center + windowMicros);
+            LogcatBuffer.SeqList lines = new LogcatBuffer.SeqList();
+            buffer.scan(from, to, filter, lines);
+
+            int shown = 0;
+            for (int i = 0; i < lines.size() && shown < MAX_LINES; i++) {
+                long seq = lines.get(i);
+                if (!buffer.contains(seq)) {
+                    continue;
+                }
+                long time = buffer.timeMicros(seq);
+                tableModel.addRow(new Object[]{
+                        String.format("%+d ms", (time - center) / 1000),
+                        String.format("%tT.%<tL", time / 1000),
+                        buffer.pid(seq),
+                        LogcatBuffer.levelLetter(buffer.priority(seq)),
+                        buffer.tag(seq),
+                        buffer.message(seq)
+                });
+                shown++;
+            }
+
+            String device = match != null && match.getDevice() != null ? match.getDevice() : "an unidentified device";
+            // Without its own send time, an item that was proxied several times is matched to the latest copy
+            String ambiguity = sentMicros < 0 && match.getOccurrences() > 1
+                    ? " ⚠ " + match.getOccurrences() + " identical requests seen, showing the latest" : "";
+            headerLabel.setText(String.format("Request at %tT.%<tL from %s; %d line(s) from %s within ±%s s%s%s",
+                    requestMicros / 1000, device, shown, serial, windowSpinner.getValue(),
+                    shown == MAX_LINES ? " (first " + MAX_LINES + ")" : "", ambiguity));
+        }
+
+        @Override
+        public Selection selectedData() {
+            return null;
+        }
+
+        @Override
+        public String caption() {
+            return "Logcat";
+        }
+
+        @Override
+        public Component uiComponent() {
+            return panel;
+        }
+
+        @Override
+        public boolean isModified() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,475 @@
+package ui;
+
+import burp.api.montoya.MontoyaApi;
+import utils.ADBHelper;
+import utils.LogcatBuffer;
+import utils.LogcatSession;
+import utils.TaskManager;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.*;
+import java.util.List;
+
+/**
+ * Live logcat for connected devices. Each device streams into its own off-heap buffer in the
+ * background; the table reads rows straight from the selected device's buffer, so only the
+ * rows on screen are turned into Strings and new lines are picked up in one batch per tick.
+ */
+public class LogcatPanel extends JPanel {
+    private static final int REFRESH_MS = 250;
+    private static final String[] LEVELS = {"Verbose", "Debug", "Info", "Warn", "Error", "Fatal"};
+
+    private final MontoyaApi api;
+    private final ADBHelper adbHelper;
+    private final JComboBox<String> deviceCombo;
+    private final JTextField packageField;
+    private final JComboBox<String> levelCombo;
+    private final JTextField tagField;
+    private final JTextField searchField;
+    private final JCheckBox tailCheck;
+    private final JButton startStopBtn;
+    private final JLabel statusLabel;
+    private final LogcatTableModel model = new LogcatTableModel();
+    private final JTable table;
+
+    private LogcatSession session;
+    private long lastEntries;
+    private long lastTickNanos = System.nanoTime();
+
+    /**
+     * Rows of the selected device's buffer. With no filter a row maps directly to a sequence
+     * number; otherwise the matching sequence numbers are collected as entries arrive.
+     */
+    private class LogcatTableModel extends AbstractTableModel {
+        private final String[] columns = {"Time", "PID", "TID", "Level", "Tag", "Message"};
+        private final LogcatBuffer.Filter filter = new LogcatBuffer.Filter();
+        private final LogcatBuffer.SeqList rows = new LogcatBuffer.SeqList();
+        private LogcatBuffer buffer;
+        private boolean direct = true;
+        private boolean searching;
+        private long viewFirst;
+        private int viewCount;
+        private long scannedTo;
+
+        @Override
+        public int getRowCount() {
+            return direct ? viewCount : rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return columns.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return columns[column];
+        }
+
+        long seqAt(int row) {
+            return direct ? viewFirst + row : rows.get(row);
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            long seq = seqAt(row);
+            if (buffer == null || !buffer.contains(seq)) {
+                return "";
+            }
+            return switch (column) {
+                case 0 -> String.format("%1$tm-%1$td %1$tT.%1$tL", buffer.timeMicros(seq) / 1000);
+                case 1 -> buffer.pid(seq);
+                case 2 -> buffer.tid(seq);
+                case 3 -> LogcatBuffer.levelLetter(buffer.priority(seq));
+                case 4 -> buffer.tag(seq);
+                default -> buffer.message(seq);
+            };
+        }
+
+        void setBuffer(LogcatBuffer buffer) {
+            this.buffer = buffer;
+            reset();
+        }
+
+        /**
+         * Rebuild from the whole buffer after the device or a filter changed
+         */
+        void reset() {
+            searching = false;
+            direct = filter.isEmpty();
+            rows.clear();
+            viewFirst = buffer != null ? buffer.firstSeq() : 0;
+            viewCount = 0;
+            scannedTo = viewFirst;
+            fireTableDataChanged();
+            refresh();
+        }
+
+        void showSearch(LogcatBuffer.SeqList results) {
+            searching = true;
+            direct = false;
+            rows.clear();
+            for (int i = 0; i < results.size(); i++) {
+                rows.add(results.get(i));
+            }
+            fireTableDataChanged();
+        }
+
+        /**
+         * Drop evicted rows and add new ones; one pair of events however many lines arrived
+         */
+        void refresh() {
+            if (buffer == null) {
+                return;
+            }
+            long first = buffer.firstSeq();
+            if (direct) {
+                long end = buffer.nextSeq();
+                if (first > viewFirst + viewCount) {
+                    viewFirst = first;
+                    viewCount = (int) (end - first);
+                    fireTableDataChanged();
+                    return;
+                }
+                int removed = (int) Math.max(0, first - viewFirst);
+                if (removed > 0) {
+                    viewFirst = first;
+                    viewCount -= removed;
+                    fireTableRowsDeleted(0, removed - 1);
+                }
+                int added = (int) (end - viewFirst - viewCount);
+                if (added > 0) {
+                    viewCount += added;
+                    fireTableRowsInserted(viewCount - added, viewCount - 1);
+                }
+                return;
+            }
+
+            int removed = rows.removeBelow(first);
+            if (removed > 0) {
+                fireTableRowsDeleted(0, removed - 1);
+            }
+            if (!searching) {
+                int before = rows.size();
+                scannedTo = buffer.scan(scannedTo, filter, rows);
+                if (rows.size() > before) {
+                    fireTableRowsInserted(before, rows.size() - 1);
+                }
+            }
+        }
+    }
+
+    private static class LevelRenderer extends DefaultTableCellRenderer {
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+            super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+            if (!isSelected) {
+                String level = table.getValueAt(row, 3).toString();
+                switch (level) {
+                    case "E", "F" -> setForeground(new Color(190, 30, 30));
+                    case "W" -> setForeground(new Color(180, 110, 0));
+                    case "D", "V" -> setForeground(Color.GRAY);
+                    default -> setForeground(table.getForeground());
+                }
+            }
+            if (column == 5) {
+                setToolTipText(value.toString().isEmpty() ? null : value.toString());
+            }
+            return this;
+        }
+    }
+
+    public LogcatPanel(MontoyaApi api) {
+        this.api = api;
+        this.adbHelper = new ADBHelper(api);
+
+        setLayout(new BorderLayout(10, 10));
+        setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        JLabel titleLabel = new JLabel("Logcat");
+        titleLabel.setFont(new Font("Arial", Font.BOLD, 16));
+
+        JPanel devicePanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        deviceCombo = new JComboBox<>();
+        deviceCombo.setPrototypeDisplayValue("emulator-5554-xxxxxx");
+        deviceCombo.addActionListener(e -> selectDevice());
+        JButton refreshBtn = new JButton("Refresh Devices");
+        refreshBtn.addActionListener(e -> refreshDevices());
+        startStopBtn = new JButton("Start");
+        startStopBtn.addActionListener(e -> toggleStream());
+        packageField = new JTextField(20);
+        packageField.setToolTipText("Only show this app's lines, e.g. com.example.app; leave empty for all");
+        JButton packageBtn = new JButton("Set App");
+        packageBtn.addActionListener(e -> applyPackage());
+        packageField.addActionListener(e -> applyPackage());
+        devicePanel.add(new JLabel("Device:"));
+        devicePanel.add(deviceCombo);
+        devicePanel.add(refreshBtn);
+        devicePanel.add(startStopBtn);
+        devicePanel.add(new JLabel("App:"));
+        devicePanel.add(packageField);
+        devicePanel.add(packageBtn);
+
+        JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        levelCombo = new JComboBox<>(LEVELS);
+        levelCombo.addActionListener(e -> applyFilter());
+        tagField = new JTextField(12);
+        tagField.setToolTipText("Exact tag");
+        tagField.addActionListener(e -> applyFilter());
+        searchField = new JTextField(20);
+        searchField.addActionListener(e -> search());
+        JButton searchBtn = new JButton("Search");
+        searchBtn.addActionListener(e -> search());
+        JButton clearSearchBtn = new JButton("Live View");
+        clearSearchBtn.addActionListener(e -> {
+            searchField.setText("");
+            applyFilter();
+        });
+        tailCheck = new JCheckBox("Follow", true);
+        JButton clearBtn = new JButton("Clear");
+        clearBtn.addActionListener(e -> {
+            if (session != null) {
+                session.getBuffer().clear();
+                model.reset();
+            }
+        });
+        filterPanel.add(new JLabel("Level:"));
+        filterPanel.add(levelCombo);
+        filterPanel.add(new JLabel("Tag:"));
+        filterPanel.add(tagField);
+        filterPanel.add(new JLabel("Search:"));
+        filterPanel.add(searchField);
+        filterPanel.add(searchBtn);
+        filterPanel.add(clearSearchBtn);
+        filterPanel.add(tailCheck);
+        filterPanel.add(clearBtn);
+
+        JPanel topPanel = new JPanel(new GridLayout(0, 1, 0, 5));
+        topPanel.add(titleLabel);
+        topPanel.add(devicePanel);
+        topPanel.add(filterPanel);
+        add(topPanel, BorderLayout.NORTH);
+
+        table = new JTable(model);
+        table.setFont(new Font("Monospaced", Font.PLAIN, 11));
+        table.setRowHeight(table.getFontMetrics(table.getFont()).getHeight() + 2);
+        table.setAutoResizeMode(JTable.AUTO_RESIZE_LAST_COLUMN);
+        table.setDefaultRenderer(Object.class, new LevelRenderer());
+        int[] widths = {130, 55, 55, 40, 140};
+        for (int i = 0; i < widths.length; i++) {
+            table.getColumnModel().getColumn(i).setPreferredWidth(widths[i]);
+            table.getColumnModel().getColumn(i).setMaxWidth(widths[i] * 3);
+        }
+        table.getColumnModel().getColumn(5).setPreferredWidth(800);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+
+        statusLabel = new JLabel("Select a device and press Start");
+        add(statusLabel, BorderLayout.SOUTH);
+
+        Timer refreshTimer = TaskManager.timer(REFRESH_MS, e -> {
+            if (isShowing()) {
+                tick();
+            }
+        });
+        refreshTimer.start();
+
+        refreshDevices();
+    }
+
+    private void refreshDevices() {
+        SwingWorker<List<String>, Void> worker = new SwingWorker<>() {
+            @Override
+            protected List<String> doInBackground() {
+                return adbHelper.getConnectedDevices();
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    Object selected = deviceCombo.getSelectedItem();
+                    deviceCombo.removeAllItems();
+                    for (String device : get()) {
+                        deviceCombo.addItem(device);
+                    }
+                    if (selected != null) {
+                        deviceCombo.setSelectedItem(selected);
+                    }
+                    if (deviceCombo.getItemCount() == 0) {
+                        statusLabel.setText("⚠ No devices connected");
+                    }
+                } catch (Exception e) {
+                    statusLabel.setText("✗ Error listing devices: " + e.getMessage());
+                }
+            }
+        };
+        TaskManager.execute("refresh devices", worker);
+    }
+
+    private void selectDevice() {
+        String serial = (String) deviceCombo.getSelectedItem();
+        if (serial == null || (session != null && session.getSerial().equals(serial))) {
+            return;
+        }
+        session = LogcatSession.forDevice(serial);
+        String target = session.getTargetPackage();
+        packageField.setText(target != null ? target : "");
+        updateFilter();
+        model.setBuffer(session.getBuffer());
+        lastEntries = session.getEntriesRead();
+        updateStatus();
+    }
+
+    private void toggleStream() {
+        if (session == null) {
+            statusLabel.setText("⚠ Select a device first");
+            return;
+        }
+        if (session.isRunning()) {
+            session.stop();
+        } else {
+            session.start();
+            api.logging().logToOutput("Streaming logcat from " + session.getSerial());
+        }
+        updateStatus();
+    }
+
+    private void applyPackage() {
+        if (session == null) {
+            statusLabel.setText("⚠ Select a device first");
+            return;
+        }
+        LogcatSession target = session;
+        String packageName = packageField.getText().trim();
+        statusLabel.setText(packageName.isEmpty() ? "Showing all apps" : "Looking up " + packageName + "...");
+        SwingWorker<Boolean, Void> worker = new SwingWorker<>() {
+            @Override
+            protected Boolean doInBackground() {
+                target.setTargetPackage(packageName.isEmpty() ? null : packageName);
+                return packageName.isEmpty() || target.isTargetResolved();
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    if (!get()) {
+                        statusLabel.setText("⚠ " + packageName + " is not installed or not running; waiting for it to start");
+                    }
+                    if (target == session) {
+                        applyFilter();
+                    }
+                } catch (Exception e) {
+                    statusLabel.setText("✗ Error setting app: " + e.getMessage());
+                }
+            }
+        };
+        TaskManager.execute("logcat app filter", worker);
+    }
+
+    private void updateFilter() {
+        LogcatBuffer.Filter filter = model.filter;
+        filter.minPriority = levelCombo.getSelectedIndex() + 2;
+        String tag = tagField.getText().trim();
+        filter.tag = tag.isEmpty() ? null : tag;
+        if (session != null) {
+            session.applyTarget(filter);
+        }
+    }
+
+    private void applyFilter() {
+        updateFilter();
+        model.reset();
+        scrollToEnd();
+    }
+
+    /**
+     * Search the whole buffer off the Swing thread; the results stay put until Live View
+     */
+    private void search() {
+        String query = searchField.getText();
+        if (session == null || query.isEmpty()) {
+            applyFilter();
+            return;
+        }
+        updateFilter();
+        LogcatBuffer buffer = session.getBuffer();
+        LogcatBuffer.Filter filter = new LogcatBuffer.Filter();
+        filter.minPriority = model.filter.minPriority;
+        filter.tag = model.filter.tag;
+        filter.uid = model.filter.uid;
+        filter.pids = model.filter.pids;
+
+        SwingWorker<LogcatBuffer.SeqList, Void> worker = new SwingWorker<>() {
+            @Override
+            protected LogcatBuffer.SeqList doInBackground() {
+                LogcatBuffer.SeqList results = new LogcatBuffer.SeqList();
+                buffer.search(query, filter, results);
+                return results;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    LogcatBuffer.SeqList results = get();
+                    if (buffer == model.buffer) {
+                        model.showSearch(results);
+                        statusLabel.setText(results.size() + " matches for \"" + query + "\"");
+                    }
+                } catch (Exception e) {
+                    statusLabel.setText("✗ Search failed: " + e.getMessage());
+                }
+            }
+        };
+        TaskManager.execute("logcat search", worker);
+    }
+
+    private void tick() {
+        if (session == null) {
+            return;
+        }
+        if (!model.direct && !model.searching) {
+            // The app's PIDs change as it restarts
+            session.applyTarget(model.filter);
+        }
+        model.refresh();
+        if (!model.searching && tailCheck.isSelected()) {
+            scrollToEnd();
+        }
+        if (!model.searching) {
+            updateStatus();
+        }
+    }
+
+    private void scrollToEnd() {
+        int rows = model.getRowCount();
+        if (rows > 0) {
+            table.scrollRectToVisible(table.getCellRect(rows - 1, 0, true));
+        }
+    }
+
+    private void updateStatus() {
+        if (session == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        long entries = session.getEntriesRead();
+        double seconds = Math.max(0.001, (now - lastTickNanos) / 1e9);
+        long rate = Math.max(0, Math.round((entries - lastEntries) / seconds));
+        lastEntries = entries;
+        lastTickNanos = now;
+
+        LogcatBuffer buffer = session.getBuffer();
+        long held = buffer.nextSeq() - buffer.firstSeq();
+        String state;
+        if (session.isRunning()) {
+            state = "● Streaming " + session.getSerial() + " (" + rate + " lines/s)";
+        } else if (session.getError() != null) {
+            state = "✗ Stopped: " + session.getError();
+        } else {
+            state = "Stopped";
+        }
+        startStopBtn.setText(session.isRunning() ? "Stop" : "Start");
+        statusLabel.setText(state + " | " + model.getRowCount() + " shown of " + held + " held, " + entries + " read");
+    }
+}
@@ -1,17 +1,52 @@
 package ui;
 
 import burp.api.montoya.MontoyaApi;
+import utils.ADBHelper;
+import utils.EmulatorHelper;
+import utils.FridaHelper;
+import utils.TaskManager;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.HierarchyEvent;
+import java.util.function.Supplier;
 
+/**
+ * The BMA suite tab. Each sub-tab's panel, and the helpers it owns, is built the first
+ * time the tab is selected, so loading the extension does no device or file system work.
+ */
 public class MainUI {
+    // Give Burp time to finish loading before probing for adb and cleaning temp files
+    private static final int WARM_UP_DELAY_MS = 10_000;
+
     private final MontoyaApi api;
     private final JPanel mainPanel;
 
+    /**
+     * Placeholder for a tab that builds its panel on first selection
+     */
+    private static class LazyTab extends JPanel {
+        private Supplier<Component> factory;
+
+        LazyTab(Supplier<Component> factory) {
+            super(new BorderLayout());
+            this.factory = factory;
+        }
+
+        void build() {
+            if (factory == null) {
+                return;
+            }
+            add(factory.get(), BorderLayout.CENTER);
+            factory = null;
+            revalidate();
+        }
+    }
+
     public MainUI(MontoyaApi api) {
         this.api = api;
         this.mainPanel = createMainPanel();
+        scheduleWarmUp();
     }
 
     private JPanel createMainPanel() {
@@ -20,19 +55,52 @@ public class MainUI {
 
         JTabbedPane tabbedPane = new JTabbedPane();
 
+        addLazyTab(tabbedPane, "Mobile Proxy Setup", () -> new MobileProxyPanel(api));
+        addLazyTab(tabbedPane, "Frida Setup", () -> new FridaSetupPanel(api));
+        addLazyTab(tabbedPane, "Logcat", () -> new LogcatPanel(api));
+        addLazyTab(tabbedPane, "Curl to Repeater", () -> new CurlToRepeaterPanel(api));
+        addLazyTab(tabbedPane, "Bulk Curl Import", () -> new BulkCurlImportPanel(api));
+        addLazyTab(tabbedPane, "Replay", () -> new ReplayPanel(api));
+        addLazyTab(tabbedPane, "Diagnostics", () -> new DiagnosticsPanel(api));
+        addLazyTab(tabbedPane, "Settings", () -> new SettingsPanel(api));
+
+        tabbedPane.addChangeListener(e -> buildSelectedTab(tabbedPane));
 
-        tabbedPane.addTab("Mobile Proxy Setup", new MobileProxyPanel(api));
-        tabbedPane.addTab("Frida Setup", new FridaSetupPanel(api));
-        tabbedPane.addTab("Curl to Repeater", new CurlToRepeaterPanel(api));
-        tabbedPane.addTab("Settings", new SettingsPanel(api));
+        // The first tab is selected without a change event, so build it when BMA is first shown
+        tabbedPane.addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0 && tabbedPane.isShowing()) {
+                buildSelectedTab(tabbedPane);
+            }
+        });
 
         panel.add(tabbedPane, BorderLayout.CENTER);
 
         return panel;
     }
 
+    private void addLazyTab(JTabbedPane tabbedPane, String title, Supplier<Component> factory) {
+        tabbedPane.addTab(title, new LazyTab(factory));
+    }
+
+    private void buildSelectedTab(JTabbedPane tabbedPane) {
+        if (tabbedPane.getSelectedComponent() instanceof LazyTab tab) {
+            tab.build();
+        }
+    }
+
+    /**
+     * Detect adb and the emulator and remove stale Frida downloads in the background once Burp has loaded,
+     * so the device tabs open without waiting on either
+     */
+    private void scheduleWarmUp() {
+        TaskManager.later(WARM_UP_DELAY_MS, () -> TaskManager.io("warm-up", () -> {
+            ADBHelper.warmUp(api);
+            EmulatorHelper.warmUp(api);
+            FridaHelper.cleanupOldDownloads(api);
+        }));
+    }
+
     public Component getComponent() {
         return mainPanel;
     }
 }
-
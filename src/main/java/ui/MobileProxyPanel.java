@@ -2,7 +2,17 @@ package ui;
 
 import burp.api.montoya.MontoyaApi;
 import utils.ADBHelper;
+import utils.BootBenchmark;
+import utils.CertificateInstaller;
+import utils.DeviceResult;
 import utils.EmulatorHelper;
+import utils.EmulatorInstance;
+import utils.EmulatorLaunchProfile;
+import utils.NetworkProfile;
+import utils.PacServer;
+import utils.ProxyVerifier;
+import utils.TaskManager;
+import utils.TransparentProxy;
 
 import javax.swing.*;
 import javax.swing.event.ListSelectionEvent;
@@ -10,17 +20,27 @@ import javax.swing.event.ListSelectionListener;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.HashMap;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
 
 public class MobileProxyPanel extends JPanel {
+    private static final String PAC_HOSTS_KEY = "bma.pac.hosts";
+    private static final String TRANSPARENT_PACKAGE_KEY = "bma.transparent.package";
+
     private final MontoyaApi api;
     private final JPanel deviceSelectorPanel;
     private final ButtonGroup deviceButtonGroup;
     private final JTextField proxyHostField;
     private final JTextField proxyPortField;
-    private final JTextArea logOutput;
+    private final JComboBox<CertificateInstaller.Store> certStoreCombo;
+    private final JTextField pacHostsField;
+    private final JTextField transparentPackageField;
+    private final LogView logView;
     private final ADBHelper adbHelper;
 
     // Emulator components
@@ -30,13 +50,14 @@ public class MobileProxyPanel extends JPanel {
     private final JTextArea runningEmulatorsArea;
     private final JCheckBox writableSystemCheck;
     private final JTextField dnsServerField;
-    private final Map<String, Process> runningEmulatorProcesses;
+    private final JComboBox<EmulatorLaunchProfile> launchProfileCombo;
+    private final JComboBox<String> runningEmulatorCombo;
+    private final JComboBox<Object> networkProfileCombo;
 
     public MobileProxyPanel(MontoyaApi api) {
         this.api = api;
         this.adbHelper = new ADBHelper(api);
         this.emulatorHelper = new EmulatorHelper(api);
-        this.runningEmulatorProcesses = new HashMap<>();
 
         // Initialize all final UI components FIRST before using them
         deviceSelectorPanel = new JPanel();
@@ -44,11 +65,17 @@ public class MobileProxyPanel extends JPanel {
         deviceButtonGroup = new ButtonGroup();
         proxyHostField = new JTextField("127.0.0.1", 20);
         proxyPortField = new JTextField("8080", 20);
-        logOutput = new JTextArea(6, 25);
+        certStoreCombo = new JComboBox<>(CertificateInstaller.Store.values());
+        pacHostsField = new JTextField(25);
+        transparentPackageField = new JTextField(25);
+        logView = new LogView("Mobile Proxy");
         emulatorListModel = new DefaultListModel<>();
         emulatorList = new JList<>(emulatorListModel);
         writableSystemCheck = new JCheckBox("Writable System (-writable-system)");
         dnsServerField = new JTextField("8.8.8.8", 15);
+        launchProfileCombo = new JComboBox<>();
+        runningEmulatorCombo = new JComboBox<>();
+        networkProfileCombo = new JComboBox<>();
         runningEmulatorsArea = new JTextArea(4, 25);
 
         setLayout(new BorderLayout(10, 10));
@@ -149,20 +176,60 @@ public class MobileProxyPanel extends JPanel {
         checkProxyBtn.addActionListener(e -> checkProxy());
         buttonPanel.add(checkProxyBtn);
 
+        JButton verifyProxyBtn = new JButton("Verify Proxy");
+        verifyProxyBtn.setToolTipText("Send a tagged request from the selected device, or every connected device, through its proxy and time it");
+        verifyProxyBtn.addActionListener(e -> verifyProxy());
+        buttonPanel.add(verifyProxyBtn);
+
         proxyPanel.add(buttonPanel, gbc);
 
+        gbc.gridy = 3;
+        JPanel certPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        certPanel.add(new JLabel("Burp CA:"));
+        certStoreCombo.setSelectedItem(CertificateInstaller.Store.SYSTEM);
+        certPanel.add(certStoreCombo);
+        JButton installCertBtn = new JButton("Install Burp CA");
+        installCertBtn.setToolTipText("Install Burp's CA on the selected device, or on every connected device");
+        installCertBtn.addActionListener(e -> installBurpCa());
+        certPanel.add(installCertBtn);
+        proxyPanel.add(certPanel, gbc);
+
+        gbc.gridy = 4;
+        JPanel pacPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        pacPanel.add(new JLabel("Selective:"));
+        String pacHosts = api.persistence().preferences().getString(PAC_HOSTS_KEY);
+        pacHostsField.setText(pacHosts != null ? pacHosts : "");
+        pacHostsField.setToolTipText("Extra hosts to send through Burp, e.g. api.example.com, *.example.net; "
+                + "hosts in Burp's target scope are always included");
+        pacPanel.add(pacHostsField);
+        JButton setPacBtn = new JButton("Set PAC Proxy");
+        setPacBtn.setToolTipText("Proxy only in-scope hosts through Burp using a PAC file; applies after a reboot");
+        setPacBtn.addActionListener(e -> setPacProxy());
+        pacPanel.add(setPacBtn);
+        proxyPanel.add(pacPanel, gbc);
+
+        gbc.gridy = 5;
+        JPanel transparentPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        transparentPanel.add(new JLabel("App redirect:"));
+        String transparentPackage = api.persistence().preferences().getString(TRANSPARENT_PACKAGE_KEY);
+        transparentPackageField.setText(transparentPackage != null ? transparentPackage : "");
+        transparentPackageField.setToolTipText("Package whose web traffic is redirected to Burp with iptables (root required)");
+        transparentPanel.add(transparentPackageField);
+        JButton redirectAppBtn = new JButton("Redirect App");
+        redirectAppBtn.setToolTipText("Send this app's TCP 80/443 to the listener on the proxy port; "
+                + "enable invisible proxying on that listener");
+        redirectAppBtn.addActionListener(e -> setAppRedirect(true));
+        transparentPanel.add(redirectAppBtn);
+        JButton stopRedirectBtn = new JButton("Stop Redirect");
+        stopRedirectBtn.addActionListener(e -> setAppRedirect(false));
+        transparentPanel.add(stopRedirectBtn);
+        proxyPanel.add(transparentPanel, gbc);
+
         // Log panel
         JPanel logPanel = new JPanel(new BorderLayout(5, 5));
         logPanel.setBorder(BorderFactory.createTitledBorder("Log"));
 
-        logOutput.setEditable(false);
-        logOutput.setFont(new Font("Monospaced", Font.PLAIN, 10));
-        JScrollPane logScroll = new JScrollPane(logOutput);
-        logPanel.add(logScroll, BorderLayout.CENTER);
-
-        JButton clearLogBtn = new JButton("Clear Log");
-        clearLogBtn.addActionListener(e -> logOutput.setText(""));
-        logPanel.add(clearLogBtn, BorderLayout.SOUTH);
+        logPanel.add(logView, BorderLayout.CENTER);
 
         // Use JSplitPane to give more space to log panel
         JSplitPane verticalSplit = new JSplitPane(JSplitPane.VERTICAL_SPLIT, proxyPanel, logPanel);
@@ -185,6 +252,11 @@ public class MobileProxyPanel extends JPanel {
 
         emulatorList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         emulatorList.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        emulatorList.addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting()) {
+                refreshLaunchProfiles();
+            }
+        });
         JScrollPane emulatorScroll = new JScrollPane(emulatorList);
         emulatorScroll.setPreferredSize(new Dimension(250, 100));
         topPanel.add(emulatorScroll, BorderLayout.CENTER);
@@ -220,7 +292,29 @@ public class MobileProxyPanel extends JPanel {
 
         gbc.gridx = 0;
         gbc.gridy = 2;
+        gbc.weightx = 0.0;
+        optionsPanel.add(new JLabel("Launch Profile:"), gbc);
+
+        gbc.gridx = 1;
+        gbc.weightx = 1.0;
+        optionsPanel.add(launchProfileCombo, gbc);
+
+        gbc.gridx = 0;
+        gbc.gridy = 3;
         gbc.gridwidth = 2;
+        JPanel profilePanel = new JPanel(new GridLayout(1, 2, 5, 5));
+
+        JButton newProfileBtn = new JButton("New Profile...");
+        newProfileBtn.addActionListener(e -> createLaunchProfile());
+        profilePanel.add(newProfileBtn);
+
+        JButton benchmarkBtn = new JButton("Benchmark Boot");
+        benchmarkBtn.addActionListener(e -> benchmarkSelectedEmulator());
+        profilePanel.add(benchmarkBtn);
+
+        optionsPanel.add(profilePanel, gbc);
+
+        gbc.gridy = 4;
         JPanel actionPanel = new JPanel(new GridLayout(1, 2, 5, 5));
 
         JButton startBtn = new JButton("▶ Start Selected");
@@ -250,9 +344,28 @@ public class MobileProxyPanel extends JPanel {
         JScrollPane runningScroll = new JScrollPane(runningEmulatorsArea);
         runningPanel.add(runningScroll, BorderLayout.CENTER);
 
+        JPanel runningControls = new JPanel(new GridLayout(0, 1, 5, 5));
+
+        JPanel networkPanel = new JPanel(new BorderLayout(5, 5));
+        networkPanel.add(new JLabel("Network:"), BorderLayout.WEST);
+        for (NetworkProfile profile : NetworkProfile.builtInProfiles()) {
+            networkProfileCombo.addItem(profile);
+        }
+        networkProfileCombo.addItem("Custom...");
+        JPanel networkSelectors = new JPanel(new GridLayout(1, 2, 5, 5));
+        networkSelectors.add(runningEmulatorCombo);
+        networkSelectors.add(networkProfileCombo);
+        networkPanel.add(networkSelectors, BorderLayout.CENTER);
+        JButton applyNetworkBtn = new JButton("Apply");
+        applyNetworkBtn.addActionListener(e -> applyNetworkProfile());
+        networkPanel.add(applyNetworkBtn, BorderLayout.EAST);
+        runningControls.add(networkPanel);
+
         JButton refreshRunningBtn = new JButton("Refresh Running");
         refreshRunningBtn.addActionListener(e -> refreshRunningEmulators());
-        runningPanel.add(refreshRunningBtn, BorderLayout.SOUTH);
+        runningControls.add(refreshRunningBtn);
+
+        runningPanel.add(runningControls, BorderLayout.SOUTH);
 
         panel.add(runningPanel, BorderLayout.SOUTH);
 
@@ -317,7 +430,7 @@ public class MobileProxyPanel extends JPanel {
                 }
             }
         };
-        worker.execute();
+        TaskManager.execute("refresh devices", worker);
     }
 
     private void updateSelectedDevice() {
@@ -334,6 +447,7 @@ public class MobileProxyPanel extends JPanel {
     }
 
     private void setProxy() {
+        String serial = adbHelper.getSelectedDevice();
         String host = proxyHostField.getText().trim();
         String port = proxyPortField.getText().trim();
 
@@ -342,7 +456,7 @@ public class MobileProxyPanel extends JPanel {
             return;
         }
 
-        log("Setting proxy to " + host + ":" + port + "...");
+        log(serial, "Setting proxy to " + host + ":" + port + "...");
 
         SwingWorker<Boolean, Void> worker = new SwingWorker<Boolean, Void>() {
             @Override
@@ -354,26 +468,140 @@ public class MobileProxyPanel extends JPanel {
             protected void done() {
                 try {
                     if (get()) {
-                        log("✓ Proxy set successfully");
+                        log(serial, "✓ Proxy set successfully");
                         JOptionPane.showMessageDialog(MobileProxyPanel.this,
                                 "Proxy set to " + host + ":" + port,
                                 "Success", JOptionPane.INFORMATION_MESSAGE);
                     } else {
-                        log("✗ Failed to set proxy");
+                        log(serial, "✗ Failed to set proxy");
                         JOptionPane.showMessageDialog(MobileProxyPanel.this,
                                 "Failed to set proxy. Check if device is connected.",
                                 "Error", JOptionPane.ERROR_MESSAGE);
                     }
                 } catch (Exception e) {
-                    log("✗ Error: " + e.getMessage());
+                    log(serial, "✗ Error: " + e.getMessage());
                 }
             }
         };
-        worker.execute();
+        TaskManager.execute("set proxy", worker);
+    }
+
+    /**
+     * Fetch Burp's CA from the proxy listener and install it on the selected device, or on
+     * every connected device at once when none is selected
+     */
+    private void installBurpCa() {
+        String host = proxyHostField.getText().trim();
+        String portText = proxyPortField.getText().trim();
+        CertificateInstaller.Store store = (CertificateInstaller.Store) certStoreCombo.getSelectedItem();
+        int port;
+        try {
+            port = Integer.parseInt(portText);
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(this, "Please enter a valid proxy port", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        log("Fetching Burp CA from the proxy listener on port " + port + "...");
+        forEachDevice("install CA", () -> {
+            X509Certificate certificate;
+            // The listener usually binds to loopback; the host field may be a LAN address
+            try {
+                certificate = CertificateInstaller.fetchBurpCa("127.0.0.1", port);
+            } catch (Exception e) {
+                certificate = CertificateInstaller.fetchBurpCa(host, port);
+            }
+            log("Burp CA " + CertificateInstaller.subjectHashOld(certificate) + ".0, installing to the "
+                    + store.toString().toLowerCase(Locale.ROOT) + "...");
+            CertificateInstaller installer = new CertificateInstaller(api);
+            X509Certificate fetched = certificate;
+            return device -> installer.install(device, fetched, store);
+        });
+    }
+
+    private void setPacProxy() {
+        String serial = adbHelper.getSelectedDevice();
+        String host = proxyHostField.getText().trim();
+        String port = proxyPortField.getText().trim();
+        String hosts = pacHostsField.getText().trim();
+        api.persistence().preferences().setString(PAC_HOSTS_KEY, hosts);
+        if (port.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Please enter the proxy port", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        log(serial, "Setting PAC proxy for in-scope hosts...");
+
+        SwingWorker<Boolean, Void> worker = new SwingWorker<>() {
+            private int ruleCount;
+            private List<String> skipped = List.of();
+
+            @Override
+            protected Boolean doInBackground() throws Exception {
+                // Regenerated on every download, so scope changes apply at the device's next boot
+                int pacPort = PacServer.start(() -> new PacServer.Rules().addBurpScope(api).addHosts(hosts)
+                        .toPac(host + ":" + port));
+                PacServer.Rules rules = new PacServer.Rules().addBurpScope(api).addHosts(hosts);
+                ruleCount = rules.size();
+                skipped = rules.getSkipped();
+                return adbHelper.setPacProxy(port, pacPort);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    if (!get()) {
+                        log(serial, "✗ Failed to set PAC proxy");
+                        return;
+                    }
+                    if (ruleCount == 0) {
+                        log(serial, "⚠ PAC proxy set, but the target scope and host list are empty: nothing will be proxied");
+                    } else {
+                        log(serial, "✓ PAC proxy set: " + ruleCount + " host rule(s) go through Burp, everything else goes direct");
+                    }
+                    for (String pattern : skipped) {
+                        log(serial, "⚠ Scope host pattern left out of the PAC file, JavaScript cannot use it: " + pattern);
+                    }
+                    int reboot = JOptionPane.showConfirmDialog(MobileProxyPanel.this,
+                            "Android loads the PAC setting at boot. Reboot the device now?",
+                            "PAC Proxy", JOptionPane.YES_NO_OPTION);
+                    if (reboot == JOptionPane.YES_OPTION) {
+                        log(serial, "Rebooting device; port mappings are restored when it reconnects");
+                        TaskManager.io("reboot device", () -> adbHelper.executeCommand("reboot"));
+                    }
+                } catch (Exception e) {
+                    log(serial, "✗ Error: " + (e.getCause() != null ? e.getCause().getMessage() : e.getMessage()));
+                }
+            }
+        };
+        TaskManager.execute("set pac proxy", worker);
+    }
+
+    private void setAppRedirect(boolean enable) {
+        String packageName = transparentPackageField.getText().trim();
+        int port;
+        try {
+            port = Integer.parseInt(proxyPortField.getText().trim());
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(this, "Please enter a valid proxy port", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (enable && packageName.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Please enter the app's package name", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        api.persistence().preferences().setString(TRANSPARENT_PACKAGE_KEY, packageName);
+
+        log(enable ? "Redirecting " + packageName + " to Burp on port " + port + "..." : "Removing app redirect...");
+        TransparentProxy transparentProxy = new TransparentProxy(api);
+        forEachDevice(enable ? "redirect app" : "stop redirect", () -> enable
+                ? device -> transparentProxy.enable(device, packageName, port)
+                : transparentProxy::disable);
     }
 
     private void clearProxy() {
-        log("Clearing proxy settings...");
+        String serial = adbHelper.getSelectedDevice();
+        log(serial, "Clearing proxy settings...");
 
         SwingWorker<Boolean, Void> worker = new SwingWorker<Boolean, Void>() {
             @Override
@@ -385,23 +613,24 @@ public class MobileProxyPanel extends JPanel {
             protected void done() {
                 try {
                     if (get()) {
-                        log("✓ Proxy cleared successfully");
+                        log(serial, "✓ Proxy cleared successfully");
                         JOptionPane.showMessageDialog(MobileProxyPanel.this,
                                 "Proxy cleared successfully",
                                 "Success", JOptionPane.INFORMATION_MESSAGE);
                     } else {
-                        log("✗ Failed to clear proxy");
+                        log(serial, "✗ Failed to clear proxy");
                     }
                 } catch (Exception e) {
-                    log("✗ Error: " + e.getMessage());
+                    log(serial, "✗ Error: " + e.getMessage());
                 }
             }
         };
-        worker.execute();
+        TaskManager.execute("clear proxy", worker);
     }
 
     private void checkProxy() {
-        log("Checking current proxy settings...");
+        String serial = adbHelper.getSelectedDevice();
+        log(serial, "Checking current proxy settings...");
 
         SwingWorker<String, Void> worker = new SwingWorker<String, Void>() {
             @Override
@@ -413,21 +642,72 @@ public class MobileProxyPanel extends JPanel {
             protected void done() {
                 try {
                     String settings = get();
-                    log("Current proxy: " + settings);
+                    log(serial, "Current proxy: " + settings);
                     JOptionPane.showMessageDialog(MobileProxyPanel.this,
                             "Current proxy settings:\n" + settings,
                             "Proxy Status", JOptionPane.INFORMATION_MESSAGE);
                 } catch (Exception e) {
-                    log("✗ Error: " + e.getMessage());
+                    log(serial, "✗ Error: " + e.getMessage());
                 }
             }
         };
-        worker.execute();
+        TaskManager.execute("check proxy", worker);
+    }
+
+    private void verifyProxy() {
+        log("Verifying the proxy path end to end...");
+        forEachDevice("verify proxy", () -> device -> ProxyVerifier.verify(adbHelper, device));
+    }
+
+    /**
+     * Prepare an action on a background task, then run it on the selected device, or on every
+     * connected device when none is selected. Devices run in parallel and each result is logged
+     * as soon as it is in.
+     *
+     * @param prepare work shared by all devices; returns the action for one device
+     */
+    private void forEachDevice(String name, Callable<Function<String, DeviceResult>> prepare) {
+        String selected = adbHelper.getSelectedDevice();
+        SwingWorker<List<String>, Void> worker = new SwingWorker<>() {
+            private Function<String, DeviceResult> action;
+
+            @Override
+            protected List<String> doInBackground() throws Exception {
+                action = prepare.call();
+                return selected != null ? List.of(selected) : adbHelper.getConnectedDevices();
+            }
+
+            @Override
+            protected void done() {
+                List<String> devices;
+                try {
+                    devices = get();
+                } catch (Exception e) {
+                    log("✗ " + name + " failed: " + (e.getCause() != null ? e.getCause().getMessage() : e.getMessage()));
+                    return;
+                }
+                if (devices.isEmpty()) {
+                    log("✗ No devices found");
+                    return;
+                }
+
+                for (String device : devices) {
+                    TaskManager.io(name + " " + device, () -> log(device, action.apply(device).toString()));
+                }
+            }
+        };
+        TaskManager.execute(name, worker);
     }
 
     private void log(String message) {
-        logOutput.append(message + "\n");
-        logOutput.setCaretPosition(logOutput.getDocument().getLength());
+        log(null, message);
+    }
+
+    /**
+     * @param device serial the message is about, captured when the action started; null for none
+     */
+    private void log(String device, String message) {
+        logView.log(device, message);
         api.logging().logToOutput("[Mobile Proxy] " + message);
     }
 
@@ -461,22 +741,34 @@ public class MobileProxyPanel extends JPanel {
                 }
             }
         };
-        worker.execute();
+        TaskManager.execute("refresh emulator list", worker);
     }
 
     private void refreshRunningEmulators() {
         log("Checking running emulators...");
 
-        SwingWorker<List<String>, Void> worker = new SwingWorker<>() {
+        SwingWorker<List<EmulatorInstance>, Void> worker = new SwingWorker<>() {
             @Override
-            protected List<String> doInBackground() {
-                return emulatorHelper.getRunningEmulators();
+            protected List<EmulatorInstance> doInBackground() {
+                return emulatorHelper.getRunningInstances();
             }
 
             @Override
             protected void done() {
                 try {
-                    List<String> running = get();
+                    List<EmulatorInstance> running = get();
+
+                    Object previous = runningEmulatorCombo.getSelectedItem();
+                    runningEmulatorCombo.removeAllItems();
+                    for (EmulatorInstance instance : running) {
+                        if (instance.isOnline()) {
+                            runningEmulatorCombo.addItem(instance.getSerial());
+                        }
+                    }
+                    if (previous != null) {
+                        runningEmulatorCombo.setSelectedItem(previous);
+                    }
+
                     if (running.isEmpty()) {
                         runningEmulatorsArea.setText("No emulators running");
                         log("No emulators currently running");
@@ -494,7 +786,232 @@ public class MobileProxyPanel extends JPanel {
                 }
             }
         };
-        worker.execute();
+        TaskManager.execute("refresh running emulators", worker);
+    }
+
+    private void applyNetworkProfile() {
+        String serial = (String) runningEmulatorCombo.getSelectedItem();
+        Object selected = networkProfileCombo.getSelectedItem();
+
+        if (serial == null) {
+            JOptionPane.showMessageDialog(this,
+                    "No running emulator selected. Click 'Refresh Running' first.",
+                    "No Selection",
+                    JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        NetworkProfile profile;
+        if (selected instanceof NetworkProfile) {
+            profile = (NetworkProfile) selected;
+        } else {
+            profile = promptCustomNetworkProfile();
+            if (profile == null) {
+                return;
+            }
+        }
+
+        log(serial, "Applying network profile '" + profile.getName() + "' to " + serial + "...");
+
+        SwingWorker<Boolean, Void> worker = new SwingWorker<>() {
+            @Override
+            protected Boolean doInBackground() {
+                return emulatorHelper.applyNetworkProfile(serial, profile);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    if (get()) {
+                        log(serial, "✓ Network profile applied: " + serial + " -> " + profile.getName());
+                        refreshRunningEmulators();
+                    } else {
+                        log(serial, "✗ Failed to apply network profile to " + serial);
+                    }
+                } catch (Exception e) {
+                    log(serial, "✗ Error: " + e.getMessage());
+                }
+            }
+        };
+        TaskManager.execute("apply network profile", worker);
+    }
+
+    private NetworkProfile promptCustomNetworkProfile() {
+        JSpinner upSpinner = new JSpinner(new SpinnerNumberModel(1000, 1, 1_000_000, 100));
+        JSpinner downSpinner = new JSpinner(new SpinnerNumberModel(5000, 1, 1_000_000, 100));
+        JSpinner minDelaySpinner = new JSpinner(new SpinnerNumberModel(100, 0, 60_000, 10));
+        JSpinner maxDelaySpinner = new JSpinner(new SpinnerNumberModel(300, 0, 60_000, 10));
+
+        JPanel form = new JPanel(new GridLayout(0, 2, 5, 5));
+        form.add(new JLabel("Upload (kbit/s):"));
+        form.add(upSpinner);
+        form.add(new JLabel("Download (kbit/s):"));
+        form.add(downSpinner);
+        form.add(new JLabel("Min latency (ms):"));
+        form.add(minDelaySpinner);
+        form.add(new JLabel("Max latency (ms):"));
+        form.add(maxDelaySpinner);
+
+        int result = JOptionPane.showConfirmDialog(this, form, "Custom Network Profile", JOptionPane.OK_CANCEL_OPTION);
+        if (result != JOptionPane.OK_OPTION) {
+            return null;
+        }
+
+        int minDelay = (Integer) minDelaySpinner.getValue();
+        int maxDelay = Math.max(minDelay, (Integer) maxDelaySpinner.getValue());
+        return NetworkProfile.custom((Integer) upSpinner.getValue(), (Integer) downSpinner.getValue(), minDelay, maxDelay);
+    }
+
+    private void refreshLaunchProfiles() {
+        String selected = emulatorList.getSelectedValue();
+        launchProfileCombo.removeAllItems();
+
+        if (selected == null || selected.equals("No AVDs found")) {
+            return;
+        }
+
+        String lastUsed = emulatorHelper.getSelectedProfileName(selected);
+        for (EmulatorLaunchProfile profile : emulatorHelper.getLaunchProfiles(selected)) {
+            launchProfileCombo.addItem(profile);
+            if (profile.getName().equals(lastUsed)) {
+                launchProfileCombo.setSelectedItem(profile);
+            }
+        }
+    }
+
+    private void createLaunchProfile() {
+        String selected = emulatorList.getSelectedValue();
+
+        if (selected == null || selected.equals("No AVDs found")) {
+            JOptionPane.showMessageDialog(this,
+                    "Please select an emulator first",
+                    "No Selection",
+                    JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        JTextField nameField = new JTextField("Custom", 15);
+        JCheckBox noWindowCheck = new JCheckBox("No window (-no-window)");
+        JComboBox<String> gpuCombo = new JComboBox<>(new String[]{"", "swiftshader_indirect", "host", "guest", "auto"});
+        JSpinner coresSpinner = new JSpinner(new SpinnerNumberModel(0, 0, 64, 1));
+        JSpinner memorySpinner = new JSpinner(new SpinnerNumberModel(0, 0, 65536, 512));
+        JCheckBox coldBootCheck = new JCheckBox("Cold boot (-no-snapshot-load)");
+        JCheckBox noSnapshotSaveCheck = new JCheckBox("Don't save snapshot (-no-snapshot-save)");
+        JCheckBox noAudioCheck = new JCheckBox("No audio (-no-audio)");
+
+        JPanel form = new JPanel(new GridLayout(0, 2, 5, 5));
+        form.add(new JLabel("Name:"));
+        form.add(nameField);
+        form.add(new JLabel("GPU mode:"));
+        form.add(gpuCombo);
+        form.add(new JLabel("Cores (0 = default):"));
+        form.add(coresSpinner);
+        form.add(new JLabel("RAM MB (0 = default):"));
+        form.add(memorySpinner);
+        form.add(noWindowCheck);
+        form.add(noAudioCheck);
+        form.add(coldBootCheck);
+        form.add(noSnapshotSaveCheck);
+
+        int result = JOptionPane.showConfirmDialog(this, form,
+                "New Launch Profile for " + selected, JOptionPane.OK_CANCEL_OPTION);
+        if (result != JOptionPane.OK_OPTION || nameField.getText().trim().isEmpty()) {
+            return;
+        }
+
+        EmulatorLaunchProfile profile = new EmulatorLaunchProfile(nameField.getText().trim());
+        profile.setNoWindow(noWindowCheck.isSelected());
+        profile.setGpuMode((String) gpuCombo.getSelectedItem());
+        profile.setCores((Integer) coresSpinner.getValue());
+        profile.setMemoryMb((Integer) memorySpinner.getValue());
+        profile.setColdBoot(coldBootCheck.isSelected());
+        profile.setNoSnapshotSave(noSnapshotSaveCheck.isSelected());
+        profile.setNoAudio(noAudioCheck.isSelected());
+
+        emulatorHelper.saveLaunchProfile(selected, profile);
+        emulatorHelper.setSelectedProfileName(selected, profile.getName());
+        refreshLaunchProfiles();
+        log("✓ Saved launch profile '" + profile.getName() + "' for " + selected + ": " + String.join(" ", profile.toArgs()));
+    }
+
+    private void benchmarkSelectedEmulator() {
+        String selected = emulatorList.getSelectedValue();
+
+        if (selected == null || selected.equals("No AVDs found")) {
+            JOptionPane.showMessageDialog(this,
+                    "Please select an emulator to benchmark",
+                    "No Selection",
+                    JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        String runsInput = JOptionPane.showInputDialog(this,
+                "Boot '" + selected + "' cold and warm with every launch profile.\n" +
+                        "The emulator must not be running. Boots per profile and mode:",
+                "3");
+        if (runsInput == null) {
+            return;
+        }
+
+        int runs;
+        try {
+            runs = Math.max(1, Integer.parseInt(runsInput.trim()));
+        } catch (NumberFormatException e) {
+            log("✗ Invalid run count: " + runsInput);
+            return;
+        }
+
+        boolean writableSystem = writableSystemCheck.isSelected();
+        String dnsServer = dnsServerField.getText().trim();
+        List<EmulatorLaunchProfile> profiles = emulatorHelper.getLaunchProfiles(selected);
+
+        log("========== Boot Benchmark: " + selected + " ==========");
+
+        SwingWorker<List<BootBenchmark.Result>, String> worker = new SwingWorker<>() {
+            @Override
+            protected List<BootBenchmark.Result> doInBackground() {
+                if (emulatorHelper.isEmulatorRunning(selected)) {
+                    publish("✗ Stop '" + selected + "' before benchmarking");
+                    return List.of();
+                }
+                return new BootBenchmark(emulatorHelper).run(selected, writableSystem, dnsServer, profiles, runs, this::publish);
+            }
+
+            @Override
+            protected void process(List<String> chunks) {
+                for (String message : chunks) {
+                    log(message);
+                }
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    List<BootBenchmark.Result> results = get();
+                    BootBenchmark.Result fastest = null;
+                    for (BootBenchmark.Result result : results) {
+                        if (result.getFailures() == 0 && !result.getColdBootMs().isEmpty()
+                                && (fastest == null || median(result) < median(fastest))) {
+                            fastest = result;
+                        }
+                    }
+                    if (fastest != null) {
+                        log("✓ Fastest stable profile (cold p50): " + fastest.getProfileName());
+                    }
+                    log("========== Benchmark Complete ==========");
+                    refreshRunningEmulators();
+                } catch (Exception e) {
+                    log("✗ Error: " + e.getMessage());
+                }
+            }
+
+            private long median(BootBenchmark.Result result) {
+                List<Long> sorted = new ArrayList<>(result.getColdBootMs());
+                Collections.sort(sorted);
+                return BootBenchmark.percentile(sorted, 50);
+            }
+        };
+        TaskManager.execute("benchmark selected emulator", worker);
     }
 
     private void startSelectedEmulator() {
@@ -510,14 +1027,20 @@ public class MobileProxyPanel extends JPanel {
 
         boolean writableSystem = writableSystemCheck.isSelected();
         String dnsServer = dnsServerField.getText().trim();
+        EmulatorLaunchProfile profile = (EmulatorLaunchProfile) launchProfileCombo.getSelectedItem();
 
         log("Starting emulator: " + selected);
-        log("Options: writable-system=" + writableSystem + ", dns=" + dnsServer);
+        log("Options: writable-system=" + writableSystem + ", dns=" + dnsServer +
+                (profile != null ? ", profile=" + profile.getName() : ""));
+
+        if (profile != null) {
+            emulatorHelper.setSelectedProfileName(selected, profile.getName());
+        }
 
         SwingWorker<Process, Void> worker = new SwingWorker<>() {
             @Override
             protected Process doInBackground() {
-                return emulatorHelper.startEmulator(selected, writableSystem, dnsServer);
+                return emulatorHelper.startEmulator(selected, writableSystem, dnsServer, profile);
             }
 
             @Override
@@ -525,7 +1048,6 @@ public class MobileProxyPanel extends JPanel {
                 try {
                     Process process = get();
                     if (process != null) {
-                        runningEmulatorProcesses.put(selected, process);
                         log("✓ Emulator started: " + selected);
                         log("⏳ Waiting for emulator to boot (this may take 1-2 minutes)...");
 
@@ -537,9 +1059,7 @@ public class MobileProxyPanel extends JPanel {
                                 JOptionPane.INFORMATION_MESSAGE);
 
                         // Auto-refresh after 30 seconds
-                        Timer timer = new Timer(30000, e -> refreshRunningEmulators());
-                        timer.setRepeats(false);
-                        timer.start();
+                        TaskManager.later(30000, () -> refreshRunningEmulators());
                     } else {
                         log("✗ Failed to start emulator");
                         JOptionPane.showMessageDialog(MobileProxyPanel.this,
@@ -552,7 +1072,7 @@ public class MobileProxyPanel extends JPanel {
                 }
             }
         };
-        worker.execute();
+        TaskManager.execute("start selected emulator", worker);
     }
 
     private void stopSelectedEmulator() {
@@ -566,45 +1086,34 @@ public class MobileProxyPanel extends JPanel {
             return;
         }
 
-        Process process = runningEmulatorProcesses.get(selected);
-
-        if (process == null || !process.isAlive()) {
-            JOptionPane.showMessageDialog(this,
-                    "Emulator '" + selected + "' is not running from this extension.\n" +
-                            "To stop manually: Close the emulator window or use:\n" +
-                            "adb -s emulator-XXXX emu kill",
-                    "Not Running",
-                    JOptionPane.INFORMATION_MESSAGE);
-            return;
-        }
-
         log("Stopping emulator: " + selected);
 
         SwingWorker<Boolean, Void> worker = new SwingWorker<>() {
             @Override
             protected Boolean doInBackground() {
-                return emulatorHelper.stopEmulator(process);
+                return emulatorHelper.stopEmulator(selected);
             }
 
             @Override
             protected void done() {
                 try {
                     if (get()) {
-                        runningEmulatorProcesses.remove(selected);
                         log("✓ Emulator stopped: " + selected);
 
                         // Refresh running list
-                        Timer timer = new Timer(2000, e -> refreshRunningEmulators());
-                        timer.setRepeats(false);
-                        timer.start();
+                        TaskManager.later(2000, () -> refreshRunningEmulators());
                     } else {
-                        log("✗ Failed to stop emulator");
+                        log("✗ Emulator '" + selected + "' is not running");
+                        JOptionPane.showMessageDialog(MobileProxyPanel.this,
+                                "Emulator '" + selected + "' is not running.",
+                                "Not Running",
+                                JOptionPane.INFORMATION_MESSAGE);
                     }
                 } catch (Exception e) {
                     log("✗ Error: " + e.getMessage());
                 }
             }
         };
-        worker.execute();
+        TaskManager.execute("stop selected emulator", worker);
     }
 }
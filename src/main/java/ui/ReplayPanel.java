@@ -0,0 +1,328 @@
+package ui;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import utils.CurlCommandSplitter;
+import utils.LatencyHistogram;
+import utils.ReplayEngine;
+import utils.TaskManager;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Replays curl commands concurrently for rate-limit and race-condition testing,
+ * showing responses grouped by status and length with latency percentiles.
+ */
+public class ReplayPanel extends JPanel {
+    private final MontoyaApi api;
+    private final JTextArea commandArea;
+    private final JSpinner concurrencySpinner;
+    private final JSpinner rateSpinner;
+    private final JSpinner iterationsSpinner;
+    private final JCheckBox synchronizedCheck;
+    private final BucketTableModel tableModel;
+    private final JTable table;
+    private final JTextArea summaryArea;
+    private final JLabel statusLabel;
+    private final JProgressBar progressBar;
+    private final Timer refreshTimer;
+    private SwingWorker<Void, String> replayWorker;
+    private ReplayEngine engine;
+    private long expected;
+
+    private static class BucketTableModel extends AbstractTableModel {
+        private static final String[] COLUMNS = {"Status", "Length", "Count", "Min ms", "p50 ms", "p95 ms", "p99 ms", "Max ms"};
+        private List<ReplayEngine.Bucket> buckets = new ArrayList<>();
+
+        void setBuckets(List<ReplayEngine.Bucket> buckets) {
+            this.buckets = buckets;
+            fireTableDataChanged();
+        }
+
+        ReplayEngine.Bucket get(int row) {
+            return buckets.get(row);
+        }
+
+        @Override
+        public int getRowCount() {
+            return buckets.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            ReplayEngine.Bucket bucket = buckets.get(row);
+            LatencyHistogram latency = bucket.getLatency();
+            return switch (column) {
+                case 0 -> bucket.getStatus() == 0 ? "No response" : String.valueOf(bucket.getStatus());
+                case 1 -> bucket.getLengthLabel();
+                case 2 -> String.valueOf(latency.count());
+                case 3 -> millis(latency.minMicros());
+                case 4 -> millis(latency.percentileMicros(50));
+                case 5 -> millis(latency.percentileMicros(95));
+                case 6 -> millis(latency.percentileMicros(99));
+                default -> millis(latency.maxMicros());
+            };
+        }
+    }
+
+    public ReplayPanel(MontoyaApi api) {
+        this.api = api;
+        setLayout(new BorderLayout(10, 10));
+        setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        JLabel titleLabel = new JLabel("Concurrent Replay");
+        titleLabel.setFont(new Font("Arial", Font.BOLD, 16));
+        add(titleLabel, BorderLayout.NORTH);
+
+        commandArea = new JTextArea(6, 80);
+        commandArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        commandArea.setLineWrap(true);
+
+        concurrencySpinner = new JSpinner(new SpinnerNumberModel(10, 1, 256, 1));
+        rateSpinner = new JSpinner(new SpinnerNumberModel(0.0, 0.0, 10000.0, 1.0));
+        iterationsSpinner = new JSpinner(new SpinnerNumberModel(1, 1, 1_000_000, 1));
+        synchronizedCheck = new JCheckBox("Synchronized waves");
+        synchronizedCheck.setToolTipText("Hold each wave of <concurrency> requests and release them together");
+
+        tableModel = new BucketTableModel();
+        table = new JTable(tableModel);
+        table.setFillsViewportHeight(true);
+        table.setFont(new Font("Monospaced", Font.PLAIN, 11));
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+
+        summaryArea = new JTextArea(10, 40);
+        summaryArea.setEditable(false);
+        summaryArea.setFont(new Font("Monospaced", Font.PLAIN, 11));
+
+        statusLabel = new JLabel("Paste one or more curl commands. URLs may use {a,b} and [1-100] globs.");
+        progressBar = new JProgressBar();
+        progressBar.setStringPainted(true);
+
+        JPanel inputPanel = new JPanel(new BorderLayout(5, 5));
+        inputPanel.setBorder(BorderFactory.createTitledBorder("Curl Commands"));
+        inputPanel.add(new JScrollPane(commandArea), BorderLayout.CENTER);
+
+        JPanel settingsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        settingsPanel.add(new JLabel("Concurrency:"));
+        settingsPanel.add(concurrencySpinner);
+        settingsPanel.add(new JLabel("Requests/sec (0 = unlimited):"));
+        settingsPanel.add(rateSpinner);
+        settingsPanel.add(new JLabel("Iterations:"));
+        settingsPanel.add(iterationsSpinner);
+        settingsPanel.add(synchronizedCheck);
+
+        JButton startBtn = new JButton("Start Replay");
+        startBtn.addActionListener(e -> startReplay());
+        settingsPanel.add(startBtn);
+
+        JButton stopBtn = new JButton("Stop");
+        stopBtn.addActionListener(e -> {
+            if (replayWorker != null) {
+                replayWorker.cancel(true);
+            }
+        });
+        settingsPanel.add(stopBtn);
+        inputPanel.add(settingsPanel, BorderLayout.SOUTH);
+
+        JPanel resultsPanel = new JPanel(new BorderLayout(5, 5));
+        resultsPanel.setBorder(BorderFactory.createTitledBorder("Results by Status and Length"));
+        JSplitPane resultsSplit = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT,
+                new JScrollPane(table), new JScrollPane(summaryArea));
+        resultsSplit.setResizeWeight(0.6);
+        resultsPanel.add(resultsSplit, BorderLayout.CENTER);
+
+        JPanel actionPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JButton repeaterBtn = new JButton("Send Samples to Repeater");
+        repeaterBtn.addActionListener(e -> sendSamplesToRepeater());
+        actionPanel.add(repeaterBtn);
+        resultsPanel.add(actionPanel, BorderLayout.SOUTH);
+
+        JSplitPane mainSplit = new JSplitPane(JSplitPane.VERTICAL_SPLIT, inputPanel, resultsPanel);
+        mainSplit.setResizeWeight(0.3);
+
+        JPanel statusPanel = new JPanel(new BorderLayout(5, 5));
+        statusPanel.add(statusLabel, BorderLayout.WEST);
+        statusPanel.add(progressBar, BorderLayout.CENTER);
+
+        JPanel centerPanel = new JPanel(new BorderLayout(5, 5));
+        centerPanel.add(mainSplit, BorderLayout.CENTER);
+        centerPanel.add(statusPanel, BorderLayout.SOUTH);
+        add(centerPanel, BorderLayout.CENTER);
+
+        // Poll the engine instead of publishing every result, so the EDT load is constant
+        refreshTimer = TaskManager.timer(500, e -> refreshResults());
+    }
+
+    private void startReplay() {
+        if (replayWorker != null && !replayWorker.isDone()) {
+            statusLabel.setText("Replay already running");
+            return;
+        }
+
+        List<String> commands = new ArrayList<>();
+        try (CurlCommandSplitter splitter = new CurlCommandSplitter(new StringReader(commandArea.getText()))) {
+            String command;
+            while ((command = splitter.next()) != null) {
+                commands.add(command);
+            }
+        } catch (Exception e) {
+            statusLabel.setText("✗ " + e.getMessage());
+            return;
+        }
+        if (commands.isEmpty()) {
+            statusLabel.setText("✗ Paste at least one curl command");
+            return;
+        }
+
+        ReplayEngine.Config config = new ReplayEngine.Config();
+        config.concurrency = (Integer) concurrencySpinner.getValue();
+        config.requestsPerSecond = (Double) rateSpinner.getValue();
+        config.iterations = (Integer) iterationsSpinner.getValue();
+        config.synchronizedWaves = synchronizedCheck.isSelected();
+
+        try {
+            expected = ReplayEngine.countVariants(commands, config.iterations);
+        } catch (Exception e) {
+            statusLabel.setText("✗ " + e.getMessage());
+            return;
+        }
+
+        if (expected > 10_000) {
+            int confirm = JOptionPane.showConfirmDialog(this,
+                    "This will send " + expected + " requests. Continue?",
+                    "Confirm Replay", JOptionPane.YES_NO_OPTION);
+            if (confirm != JOptionPane.YES_OPTION) {
+                return;
+            }
+        }
+
+        engine = new ReplayEngine(api, config);
+        ReplayEngine runEngine = engine;
+        tableModel.setBuckets(new ArrayList<>());
+        progressBar.setValue(0);
+        statusLabel.setText("Replaying " + expected + " request(s)...");
+        refreshTimer.start();
+
+        replayWorker = new SwingWorker<>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                runEngine.run(commands, this::publish, this::isCancelled);
+                return null;
+            }
+
+            @Override
+            protected void process(List<String> chunks) {
+                for (String message : chunks) {
+                    if (message.startsWith("✗")) {
+                        api.logging().logToError("[Replay] " + message);
+                    } else {
+                        api.logging().logToOutput("[Replay] " + message);
+                    }
+                }
+            }
+
+            @Override
+            protected void done() {
+                refreshTimer.stop();
+                refreshResults();
+                try {
+                    get();
+                    statusLabel.setText("✓ Sent " + runEngine.getSent() + " request(s), " + runEngine.getErrors() + " error(s)");
+                } catch (CancellationException e) {
+                    statusLabel.setText("Replay stopped after " + runEngine.getSent() + " request(s)");
+                } catch (Exception e) {
+                    statusLabel.setText("✗ Replay failed: " + e.getMessage());
+                    api.logging().logToError("Replay failed: " + e.getMessage());
+                }
+            }
+        };
+        TaskManager.execute("start replay", replayWorker);
+    }
+
+    private void refreshResults() {
+        if (engine == null) {
+            return;
+        }
+
+        int selected = table.getSelectedRow();
+        tableModel.setBuckets(engine.getBuckets());
+        if (selected >= 0 && selected < table.getRowCount()) {
+            table.setRowSelectionInterval(selected, selected);
+        }
+
+        long sent = engine.getSent();
+        progressBar.setValue(expected > 0 ? (int) Math.min(100, sent * 100 / expected) : 0);
+        progressBar.setString(sent + " / " + expected);
+        summaryArea.setText(renderSummary(engine));
+    }
+
+    /**
+     * Overall percentiles followed by a text histogram with power-of-two millisecond bins
+     */
+    private static String renderSummary(ReplayEngine engine) {
+        LatencyHistogram latency = engine.getLatency();
+        StringBuilder sb = new StringBuilder();
+        sb.append("Requests: ").append(engine.getSent()).append("   Errors: ").append(engine.getErrors()).append("\n");
+        sb.append("Latency ms  min ").append(millis(latency.minMicros()))
+                .append("  mean ").append(millis(latency.meanMicros()))
+                .append("  max ").append(millis(latency.maxMicros())).append("\n");
+        sb.append("            p50 ").append(millis(latency.percentileMicros(50)))
+                .append("  p95 ").append(millis(latency.percentileMicros(95)))
+                .append("  p99 ").append(millis(latency.percentileMicros(99))).append("\n\n");
+
+        long total = latency.count();
+        if (total == 0) {
+            return sb.toString();
+        }
+
+        long previous = 0;
+        for (long upperMs = 1; ; upperMs *= 2) {
+            long below = latency.countBelow(upperMs * 1000);
+            long inBin = below - previous;
+            previous = below;
+            if (inBin > 0) {
+                int bar = (int) Math.max(1, inBin * 40 / total);
+                sb.append(String.format("< %6d ms %8d %s%n", upperMs, inBin, "#".repeat(bar)));
+            }
+            if (below >= total || upperMs > 1_000_000) {
+                break;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String millis(long micros) {
+        return String.format("%.1f", micros / 1000.0);
+    }
+
+    private void sendSamplesToRepeater() {
+        int row = table.getSelectedRow();
+        if (row < 0) {
+            statusLabel.setText("Select a result row first");
+            return;
+        }
+
+        ReplayEngine.Bucket bucket = tableModel.get(table.convertRowIndexToModel(row));
+        int sent = 0;
+        for (HttpRequestResponse sample : bucket.getSamples()) {
+            api.repeater().sendToRepeater(sample.request(), "Replay " + bucket.getStatus() + " #" + (++sent));
+        }
+        statusLabel.setText(sent > 0 ? "✓ Sent " + sent + " sample(s) to Repeater" : "No samples kept for this row");
+    }
+}
@@ -2,10 +2,15 @@ package ui;
 
 import burp.api.montoya.MontoyaApi;
 import utils.ADBHelper;
+import utils.Diagnostics;
+import utils.TaskManager;
 
 import javax.swing.*;
 import java.awt.*;
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
 
 public class SettingsPanel extends JPanel {
     private final MontoyaApi api;
@@ -39,7 +44,7 @@ public class SettingsPanel extends JPanel {
 
         gbc.gridx = 1;
         gbc.weightx = 1.0;
-        adbPathField = new JTextField(ADBHelper.getAdbPath() != null ? ADBHelper.getAdbPath() : "", 40);
+        adbPathField = new JTextField(ADBHelper.getKnownAdbPath() != null ? ADBHelper.getKnownAdbPath() : "", 40);
         adbPanel.add(adbPathField, gbc);
 
         gbc.gridx = 2;
@@ -143,47 +148,57 @@ public class SettingsPanel extends JPanel {
             return;
         }
 
-        try {
-            ProcessBuilder pb = new ProcessBuilder(path, "version");
-            Process process = pb.start();
-            int exitCode = process.waitFor();
+        setStatus("🔍 Testing ADB...", Color.BLUE);
 
-            if (exitCode == 0) {
-                setStatus("✓ ADB is working correctly!", Color.GREEN);
+        // Device count, or -1 if "adb version" failed
+        SwingWorker<Integer, Void> worker = new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() throws Exception {
+                Process process = Diagnostics.start(new ProcessBuilder(path, "version"));
+                process.getInputStream().transferTo(OutputStream.nullOutputStream());
+                if (process.waitFor() != 0) {
+                    return -1;
+                }
 
                 // Also test device connection
-                pb = new ProcessBuilder(path, "devices");
-                process = pb.start();
-                java.io.BufferedReader reader = new java.io.BufferedReader(
-                        new java.io.InputStreamReader(process.getInputStream()));
-
+                process = Diagnostics.start(new ProcessBuilder(path, "devices"));
                 int deviceCount = 0;
-                String line;
-                boolean firstLine = true;
-                while ((line = reader.readLine()) != null) {
-                    if (firstLine) {
-                        firstLine = false;
-                        continue;
-                    }
-                    if (!line.trim().isEmpty() && line.contains("\t")) {
-                        deviceCount++;
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                    String line;
+                    boolean firstLine = true;
+                    while ((line = reader.readLine()) != null) {
+                        if (firstLine) {
+                            firstLine = false;
+                            continue;
+                        }
+                        if (!line.trim().isEmpty() && line.contains("\t")) {
+                            deviceCount++;
+                        }
                     }
                 }
-                reader.close();
+                process.waitFor();
+                return deviceCount;
+            }
 
-                if (deviceCount > 0) {
-                    setStatus("✓ ADB working! " + deviceCount + " device(s) connected", Color.GREEN);
-                } else {
-                    setStatus("✓ ADB working! No devices connected", new Color(34, 139, 34));
+            @Override
+            protected void done() {
+                try {
+                    int deviceCount = get();
+                    if (deviceCount < 0) {
+                        setStatus("✗ ADB test failed", Color.RED);
+                    } else if (deviceCount > 0) {
+                        setStatus("✓ ADB working! " + deviceCount + " device(s) connected", Color.GREEN);
+                    } else {
+                        setStatus("✓ ADB working! No devices connected", new Color(34, 139, 34));
+                    }
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    setStatus("✗ Error: " + cause.getMessage(), Color.RED);
+                    api.logging().logToError("ADB test error: " + cause.getMessage());
                 }
-
-            } else {
-                setStatus("✗ ADB test failed", Color.RED);
             }
-        } catch (Exception e) {
-            setStatus("✗ Error: " + e.getMessage(), Color.RED);
-            api.logging().logToError("ADB test error: " + e.getMessage());
-        }
+        };
+        TaskManager.execute("test adb", worker);
     }
 
     private void saveAdbPath() {
@@ -212,9 +227,8 @@ public class SettingsPanel extends JPanel {
         SwingWorker<String, Void> worker = new SwingWorker<String, Void>() {
             @Override
             protected String doInBackground() {
-                // Create a temporary ADBHelper to trigger auto-detection
-                ADBHelper tempHelper = new ADBHelper(api);
-                return ADBHelper.getAdbPath();
+                ADBHelper.warmUp(api);
+                return ADBHelper.redetectAdbPath();
             }
 
             @Override
@@ -235,16 +249,41 @@ public class SettingsPanel extends JPanel {
                 }
             }
         };
-        worker.execute();
+        TaskManager.execute("auto detect adb", worker);
     }
 
+    /**
+     * Show the current path; if it has not been detected yet, show "detecting" and wait for it off the EDT
+     */
     private void updateStatus() {
-        String currentPath = ADBHelper.getAdbPath();
+        String currentPath = ADBHelper.getKnownAdbPath();
         if (currentPath != null && !currentPath.isEmpty()) {
             setStatus("Current: " + currentPath, Color.YELLOW);
-        } else {
-            setStatus("ADB path not configured", Color.ORANGE);
+            return;
         }
+
+        setStatus("🔍 Detecting ADB...", Color.BLUE);
+        SwingWorker<String, Void> worker = new SwingWorker<String, Void>() {
+            @Override
+            protected String doInBackground() {
+                ADBHelper.warmUp(api);
+                return ADBHelper.getAdbPath();
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    String detectedPath = get();
+                    if (adbPathField.getText().isEmpty()) {
+                        adbPathField.setText(detectedPath);
+                    }
+                    setStatus("Current: " + detectedPath, Color.YELLOW);
+                } catch (Exception e) {
+                    setStatus("ADB path not configured", Color.ORANGE);
+                }
+            }
+        };
+        TaskManager.execute("detect adb", worker);
     }
 
     private void setStatus(String message, Color color) {
@@ -3,13 +3,29 @@ package utils;
 import burp.api.montoya.MontoyaApi;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 public class ADBHelper {
     private final MontoyaApi api;
-    private static String ADB_COMMAND = null;
+    /**
+     * Device directory the shell user can write to, where root scripts and their files are pushed
+     */
+    public static final String REMOTE_TMP = "/data/local/tmp";
+    /**
+     * Printed by runRootScript when neither adbd nor su gives root
+     */
+    public static final String NO_ROOT = "BMA_NO_ROOT";
+    private static volatile String ADB_COMMAND = null;
+    // For detection messages; detection runs from static getAdbPath() callers too
+    private static volatile MontoyaApi logApi = null;
+    private static final String PAC_URL_SETTING = "global_proxy_pac_url";
     private String selectedDeviceId = null; // Currently selected device for operations
     private static final String[] COMMON_ADB_PATHS = {
             "adb", // System PATH
@@ -21,11 +37,25 @@ public class ADBHelper {
             System.getProperty("user.home") + "/AppData/Local/Android/Sdk/platform-tools/adb.exe" // Windows alternative
     };
 
+    /**
+     * Cheap enough for the EDT: the ADB path is detected on first use, from a background task
+     */
     public ADBHelper(MontoyaApi api) {
         this.api = api;
-        if (ADB_COMMAND == null) {
-            ADB_COMMAND = detectAdbPath();
+        if (logApi == null) {
+            logApi = api;
+        }
+        PortMappings.init(api);
+    }
+
+    /**
+     * Detect the ADB path ahead of its first use; blocks on detection, so call from a background task
+     */
+    public static void warmUp(MontoyaApi api) {
+        if (logApi == null) {
+            logApi = api;
         }
+        getAdbPath();
     }
 
     /**
@@ -46,13 +76,13 @@ public class ADBHelper {
     /**
      * Auto-detect ADB path by checking common locations
      */
-    private String detectAdbPath() {
-        api.logging().logToOutput("Auto-detecting ADB location...");
+    private static String detectAdbPath() {
+        log("Auto-detecting ADB location...");
 
         // Try common paths
         for (String path : COMMON_ADB_PATHS) {
             if (testAdbPath(path)) {
-                api.logging().logToOutput("✓ ADB found at: " + path);
+                log("✓ ADB found at: " + path);
                 return path;
             }
         }
@@ -64,14 +94,14 @@ public class ADBHelper {
                     : new String[]{"which", "adb"};
 
             ProcessBuilder pb = new ProcessBuilder(command);
-            Process process = pb.start();
+            Process process = Diagnostics.start(pb);
             BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
             String path = reader.readLine();
             reader.close();
             process.waitFor();
 
             if (path != null && !path.isEmpty() && testAdbPath(path)) {
-                api.logging().logToOutput("✓ ADB found via system command: " + path);
+                log("✓ ADB found via system command: " + path);
                 return path;
             }
         } catch (Exception e) {
@@ -79,17 +109,27 @@ public class ADBHelper {
         }
 
         // Fallback to default
-        api.logging().logToError("⚠ ADB not found automatically. Please set the path manually in Settings tab.");
+        MontoyaApi api = logApi;
+        if (api != null) {
+            api.logging().logToError("⚠ ADB not found automatically. Please set the path manually in Settings tab.");
+        }
         return "adb"; // Try system PATH as last resort
     }
 
+    private static void log(String message) {
+        MontoyaApi api = logApi;
+        if (api != null) {
+            api.logging().logToOutput(message);
+        }
+    }
+
     /**
      * Test if ADB exists and works at given path
      */
-    private boolean testAdbPath(String path) {
+    private static boolean testAdbPath(String path) {
         try {
             ProcessBuilder pb = new ProcessBuilder(path, "version");
-            Process process = pb.start();
+            Process process = Diagnostics.start(pb);
             int exitCode = process.waitFor();
             return exitCode == 0;
         } catch (Exception e) {
@@ -105,22 +145,50 @@ public class ADBHelper {
     }
 
     /**
-     * Get current ADB path
+     * Get current ADB path, detecting it on first use. Detection spawns processes, so call
+     * this from a background task; the EDT should use getKnownAdbPath().
      */
     public static String getAdbPath() {
+        String path = ADB_COMMAND;
+        if (path != null) {
+            return path;
+        }
+        synchronized (ADBHelper.class) {
+            if (ADB_COMMAND == null) {
+                String detected = detectAdbPath();
+                // A path set manually while detecting wins
+                if (ADB_COMMAND == null) {
+                    ADB_COMMAND = detected;
+                }
+            }
+            return ADB_COMMAND;
+        }
+    }
+
+    /**
+     * The ADB path if it has been detected or set, else null; never blocks
+     */
+    public static String getKnownAdbPath() {
         return ADB_COMMAND;
     }
 
+    /**
+     * Detect the ADB path again, replacing the current one; blocks, so call from a background task
+     */
+    public static String redetectAdbPath() {
+        synchronized (ADBHelper.class) {
+            ADB_COMMAND = detectAdbPath();
+            return ADB_COMMAND;
+        }
+    }
+
     /**
      * Verify if current ADB path is valid
      */
     public boolean isAdbAvailable() {
-        if (ADB_COMMAND == null) {
-            return false;
-        }
         try {
-            ProcessBuilder pb = new ProcessBuilder(ADB_COMMAND, "version");
-            Process process = pb.start();
+            ProcessBuilder pb = new ProcessBuilder(getAdbPath(), "version");
+            Process process = Diagnostics.start(pb);
             int exitCode = process.waitFor();
             return exitCode == 0;
         } catch (Exception e) {
@@ -131,8 +199,8 @@ public class ADBHelper {
     public List<String> getConnectedDevices() {
         List<String> devices = new ArrayList<>();
         try {
-            ProcessBuilder pb = new ProcessBuilder(ADB_COMMAND, "devices");
-            Process process = pb.start();
+            ProcessBuilder pb = new ProcessBuilder(getAdbPath(), "devices");
+            Process process = Diagnostics.start(pb);
 
             BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
             String line;
@@ -169,8 +237,8 @@ public class ADBHelper {
     public List<String> getConnectedDevicesWithStatus() {
         List<String> devices = new ArrayList<>();
         try {
-            ProcessBuilder pb = new ProcessBuilder(ADB_COMMAND, "devices");
-            Process process = pb.start();
+            ProcessBuilder pb = new ProcessBuilder(getAdbPath(), "devices");
+            Process process = Diagnostics.start(pb);
 
             BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
             String line;
@@ -206,40 +274,27 @@ public class ADBHelper {
             ProcessBuilder pb;
             if (selectedDeviceId != null) {
                 pb = new ProcessBuilder(
-                        ADB_COMMAND, "-s", selectedDeviceId, "shell", "settings", "put", "global", "http_proxy", host + ":" + port
+                        getAdbPath(), "-s", selectedDeviceId, "shell", "settings", "put", "global", "http_proxy", host + ":" + port
                 );
             } else {
                 pb = new ProcessBuilder(
-                        ADB_COMMAND, "shell", "settings", "put", "global", "http_proxy", host + ":" + port
+                        getAdbPath(), "shell", "settings", "put", "global", "http_proxy", host + ":" + port
                 );
             }
 
-            Process process = pb.start();
+            Process process = Diagnostics.start(pb);
             int exitCode = process.waitFor();
 
             if (exitCode == 0) {
                 String deviceInfo = selectedDeviceId != null ? " on device " + selectedDeviceId : "";
                 api.logging().logToOutput("Proxy set to " + host + ":" + port + deviceInfo);
 
-                // Add reverse port forwarding
-                ProcessBuilder reversePb;
-                if (selectedDeviceId != null) {
-                    reversePb = new ProcessBuilder(
-                            ADB_COMMAND, "-s", selectedDeviceId, "reverse", "tcp:" + port, "tcp:" + port
-                    );
-                } else {
-                    reversePb = new ProcessBuilder(
-                            ADB_COMMAND, "reverse", "tcp:" + port, "tcp:" + port
-                    );
-                }
-
-                Process reverseProcess = reversePb.start();
-                int reverseExitCode = reverseProcess.waitFor();
-
-                if (reverseExitCode == 0) {
-                    api.logging().logToOutput("Port forwarding set: tcp:" + port + " -> tcp:" + port + deviceInfo);
-                } else {
-                    api.logging().logToError("Failed to set port forwarding" + deviceInfo);
+                // Reverse port forwarding; replaces the rule for a previous proxy port
+                try {
+                    int portNumber = Integer.parseInt(port.trim());
+                    setPortMapping("proxy", PortMappings.Mapping.reverse(portNumber, portNumber));
+                } catch (NumberFormatException e) {
+                    api.logging().logToError("Port forwarding not set: invalid port " + port);
                 }
 
                 return true;
@@ -256,20 +311,24 @@ public class ADBHelper {
             ProcessBuilder pb;
             if (selectedDeviceId != null) {
                 pb = new ProcessBuilder(
-                        ADB_COMMAND, "-s", selectedDeviceId, "shell", "settings", "put", "global", "http_proxy", ":0"
+                        getAdbPath(), "-s", selectedDeviceId, "shell", "settings", "put", "global", "http_proxy", ":0"
                 );
             } else {
                 pb = new ProcessBuilder(
-                        ADB_COMMAND, "shell", "settings", "put", "global", "http_proxy", ":0"
+                        getAdbPath(), "shell", "settings", "put", "global", "http_proxy", ":0"
                 );
             }
 
-            Process process = pb.start();
+            Process process = Diagnostics.start(pb);
             int exitCode = process.waitFor();
 
             if (exitCode == 0) {
                 String deviceInfo = selectedDeviceId != null ? " on device " + selectedDeviceId : "";
                 api.logging().logToOutput("Proxy cleared" + deviceInfo);
+                // Also leave PAC mode, which would otherwise come back at the next boot
+                executeCommand("shell", "settings delete global " + PAC_URL_SETTING);
+                setPortMapping("proxy", null);
+                setPortMapping("pac", null);
                 return true;
             }
         } catch (Exception e) {
@@ -279,20 +338,89 @@ public class ADBHelper {
         return false;
     }
 
+    /**
+     * Proxy only the hosts a PAC file chooses: the PAC server and Burp's port are reverse-mapped
+     * and the device's global PAC setting points at it. Android reads that setting at boot, so
+     * it takes effect after a reboot; http_proxy is deleted rather than set to ":0", which would
+     * make the system clear the global proxy settings again.
+     */
+    public boolean setPacProxy(String port, int pacPort) {
+        String pacUrl = "http://127.0.0.1:" + pacPort + PacServer.PATH;
+        try {
+            int portNumber = Integer.parseInt(port.trim());
+            String serial = resolveSerial();
+            if (serial == null) {
+                api.logging().logToError("PAC proxy not set: select a device");
+                return false;
+            }
+
+            ProcessBuilder pb = new ProcessBuilder(getAdbPath(), "-s", serial, "shell",
+                    "settings delete global http_proxy; "
+                            + "settings delete global global_http_proxy_host; "
+                            + "settings delete global global_http_proxy_port; "
+                            + "settings delete global global_http_proxy_exclusion_list; "
+                            + "settings put global " + PAC_URL_SETTING + " " + pacUrl);
+            Process process = Diagnostics.start(pb);
+            if (process.waitFor() != 0) {
+                api.logging().logToError("Failed to set PAC proxy on " + serial);
+                return false;
+            }
+            api.logging().logToOutput("PAC proxy set to " + pacUrl + " on device " + serial);
+
+            setPortMapping("pac", PortMappings.Mapping.reverse(pacPort, pacPort));
+            setPortMapping("proxy", PortMappings.Mapping.reverse(portNumber, portNumber));
+            return true;
+        } catch (NumberFormatException e) {
+            api.logging().logToError("PAC proxy not set: invalid port " + port);
+        } catch (Exception e) {
+            api.logging().logToError("Error setting PAC proxy: " + e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * The selected device, or the only connected one
+     */
+    private String resolveSerial() {
+        if (selectedDeviceId != null) {
+            return selectedDeviceId;
+        }
+        List<String> devices = getConnectedDevices();
+        return devices.size() == 1 ? devices.get(0) : null;
+    }
+
+    /**
+     * Set or remove one of BMA's port mappings on the selected device, or the only connected one
+     */
+    private void setPortMapping(String purpose, PortMappings.Mapping mapping) {
+        String serial = resolveSerial();
+        if (serial == null) {
+            api.logging().logToError("Port forwarding not changed: select a device");
+            return;
+        }
+
+        PortMappings.Change change = PortMappings.set(serial, purpose, mapping);
+        if (change.isSuccess()) {
+            api.logging().logToOutput("Port forwarding on " + serial + ": " + change);
+        } else {
+            api.logging().logToError("Failed to update port forwarding on " + serial + ": " + change);
+        }
+    }
+
     public String getProxySettings() {
         try {
             ProcessBuilder pb;
             if (selectedDeviceId != null) {
                 pb = new ProcessBuilder(
-                        ADB_COMMAND, "-s", selectedDeviceId, "shell", "settings", "get", "global", "http_proxy"
+                        getAdbPath(), "-s", selectedDeviceId, "shell", "settings", "get", "global", "http_proxy"
                 );
             } else {
                 pb = new ProcessBuilder(
-                        ADB_COMMAND, "shell", "settings", "get", "global", "http_proxy"
+                        getAdbPath(), "shell", "settings", "get", "global", "http_proxy"
                 );
             }
 
-            Process process = pb.start();
+            Process process = Diagnostics.start(pb);
 
             BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
             String result = reader.readLine();
@@ -300,6 +428,10 @@ public class ADBHelper {
             reader.close();
 
             if (result == null || result.trim().isEmpty() || result.equals("null") || result.equals(":0")) {
+                String pacUrl = executeCommand("shell", "settings get global " + PAC_URL_SETTING).trim();
+                if (pacUrl.startsWith("http")) {
+                    return "PAC " + pacUrl + " (takes effect after a reboot)";
+                }
                 return "No proxy set";
             }
 
@@ -314,12 +446,12 @@ public class ADBHelper {
         try {
             ProcessBuilder pb;
             if (selectedDeviceId != null) {
-                pb = new ProcessBuilder(ADB_COMMAND, "-s", selectedDeviceId, "shell", "getprop", "ro.product.cpu.abi");
+                pb = new ProcessBuilder(getAdbPath(), "-s", selectedDeviceId, "shell", "getprop", "ro.product.cpu.abi");
             } else {
-                pb = new ProcessBuilder(ADB_COMMAND, "shell", "getprop", "ro.product.cpu.abi");
+                pb = new ProcessBuilder(getAdbPath(), "shell", "getprop", "ro.product.cpu.abi");
             }
 
-            Process process = pb.start();
+            Process process = Diagnostics.start(pb);
 
             BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
             String result = reader.readLine();
@@ -347,23 +479,30 @@ public class ADBHelper {
     }
 
     public String executeCommand(String... command) {
+        return executeCommandOn(selectedDeviceId, command);
+    }
+
+    /**
+     * Run an adb command against a given device, or the default device when serial is null
+     */
+    public String executeCommandOn(String serial, String... command) {
         try {
             // Build full command with optional device selector
             String[] fullCommand;
-            if (selectedDeviceId != null) {
+            if (serial != null) {
                 fullCommand = new String[command.length + 3];
-                fullCommand[0] = ADB_COMMAND;
+                fullCommand[0] = getAdbPath();
                 fullCommand[1] = "-s";
-                fullCommand[2] = selectedDeviceId;
+                fullCommand[2] = serial;
                 System.arraycopy(command, 0, fullCommand, 3, command.length);
             } else {
                 fullCommand = new String[command.length + 1];
-                fullCommand[0] = ADB_COMMAND;
+                fullCommand[0] = getAdbPath();
                 System.arraycopy(command, 0, fullCommand, 1, command.length);
             }
 
             ProcessBuilder pb = new ProcessBuilder(fullCommand);
-            Process process = pb.start();
+            Process process = Diagnostics.start(pb);
 
             BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
             BufferedReader errorReader = new BufferedReader(new InputStreamReader(process.getErrorStream()));
@@ -389,5 +528,57 @@ public class ADBHelper {
             return "Error: " + e.getMessage();
         }
     }
+
+    /**
+     * Push a shell script and its data files to REMOTE_TMP in one push and run the script as
+     * root, through a root adbd or su, printing NO_ROOT if neither works. A trap removes the
+     * script and files when it exits, also when a "set -e" script fails part way. Returns the
+     * script's output, or "push failed: ..." when the files could not be pushed.
+     */
+    public String runRootScript(String serial, String scriptName, String script, Map<String, byte[]> files) throws IOException {
+        StringBuilder cleanup = new StringBuilder("rm -f " + scriptName);
+        for (String name : files.keySet()) {
+            cleanup.append(' ').append(name);
+        }
+
+        Path dir = Files.createTempDirectory("bma-root");
+        try {
+            List<String> push = new ArrayList<>(List.of("push"));
+            for (Map.Entry<String, byte[]> file : files.entrySet()) {
+                Path path = dir.resolve(file.getKey());
+                Files.write(path, file.getValue());
+                push.add(path.toString());
+            }
+            Path scriptFile = dir.resolve(scriptName);
+            String trapped = "cd " + REMOTE_TMP + "\ntrap '" + cleanup + "' EXIT\n" + script;
+            Files.write(scriptFile, trapped.getBytes(StandardCharsets.UTF_8));
+            push.add(scriptFile.toString());
+            push.add(REMOTE_TMP + "/");
+
+            String pushed = executeCommandOn(serial, push.toArray(new String[0]));
+            if (pushed.contains("error") || pushed.contains("failed")) {
+                return "push failed: " + pushed.trim();
+            }
+        } finally {
+            deleteQuietly(dir);
+        }
+
+        // Without root the script never runs, so its trap cannot clean up
+        String path = REMOTE_TMP + "/" + scriptName;
+        return executeCommandOn(serial, "shell", "if [ \"$(id -u)\" = 0 ]; then sh " + path
+                + "; elif command -v su >/dev/null; then su -c 'sh " + path + "' || su 0 sh " + path
+                + "; else echo " + NO_ROOT + "; cd " + REMOTE_TMP + " && " + cleanup + "; fi");
+    }
+
+    private void deleteQuietly(Path dir) {
+        try (var files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(dir);
+        } catch (IOException e) {
+            api.logging().logToError("Could not delete " + dir + ": " + e.getMessage());
+        }
+    }
 }
 
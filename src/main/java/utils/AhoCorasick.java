@@ -0,0 +1,163 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Byte-level Aho-Corasick automaton: finds every occurrence of any of a set of patterns in
+ * one pass over the input, in time linear in the input plus the matches. Transitions are
+ * stored compactly per state (sorted labels) with a full table for the root, so thousands
+ * of patterns fit in a few MB. Immutable once built; build a new one when patterns change.
+ */
+public class AhoCorasick {
+    private final byte[][] patterns;
+    // Edges of state s are labels/targets[edgeStart[s] .. edgeStart[s + 1]), sorted by label
+    private final int[] edgeStart;
+    private final byte[] labels;
+    private final int[] targets;
+    private final int[] rootNext = new int[256];
+    private final int[] fail;
+    // Pattern ending at each state, or -1; outputLink is the next state on the fail chain that has one
+    private final int[] output;
+    private final int[] outputLink;
+
+    /**
+     * Receives each match as the pattern index and the input position just past its last byte
+     */
+    public interface MatchListener {
+        void onMatch(int pattern, long end);
+    }
+
+    public AhoCorasick(List<byte[]> patternList) {
+        patterns = patternList.toArray(new byte[0][]);
+
+        // Trie, with edges keyed by (state << 8 | byte) while building
+        Map<Long, Integer> trie = new HashMap<>();
+        List<Integer> ends = new ArrayList<>();
+        ends.add(-1);
+        for (int p = 0; p < patterns.length; p++) {
+            int state = 0;
+            for (byte b : patterns[p]) {
+                long key = ((long) state << 8) | (b & 0xFF);
+                Integer next = trie.get(key);
+                if (next == null) {
+                    next = ends.size();
+                    ends.add(-1);
+                    trie.put(key, next);
+                }
+                state = next;
+            }
+            if (patterns[p].length > 0) {
+                ends.set(state, p);
+            }
+        }
+
+        int states = ends.size();
+        output = new int[states];
+        for (int s = 0; s < states; s++) {
+            output[s] = ends.get(s);
+        }
+
+        // Compact edges per state
+        long[] keys = new long[trie.size()];
+        int k = 0;
+        for (long key : trie.keySet()) {
+            keys[k++] = key;
+        }
+        Arrays.sort(keys);
+        edgeStart = new int[states + 1];
+        labels = new byte[keys.length];
+        targets = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            int state = (int) (keys[i] >>> 8);
+            labels[i] = (byte) keys[i];
+            targets[i] = trie.get(keys[i]);
+            edgeStart[state + 1]++;
+        }
+        for (int s = 0; s < states; s++) {
+            edgeStart[s + 1] += edgeStart[s];
+        }
+
+        // Breadth-first failure links
+        fail = new int[states];
+        outputLink = new int[states];
+        Arrays.fill(outputLink, -1);
+        int[] queue = new int[states];
+        int head = 0;
+        int tail = 0;
+        for (int e = edgeStart[0]; e < edgeStart[1]; e++) {
+            rootNext[labels[e] & 0xFF] = targets[e];
+            queue[tail++] = targets[e];
+        }
+        while (head < tail) {
+            int state = queue[head++];
+            for (int e = edgeStart[state]; e < edgeStart[state + 1]; e++) {
+                int child = targets[e];
+                int f = fail[state];
+                int next;
+                while ((next = child(f, labels[e])) < 0) {
+                    f = fail[f];
+                }
+                fail[child] = next != child ? next : 0;
+                outputLink[child] = output[fail[child]] >= 0 ? fail[child] : outputLink[fail[child]];
+                queue[tail++] = child;
+            }
+        }
+    }
+
+    /**
+     * Child of a state on a byte, or -1; the root has a child for every byte (itself if none)
+     */
+    private int child(int state, byte b) {
+        if (state == 0) {
+            return rootNext[b & 0xFF];
+        }
+        int low = edgeStart[state];
+        int high = edgeStart[state + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = Byte.compareUnsigned(labels[mid], b);
+            if (cmp == 0) {
+                return targets[mid];
+            } else if (cmp < 0) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Advance from a state over one input byte, reporting matches that end here.
+     * Start each independent input (e.g. a log message) from state 0.
+     */
+    public int step(int state, byte b, long position, MatchListener listener) {
+        int next;
+        while ((next = child(state, b)) < 0) {
+            state = fail[state];
+        }
+        for (int s = output[next] >= 0 ? next : outputLink[next]; s >= 0; s = outputLink[s]) {
+            listener.onMatch(output[s], position + 1);
+        }
+        return next;
+    }
+
+    public int size() {
+        return patterns.length;
+    }
+
+    public byte[] pattern(int index) {
+        return patterns[index];
+    }
+
+    /**
+     * Number of trie states, for sizing diagnostics
+     */
+    public int states() {
+        return output.length;
+    }
+}
@@ -0,0 +1,119 @@
+package utils;
+
+import jdk.jfr.*;
+
+/**
+ * JDK Flight Recorder events for BMA activity. They are recorded only while a recording
+ * with them enabled is running (e.g. jcmd &lt;burp pid&gt; JFR.start), and cost a
+ * field check otherwise.
+ */
+public final class BmaEvents {
+    private BmaEvents() {
+    }
+
+    @Name("bma.ProcessCommand")
+    @Label("Process Command")
+    @Category({"BMA", "Device"})
+    @Description("An adb or emulator process, from start until it exits; committed when it exits, so see Spawning Thread")
+    public static class ProcessCommand extends Event {
+        @Label("Tool")
+        public String tool;
+
+        @Label("Spawning Thread")
+        @Description("The thread that started the process; the event thread is the one that saw it exit")
+        public Thread spawningThread;
+
+        @Label("Device Serial")
+        public String serial;
+
+        @Label("Command Line")
+        public String command;
+
+        @Label("Exit Code")
+        public int exitCode;
+
+        @Label("Success")
+        public boolean success;
+    }
+
+    @Name("bma.ShellCommand")
+    @Label("Device Shell Command")
+    @Category({"BMA", "Device"})
+    @Description("A command run on the device through adb shell")
+    public static class ShellCommand extends Event {
+        @Label("Device Serial")
+        public String serial;
+
+        @Label("Spawning Thread")
+        @Description("The thread that started adb; the event thread is the one that saw it exit")
+        public Thread spawningThread;
+
+        @Label("Shell Command")
+        public String command;
+
+        @Label("Exit Code")
+        public int exitCode;
+
+        @Label("Success")
+        public boolean success;
+    }
+
+    @Name("bma.Frida")
+    @Label("Frida Operation")
+    @Category({"BMA", "Frida"})
+    @Description("Frida server download, decompression, push, start or stop")
+    public static class Frida extends Event {
+        @Label("Phase")
+        public String phase;
+
+        @Label("Device Serial")
+        public String serial;
+
+        @Label("Version")
+        public String version;
+
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+
+        @Label("Success")
+        public boolean success;
+    }
+
+    @Name("bma.EmulatorBootPhase")
+    @Label("Emulator Boot Phase")
+    @Category({"BMA", "Emulator"})
+    @Description("Time from the start of the boot wait until the emulator reached a boot phase")
+    public static class EmulatorBootPhase extends Event {
+        @Label("AVD")
+        public String avd;
+
+        @Label("Device Serial")
+        public String serial;
+
+        @Label("Phase")
+        public String phase;
+
+        @Label("Success")
+        public boolean success;
+    }
+
+    @Name("bma.CurlParse")
+    @Label("Curl Parse")
+    @Category({"BMA", "Parsing"})
+    @Description("Parsing one curl command into a request")
+    public static class CurlParse extends Event {
+        @Label("Input Characters")
+        public int inputChars;
+
+        @Label("Method")
+        public String method;
+
+        @Label("Body Bytes")
+        @DataAmount
+        public long bodyBytes;
+
+        @Label("Success")
+        public boolean success;
+    }
+}
@@ -0,0 +1,160 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Measures boot-to-boot_completed time of an AVD for each launch profile.
+ * Every profile is booted cold (-no-snapshot-load) and warm (quick boot) several times.
+ */
+public class BootBenchmark {
+    private static final long BOOT_TIMEOUT_MS = 10 * 60 * 1000;
+    private static final long SHUTDOWN_TIMEOUT_MS = 60 * 1000;
+
+    private final EmulatorHelper emulatorHelper;
+
+    public BootBenchmark(EmulatorHelper emulatorHelper) {
+        this.emulatorHelper = emulatorHelper;
+    }
+
+    /**
+     * Boot timings of one profile, in milliseconds
+     */
+    public static class Result {
+        private final String profileName;
+        private final List<Long> coldBootMs = new ArrayList<>();
+        private final List<Long> warmBootMs = new ArrayList<>();
+        private int failures;
+        private String warmSkipReason;  // set when no warm numbers could be measured
+
+        Result(String profileName) {
+            this.profileName = profileName;
+        }
+
+        public String getProfileName() {
+            return profileName;
+        }
+
+        public List<Long> getColdBootMs() {
+            return coldBootMs;
+        }
+
+        public List<Long> getWarmBootMs() {
+            return warmBootMs;
+        }
+
+        public int getFailures() {
+            return failures;
+        }
+
+        public String getWarmSkipReason() {
+            return warmSkipReason;
+        }
+
+        @Override
+        public String toString() {
+            return profileName + "\n" +
+                    "  cold: " + summarize(coldBootMs) + "\n" +
+                    "  warm: " + (warmSkipReason != null ? "n/a (" + warmSkipReason + ")" : summarize(warmBootMs)) + "\n" +
+                    "  failures: " + failures;
+        }
+    }
+
+    /**
+     * Run the benchmark. The AVD must not be running when this is called.
+     */
+    public List<Result> run(String avdName, boolean writableSystem, String dnsServer,
+                            List<EmulatorLaunchProfile> profiles, int runs, Consumer<String> logger) {
+        List<Result> results = new ArrayList<>();
+
+        for (EmulatorLaunchProfile profile : profiles) {
+            Result result = new Result(profile.getName());
+            logger.accept("Benchmarking profile: " + profile.getName());
+
+            for (int i = 1; i <= runs && !Thread.currentThread().isInterrupted(); i++) {
+                long ms = bootOnce(avdName, writableSystem, dnsServer, profile.withColdBoot(true));
+                record(result, result.coldBootMs, ms, "cold", i, runs, logger);
+            }
+
+            // Prime a snapshot so the warm runs actually quick-boot. Profiles that never save
+            // a snapshot are primed with a saving copy; their warm runs then load that snapshot.
+            EmulatorLaunchProfile warm = profile.withColdBoot(false);
+            // A copy, so the warm runs keep the profile's own snapshot saving
+            EmulatorLaunchProfile prime = EmulatorLaunchProfile.decode(warm.encode());
+            prime.setNoSnapshotSave(false);
+            if (!Thread.currentThread().isInterrupted() && bootOnce(avdName, writableSystem, dnsServer, prime) < 0) {
+                result.warmSkipReason = "snapshot priming failed";
+                logger.accept("  warm: skipped, could not boot to save a snapshot");
+            }
+
+            for (int i = 1; i <= runs && result.warmSkipReason == null && !Thread.currentThread().isInterrupted(); i++) {
+                long ms = bootOnce(avdName, writableSystem, dnsServer, warm);
+                record(result, result.warmBootMs, ms, "warm", i, runs, logger);
+            }
+
+            logger.accept(result.toString());
+            results.add(result);
+        }
+
+        return results;
+    }
+
+    private void record(Result result, List<Long> samples, long ms, String kind, int run, int runs, Consumer<String> logger) {
+        if (ms >= 0) {
+            samples.add(ms);
+            logger.accept("  " + kind + " " + run + "/" + runs + ": " + ms + " ms");
+        } else {
+            result.failures++;
+            logger.accept("  " + kind + " " + run + "/" + runs + ": failed to boot");
+        }
+    }
+
+    private long bootOnce(String avdName, boolean writableSystem, String dnsServer, EmulatorLaunchProfile profile) {
+        long start = System.nanoTime();
+        Process process = emulatorHelper.startEmulator(avdName, writableSystem, dnsServer, profile);
+        if (process == null) {
+            return -1;
+        }
+
+        long elapsed = emulatorHelper.waitForBoot(avdName, start, BOOT_TIMEOUT_MS);
+
+        // A successful console kill unregisters the AVD right away, while the process is
+        // still shutting down and holding the AVD lock, so wait on the process itself
+        emulatorHelper.stopEmulator(avdName);
+        try {
+            if (!process.waitFor(SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly().waitFor(SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+        return elapsed;
+    }
+
+    /**
+     * "n=5 p50=... p90=... max=..." for a list of samples
+     */
+    public static String summarize(List<Long> samples) {
+        if (samples.isEmpty()) {
+            return "n=0";
+        }
+        List<Long> sorted = new ArrayList<>(samples);
+        Collections.sort(sorted);
+        return "n=" + sorted.size() +
+                " p50=" + percentile(sorted, 50) + "ms" +
+                " p90=" + percentile(sorted, 90) + "ms" +
+                " max=" + sorted.get(sorted.size() - 1) + "ms";
+    }
+
+    /**
+     * Nearest-rank percentile of an already sorted list
+     */
+    public static long percentile(List<Long> sorted, int percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.size());
+        return sorted.get(Math.max(0, Math.min(sorted.size() - 1, rank - 1)));
+    }
+}
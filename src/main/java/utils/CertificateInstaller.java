@@ -0,0 +1,237 @@
+package utils;
+
+import burp.api.montoya.MontoyaApi;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.Proxy;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Installs Burp's CA certificate on Android devices. The certificate is fetched from the
+ * proxy listener and named by its OpenSSL subject_hash_old, computed here, so no openssl is
+ * needed. Each device gets one check and, when the certificate is missing or different,
+ * one push and one root shell script that does the whole install.
+ */
+public class CertificateInstaller {
+    private static final String SYSTEM_CACERTS = "/system/etc/security/cacerts";
+    private static final String APEX_CACERTS = "/apex/com.android.conscrypt/cacerts";
+    private static final String USER_CACERTS = "/data/misc/user/0/cacerts-added";
+    private static final String SCRIPT_NAME = "bma-install-ca.sh";
+    // Android 14 moved the system store into the Conscrypt APEX
+    private static final int APEX_CACERTS_SDK = 34;
+
+    private final ADBHelper adbHelper;
+
+    public enum Store {
+        USER("User store"),
+        SYSTEM("System store");
+
+        private final String label;
+
+        Store(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    public CertificateInstaller(MontoyaApi api) {
+        this.adbHelper = new ADBHelper(api);
+    }
+
+    /**
+     * Download Burp's CA (DER) from a proxy listener's /cert page, connecting directly
+     */
+    public static X509Certificate fetchBurpCa(String host, int port) throws IOException, CertificateException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http", host, port, "/cert").openConnection(Proxy.NO_PROXY);
+        connection.setConnectTimeout(5000);
+        connection.setReadTimeout(5000);
+        try (InputStream in = connection.getInputStream()) {
+            byte[] der = in.readAllBytes();
+            return (X509Certificate) CertificateFactory.getInstance("X.509").generateCertificate(new ByteArrayInputStream(der));
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * OpenSSL's X509_subject_name_hash_old: the first four bytes of the MD5 of the DER subject,
+     * read little-endian. Android names CA files {@code <hash>.0}.
+     */
+    public static String subjectHashOld(X509Certificate certificate) {
+        try {
+            byte[] md5 = MessageDigest.getInstance("MD5").digest(certificate.getSubjectX500Principal().getEncoded());
+            long hash = (md5[0] & 0xFFL) | (md5[1] & 0xFFL) << 8 | (md5[2] & 0xFFL) << 16 | (md5[3] & 0xFFL) << 24;
+            return String.format("%08x", hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+
+    public static String toPem(X509Certificate certificate) throws CertificateEncodingException {
+        String base64 = Base64.getMimeEncoder(64, new byte[]{'\n'}).encodeToString(certificate.getEncoded());
+        return "-----BEGIN CERTIFICATE-----\n" + base64 + "\n-----END CERTIFICATE-----\n";
+    }
+
+    /**
+     * Install on one device; blocks on adb, so call from a background task
+     */
+    public DeviceResult install(String serial, X509Certificate certificate, Store store) {
+        return DeviceResult.run("ca.install", serial, () -> doInstall(serial, certificate, store));
+    }
+
+    private DeviceResult doInstall(String serial, X509Certificate certificate, Store store) throws Exception {
+        String hash = subjectHashOld(certificate);
+        String fileName = hash + ".0";
+        byte[] pem = toPem(certificate).getBytes(StandardCharsets.US_ASCII);
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(pem));
+
+        int sdk = parseInt(adb(serial, "shell", "getprop", "ro.build.version.sdk").trim());
+
+        // System certificates are world-readable, so an installed one is found without root.
+        // On Android 14 a BMA install lives in the tmpfs over the old directory; the APEX
+        // bind mounts are only visible inside app namespaces.
+        if (store == Store.SYSTEM && adb(serial, "shell", "sha256sum",
+                SYSTEM_CACERTS + "/" + fileName, APEX_CACERTS + "/" + fileName).contains(sha256)) {
+            Diagnostics.increment("ca.install.skipped");
+            return new DeviceResult(serial, DeviceResult.Status.SKIPPED, "already installed as " + fileName);
+        }
+
+        String mode = "user";
+        String note = "";
+        if (store == Store.SYSTEM) {
+            // Root adbd where the build allows it (emulators without Play Store, userdebug), for
+            // remount and the mounts
+            adb(serial, "root");
+            adb(serial, "wait-for-device");
+            mode = "tmpfs";
+            if (sdk < APEX_CACERTS_SDK) {
+                // Works on -writable-system emulators once verity is off; fall back to a tmpfs overlay
+                // adb prints "remount succeeded" or "Remount succeeded" depending on its version
+                String remount = adb(serial, "remount").toLowerCase(Locale.ROOT);
+                if (remount.contains("remount succeeded")) {
+                    mode = "remount";
+                } else if (remount.contains("reboot")) {
+                    note = "; reboot the device and install again to make it permanent";
+                }
+            } else {
+                mode = "apex";
+            }
+        }
+
+        String script = installScript(fileName, sha256, mode);
+        String output = adbHelper.runRootScript(serial, SCRIPT_NAME, script, Map.of(fileName, pem));
+        if (store == Store.USER && output.contains(ADBHelper.NO_ROOT)) {
+            // Restarting adbd drops the device's other adb connections (logcat, port mappings),
+            // so the user store tries su first and roots adbd only when there is no su
+            adb(serial, "root");
+            adb(serial, "wait-for-device");
+            output = adbHelper.runRootScript(serial, SCRIPT_NAME, script, Map.of(fileName, pem));
+        }
+
+        if (output.contains("BMA_SKIP")) {
+            Diagnostics.increment("ca.install.skipped");
+            return new DeviceResult(serial, DeviceResult.Status.SKIPPED, "already installed as " + fileName);
+        }
+        if (output.contains("BMA_INSTALLED")) {
+            Diagnostics.increment("ca.install.installed");
+            String how = switch (mode) {
+                case "remount" -> "in " + SYSTEM_CACERTS;
+                case "apex" -> "over " + APEX_CACERTS + " (until reboot)";
+                case "tmpfs" -> "over " + SYSTEM_CACERTS + " (until reboot)";
+                default -> "in the user store";
+            };
+            return DeviceResult.ok(serial, "installed " + fileName + " " + how + note);
+        }
+        if (output.contains(ADBHelper.NO_ROOT)) {
+            return DeviceResult.failed(serial, "root is required (adb root or su)");
+        }
+        return DeviceResult.failed(serial, output.trim());
+    }
+
+    /**
+     * Root shell script that skips when the file is already there with the same contents,
+     * otherwise installs it for the given mode; runRootScript's trap removes the pushed copy
+     */
+    private static String installScript(String fileName, String sha256, String mode) {
+        String cert = ADBHelper.REMOTE_TMP + "/" + fileName;
+        List<String> lines = new ArrayList<>();
+        lines.add("set -e");
+        lines.add("CERT=" + cert);
+        lines.add("installed() { [ -f \"$1/" + fileName + "\" ] && [ \"$(sha256sum \"$1/" + fileName + "\" | cut -d' ' -f1)\" = " + sha256 + " ]; }");
+        lines.add("finish() { chown root:root \"$1/" + fileName + "\"; chmod 644 \"$1/" + fileName + "\"; chcon u:object_r:system_file:s0 \"$1/" + fileName + "\" 2>/dev/null || true; }");
+
+        switch (mode) {
+            case "user" -> {
+                lines.add("if installed " + USER_CACERTS + "; then echo BMA_SKIP; exit 0; fi");
+                lines.add("mkdir -p " + USER_CACERTS);
+                lines.add("cp $CERT " + USER_CACERTS + "/");
+                lines.add("chown system:system " + USER_CACERTS + "/" + fileName);
+                lines.add("chmod 644 " + USER_CACERTS + "/" + fileName);
+            }
+            case "remount" -> {
+                lines.add("if installed " + SYSTEM_CACERTS + " || installed " + APEX_CACERTS + "; then echo BMA_SKIP; exit 0; fi");
+                lines.add("cp $CERT " + SYSTEM_CACERTS + "/");
+                lines.add("finish " + SYSTEM_CACERTS);
+            }
+            default -> {
+                // Read-only system: copy the current store onto a tmpfs mounted over it
+                String source = mode.equals("apex") ? APEX_CACERTS : SYSTEM_CACERTS;
+                lines.add("if installed " + SYSTEM_CACERTS + " || installed " + APEX_CACERTS + "; then echo BMA_SKIP; exit 0; fi");
+                lines.add("COPY=" + ADBHelper.REMOTE_TMP + "/bma-cacerts");
+                lines.add("rm -rf $COPY && mkdir -p -m 700 $COPY");
+                lines.add("cp " + source + "/* $COPY/");
+                lines.add("mount -t tmpfs tmpfs " + SYSTEM_CACERTS);
+                lines.add("cp $COPY/* " + SYSTEM_CACERTS + "/");
+                lines.add("cp $CERT " + SYSTEM_CACERTS + "/");
+                lines.add("chown root:root " + SYSTEM_CACERTS + "/*");
+                lines.add("chmod 644 " + SYSTEM_CACERTS + "/*");
+                lines.add("chcon u:object_r:system_file:s0 " + SYSTEM_CACERTS + "/*");
+                lines.add("rm -rf $COPY");
+                if (mode.equals("apex")) {
+                    // Conscrypt reads the APEX directory in each app's mount namespace, so bind the
+                    // tmpfs over it in zygote's namespace and in every running app's
+                    lines.add("ZYGOTES=\"$(pidof zygote || true) $(pidof zygote64 || true)\"");
+                    lines.add("for Z in $ZYGOTES; do nsenter --mount=/proc/$Z/ns/mnt -- /bin/mount --bind "
+                            + SYSTEM_CACERTS + " " + APEX_CACERTS + "; done");
+                    lines.add("for Z in $ZYGOTES; do for P in $(ps -o PID= -P $Z); do nsenter --mount=/proc/$P/ns/mnt -- /bin/mount --bind "
+                            + SYSTEM_CACERTS + " " + APEX_CACERTS + " & done; done");
+                    lines.add("wait");
+                }
+            }
+        }
+        lines.add("echo BMA_INSTALLED");
+        return String.join("\n", lines) + "\n";
+    }
+
+    private String adb(String serial, String... command) {
+        return adbHelper.executeCommandOn(serial, command);
+    }
+
+    private static int parseInt(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package utils;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Splits a stream of shell text (e.g. DevTools "Copy all as cURL (bash)") into
+ * individual curl commands. Reads one character at a time and only holds the
+ * current command in memory, so arbitrarily large exports can be processed.
+ * Commands end at an unquoted newline, ';' or '&&'; text that doesn't start
+ * with curl is skipped.
+ */
+public class CurlCommandSplitter implements Closeable {
+    private static final int NONE = 0;
+    private static final int SINGLE = 1;
+    private static final int DOUBLE = 2;
+    private static final int ANSI_C = 3;
+
+    private final Reader reader;
+    private final StringBuilder current = new StringBuilder();
+    private int pushback = -1;
+    private long charsRead = 0;
+
+    public CurlCommandSplitter(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? reader : new BufferedReader(reader, 64 * 1024);
+    }
+
+    /**
+     * Next curl command, or null at end of input
+     */
+    public String next() throws IOException {
+        int state = NONE;
+        current.setLength(0);
+
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                return takeIfCurl();
+            }
+
+            switch (state) {
+                case SINGLE -> {
+                    current.append((char) c);
+                    if (c == '\'') {
+                        state = NONE;
+                    }
+                }
+                case DOUBLE, ANSI_C -> {
+                    current.append((char) c);
+                    if (c == '\\') {
+                        int escaped = read();
+                        if (escaped != -1) {
+                            current.append((char) escaped);
+                        }
+                    } else if ((state == DOUBLE && c == '"') || (state == ANSI_C && c == '\'')) {
+                        state = NONE;
+                    }
+                }
+                default -> {
+                    if (c == '\\') {
+                        current.append((char) c);
+                        int escaped = read();
+                        if (escaped != -1) {
+                            current.append((char) escaped);
+                        }
+                        // CRLF line continuation
+                        if (escaped == '\r' && peek() == '\n') {
+                            current.append((char) read());
+                        }
+                    } else if (c == '\'') {
+                        current.append((char) c);
+                        state = current.length() > 1 && current.charAt(current.length() - 2) == '$' ? ANSI_C : SINGLE;
+                    } else if (c == '"') {
+                        current.append((char) c);
+                        state = DOUBLE;
+                    } else if (c == '\n' || c == ';' || (c == '&' && peek() == '&')) {
+                        if (c == '&') {
+                            read();
+                        }
+                        String command = takeIfCurl();
+                        if (command != null) {
+                            return command;
+                        }
+                    } else {
+                        current.append((char) c);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Characters consumed so far, for progress reporting
+     */
+    public long getCharsRead() {
+        return charsRead;
+    }
+
+    private String takeIfCurl() {
+        String command = current.toString().trim();
+        current.setLength(0);
+        if (command.startsWith("curl ") || command.startsWith("curl.exe ") || command.startsWith("curl\t")) {
+            return command;
+        }
+        return null;
+    }
+
+    private int read() throws IOException {
+        if (pushback != -1) {
+            int c = pushback;
+            pushback = -1;
+            return c;
+        }
+        int c = reader.read();
+        if (c != -1) {
+            charsRead++;
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (pushback == -1) {
+            pushback = reader.read();
+            if (pushback != -1) {
+                charsRead++;
+            }
+        }
+        return pushback;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
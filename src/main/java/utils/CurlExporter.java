@@ -0,0 +1,191 @@
+package utils;
+
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.message.HttpHeader;
+import burp.api.montoya.http.message.requests.HttpRequest;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Converts Burp requests back into bash curl commands, writing straight to a Writer
+ * so thousands of requests can be exported without building one large String.
+ * Binary or large bodies are written to files next to the export and referenced
+ * with --data-binary @file, or, without a body directory, inlined as $'...' strings.
+ */
+public class CurlExporter {
+    private static final int INLINE_BODY_LIMIT = 64 * 1024;
+
+    private final BodyDirectory bodyDirectory;
+    private Path bodyDir;
+    private int bodyFileCount = 0;
+
+    /**
+     * Supplies the directory for bodies that can't be inlined, the first time one is written
+     */
+    public interface BodyDirectory {
+        Path get() throws IOException;
+    }
+
+    /**
+     * Inline every body, binary ones as $'...' strings, so the commands stand on their own
+     * (for the clipboard, where no file should outlive the paste)
+     */
+    public CurlExporter() {
+        this((BodyDirectory) null);
+    }
+
+    /**
+     * @param bodyDir directory for bodies that can't be inlined; created on first use
+     */
+    public CurlExporter(Path bodyDir) {
+        this(() -> bodyDir);
+    }
+
+    /**
+     * @param bodyDirectory asked for a directory only if some body can't be inlined; null inlines everything
+     */
+    public CurlExporter(BodyDirectory bodyDirectory) {
+        this.bodyDirectory = bodyDirectory;
+    }
+
+    /**
+     * Write one request as a curl command followed by a newline
+     */
+    public void write(HttpRequest request, Writer out) throws IOException {
+        byte[] body = request.body() != null ? request.body().getBytes() : new byte[0];
+        String method = request.method();
+
+        // A Host header that differs from the connection's authority (virtual host tests) is kept,
+        // and the URL then names the connection target rather than the Host header
+        String authority = authority(request.httpService());
+        String host = request.headerValue("Host");
+        boolean keepHost = authority != null && host != null && !host.equalsIgnoreCase(authority);
+        String url = keepHost
+                ? (request.httpService().secure() ? "https://" : "http://") + authority + request.path()
+                : request.url();
+
+        out.write("curl ");
+        if (method.equals("HEAD")) {
+            // -X HEAD would make curl wait for a body that never comes
+            out.write("-I ");
+        } else if (!((method.equals("GET") && body.length == 0) || (method.equals("POST") && body.length > 0))) {
+            out.write("-X ");
+            writeQuoted(method, out);
+            out.write(' ');
+        }
+        writeQuoted(url, out);
+
+        for (HttpHeader header : request.headers()) {
+            String name = header.name();
+            // curl derives these from the URL and body
+            if ((name.equalsIgnoreCase("Host") && !keepHost) || name.equalsIgnoreCase("Content-Length")) {
+                continue;
+            }
+            out.write(" \\\n  -H ");
+            writeQuoted(name + ": " + header.value(), out);
+        }
+
+        if (body.length > 0) {
+            String text = body.length <= INLINE_BODY_LIMIT || bodyDirectory == null ? decodeText(body) : null;
+            if (text != null) {
+                out.write(" \\\n  --data-raw ");
+                writeQuoted(text, out);
+            } else if (bodyDirectory == null) {
+                out.write(" \\\n  --data-binary ");
+                writeAnsiC(body, out);
+            } else {
+                out.write(" \\\n  --data-binary ");
+                writeQuoted("@" + writeBodyFile(body), out);
+            }
+        }
+
+        out.write('\n');
+    }
+
+    /**
+     * Single-quote a value for bash; embedded single quotes become '\''
+     */
+    public static void writeQuoted(String value, Writer out) throws IOException {
+        out.write('\'');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == '\'') {
+                out.write(value, start, i - start);
+                out.write("'\\''");
+                start = i + 1;
+            }
+        }
+        out.write(value, start, value.length() - start);
+        out.write('\'');
+    }
+
+    /**
+     * Bytes as a bash $'...' string: printable ASCII as is, everything else as \\xNN
+     */
+    public static void writeAnsiC(byte[] bytes, Writer out) throws IOException {
+        out.write("$'");
+        for (byte b : bytes) {
+            int value = b & 0xFF;
+            if (value == '\'' || value == '\\') {
+                out.write('\\');
+                out.write(value);
+            } else if (value >= 0x20 && value < 0x7F) {
+                out.write(value);
+            } else {
+                out.write(String.format("\\x%02x", value));
+            }
+        }
+        out.write('\'');
+    }
+
+    /**
+     * host[:port] as a client would put it in the Host header, or null without a service
+     */
+    private static String authority(HttpService service) {
+        if (service == null) {
+            return null;
+        }
+        String host = service.host().contains(":") ? "[" + service.host() + "]" : service.host();
+        boolean defaultPort = service.port() == (service.secure() ? 443 : 80);
+        return defaultPort ? host : host + ":" + service.port();
+    }
+
+    /**
+     * Body as text if it is valid UTF-8 without control characters (other than tab/CR/LF), else null
+     */
+    private static String decodeText(byte[] body) {
+        try {
+            String text = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(body))
+                    .toString();
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c < 0x20 && c != '\t' && c != '\r' && c != '\n') {
+                    return null;
+                }
+            }
+            return text;
+        } catch (CharacterCodingException e) {
+            return null;
+        }
+    }
+
+    private Path writeBodyFile(byte[] body) throws IOException {
+        if (bodyDir == null) {
+            bodyDir = bodyDirectory.get();
+        }
+        Files.createDirectories(bodyDir);
+        Path file = bodyDir.resolve("body-" + (++bodyFileCount) + ".bin");
+        Files.write(file, body);
+        return file.toAbsolutePath();
+    }
+}
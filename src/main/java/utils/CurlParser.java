@@ -1,29 +1,237 @@
 package utils;
 
 import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.core.ByteArray;
 import burp.api.montoya.http.HttpService;
 import burp.api.montoya.http.message.HttpHeader;
 import burp.api.montoya.http.message.requests.HttpRequest;
 
+import java.io.IOException;
 import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class CurlParser {
+    // Largest request a Java array (and so a ByteArray) can hold
+    private static final long MAX_REQUEST_SIZE = Integer.MAX_VALUE - 8;
+
+    // Short options mapped to their long form
+    private static final Map<Character, String> SHORT_OPTIONS = new HashMap<>();
+    // Options that take an argument; every other option is a switch
+    private static final Set<String> OPTIONS_WITH_VALUE = new HashSet<>();
+
+    static {
+        SHORT_OPTIONS.put('X', "--request");
+        SHORT_OPTIONS.put('H', "--header");
+        SHORT_OPTIONS.put('d', "--data");
+        SHORT_OPTIONS.put('b', "--cookie");
+        SHORT_OPTIONS.put('A', "--user-agent");
+        SHORT_OPTIONS.put('e', "--referer");
+        SHORT_OPTIONS.put('G', "--get");
+        SHORT_OPTIONS.put('g', "--globoff");
+        SHORT_OPTIONS.put('I', "--head");
+        SHORT_OPTIONS.put('u', "--user");
+        SHORT_OPTIONS.put('o', "--output");
+        SHORT_OPTIONS.put('x', "--proxy");
+        SHORT_OPTIONS.put('m', "--max-time");
+        SHORT_OPTIONS.put('w', "--write-out");
+        SHORT_OPTIONS.put('c', "--cookie-jar");
+        SHORT_OPTIONS.put('r', "--range");
+        SHORT_OPTIONS.put('T', "--upload-file");
+        SHORT_OPTIONS.put('F', "--form");
+        SHORT_OPTIONS.put('K', "--config");
+        SHORT_OPTIONS.put('U', "--proxy-user");
+        SHORT_OPTIONS.put('E', "--cert");
+        SHORT_OPTIONS.put('y', "--speed-time");
+        SHORT_OPTIONS.put('Y', "--speed-limit");
+        SHORT_OPTIONS.put('z', "--time-cond");
+        SHORT_OPTIONS.put('C', "--continue-at");
+        SHORT_OPTIONS.put('D', "--dump-header");
+        SHORT_OPTIONS.put('P', "--ftp-port");
+        SHORT_OPTIONS.put('Q', "--quote");
+        SHORT_OPTIONS.put('t', "--telnet-option");
+
+        OPTIONS_WITH_VALUE.addAll(Arrays.asList(
+                "--url", "--request", "--header", "--data", "--data-raw", "--data-binary", "--data-ascii",
+                "--data-urlencode", "--json", "--form", "--form-string", "--upload-file", "--cookie",
+                "--user-agent", "--referer", "--user", "--output", "--proxy", "--proxy-user", "--max-time",
+                "--connect-timeout", "--write-out", "--cookie-jar", "--range", "--config", "--cert", "--key",
+                "--cacert", "--capath", "--cert-type", "--key-type", "--pass", "--ciphers", "--resolve",
+                "--connect-to", "--interface", "--local-port", "--max-redirs", "--retry", "--retry-delay",
+                "--retry-max-time", "--limit-rate", "--speed-time", "--speed-limit", "--time-cond",
+                "--continue-at", "--dump-header", "--ftp-port", "--quote", "--telnet-option",
+                "--oauth2-bearer", "--aws-sigv4", "--unix-socket", "--abstract-unix-socket", "--dns-servers",
+                "--proxy-header", "--request-target", "--trace", "--trace-ascii", "--stderr", "--output-dir",
+                "--max-filesize", "--expect100-timeout", "--happy-eyeballs-timeout-ms", "--variable"
+        ));
+    }
+
+    /**
+     * Fields collected from one pass over the command's words
+     */
+    private static class ParsedCommand {
+        String url;
+        String method;
+        final List<HttpHeader> headers = new ArrayList<>();
+        String cookie;
+        String userAgent;
+        String referer;
+        final List<RequestBody> data = new ArrayList<>();
+        final List<FormField> form = new ArrayList<>();
+        Path uploadFile;
+        boolean hasData;
+        boolean json;
+        boolean get;
+        boolean head;
+        boolean globOff;
+    }
+
+    /**
+     * One -F/--form-string field; either a text value or a file
+     */
+    private static class FormField {
+        final String name;
+        byte[] value = new byte[0];
+        Path file;
+        String filename;
+        String contentType;
+
+        FormField(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * A command tokenized once that can be built for several URLs, e.g. the variants of a URL glob
+     */
+    public static class Template {
+        private final CurlParser parser;
+        private final ParsedCommand command;
+
+        private Template(CurlParser parser, ParsedCommand command) {
+            this.parser = parser;
+            this.command = command;
+        }
+
+        /**
+         * The URL exactly as written in the command, globs included
+         */
+        public String url() {
+            return command.url;
+        }
+
+        /**
+         * True when the command had -g/--globoff, so {} and [] in the URL are literal
+         */
+        public boolean isGlobOff() {
+            return command.globOff;
+        }
+
+        public HttpRequest build(String url) throws Exception {
+            return parser.build(command, url);
+        }
+    }
 
     public HttpRequest parse(String curlCommand, MontoyaApi api) throws Exception {
-        curlCommand = curlCommand.trim().replaceAll("\\\\\\s*\\n\\s*", " ");
+        BmaEvents.CurlParse event = new BmaEvents.CurlParse();
+        event.begin();
+        Diagnostics.Span span = Diagnostics.span("curl parse");
+        try (span) {
+            Diagnostics.add("curl.parsed-chars", curlCommand.length());
+            ParsedCommand command = parseCommand(ShellTokenizer.words(curlCommand));
+            HttpRequest request = build(command, command.url);
+            event.method = request.method();
+            event.bodyBytes = request.body().length();
+            return request;
+        } catch (Exception e) {
+            span.fail();
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.inputChars = curlCommand.length();
+                event.success = event.method != null;
+                event.commit();
+            }
+        }
+    }
+
+    public Template template(String curlCommand) throws Exception {
+        ParsedCommand command = parseCommand(ShellTokenizer.words(curlCommand));
+        if (command.url == null || command.url.isEmpty()) {
+            throw new Exception("Could not extract URL from curl command");
+        }
+        return new Template(this, command);
+    }
 
-        String url = extractUrl(curlCommand);
+    private HttpRequest build(ParsedCommand command, String url) throws Exception {
         if (url == null || url.isEmpty()) {
             throw new Exception("Could not extract URL from curl command");
         }
+        if (!url.contains("://")) {
+            // curl assumes http:// when no scheme is given
+            url = "http://" + url;
+        }
+
+        List<HttpHeader> headers = extractHeaders(command);
+        RequestBody body = new RequestBody();
+
+        if (!command.form.isEmpty()) {
+            String boundary = userBoundary(headers);
+            if (boundary == null) {
+                boundary = "------------------------" + Long.toHexString(ThreadLocalRandom.current().nextLong() | Long.MIN_VALUE);
+                setMultipartContentType(headers, boundary);
+            }
+            body = multipartBody(command.form, boundary);
+        } else if (command.uploadFile != null) {
+            body.appendFile(command.uploadFile);
+            if (url.endsWith("/")) {
+                // curl appends the file name when the URL ends in a slash
+                url = url + command.uploadFile.getFileName();
+            }
+        } else if (!command.data.isEmpty()) {
+            // -d values are joined with '&'; --json values are concatenated
+            for (int i = 0; i < command.data.size(); i++) {
+                if (i > 0 && !command.json) {
+                    body.append("&");
+                }
+                body.append(command.data.get(i));
+            }
+
+            if (command.get) {
+                url = url + (url.contains("?") ? "&" : "?") + queryEncode(body.toByteArray());
+                body = new RequestBody();
+            } else if (command.json) {
+                addHeaderIfMissing(headers, "Content-Type", "application/json");
+                addHeaderIfMissing(headers, "Accept", "application/json");
+            } else {
+                addHeaderIfMissing(headers, "Content-Type", "application/x-www-form-urlencoded");
+            }
+        }
 
-        String method = extractMethod(curlCommand);
-        List<HttpHeader> headers = extractHeaders(curlCommand);
-        String body = extractBody(curlCommand);
+        return buildRequest(extractMethod(command), url, headers, body);
+    }
 
+    /**
+     * Build a Burp request from its parts. Shared by the curl and HAR importers.
+     */
+    public static HttpRequest buildRequest(String method, String url, List<HttpHeader> headers, String body) throws Exception {
+        RequestBody requestBody = new RequestBody();
+        if (body != null) {
+            requestBody.append(body);
+        }
+        return buildRequest(method, url, headers, requestBody);
+    }
+
+    /**
+     * Build a Burp request whose body is copied once, straight into the request's buffer
+     */
+    public static HttpRequest buildRequest(String method, String url, List<HttpHeader> headers, RequestBody body) throws Exception {
         // Parse URL to get host, port, and protocol
         URL parsedUrl = new URL(url);
         String host = parsedUrl.getHost();
@@ -33,7 +241,7 @@ public class CurlParser {
         }
         boolean isHttps = "https".equalsIgnoreCase(parsedUrl.getProtocol());
 
-        // Build request string
+        // Build request line and headers
         StringBuilder requestBuilder = new StringBuilder();
         requestBuilder.append(method).append(" ").append(extractPath(url)).append(" HTTP/1.1\r\n");
         requestBuilder.append("Host: ").append(host);
@@ -46,150 +254,408 @@ public class CurlParser {
             requestBuilder.append(header.name()).append(": ").append(header.value()).append("\r\n");
         }
 
+        long bodyLength = body.length();
+        if (bodyLength > 0 && !hasHeader(headers, "Content-Length")) {
+            requestBuilder.append("Content-Length: ").append(bodyLength).append("\r\n");
+        }
+
         requestBuilder.append("\r\n");
 
-        if (body != null && !body.isEmpty()) {
-            requestBuilder.append(body);
+        byte[] head = requestBuilder.toString().getBytes(StandardCharsets.UTF_8);
+        long total = head.length + bodyLength;
+        if (total > MAX_REQUEST_SIZE) {
+            throw new Exception("Request is too large (" + total + " bytes)");
         }
 
-        HttpRequest request = HttpRequest.httpRequest(
-                HttpService.httpService(host, port, isHttps),
-                requestBuilder.toString()
-        );
+        byte[] raw = new byte[(int) total];
+        System.arraycopy(head, 0, raw, 0, head.length);
+        body.copyTo(raw, head.length);
 
-        return request;
+        return HttpRequest.httpRequest(HttpService.httpService(host, port, isHttps), ByteArray.byteArray(raw));
     }
 
-    private String extractUrl(String curlCommand) {
-        // First try to match --url flag
-        Pattern pattern = Pattern.compile("--url\\s+['\"]?([^'\"\\s]+)['\"]?");
-        Matcher matcher = pattern.matcher(curlCommand);
-        if (matcher.find()) {
-            return matcher.group(1);
-        }
+    /**
+     * Walk the words once, dispatching each option through the option tables
+     */
+    private ParsedCommand parseCommand(List<ShellTokenizer.Word> tokens) throws Exception {
+        ParsedCommand command = new ParsedCommand();
+        boolean endOfOptions = false;
+        int i = 0;
 
-        // Look for http/https URL anywhere in the command
-        pattern = Pattern.compile("(https?://[^\\s'\"]+)");
-        matcher = pattern.matcher(curlCommand);
-        if (matcher.find()) {
-            return matcher.group(1);
+        if (!tokens.isEmpty() && isCurlExecutable(tokens.get(0).text())) {
+            i++;
         }
 
-        // Last resort: try to find URL after curl and skip flags
-        pattern = Pattern.compile("curl\\s+(?:-[^\\s]+\\s+)*['\"]?([^'\"\\s]+)['\"]?");
-        matcher = pattern.matcher(curlCommand);
-        if (matcher.find()) {
-            String potential = matcher.group(1);
-            if (potential.startsWith("http://") || potential.startsWith("https://")) {
-                return potential;
+        for (; i < tokens.size(); i++) {
+            ShellTokenizer.Word word = tokens.get(i);
+            String token = word.text();
+
+            if (endOfOptions || !token.startsWith("-") || token.equals("-")) {
+                if (command.url == null) {
+                    command.url = token;
+                }
+            } else if (token.equals("--")) {
+                endOfOptions = true;
+            } else if (token.startsWith("--")) {
+                if (OPTIONS_WITH_VALUE.contains(token)) {
+                    if (i + 1 < tokens.size()) {
+                        applyOption(command, token, tokens.get(++i));
+                    }
+                } else {
+                    applySwitch(command, token);
+                }
+            } else {
+                // Short options can be combined (-sSL) and take their value attached (-XPOST) or next
+                for (int j = 1; j < token.length(); j++) {
+                    char c = token.charAt(j);
+                    String option = SHORT_OPTIONS.getOrDefault(c, "-" + c);
+
+                    if (OPTIONS_WITH_VALUE.contains(option)) {
+                        if (j + 1 < token.length()) {
+                            applyOption(command, option, word.substring(j + 1));
+                        } else if (i + 1 < tokens.size()) {
+                            applyOption(command, option, tokens.get(++i));
+                        }
+                        break;
+                    }
+                    applySwitch(command, option);
+                }
             }
         }
 
-        return null;
+        return command;
     }
 
-    private String extractPath(String urlString) {
-        try {
-            URL url = new URL(urlString);
-            String path = url.getPath();
-            String query = url.getQuery();
+    private boolean isCurlExecutable(String token) {
+        String name = token.substring(Math.max(token.lastIndexOf('/'), token.lastIndexOf('\\')) + 1);
+        return name.equalsIgnoreCase("curl") || name.equalsIgnoreCase("curl.exe");
+    }
 
-            if (query != null && !query.isEmpty()) {
-                return path + "?" + query;
+    /**
+     * Apply an option's value; bodies are taken as bytes so $'\xNN' escapes stay raw bytes
+     */
+    private void applyOption(ParsedCommand command, String option, ShellTokenizer.Word word) throws Exception {
+        String value = word.text();
+        switch (option) {
+            case "--url" -> command.url = value;
+            case "--request" -> command.method = value;
+            case "--header" -> {
+                int colon = value.indexOf(':');
+                if (colon > 0) {
+                    command.headers.add(HttpHeader.httpHeader(value.substring(0, colon).trim(), value.substring(colon + 1).trim()));
+                }
+            }
+            // A value without '=' is a cookie file, not cookie data
+            case "--cookie" -> {
+                if (value.contains("=") && command.cookie == null) {
+                    command.cookie = value;
+                }
+            }
+            case "--user-agent" -> {
+                if (command.userAgent == null) {
+                    command.userAgent = value;
+                }
+            }
+            case "--referer" -> {
+                if (command.referer == null) {
+                    command.referer = value;
+                }
+            }
+            case "--data", "--data-ascii" -> addData(command, value.startsWith("@")
+                    ? new RequestBody().appendFileWithoutNewlines(resolveFile(value.substring(1)))
+                    : new RequestBody().append(word.bytes()));
+            case "--data-binary" -> addData(command, value.startsWith("@")
+                    ? new RequestBody().appendFile(resolveFile(value.substring(1)))
+                    : new RequestBody().append(word.bytes()));
+            case "--data-raw" -> addData(command, new RequestBody().append(word.bytes()));
+            case "--data-urlencode" -> addData(command, new RequestBody().append(urlEncodeData(word)));
+            case "--json" -> {
+                addData(command, value.startsWith("@")
+                        ? new RequestBody().appendFile(resolveFile(value.substring(1)))
+                        : new RequestBody().append(word.bytes()));
+                command.json = true;
+            }
+            case "--form" -> {
+                command.form.add(parseFormField(word, false));
+                command.hasData = true;
+            }
+            case "--form-string" -> {
+                command.form.add(parseFormField(word, true));
+                command.hasData = true;
+            }
+            case "--upload-file" -> command.uploadFile = resolveFile(value);
+            default -> {
+                // Options that don't affect the request
             }
-            return path.isEmpty() ? "/" : path;
-        } catch (Exception e) {
-            return "/";
         }
     }
 
-    private String extractMethod(String curlCommand) {
-        Pattern pattern = Pattern.compile("-X\\s+([A-Z]+)|--request\\s+([A-Z]+)");
-        Matcher matcher = pattern.matcher(curlCommand);
-        if (matcher.find()) {
-            String method = matcher.group(1);
-            return method != null ? method : matcher.group(2);
+    private void applySwitch(ParsedCommand command, String option) {
+        switch (option) {
+            case "--get" -> command.get = true;
+            case "--head" -> command.head = true;
+            case "--globoff" -> command.globOff = true;
+            default -> {
+                // Switches that don't affect the request
+            }
         }
+    }
 
-        if (curlCommand.matches(".*(-d|--data|--data-raw|--data-binary|--data-urlencode)\\s+.*")) {
-            return "POST";
-        }
+    private void addData(ParsedCommand command, RequestBody data) {
+        command.data.add(data);
+        command.hasData = true;
+    }
 
-        return "GET";
+    /**
+     * Resolve a file argument the way the shell would have, expanding a leading ~
+     */
+    private Path resolveFile(String name) throws Exception {
+        if (name.equals("-")) {
+            throw new Exception("Reading request data from stdin is not supported");
+        }
+        if (name.equals("~") || name.startsWith("~/")) {
+            name = System.getProperty("user.home") + name.substring(1);
+        }
+        return Paths.get(name);
     }
 
-    private List<HttpHeader> extractHeaders(String curlCommand) {
-        List<HttpHeader> headers = new ArrayList<>();
+    /**
+     * --data-urlencode forms: content, =content, name=content, @file and name@file
+     */
+    private byte[] urlEncodeData(ShellTokenizer.Word word) throws Exception {
+        String value = word.text();
+        int eq = value.indexOf('=');
+        int at = value.indexOf('@');
+
+        String name;
+        byte[] content;
+        if (eq >= 0 && (at < 0 || eq < at)) {
+            name = value.substring(0, eq);
+            content = word.bytes(eq + 1, value.length());
+        } else if (at >= 0) {
+            name = value.substring(0, at);
+            Path file = resolveFile(value.substring(at + 1));
+            if (!Files.isReadable(file)) {
+                throw new IOException("Cannot read file: " + file);
+            }
+            content = Files.readAllBytes(file);
+        } else {
+            name = "";
+            content = word.bytes();
+        }
 
-        Pattern pattern = Pattern.compile("-H\\s+['\"]([^'\"]+)['\"]|--header\\s+['\"]([^'\"]+)['\"]");
-        Matcher matcher = pattern.matcher(curlCommand);
+        String encoded = percentEncode(content);
+        return (name.isEmpty() ? encoded : name + "=" + encoded).getBytes(StandardCharsets.US_ASCII);
+    }
 
-        while (matcher.find()) {
-            String headerLine = matcher.group(1);
-            if (headerLine == null) {
-                headerLine = matcher.group(2);
+    /**
+     * Percent-encode everything except RFC 3986 unreserved characters, as curl does
+     */
+    private static String percentEncode(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length);
+        for (byte b : bytes) {
+            int c = b & 0xff;
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '.' || c == '_' || c == '~') {
+                sb.append((char) c);
+            } else {
+                sb.append('%').append(Character.toUpperCase(Character.forDigit(c >> 4, 16)))
+                        .append(Character.toUpperCase(Character.forDigit(c & 0xf, 16)));
             }
+        }
+        return sb.toString();
+    }
 
-            if (headerLine != null && headerLine.contains(":")) {
-                String[] parts = headerLine.split(":", 2);
-                String name = parts[0].trim();
-                String value = parts[1].trim();
-                headers.add(HttpHeader.httpHeader(name, value));
+    /**
+     * The data as-is for -G, except bytes that cannot appear in a request line, which are
+     * percent-encoded instead of being decoded as text
+     */
+    private static String queryEncode(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length);
+        for (byte b : bytes) {
+            int c = b & 0xff;
+            if (c > ' ' && c < 0x7f && c != '#') {
+                sb.append((char) c);
+            } else {
+                sb.append('%').append(Character.toUpperCase(Character.forDigit(c >> 4, 16)))
+                        .append(Character.toUpperCase(Character.forDigit(c & 0xf, 16)));
             }
         }
+        return sb.toString();
+    }
 
-        pattern = Pattern.compile("--cookie\\s+['\"]([^'\"]+)['\"]|-b\\s+['\"]([^'\"]+)['\"]");
-        matcher = pattern.matcher(curlCommand);
-        if (matcher.find()) {
-            String cookie = matcher.group(1);
-            if (cookie == null) {
-                cookie = matcher.group(2);
-            }
-            if (cookie != null) {
-                headers.add(HttpHeader.httpHeader("Cookie", cookie));
+    /**
+     * Parse name=value, name=@file[;type=..][;filename=..] or name=<file. --form-string values are literal.
+     */
+    private FormField parseFormField(ShellTokenizer.Word word, boolean literal) throws Exception {
+        String value = word.text();
+        int eq = value.indexOf('=');
+        if (eq <= 0) {
+            throw new Exception("Invalid form field: " + value);
+        }
+
+        FormField field = new FormField(value.substring(0, eq));
+        String content = value.substring(eq + 1);
+        if (literal || !(content.startsWith("@") || content.startsWith("<"))) {
+            field.value = word.bytes(eq + 1, value.length());
+            return field;
+        }
+
+        boolean upload = content.startsWith("@");
+        String[] attributes = content.substring(1).split(";");
+        field.file = resolveFile(attributes[0]);
+        if (upload) {
+            field.filename = field.file.getFileName().toString();
+        }
+
+        for (int i = 1; i < attributes.length; i++) {
+            String attribute = attributes[i].trim();
+            if (attribute.startsWith("type=")) {
+                field.contentType = attribute.substring(5);
+            } else if (attribute.startsWith("filename=")) {
+                field.filename = unquote(attribute.substring(9));
             }
         }
 
-        pattern = Pattern.compile("--user-agent\\s+['\"]([^'\"]+)['\"]|-A\\s+['\"]([^'\"]+)['\"]");
-        matcher = pattern.matcher(curlCommand);
-        if (matcher.find()) {
-            String userAgent = matcher.group(1);
-            if (userAgent == null) {
-                userAgent = matcher.group(2);
+        if (upload && field.contentType == null) {
+            String guessed = URLConnection.guessContentTypeFromName(field.filename);
+            field.contentType = guessed != null ? guessed : "application/octet-stream";
+        }
+        return field;
+    }
+
+    private static String unquote(String value) {
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            return value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+
+    /**
+     * Assemble a multipart/form-data body; file parts are referenced, not read
+     */
+    private RequestBody multipartBody(List<FormField> fields, String boundary) throws IOException {
+        RequestBody body = new RequestBody();
+        for (FormField field : fields) {
+            StringBuilder head = new StringBuilder();
+            head.append("--").append(boundary).append("\r\n");
+            head.append("Content-Disposition: form-data; name=\"").append(field.name.replace("\"", "%22")).append("\"");
+            if (field.filename != null) {
+                head.append("; filename=\"").append(field.filename.replace("\"", "%22")).append("\"");
             }
-            if (userAgent != null) {
-                headers.add(HttpHeader.httpHeader("User-Agent", userAgent));
+            head.append("\r\n");
+            if (field.contentType != null) {
+                head.append("Content-Type: ").append(field.contentType).append("\r\n");
+            }
+            head.append("\r\n");
+
+            body.append(head.toString());
+            if (field.file != null) {
+                body.appendFile(field.file);
+            } else {
+                body.append(field.value);
             }
+            body.append("\r\n");
         }
+        body.append("--" + boundary + "--\r\n");
+        return body;
+    }
 
-        pattern = Pattern.compile("--referer\\s+['\"]([^'\"]+)['\"]|-e\\s+['\"]([^'\"]+)['\"]");
-        matcher = pattern.matcher(curlCommand);
-        if (matcher.find()) {
-            String referer = matcher.group(1);
-            if (referer == null) {
-                referer = matcher.group(2);
+    private static boolean hasHeader(List<HttpHeader> headers, String name) {
+        for (HttpHeader header : headers) {
+            if (header.name().equalsIgnoreCase(name)) {
+                return true;
             }
-            if (referer != null) {
-                headers.add(HttpHeader.httpHeader("Referer", referer));
+        }
+        return false;
+    }
+
+    private static void addHeaderIfMissing(List<HttpHeader> headers, String name, String value) {
+        if (!hasHeader(headers, name)) {
+            headers.add(HttpHeader.httpHeader(name, value));
+        }
+    }
+
+    /**
+     * Boundary from a user-supplied multipart Content-Type, if it has one
+     */
+    private static String userBoundary(List<HttpHeader> headers) {
+        for (HttpHeader header : headers) {
+            if (header.name().equalsIgnoreCase("Content-Type")) {
+                int index = header.value().indexOf("boundary=");
+                if (index >= 0) {
+                    return unquote(header.value().substring(index + 9).split(";")[0].trim());
+                }
             }
         }
+        return null;
+    }
 
-        return headers;
+    /**
+     * Set the multipart Content-Type, keeping a user-supplied multipart subtype
+     */
+    private static void setMultipartContentType(List<HttpHeader> headers, String boundary) {
+        for (int i = 0; i < headers.size(); i++) {
+            HttpHeader header = headers.get(i);
+            if (header.name().equalsIgnoreCase("Content-Type")) {
+                String type = header.value().startsWith("multipart/") ? header.value() : "multipart/form-data";
+                headers.set(i, HttpHeader.httpHeader(header.name(), type + "; boundary=" + boundary));
+                return;
+            }
+        }
+        headers.add(HttpHeader.httpHeader("Content-Type", "multipart/form-data; boundary=" + boundary));
     }
 
-    private String extractBody(String curlCommand) {
-        Pattern pattern = Pattern.compile("(?:-d|--data|--data-raw|--data-binary)\\s+['\"]([^'\"]*)['\"]");
-        Matcher matcher = pattern.matcher(curlCommand);
+    private static String extractPath(String urlString) {
+        try {
+            URL url = new URL(urlString);
+            String path = url.getPath();
+            String query = url.getQuery();
 
-        StringBuilder body = new StringBuilder();
-        while (matcher.find()) {
-            if (body.length() > 0) {
-                body.append("&");
+            if (query != null && !query.isEmpty()) {
+                return path + "?" + query;
             }
-            body.append(matcher.group(1));
+            return path.isEmpty() ? "/" : path;
+        } catch (Exception e) {
+            return "/";
+        }
+    }
+
+    private String extractMethod(ParsedCommand command) {
+        if (command.method != null && !command.method.isEmpty()) {
+            return command.method;
+        }
+
+        if (command.head) {
+            return "HEAD";
         }
 
-        return body.length() > 0 ? body.toString() : null;
+        if (command.hasData && !command.get) {
+            return "POST";
+        }
+
+        if (command.uploadFile != null) {
+            return "PUT";
+        }
+
+        return "GET";
     }
-}
 
+    private List<HttpHeader> extractHeaders(ParsedCommand command) {
+        List<HttpHeader> headers = new ArrayList<>(command.headers);
+
+        if (command.cookie != null) {
+            headers.add(HttpHeader.httpHeader("Cookie", command.cookie));
+        }
+
+        if (command.userAgent != null) {
+            headers.add(HttpHeader.httpHeader("User-Agent", command.userAgent));
+        }
+
+        if (command.referer != null) {
+            headers.add(HttpHeader.httpHeader("Referer", command.referer));
+        }
+
+        return headers;
+    }
+}
@@ -0,0 +1,91 @@
+package utils;
+
+/**
+ * Outcome of one action on one device. Actions on several devices run in parallel and each
+ * device reports on its own, so {@link #run} wraps an action in a diagnostics span and turns
+ * its exceptions into a failed result instead of letting them reach the caller.
+ */
+public class DeviceResult {
+    public enum Status {
+        OK("✓"),
+        // Already in the wanted state; nothing was changed
+        SKIPPED("✓"),
+        // Worked, but something needs a look
+        WARNING("⚠"),
+        FAILED("✗");
+
+        private final String mark;
+
+        Status(String mark) {
+            this.mark = mark;
+        }
+    }
+
+    /**
+     * The work for one device; blocks on adb
+     */
+    @FunctionalInterface
+    interface Action {
+        DeviceResult run() throws Exception;
+    }
+
+    private final String serial;
+    private final Status status;
+    private final String message;
+
+    DeviceResult(String serial, Status status, String message) {
+        this.serial = serial;
+        this.status = status;
+        this.message = message;
+    }
+
+    static DeviceResult ok(String serial, String message) {
+        return new DeviceResult(serial, Status.OK, message);
+    }
+
+    static DeviceResult failed(String serial, String message) {
+        return new DeviceResult(serial, Status.FAILED, message);
+    }
+
+    /**
+     * Run an action in a span named after the operation, failing the span unless it succeeds
+     */
+    static DeviceResult run(String operation, String serial, Action action) {
+        try (Diagnostics.Span span = Diagnostics.span(operation, serial)) {
+            DeviceResult result;
+            try {
+                result = action.run();
+            } catch (Exception e) {
+                result = failed(serial, e.getMessage());
+            }
+            if (!result.isSuccess()) {
+                span.fail();
+            }
+            return result;
+        }
+    }
+
+    public String getSerial() {
+        return serial;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isSuccess() {
+        return status != Status.FAILED;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * As logged: status mark, serial and message
+     */
+    @Override
+    public String toString() {
+        return status.mark + " " + serial + ": " + (status == Status.SKIPPED ? "skipped, " : "") + message;
+    }
+}
@@ -0,0 +1,213 @@
+package utils;
+
+import burp.api.montoya.MontoyaApi;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * The one "adb track-devices" reader shared by everything that follows devices coming and going.
+ * Each listener gets the "serial\tstate" device list on every change, starting with the latest
+ * list when it subscribes. Lists are handed to listeners on background tasks, so a slow listener
+ * never holds up tracking or the other listeners; each listener still gets every list, one at a
+ * time and in order. If adb cannot be started, tracking retries with growing delays and gives up
+ * after a few attempts; subscribing again starts it anew.
+ */
+public class DeviceTracker {
+    private static final long RETRACK_DELAY_MS = 2000;
+    private static final long MAX_RETRACK_DELAY_MS = 60_000;
+    private static final int MAX_SPAWN_FAILURES = 5;
+
+    private static final List<Subscriber> SUBSCRIBERS = new ArrayList<>();
+    private static MontoyaApi api;
+    private static TaskManager.Task tracker;
+    private static String lastList;
+    private static long lastSequence;
+    private static volatile boolean connected;
+
+    private DeviceTracker() {
+    }
+
+    private record Update(long sequence, String deviceList) {
+    }
+
+    /**
+     * A listener and the lists not yet handed to it, drained by at most one task at a time
+     */
+    private static class Subscriber {
+        private final Consumer<String> listener;
+        private final ArrayDeque<Update> queue = new ArrayDeque<>();
+        private long delivered = -1;
+        private boolean draining;
+
+        Subscriber(Consumer<String> listener) {
+            this.listener = listener;
+        }
+
+        void offer(Update update) {
+            synchronized (this) {
+                queue.add(update);
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            try {
+                TaskManager.io("device list listener", this::drain);
+            } catch (RejectedExecutionException e) {
+                // Unloaded
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Update update;
+                synchronized (this) {
+                    update = queue.poll();
+                    if (update == null) {
+                        draining = false;
+                        return;
+                    }
+                    // The replay on subscribe may race with a newer list
+                    if (update.sequence() <= delivered) {
+                        continue;
+                    }
+                    delivered = update.sequence();
+                }
+                try {
+                    listener.accept(update.deviceList());
+                } catch (RuntimeException e) {
+                    log("Device list listener failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Call listener with the device list now and on every change, from a background thread.
+     * Starts tracking if it isn't running; montoyaApi is used for logging and may be null.
+     */
+    public static synchronized void subscribe(MontoyaApi montoyaApi, Consumer<String> listener) {
+        if (api == null) {
+            api = montoyaApi;
+        }
+        Subscriber subscriber = new Subscriber(listener);
+        SUBSCRIBERS.add(subscriber);
+        if (lastList != null) {
+            subscriber.offer(new Update(lastSequence, lastList));
+        }
+        startTracking();
+    }
+
+    /**
+     * True while "adb track-devices" is running and has reported the device list
+     */
+    public static boolean isTracking() {
+        return connected;
+    }
+
+    private static void startTracking() {
+        if (tracker != null && !tracker.isDone()) {
+            return;
+        }
+        tracker = TaskManager.io("device tracker", () -> {
+            long delay = RETRACK_DELAY_MS;
+            int spawnFailures = 0;
+            boolean failing = false;
+            try {
+                while (true) {
+                    String error = null;
+                    try {
+                        if (track()) {
+                            // Had a device list, so the next failure is news and retrying starts over
+                            delay = RETRACK_DELAY_MS;
+                            failing = false;
+                        }
+                        spawnFailures = 0;
+                    } catch (IOException e) {
+                        error = e.getMessage();
+                        if (++spawnFailures >= MAX_SPAWN_FAILURES) {
+                            log("Device tracking stopped; adb could not be started: " + error);
+                            return;
+                        }
+                    }
+                    // adb server restarted, or adb not found yet; report only the first failure in a row
+                    if (!failing) {
+                        failing = true;
+                        log("Device tracking interrupted" + (error != null ? ": " + error : "") + "; retrying");
+                    }
+                    Thread.sleep(delay);
+                    delay = Math.min(delay * 2, MAX_RETRACK_DELAY_MS);
+                }
+            } catch (InterruptedException e) {
+                // Unloading
+            }
+        });
+    }
+
+    /**
+     * Run "adb track-devices" until it ends. Returns whether it reported a device list;
+     * throws if adb could not be started at all.
+     */
+    private static boolean track() throws IOException {
+        Process process = Diagnostics.start(new ProcessBuilder(ADBHelper.getAdbPath(), "track-devices"));
+        boolean reported = false;
+        try (InputStream in = process.getInputStream()) {
+            byte[] lengthBytes = new byte[4];
+            while (readFully(in, lengthBytes)) {
+                int length = Integer.parseInt(new String(lengthBytes, StandardCharsets.US_ASCII), 16);
+                byte[] payload = new byte[length];
+                if (!readFully(in, payload)) {
+                    break;
+                }
+                publish(new String(payload, StandardCharsets.UTF_8));
+                reported = true;
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Stream ended mid-message; treated like adb exiting
+        } finally {
+            connected = false;
+            process.destroy();
+        }
+        return reported;
+    }
+
+    private static void publish(String deviceList) {
+        Update update;
+        List<Subscriber> subscribers;
+        synchronized (DeviceTracker.class) {
+            update = new Update(++lastSequence, deviceList);
+            lastList = deviceList;
+            subscribers = new ArrayList<>(SUBSCRIBERS);
+        }
+        connected = true;
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(update);
+        }
+    }
+
+    private static void log(String message) {
+        MontoyaApi logApi = api;
+        if (logApi != null) {
+            logApi.logging().logToError(message);
+        }
+    }
+
+    private static boolean readFully(InputStream in, byte[] buffer) throws IOException {
+        int offset = 0;
+        while (offset < buffer.length) {
+            int n = in.read(buffer, offset, buffer.length - offset);
+            if (n == -1) {
+                return false;
+            }
+            offset += n;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,298 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Process-wide timings and counters for device, download and parse operations,
+ * shown in the Diagnostics tab. Operations are recorded per device in fixed-size
+ * histograms, so recording is lock-free and memory does not grow over a session.
+ */
+public class Diagnostics {
+    private static final String NO_DEVICE = "-";
+    private static final Map<String, Operation> OPERATIONS = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicLong> COUNTERS = new ConcurrentHashMap<>();
+
+    private Diagnostics() {
+    }
+
+    /**
+     * Timings of one operation type on one device
+     */
+    public static class Operation {
+        private final String name;
+        private final String device;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicLong failures = new AtomicLong();
+
+        Operation(String name, String device) {
+            this.name = name;
+            this.device = device;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getDevice() {
+            return device;
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        public long getFailures() {
+            return failures.get();
+        }
+    }
+
+    /**
+     * Times an operation from creation until close; use with try-with-resources
+     */
+    public static class Span implements AutoCloseable {
+        private final String name;
+        private final String device;
+        private final long start = System.nanoTime();
+        private boolean failed;
+        private Consumer<Boolean> onClose;
+
+        Span(String name, String device) {
+            this.name = name;
+            this.device = device;
+        }
+
+        public void fail() {
+            failed = true;
+        }
+
+        /**
+         * Run a callback with the outcome when the span closes, e.g. to commit a JFR event
+         */
+        public Span then(Consumer<Boolean> onClose) {
+            this.onClose = onClose;
+            return this;
+        }
+
+        @Override
+        public void close() {
+            record(name, device, System.nanoTime() - start, !failed);
+            if (onClose != null) {
+                onClose.accept(!failed);
+            }
+        }
+    }
+
+    public static Span span(String operation) {
+        return new Span(operation, null);
+    }
+
+    public static Span span(String operation, String device) {
+        return new Span(operation, device);
+    }
+
+    public static void record(String operation, String device, long nanos, boolean success) {
+        String deviceKey = device != null && !device.isEmpty() ? device : NO_DEVICE;
+        Operation stats = OPERATIONS.computeIfAbsent(operation + "\n" + deviceKey, key -> new Operation(operation, deviceKey));
+        stats.latency.recordNanos(nanos);
+        if (!success) {
+            stats.failures.incrementAndGet();
+        }
+    }
+
+    /**
+     * Start a process, counting the spawn and timing it until it exits. The operation
+     * is named after the tool and its subcommand ("adb shell"), and "-s serial" sets the device.
+     * The process is destroyed on unload if it is still running.
+     */
+    public static Process start(ProcessBuilder builder) throws IOException {
+        return start(builder, true);
+    }
+
+    /**
+     * Start a process that belongs to the user rather than to BMA, such as an emulator: it is
+     * counted and timed like any other but left running when BMA is unloaded
+     */
+    public static Process startDetached(ProcessBuilder builder) throws IOException {
+        return start(builder, false);
+    }
+
+    private static Process start(ProcessBuilder builder, boolean destroyOnUnload) throws IOException {
+        List<String> command = builder.command();
+        String tool = Paths.get(command.get(0)).getFileName().toString().replaceFirst("(?i)\\.exe$", "");
+        String device = null;
+        String subcommand = null;
+        for (int i = 1; i < command.size() && subcommand == null; i++) {
+            String arg = command.get(i);
+            if (arg.equals("-s") && i + 1 < command.size()) {
+                device = command.get(++i);
+            } else if (!arg.startsWith("-")) {
+                subcommand = arg;
+            }
+        }
+
+        String operation = subcommand != null ? tool + " " + subcommand : tool;
+        String serial = device;
+        long start = System.nanoTime();
+        increment("processes." + tool);
+
+        // The events are committed from the exit callback, so remember who started the process
+        Thread spawner = Thread.currentThread();
+        BmaEvents.ProcessCommand processEvent = new BmaEvents.ProcessCommand();
+        BmaEvents.ShellCommand shellEvent = new BmaEvents.ShellCommand();
+        processEvent.begin();
+        shellEvent.begin();
+
+        boolean shell = "shell".equals(subcommand);
+
+        Process process;
+        try {
+            process = builder.start();
+        } catch (IOException e) {
+            record(operation, serial, System.nanoTime() - start, false);
+            commitProcessEvents(processEvent, shellEvent, spawner, tool, serial, command, shell, -1);
+            throw e;
+        }
+        if (destroyOnUnload) {
+            TaskManager.track(process);
+        }
+        process.onExit().thenAccept(p -> {
+            record(operation, serial, System.nanoTime() - start, p.exitValue() == 0);
+            commitProcessEvents(processEvent, shellEvent, spawner, tool, serial, command, shell, p.exitValue());
+        });
+        return process;
+    }
+
+    private static void commitProcessEvents(BmaEvents.ProcessCommand processEvent, BmaEvents.ShellCommand shellEvent,
+                                            Thread spawner, String tool, String serial, List<String> command,
+                                            boolean shell, int exitCode) {
+        processEvent.end();
+        if (processEvent.shouldCommit()) {
+            processEvent.tool = tool;
+            processEvent.spawningThread = spawner;
+            processEvent.serial = serial;
+            processEvent.command = String.join(" ", command);
+            processEvent.exitCode = exitCode;
+            processEvent.success = exitCode == 0;
+            processEvent.commit();
+        }
+
+        if (!shell) {
+            return;
+        }
+        shellEvent.end();
+        if (shellEvent.shouldCommit()) {
+            // Everything after "shell" is what ran on the device
+            int index = command.indexOf("shell");
+            shellEvent.serial = serial;
+            shellEvent.spawningThread = spawner;
+            shellEvent.command = String.join(" ", command.subList(index + 1, command.size()));
+            shellEvent.exitCode = exitCode;
+            shellEvent.success = exitCode == 0;
+            shellEvent.commit();
+        }
+    }
+
+    public static void increment(String counter) {
+        add(counter, 1);
+    }
+
+    public static void add(String counter, long amount) {
+        COUNTERS.computeIfAbsent(counter, key -> new AtomicLong()).addAndGet(amount);
+    }
+
+    public static void cacheHit(String cache) {
+        increment("cache." + cache + ".hits");
+    }
+
+    public static void cacheMiss(String cache) {
+        increment("cache." + cache + ".misses");
+    }
+
+    /**
+     * Operations ordered by name, then device
+     */
+    public static List<Operation> getOperations() {
+        List<Operation> list = new ArrayList<>(OPERATIONS.values());
+        list.sort(Comparator.comparing(Operation::getName).thenComparing(Operation::getDevice));
+        return list;
+    }
+
+    public static SortedMap<String, Long> getCounters() {
+        SortedMap<String, Long> counters = new TreeMap<>();
+        COUNTERS.forEach((name, value) -> counters.put(name, value.get()));
+        return counters;
+    }
+
+    public static void reset() {
+        OPERATIONS.clear();
+        COUNTERS.clear();
+    }
+
+    /**
+     * All operations and counters as JSON, with latencies in milliseconds
+     */
+    public static String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n  \"timestamp\": ").append(System.currentTimeMillis()).append(",\n  \"operations\": [");
+
+        List<Operation> operations = getOperations();
+        for (int i = 0; i < operations.size(); i++) {
+            Operation operation = operations.get(i);
+            LatencyHistogram latency = operation.latency;
+            json.append(i == 0 ? "\n" : ",\n");
+            json.append("    {\"operation\": ").append(quote(operation.name))
+                    .append(", \"device\": ").append(quote(operation.device))
+                    .append(", \"count\": ").append(latency.count())
+                    .append(", \"failures\": ").append(operation.getFailures())
+                    .append(", \"minMs\": ").append(millis(latency.minMicros()))
+                    .append(", \"meanMs\": ").append(millis(latency.meanMicros()))
+                    .append(", \"p50Ms\": ").append(millis(latency.percentileMicros(50)))
+                    .append(", \"p95Ms\": ").append(millis(latency.percentileMicros(95)))
+                    .append(", \"p99Ms\": ").append(millis(latency.percentileMicros(99)))
+                    .append(", \"maxMs\": ").append(millis(latency.maxMicros()))
+                    .append("}");
+        }
+        json.append(operations.isEmpty() ? "],\n" : "\n  ],\n");
+
+        json.append("  \"counters\": {");
+        boolean first = true;
+        for (Map.Entry<String, Long> counter : getCounters().entrySet()) {
+            json.append(first ? "\n" : ",\n");
+            json.append("    ").append(quote(counter.getKey())).append(": ").append(counter.getValue());
+            first = false;
+        }
+        json.append(first ? "}\n" : "\n  }\n").append("}\n");
+        return json.toString();
+    }
+
+    private static String millis(long micros) {
+        return String.format(Locale.ROOT, "%.3f", micros / 1000.0);
+    }
+
+    static String quote(String value) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
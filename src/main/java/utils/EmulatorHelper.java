@@ -5,12 +5,18 @@ import burp.api.montoya.MontoyaApi;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
-import java.util.List;
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class EmulatorHelper {
     private final MontoyaApi api;
-    private static String EMULATOR_COMMAND = null;
+    private static volatile String EMULATOR_COMMAND = null;
+    private static volatile MontoyaApi logApi = null;
     private static final String[] COMMON_EMULATOR_PATHS = {
             "emulator", // System PATH
             System.getProperty("user.home") + "/Library/Android/sdk/emulator/emulator", // macOS
@@ -19,36 +25,83 @@ public class EmulatorHelper {
             System.getProperty("user.home") + "/AppData/Local/Android/Sdk/emulator/emulator.exe" // Windows alternative
     };
 
+
+    // serial -> running emulator, kept current by the device tracker
+    private static final Map<String, EmulatorInstance> RUNNING_EMULATORS = new ConcurrentHashMap<>();
+    // AVD name -> process launched by BMA that has not been matched to a serial yet
+    private static final Map<String, Process> PENDING_LAUNCHES = new ConcurrentHashMap<>();
+    private static boolean tracking = false;
+    // A physical device using "adb reverse" also reaches Burp over loopback
+    private static volatile boolean physicalDeviceOnline = false;
+    private static final long HOST_ADDRESSES_TTL_MS = 60_000;
+    private static volatile Set<InetAddress> hostAddresses = Set.of();
+    private static volatile long hostAddressesAt = 0;
+    private static final String PROFILES_KEY_PREFIX = "bma.emulator.profiles.";
+    private static final String SELECTED_PROFILE_KEY_PREFIX = "bma.emulator.profile.";
+
+    /**
+     * Cheap enough for the EDT: the emulator path is detected on first use, from a background task
+     */
     public EmulatorHelper(MontoyaApi api) {
         this.api = api;
-        if (EMULATOR_COMMAND == null) {
-            EMULATOR_COMMAND = detectEmulatorPath();
+        if (logApi == null) {
+            logApi = api;
+        }
+        startDeviceTracking();
+    }
+
+    /**
+     * Detect the emulator path ahead of its first use; call from a background task
+     */
+    public static void warmUp(MontoyaApi api) {
+        if (logApi == null) {
+            logApi = api;
         }
+        getEmulatorPath();
     }
 
     /**
      * Auto-detect emulator path
      */
-    private String detectEmulatorPath() {
-        api.logging().logToOutput("Auto-detecting Emulator location...");
+    private static String detectEmulatorPath() {
+        MontoyaApi api = logApi;
+        if (api != null) {
+            api.logging().logToOutput("Auto-detecting Emulator location...");
+        }
 
         for (String path : COMMON_EMULATOR_PATHS) {
             File file = new File(path);
             if (file.exists() && file.canExecute()) {
-                api.logging().logToOutput("✓ Emulator found at: " + path);
+                if (api != null) {
+                    api.logging().logToOutput("✓ Emulator found at: " + path);
+                }
                 return path;
             }
         }
 
-        api.logging().logToError("⚠ Emulator not found automatically");
+        if (api != null) {
+            api.logging().logToError("⚠ Emulator not found automatically");
+        }
         return "emulator";
     }
 
     /**
-     * Get current emulator path
+     * Get current emulator path, detecting it on first use; touches the disk, so not for the EDT
      */
     public static String getEmulatorPath() {
-        return EMULATOR_COMMAND;
+        String path = EMULATOR_COMMAND;
+        if (path != null) {
+            return path;
+        }
+        synchronized (EmulatorHelper.class) {
+            if (EMULATOR_COMMAND == null) {
+                String detected = detectEmulatorPath();
+                if (EMULATOR_COMMAND == null) {
+                    EMULATOR_COMMAND = detected;
+                }
+            }
+            return EMULATOR_COMMAND;
+        }
     }
 
     /**
@@ -65,8 +118,8 @@ public class EmulatorHelper {
         List<String> emulators = new ArrayList<>();
 
         try {
-            ProcessBuilder pb = new ProcessBuilder(EMULATOR_COMMAND, "-list-avds");
-            Process process = pb.start();
+            ProcessBuilder pb = new ProcessBuilder(getEmulatorPath(), "-list-avds");
+            Process process = Diagnostics.start(pb);
 
             BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
             String line;
@@ -94,9 +147,16 @@ public class EmulatorHelper {
      * Start an emulator
      */
     public Process startEmulator(String avdName, boolean writableSystem, String dnsServer) {
+        return startEmulator(avdName, writableSystem, dnsServer, null);
+    }
+
+    /**
+     * Start an emulator with the flags of a launch profile
+     */
+    public Process startEmulator(String avdName, boolean writableSystem, String dnsServer, EmulatorLaunchProfile profile) {
         try {
             List<String> command = new ArrayList<>();
-            command.add(EMULATOR_COMMAND);
+            command.add(getEmulatorPath());
             command.add("-avd");
             command.add(avdName);
 
@@ -109,29 +169,27 @@ public class EmulatorHelper {
                 command.add(dnsServer);
             }
 
-            // Run in background
+            if (profile != null) {
+                command.addAll(profile.toArgs());
+            }
+
+            // The emulator outlives BMA (unloading must not kill it and risk its userdata), so its
+            // output goes to a file rather than a pipe nobody would read after an unload
+            Path outputFile = LogFileAppender.getDirectory().resolve("emulator-" + avdName.replaceAll("[^\\w.-]", "_") + ".log");
+            Files.createDirectories(outputFile.getParent());
             ProcessBuilder pb = new ProcessBuilder(command);
             pb.redirectErrorStream(true);
+            pb.redirectOutput(ProcessBuilder.Redirect.to(outputFile.toFile()));
 
             api.logging().logToOutput("Starting emulator: " + avdName);
             api.logging().logToOutput("Command: " + String.join(" ", command));
+            api.logging().logToOutput("Emulator output: " + outputFile);
 
-            Process process = pb.start();
-
-            // Start a thread to read output
-            new Thread(() -> {
-                try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        if (line.contains("ERROR") || line.contains("WARNING")) {
-                            api.logging().logToOutput("[Emulator] " + line);
-                        }
-                    }
-                } catch (Exception e) {
-                    // Process terminated
-                }
-            }).start();
-
+            Process process = Diagnostics.startDetached(pb);
+            PENDING_LAUNCHES.put(avdName, process);
+            // An emulator that dies before it gets a serial would otherwise stay pending for good;
+            // only this launch is removed, not a later one for the same AVD
+            process.onExit().thenRun(() -> PENDING_LAUNCHES.remove(avdName, process));
             return process;
 
         } catch (Exception e) {
@@ -141,39 +199,277 @@ public class EmulatorHelper {
     }
 
     /**
-     * Check if emulator is running
+     * Wait until the emulator for an AVD reports sys.boot_completed=1.
+     * Returns the elapsed milliseconds since startNanos, or -1 on timeout.
      */
-    public boolean isEmulatorRunning(String avdName) {
+    public long waitForBoot(String avdName, long startNanos, long timeoutMs) {
+        long deadline = startNanos + timeoutMs * 1_000_000L;
+        BmaEvents.EmulatorBootPhase onlineEvent = new BmaEvents.EmulatorBootPhase();
+        BmaEvents.EmulatorBootPhase bootEvent = new BmaEvents.EmulatorBootPhase();
+        onlineEvent.begin();
+        bootEvent.begin();
+        String serial = null;
+
         try {
-            // Use adb to check for emulator devices
-            String adbPath = ADBHelper.getAdbPath();
-            if (adbPath == null) {
-                return false;
+            while (System.nanoTime() < deadline) {
+                EmulatorInstance instance = findByAvdName(avdName);
+                if (instance != null && instance.isOnline()) {
+                    if (serial == null) {
+                        serial = instance.getSerial();
+                        commitBootPhase(onlineEvent, avdName, serial, "online", true);
+                    }
+                    String booted = firstLine(ADBHelper.getAdbPath(), "-s", instance.getSerial(),
+                            "shell", "getprop", "sys.boot_completed");
+                    if ("1".equals(booted)) {
+                        Diagnostics.record("emulator boot", avdName, System.nanoTime() - startNanos, true);
+                        commitBootPhase(bootEvent, avdName, serial, "boot completed", true);
+                        return (System.nanoTime() - startNanos) / 1_000_000L;
+                    }
+                }
+                Thread.sleep(500);
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Diagnostics.record("emulator boot", avdName, System.nanoTime() - startNanos, false);
+        if (serial == null) {
+            commitBootPhase(onlineEvent, avdName, null, "online", false);
+        }
+        commitBootPhase(bootEvent, avdName, serial, "boot completed", false);
+        return -1;
+    }
 
-            ProcessBuilder pb = new ProcessBuilder(adbPath, "devices");
-            Process process = pb.start();
+    private static void commitBootPhase(BmaEvents.EmulatorBootPhase event, String avdName, String serial, String phase, boolean success) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.avd = avdName;
+            event.serial = serial;
+            event.phase = phase;
+            event.success = success;
+            event.commit();
+        }
+    }
 
-            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            String line;
-            boolean found = false;
+    /**
+     * Apply a network shaping profile to a running emulator through its console
+     */
+    public boolean applyNetworkProfile(String serial, NetworkProfile profile) {
+        EmulatorInstance instance = RUNNING_EMULATORS.get(serial);
+        if (instance == null || !instance.isOnline()) {
+            api.logging().logToError("Emulator not running: " + serial);
+            return false;
+        }
 
-            while ((line = reader.readLine()) != null) {
-                if (line.contains("emulator-") && line.contains("device")) {
-                    found = true;
-                    break;
+        String speedResult = consoleCommand(serial, "network", "speed", profile.getSpeed());
+        String delayResult = consoleCommand(serial, "network", "delay", profile.getDelay());
+
+        if (speedResult.contains("KO") || delayResult.contains("KO")) {
+            api.logging().logToError("Failed to apply network profile to " + serial + ": " + speedResult.trim() + " " + delayResult.trim());
+            return false;
+        }
+
+        instance.setNetworkProfile(profile);
+        api.logging().logToOutput("Network profile '" + profile.getName() + "' applied to " + serial +
+                " (speed " + profile.getSpeed() + ", delay " + profile.getDelay() + ")");
+        return true;
+    }
+
+    /**
+     * Network profile of the emulator a proxied request came from, or null if it has none that
+     * shapes traffic or the sender cannot be identified. Emulator traffic reaches Burp from the
+     * host's own addresses whichever emulator sent it, and so does a physical device's through
+     * "adb reverse", so it is only attributed while one emulator and no physical device is online.
+     */
+    public static NetworkProfile networkProfileForSource(InetAddress source) {
+        if (source == null || physicalDeviceOnline || !isHostAddress(source)) {
+            return null;
+        }
+        EmulatorInstance online = null;
+        for (EmulatorInstance instance : RUNNING_EMULATORS.values()) {
+            if (instance.isOnline()) {
+                if (online != null) {
+                    return null;
                 }
+                online = instance;
             }
+        }
+        NetworkProfile profile = online != null ? online.getNetworkProfile() : null;
+        return profile != null && profile.isShaping() ? profile : null;
+    }
 
-            process.waitFor();
-            reader.close();
+    /**
+     * Called for every proxied request, so the host's interface addresses are cached for a minute
+     */
+    private static boolean isHostAddress(InetAddress address) {
+        if (address.isLoopbackAddress() || address.isAnyLocalAddress()) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        if (now - hostAddressesAt >= HOST_ADDRESSES_TTL_MS) {
+            Set<InetAddress> addresses = new HashSet<>();
+            try {
+                for (NetworkInterface networkInterface : Collections.list(NetworkInterface.getNetworkInterfaces())) {
+                    addresses.addAll(Collections.list(networkInterface.getInetAddresses()));
+                }
+            } catch (SocketException e) {
+                // Keep the previous addresses until the next refresh
+                addresses = hostAddresses;
+            }
+            hostAddresses = addresses;
+            hostAddressesAt = now;
+        }
+        return hostAddresses.contains(address);
+    }
+
+    /**
+     * Network profiles currently applied by BMA that shape traffic, keyed by serial
+     */
+    public static Map<String, NetworkProfile> getActiveNetworkProfiles() {
+        Map<String, NetworkProfile> active = new TreeMap<>();
+        for (EmulatorInstance instance : RUNNING_EMULATORS.values()) {
+            NetworkProfile profile = instance.getNetworkProfile();
+            if (profile != null && profile.isShaping() && instance.isOnline()) {
+                active.put(instance.getSerial(), profile);
+            }
+        }
+        return active;
+    }
 
-            return found;
+    /**
+     * Send a command to the emulator console via "adb emu" and return its reply
+     */
+    private String consoleCommand(String serial, String... command) {
+        List<String> fullCommand = new ArrayList<>(List.of(ADBHelper.getAdbPath(), "-s", serial, "emu"));
+        fullCommand.addAll(Arrays.asList(command));
 
+        try {
+            Process process = Diagnostics.start(new ProcessBuilder(fullCommand).redirectErrorStream(true));
+            StringBuilder output = new StringBuilder();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    output.append(line).append("\n");
+                }
+            }
+            process.waitFor();
+            return output.toString();
         } catch (Exception e) {
-            api.logging().logToError("Error checking emulator status: " + e.getMessage());
-            return false;
+            return "KO: " + e.getMessage();
+        }
+    }
+
+    /**
+     * Built-in launch profiles followed by the custom profiles saved for an AVD
+     */
+    public List<EmulatorLaunchProfile> getLaunchProfiles(String avdName) {
+        List<EmulatorLaunchProfile> profiles = EmulatorLaunchProfile.builtInProfiles();
+
+        String stored = api.persistence().preferences().getString(PROFILES_KEY_PREFIX + avdName);
+        if (stored != null) {
+            for (String encoded : stored.split("\n")) {
+                if (!encoded.isBlank()) {
+                    EmulatorLaunchProfile custom = EmulatorLaunchProfile.decode(encoded);
+                    profiles.removeIf(p -> p.getName().equals(custom.getName()));
+                    profiles.add(custom);
+                }
+            }
+        }
+        return profiles;
+    }
+
+    /**
+     * Save (or replace by name) a custom launch profile for an AVD
+     */
+    public void saveLaunchProfile(String avdName, EmulatorLaunchProfile profile) {
+        String key = PROFILES_KEY_PREFIX + avdName;
+        String stored = api.persistence().preferences().getString(key);
+
+        StringBuilder sb = new StringBuilder();
+        if (stored != null) {
+            for (String encoded : stored.split("\n")) {
+                if (!encoded.isBlank() && !EmulatorLaunchProfile.decode(encoded).getName().equals(profile.getName())) {
+                    sb.append(encoded).append("\n");
+                }
+            }
         }
+        sb.append(profile.encode());
+
+        api.persistence().preferences().setString(key, sb.toString());
+    }
+
+    /**
+     * Name of the profile last used for an AVD, or null
+     */
+    public String getSelectedProfileName(String avdName) {
+        return api.persistence().preferences().getString(SELECTED_PROFILE_KEY_PREFIX + avdName);
+    }
+
+    public void setSelectedProfileName(String avdName, String profileName) {
+        api.persistence().preferences().setString(SELECTED_PROFILE_KEY_PREFIX + avdName, profileName);
+    }
+
+    /**
+     * Check if an emulator for the given AVD is running
+     */
+    public boolean isEmulatorRunning(String avdName) {
+        return getSerialForAvd(avdName) != null;
+    }
+
+    /**
+     * Get the ADB serial of the running emulator for an AVD, or null if none
+     */
+    public String getSerialForAvd(String avdName) {
+        EmulatorInstance instance = findByAvdName(avdName);
+        return instance != null ? instance.getSerial() : null;
+    }
+
+    /**
+     * Get the running emulator for an AVD, or null if none
+     */
+    public EmulatorInstance findByAvdName(String avdName) {
+        if (avdName == null) {
+            return null;
+        }
+        syncIfNotTracking();
+        for (EmulatorInstance instance : RUNNING_EMULATORS.values()) {
+            if (avdName.equals(instance.getAvdName())) {
+                return instance;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stop the emulator running an AVD. Uses the console kill command so emulators
+     * started outside BMA can be stopped too, and falls back to killing the process.
+     */
+    public boolean stopEmulator(String avdName) {
+        EmulatorInstance instance = findByAvdName(avdName);
+        Process process = instance != null ? instance.getProcess() : PENDING_LAUNCHES.get(avdName);
+
+        if (instance != null) {
+            try {
+                ProcessBuilder pb = new ProcessBuilder(ADBHelper.getAdbPath(), "-s", instance.getSerial(), "emu", "kill");
+                Process killProcess = Diagnostics.start(pb);
+                if (killProcess.waitFor() == 0) {
+                    RUNNING_EMULATORS.remove(instance.getSerial());
+                    PENDING_LAUNCHES.remove(avdName);
+                    api.logging().logToOutput("Emulator stopped: " + avdName + " (" + instance.getSerial() + ")");
+                    return true;
+                }
+            } catch (Exception e) {
+                api.logging().logToError("Error sending kill to " + instance.getSerial() + ": " + e.getMessage());
+            }
+        }
+
+        if (stopEmulator(process)) {
+            PENDING_LAUNCHES.remove(avdName);
+            if (instance != null) {
+                RUNNING_EMULATORS.remove(instance.getSerial());
+            }
+            return true;
+        }
+        return false;
     }
 
     /**
@@ -198,47 +494,148 @@ public class EmulatorHelper {
     }
 
     /**
-     * Get running emulator devices from ADB
+     * Get running emulator devices from ADB, with the AVD each one is running
      */
     public List<String> getRunningEmulators() {
         List<String> emulators = new ArrayList<>();
+        for (EmulatorInstance instance : getRunningInstances()) {
+            emulators.add(instance.toString());
+        }
+        return emulators;
+    }
+
+    /**
+     * Get running emulators sorted by serial
+     */
+    public List<EmulatorInstance> getRunningInstances() {
+        syncIfNotTracking();
+        List<EmulatorInstance> instances = new ArrayList<>(RUNNING_EMULATORS.values());
+        instances.sort(Comparator.comparing(EmulatorInstance::getSerial));
+        return instances;
+    }
+
+    /**
+     * Follow the shared device tracker; the first helper subscribes for all of them.
+     * The registry is updated on every device list change, so lookups never spawn adb.
+     */
+    private void startDeviceTracking() {
+        synchronized (EmulatorHelper.class) {
+            if (tracking) {
+                return;
+            }
+            tracking = true;
+        }
+        DeviceTracker.subscribe(api, this::applyDeviceList);
+    }
+
+    /**
+     * Poll "adb devices" once when the tracker has no device list (e.g. adb path set later)
+     */
+    private void syncIfNotTracking() {
+        if (DeviceTracker.isTracking()) {
+            return;
+        }
 
         try {
             String adbPath = ADBHelper.getAdbPath();
             if (adbPath == null) {
-                return emulators;
+                return;
             }
 
             ProcessBuilder pb = new ProcessBuilder(adbPath, "devices");
-            Process process = pb.start();
+            Process process = Diagnostics.start(pb);
+
+            StringBuilder output = new StringBuilder();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.contains("\t")) {
+                        output.append(line).append("\n");
+                    }
+                }
+            }
+            process.waitFor();
 
-            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            String line;
-            boolean firstLine = true;
+            applyDeviceList(output.toString());
+        } catch (Exception e) {
+            api.logging().logToError("Error getting running emulators: " + e.getMessage());
+        }
+    }
 
-            while ((line = reader.readLine()) != null) {
-                if (firstLine) {
-                    firstLine = false;
-                    continue;
-                }
+    /**
+     * Reconcile the registry with a "serial\tstate" device list
+     */
+    private synchronized void applyDeviceList(String deviceList) {
+        Set<String> seen = new HashSet<>();
+        boolean physical = false;
+
+        for (String line : deviceList.split("\n")) {
+            String[] parts = line.trim().split("\\s+");
+            if (parts.length < 2) {
+                continue;
+            }
+            if (!parts[0].startsWith("emulator-")) {
+                physical |= parts[1].equals("device");
+                continue;
+            }
 
-                line = line.trim();
-                if (line.contains("emulator-") && !line.isEmpty()) {
-                    String[] parts = line.split("\\s+");
-                    if (parts.length >= 2) {
-                        emulators.add(parts[0] + " (" + parts[1] + ")");
+            String serial = parts[0];
+            String state = parts[1];
+            seen.add(serial);
+
+            EmulatorInstance instance = RUNNING_EMULATORS.computeIfAbsent(serial, s -> new EmulatorInstance(s, state));
+            instance.setState(state);
+
+            if (instance.getAvdName() == null && instance.isOnline()) {
+                String avdName = resolveAvdName(serial);
+                if (avdName != null) {
+                    instance.setAvdName(avdName);
+                    Process launched = PENDING_LAUNCHES.remove(avdName);
+                    if (launched != null) {
+                        instance.setProcess(launched);
                     }
+                    api.logging().logToOutput("Emulator " + serial + " is running AVD: " + avdName);
                 }
             }
+        }
 
-            process.waitFor();
-            reader.close();
+        RUNNING_EMULATORS.keySet().retainAll(seen);
+        physicalDeviceOnline = physical;
+    }
 
-        } catch (Exception e) {
-            api.logging().logToError("Error getting running emulators: " + e.getMessage());
+    /**
+     * Resolve the AVD name of an emulator serial via getprop, falling back to the console
+     */
+    private String resolveAvdName(String serial) {
+        String adbPath = ADBHelper.getAdbPath();
+
+        String name = firstLine(adbPath, "-s", serial, "shell", "getprop", "ro.boot.qemu.avd_name");
+        if (name == null || name.isEmpty()) {
+            // Older system images use the kernel property
+            name = firstLine(adbPath, "-s", serial, "shell", "getprop", "ro.kernel.qemu.avd_name");
+        }
+        if (name == null || name.isEmpty()) {
+            // Console command replies "<name>" followed by "OK"
+            name = firstLine(adbPath, "-s", serial, "emu", "avd", "name");
+            if ("OK".equals(name) || (name != null && name.startsWith("KO"))) {
+                name = null;
+            }
         }
 
-        return emulators;
+        return name == null || name.isEmpty() ? null : name;
     }
-}
 
+    private String firstLine(String... command) {
+        try {
+            Process process = Diagnostics.start(new ProcessBuilder(command));
+            String line;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                line = reader.readLine();
+            }
+            process.waitFor();
+            return line != null ? line.trim() : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
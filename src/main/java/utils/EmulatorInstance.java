@@ -0,0 +1,83 @@
+package utils;
+
+/**
+ * A running emulator as seen by ADB, resolved to the AVD it was launched from.
+ */
+public class EmulatorInstance {
+    private final String serial;
+    private volatile String state;
+    private volatile String avdName;
+    private volatile Process process;
+    private volatile NetworkProfile networkProfile;
+
+    public EmulatorInstance(String serial, String state) {
+        this.serial = serial;
+        this.state = state;
+    }
+
+    public String getSerial() {
+        return serial;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    void setState(String state) {
+        this.state = state;
+    }
+
+    /**
+     * AVD name, or null if it has not been resolved yet (e.g. still booting)
+     */
+    public String getAvdName() {
+        return avdName;
+    }
+
+    void setAvdName(String avdName) {
+        this.avdName = avdName;
+    }
+
+    /**
+     * Console port, derived from the serial (emulator-5554 -> 5554)
+     */
+    public int getConsolePort() {
+        try {
+            return Integer.parseInt(serial.substring(serial.indexOf('-') + 1));
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Process that launched this emulator, or null if it was started outside BMA
+     */
+    public Process getProcess() {
+        return process;
+    }
+
+    void setProcess(Process process) {
+        this.process = process;
+    }
+
+    /**
+     * Network shaping profile applied by BMA, or null if none
+     */
+    public NetworkProfile getNetworkProfile() {
+        return networkProfile;
+    }
+
+    void setNetworkProfile(NetworkProfile networkProfile) {
+        this.networkProfile = networkProfile;
+    }
+
+    public boolean isOnline() {
+        return "device".equals(state);
+    }
+
+    @Override
+    public String toString() {
+        return serial + " (" + state + ")" + (avdName != null ? " - " + avdName : "") +
+                (networkProfile != null ? " [" + networkProfile.getName() + "]" : "");
+    }
+}
@@ -0,0 +1,205 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Named set of emulator launch flags (window, GPU, cores/RAM, snapshot behaviour)
+ */
+public class EmulatorLaunchProfile {
+    private final String name;
+    private boolean noWindow;
+    private String gpuMode;        // null = emulator default
+    private int cores;             // 0 = AVD default
+    private int memoryMb;          // 0 = AVD default
+    private boolean coldBoot;      // -no-snapshot-load
+    private boolean noSnapshotSave;
+    private boolean noAudio;
+
+    public EmulatorLaunchProfile(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Built-in profiles, from the emulator defaults to a GPU-less CI configuration
+     */
+    public static List<EmulatorLaunchProfile> builtInProfiles() {
+        List<EmulatorLaunchProfile> profiles = new ArrayList<>();
+
+        profiles.add(new EmulatorLaunchProfile("Default"));
+
+        EmulatorLaunchProfile headless = new EmulatorLaunchProfile("Headless");
+        headless.noWindow = true;
+        headless.noAudio = true;
+        profiles.add(headless);
+
+        EmulatorLaunchProfile ci = new EmulatorLaunchProfile("Headless CI (SwiftShader)");
+        ci.noWindow = true;
+        ci.noAudio = true;
+        ci.gpuMode = "swiftshader_indirect";
+        ci.noSnapshotSave = true;
+        profiles.add(ci);
+
+        EmulatorLaunchProfile cold = new EmulatorLaunchProfile("Cold Boot");
+        cold.coldBoot = true;
+        profiles.add(cold);
+
+        return profiles;
+    }
+
+    /**
+     * Emulator command line arguments for this profile
+     */
+    public List<String> toArgs() {
+        List<String> args = new ArrayList<>();
+        if (noWindow) {
+            args.add("-no-window");
+        }
+        if (gpuMode != null && !gpuMode.isEmpty()) {
+            args.add("-gpu");
+            args.add(gpuMode);
+        }
+        if (cores > 0) {
+            args.add("-cores");
+            args.add(String.valueOf(cores));
+        }
+        if (memoryMb > 0) {
+            args.add("-memory");
+            args.add(String.valueOf(memoryMb));
+        }
+        if (coldBoot) {
+            args.add("-no-snapshot-load");
+        }
+        if (noSnapshotSave) {
+            args.add("-no-snapshot-save");
+        }
+        if (noAudio) {
+            args.add("-no-audio");
+        }
+        return args;
+    }
+
+    /**
+     * Copy of this profile with a different snapshot load mode, used by the boot benchmark
+     */
+    public EmulatorLaunchProfile withColdBoot(boolean coldBoot) {
+        EmulatorLaunchProfile copy = decode(encode());
+        copy.coldBoot = coldBoot;
+        return copy;
+    }
+
+    /**
+     * Serialize as "name|key=value;key=value" for Burp preferences
+     */
+    public String encode() {
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put("noWindow", String.valueOf(noWindow));
+        values.put("gpu", gpuMode != null ? gpuMode : "");
+        values.put("cores", String.valueOf(cores));
+        values.put("memory", String.valueOf(memoryMb));
+        values.put("coldBoot", String.valueOf(coldBoot));
+        values.put("noSnapshotSave", String.valueOf(noSnapshotSave));
+        values.put("noAudio", String.valueOf(noAudio));
+
+        StringBuilder sb = new StringBuilder(name.replace("|", "").replace("\n", " ")).append("|");
+        values.forEach((key, value) -> sb.append(key).append("=").append(value).append(";"));
+        return sb.toString();
+    }
+
+    public static EmulatorLaunchProfile decode(String encoded) {
+        int sep = encoded.indexOf('|');
+        EmulatorLaunchProfile profile = new EmulatorLaunchProfile(sep >= 0 ? encoded.substring(0, sep) : encoded);
+        if (sep < 0) {
+            return profile;
+        }
+
+        for (String pair : encoded.substring(sep + 1).split(";")) {
+            String[] kv = pair.split("=", 2);
+            if (kv.length != 2) {
+                continue;
+            }
+            try {
+                switch (kv[0]) {
+                    case "noWindow" -> profile.noWindow = Boolean.parseBoolean(kv[1]);
+                    case "gpu" -> profile.gpuMode = kv[1].isEmpty() ? null : kv[1];
+                    case "cores" -> profile.cores = Integer.parseInt(kv[1]);
+                    case "memory" -> profile.memoryMb = Integer.parseInt(kv[1]);
+                    case "coldBoot" -> profile.coldBoot = Boolean.parseBoolean(kv[1]);
+                    case "noSnapshotSave" -> profile.noSnapshotSave = Boolean.parseBoolean(kv[1]);
+                    case "noAudio" -> profile.noAudio = Boolean.parseBoolean(kv[1]);
+                    default -> { }
+                }
+            } catch (NumberFormatException e) {
+                // Keep the default for malformed values
+            }
+        }
+        return profile;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isNoWindow() {
+        return noWindow;
+    }
+
+    public void setNoWindow(boolean noWindow) {
+        this.noWindow = noWindow;
+    }
+
+    public String getGpuMode() {
+        return gpuMode;
+    }
+
+    public void setGpuMode(String gpuMode) {
+        this.gpuMode = gpuMode;
+    }
+
+    public int getCores() {
+        return cores;
+    }
+
+    public void setCores(int cores) {
+        this.cores = cores;
+    }
+
+    public int getMemoryMb() {
+        return memoryMb;
+    }
+
+    public void setMemoryMb(int memoryMb) {
+        this.memoryMb = memoryMb;
+    }
+
+    public boolean isColdBoot() {
+        return coldBoot;
+    }
+
+    public void setColdBoot(boolean coldBoot) {
+        this.coldBoot = coldBoot;
+    }
+
+    public boolean isNoSnapshotSave() {
+        return noSnapshotSave;
+    }
+
+    public void setNoSnapshotSave(boolean noSnapshotSave) {
+        this.noSnapshotSave = noSnapshotSave;
+    }
+
+    public boolean isNoAudio() {
+        return noAudio;
+    }
+
+    public void setNoAudio(boolean noAudio) {
+        this.noAudio = noAudio;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -8,6 +8,8 @@ import java.net.HttpURLConnection;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
 import java.util.function.Consumer;
 
 public class FridaHelper {
@@ -19,12 +21,11 @@ public class FridaHelper {
     private String currentVersion = null;
     private Path localFridaPath;
     private Path tempDir;
+    private static boolean oldDownloadsCleaned = false;
 
     public FridaHelper(MontoyaApi api) {
         this.api = api;
         this.adbHelper = new ADBHelper(api);
-        // Clean up any old Frida downloads on initialization
-        cleanupOldDownloads();
     }
 
     /**
@@ -42,14 +43,18 @@ public class FridaHelper {
     }
 
     public boolean downloadFridaServer(String architecture, String version, Consumer<String> logger) {
-        try {
+        BmaEvents.Frida event = fridaEvent();
+        Diagnostics.Span span = Diagnostics.span("frida download").then(success -> commit(event, "download", null, success));
+        try (span) {
             // Clean up previous download if exists
             cleanupCurrentDownload();
+            cleanupOldDownloads(api);
 
             if (version.equals("latest")) {
                 version = getLatestFridaVersion();
                 if (version == null) {
                     logger.accept("✗ Failed to get latest Frida version");
+                    span.fail();
                     return false;
                 }
                 logger.accept("Latest version: " + version);
@@ -77,6 +82,7 @@ public class FridaHelper {
             int responseCode = connection.getResponseCode();
             if (responseCode != 200) {
                 logger.accept("✗ Download failed with status: " + responseCode);
+                span.fail();
                 return false;
             }
 
@@ -94,6 +100,7 @@ public class FridaHelper {
                 while ((bytesRead = in.read(buffer)) != -1) {
                     out.write(buffer, 0, bytesRead);
                     totalRead += bytesRead;
+                    Diagnostics.add("bytes.frida.download", bytesRead);
 
                     if (fileSize > 0) {
                         int percent = (int) ((totalRead * 100) / fileSize);
@@ -103,6 +110,7 @@ public class FridaHelper {
                         }
                     }
                 }
+                event.bytes = totalRead;
             }
 
             logger.accept("✓ Download complete, decompressing...");
@@ -119,6 +127,7 @@ public class FridaHelper {
 
             return true;
         } catch (Exception e) {
+            span.fail();
             logger.accept("✗ Error: " + e.getMessage());
             api.logging().logToError("Error downloading Frida: " + e.getMessage());
             return false;
@@ -126,7 +135,8 @@ public class FridaHelper {
     }
 
     private String getLatestFridaVersion() {
-        try {
+        Diagnostics.Span span = Diagnostics.span("frida latest version lookup");
+        try (span) {
             URL url = new URL("https://api.github.com/repos/frida/frida/releases/latest");
             HttpURLConnection connection = (HttpURLConnection) url.openConnection();
             connection.setRequestMethod("GET");
@@ -149,6 +159,7 @@ public class FridaHelper {
                 return json.substring(start, end);
             }
         } catch (Exception e) {
+            span.fail();
             api.logging().logToError("Error getting latest version: " + e.getMessage());
         }
 
@@ -156,7 +167,9 @@ public class FridaHelper {
     }
 
     private void decompressXZ(Path input, Path output) throws IOException {
-        try (FileInputStream fin = new FileInputStream(input.toFile());
+        BmaEvents.Frida event = fridaEvent();
+        try (Diagnostics.Span span = Diagnostics.span("frida decompress").then(success -> commit(event, "decompress", null, success));
+             FileInputStream fin = new FileInputStream(input.toFile());
              BufferedInputStream bin = new BufferedInputStream(fin);
              XZInputStream xzIn = new XZInputStream(bin);
              FileOutputStream out = new FileOutputStream(output.toFile())) {
@@ -165,6 +178,8 @@ public class FridaHelper {
             int n;
             while ((n = xzIn.read(buffer)) != -1) {
                 out.write(buffer, 0, n);
+                Diagnostics.add("bytes.frida.decompressed", n);
+                event.bytes += n;
             }
         }
     }
@@ -175,7 +190,13 @@ public class FridaHelper {
             return false;
         }
 
-        try {
+        String serial = getSelectedDevice();
+        BmaEvents.Frida event = fridaEvent();
+        Diagnostics.Span span = Diagnostics.span("frida push", serial).then(success -> commit(event, "push", serial, success));
+        try (span) {
+            event.bytes = Files.size(localFridaPath);
+            Diagnostics.add("bytes.adb.push", event.bytes);
+
             // Push with versioned name
             String result = adbHelper.executeCommand("push", localFridaPath.toString(), fridaServerPath);
             api.logging().logToOutput("Push result: " + result);
@@ -192,13 +213,17 @@ public class FridaHelper {
 
             return true;
         } catch (Exception e) {
+            span.fail();
             api.logging().logToError("Error pushing Frida: " + e.getMessage());
             return false;
         }
     }
 
     public boolean startFridaServer() {
-        try {
+        String serial = getSelectedDevice();
+        BmaEvents.Frida event = fridaEvent();
+        Diagnostics.Span span = Diagnostics.span("frida start", serial).then(success -> commit(event, "start", serial, success));
+        try (span) {
             // Check if already running
             String checkStatus = adbHelper.executeCommand("shell", "ps", "|", "grep", "frida-server");
             if (!checkStatus.trim().isEmpty() && !checkStatus.contains("grep")) {
@@ -208,13 +233,13 @@ public class FridaHelper {
 
             // Stop any existing instances
             stopFridaServer();
-            Thread.sleep(1000);
+            pause(1000);
 
             api.logging().logToOutput("Starting Frida server: " + fridaServerPath);
 
             // Method 1: Try with nohup in background (no root)
             String result = adbHelper.executeCommand("shell", "nohup", fridaServerPath, ">/dev/null", "2>&1", "&");
-            Thread.sleep(2000);
+            pause(2000);
 
             // Check if running
             String status = adbHelper.executeCommand("shell", "ps", "|", "grep", "frida-server");
@@ -224,7 +249,7 @@ public class FridaHelper {
                 api.logging().logToOutput("Trying with root privileges...");
 
                 result = adbHelper.executeCommand("shell", "su", "-c", fridaServerPath + " &");
-                Thread.sleep(2000);
+                pause(2000);
 
                 // Check again
                 status = adbHelper.executeCommand("shell", "ps", "|", "grep", "frida-server");
@@ -234,7 +259,7 @@ public class FridaHelper {
                     api.logging().logToOutput("Trying alternate method...");
 
                     result = adbHelper.executeCommand("shell", "su", "-c", "nohup " + fridaServerPath + " >/dev/null 2>&1 &");
-                    Thread.sleep(2000);
+                    pause(2000);
 
                     // Final check
                     status = adbHelper.executeCommand("shell", "ps", "|", "grep", "frida-server");
@@ -242,6 +267,7 @@ public class FridaHelper {
                     if (status.trim().isEmpty() || !status.contains("frida-server") || status.contains("grep frida-server")) {
                         api.logging().logToError("Failed to start Frida server. It may already be bound to port 27042.");
                         api.logging().logToError("Try stopping it first or check device logs");
+                        span.fail();
                         return false;
                     }
                 }
@@ -257,13 +283,17 @@ public class FridaHelper {
 
             return true;
         } catch (Exception e) {
+            span.fail();
             api.logging().logToError("Error starting Frida: " + e.getMessage());
             return false;
         }
     }
 
     public boolean stopFridaServer() {
-        try {
+        String serial = getSelectedDevice();
+        BmaEvents.Frida event = fridaEvent();
+        Diagnostics.Span span = Diagnostics.span("frida stop", serial).then(success -> commit(event, "stop", serial, success));
+        try (span) {
             // Method 1: Find all frida-server processes and kill by PID
             String psResult = adbHelper.executeCommand("shell", "ps", "-A", "|", "grep", "frida");
 
@@ -294,7 +324,7 @@ public class FridaHelper {
             // Method 2: Fallback with killall
             adbHelper.executeCommand("shell", "su", "-c", "killall -9 frida-server");
 
-            Thread.sleep(1000);
+            pause(1000);
 
             // Verify all processes are killed
             String finalCheck = adbHelper.executeCommand("shell", "ps", "-A", "|", "grep", "frida");
@@ -304,16 +334,46 @@ public class FridaHelper {
                 return true;
             } else {
                 api.logging().logToError("Some Frida processes may still be running (zombie/defunct)");
+                span.fail();
                 return false;
             }
 
         } catch (Exception e) {
+            span.fail();
             api.logging().logToError("Error stopping Frida: " + e.getMessage());
             return false;
         }
     }
 
 
+    /**
+     * Start timing a phase; only the byte count is kept as it runs, the rest is filled in on commit
+     */
+    private static BmaEvents.Frida fridaEvent() {
+        BmaEvents.Frida event = new BmaEvents.Frida();
+        event.begin();
+        return event;
+    }
+
+    private void commit(BmaEvents.Frida event, String phase, String serial, boolean success) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.phase = phase;
+            event.serial = serial;
+            event.version = currentVersion;
+            event.success = success;
+            event.commit();
+        }
+    }
+
+    /**
+     * Fixed wait, counted so the Diagnostics tab shows how much of a setup is sleeping
+     */
+    private void pause(long millis) throws InterruptedException {
+        Diagnostics.add("frida.fixed-sleep.ms", millis);
+        Thread.sleep(millis);
+    }
+
     public String getFridaStatus() {
         try {
             String result = adbHelper.executeCommand("shell", "ps", "|", "grep", "frida-server");
@@ -336,7 +396,7 @@ public class FridaHelper {
     private void cleanupCurrentDownload() {
         if (tempDir != null && Files.exists(tempDir)) {
             try {
-                deleteDirectory(tempDir);
+                deleteDirectory(api, tempDir);
                 api.logging().logToOutput("Cleaned up temporary directory: " + tempDir);
                 tempDir = null;
                 localFridaPath = null;
@@ -347,25 +407,27 @@ public class FridaHelper {
     }
 
     /**
-     * Clean up all old Frida download directories in the system temp folder
+     * Clean up Frida download directories left in the system temp folder by earlier
+     * sessions. Runs once per session, from background warm-up or before the first download.
      */
-    private void cleanupOldDownloads() {
-        try {
-            Path tempRoot = Files.createTempDirectory("frida").getParent();
+    public static synchronized void cleanupOldDownloads(MontoyaApi api) {
+        if (oldDownloadsCleaned) {
+            return;
+        }
+        oldDownloadsCleaned = true;
 
-            if (tempRoot != null && Files.exists(tempRoot)) {
-                Files.list(tempRoot)
-                    .filter(path -> path.getFileName().toString().startsWith("frida"))
+        Path tempRoot = Paths.get(System.getProperty("java.io.tmpdir"));
+        try (Stream<Path> entries = Files.list(tempRoot)) {
+            entries.filter(path -> path.getFileName().toString().startsWith("frida"))
                     .filter(Files::isDirectory)
                     .forEach(path -> {
                         try {
-                            deleteDirectory(path);
+                            deleteDirectory(api, path);
                             api.logging().logToOutput("Cleaned up old Frida directory: " + path.getFileName());
                         } catch (IOException e) {
                             api.logging().logToError("Failed to delete old directory: " + path + " - " + e.getMessage());
                         }
                     });
-            }
         } catch (Exception e) {
             api.logging().logToError("Error during cleanup of old downloads: " + e.getMessage());
         }
@@ -374,7 +436,7 @@ public class FridaHelper {
     /**
      * Recursively delete a directory and its contents
      */
-    private void deleteDirectory(Path directory) throws IOException {
+    private static void deleteDirectory(MontoyaApi api, Path directory) throws IOException {
         if (Files.exists(directory)) {
             Files.walk(directory)
                 .sorted((a, b) -> b.compareTo(a)) // Reverse order to delete files before directories
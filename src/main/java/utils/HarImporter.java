@@ -0,0 +1,370 @@
+package utils;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.message.HttpHeader;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+
+import java.io.*;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Imports HAR files into the site map or Repeater. The file is streamed entry by
+ * entry, so only one entry and one batch of converted requests are held in memory
+ * regardless of the file size.
+ */
+public class HarImporter {
+    public enum Destination { SITE_MAP, REPEATER }
+
+    private static final int BATCH_SIZE = 100;
+    public static final int MAX_REPEATER_ENTRIES = 100;
+
+    private final MontoyaApi api;
+
+    public HarImporter(MontoyaApi api) {
+        this.api = api;
+    }
+
+    /**
+     * One HAR entry, reduced to the fields needed to rebuild the request and response
+     */
+    private static class HarEntry {
+        String method = "GET";
+        String url;
+        final List<HttpHeader> requestHeaders = new ArrayList<>();
+        String postText;
+        final List<String> postParams = new ArrayList<>();
+        int status;
+        String statusText = "";
+        final List<HttpHeader> responseHeaders = new ArrayList<>();
+        String contentText;
+        boolean base64;
+    }
+
+    /**
+     * Counts bytes consumed from the file so progress reflects the real position
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+
+    /**
+     * Import every entry of a HAR file. Returns the number of entries imported.
+     */
+    public int importHar(Path harFile, Destination destination, Consumer<String> logger,
+                         IntConsumer progress, BooleanSupplier cancelled) throws IOException {
+        long totalBytes = Math.max(1, Files.size(harFile));
+        List<HttpRequestResponse> batch = new ArrayList<>(BATCH_SIZE);
+        int imported = 0;
+        int failed = 0;
+        int index = 0;
+        // Repeater opens a tab per entry, so only the first entries go there
+        int limit = destination == Destination.REPEATER ? MAX_REPEATER_ENTRIES : Integer.MAX_VALUE;
+        boolean[] capped = {false};
+        BooleanSupplier stop = () -> capped[0] || cancelled.getAsBoolean();
+
+        CountingInputStream counter = new CountingInputStream(new BufferedInputStream(Files.newInputStream(harFile), 64 * 1024));
+        try (JsonStreamReader json = new JsonStreamReader(new InputStreamReader(counter, StandardCharsets.UTF_8))) {
+            json.beginObject();
+            while (json.hasNext()) {
+                if (!json.nextName().equals("log")) {
+                    json.skipValue();
+                    continue;
+                }
+
+                json.beginObject();
+                while (json.hasNext()) {
+                    if (!json.nextName().equals("entries")) {
+                        json.skipValue();
+                        continue;
+                    }
+
+                    json.beginArray();
+                    while (json.hasNext() && !stop.getAsBoolean()) {
+                        index++;
+                        // Malformed JSON ends the import; an entry that cannot be converted is only counted
+                        HarEntry entry = readEntry(json);
+                        try {
+                            batch.add(toRequestResponse(entry));
+                        } catch (Exception e) {
+                            failed++;
+                            logger.accept("✗ Entry " + index + ": " + e.getMessage());
+                        }
+                        capped[0] = imported + batch.size() >= limit;
+
+                        if (batch.size() >= BATCH_SIZE) {
+                            imported += flush(batch, destination, imported);
+                            progress.accept((int) Math.min(99, counter.count * 100 / totalBytes));
+                            logger.accept("Imported " + imported + " entries...");
+                        }
+                    }
+                    if (stop.getAsBoolean()) {
+                        break;
+                    }
+                    json.endArray();
+                }
+                if (stop.getAsBoolean()) {
+                    break;
+                }
+                json.endObject();
+            }
+        }
+
+        imported += flush(batch, destination, imported);
+        progress.accept(100);
+        logger.accept("✓ Imported " + imported + " entries" + (failed > 0 ? ", " + failed + " failed" : "") +
+                (cancelled.getAsBoolean() ? " (cancelled)" : "") +
+                (capped[0] ? " (Repeater limit of " + MAX_REPEATER_ENTRIES + " reached; import into the site map for the rest)" : ""));
+        return imported;
+    }
+
+    private int flush(List<HttpRequestResponse> batch, Destination destination, int offset) {
+        int sent = 0;
+        for (HttpRequestResponse item : batch) {
+            if (destination == Destination.SITE_MAP) {
+                api.siteMap().add(item);
+            } else {
+                api.repeater().sendToRepeater(item.request(), "HAR #" + (offset + sent + 1) + " " + item.request().httpService().host());
+            }
+            sent++;
+        }
+        batch.clear();
+        return sent;
+    }
+
+    private HttpRequestResponse toRequestResponse(HarEntry entry) throws Exception {
+        if (entry.url == null) {
+            throw new Exception("Entry has no request URL");
+        }
+        if (entry.method == null || entry.method.isEmpty()) {
+            throw new Exception("Entry has no request method");
+        }
+
+        List<HttpHeader> headers = new ArrayList<>();
+        for (HttpHeader header : entry.requestHeaders) {
+            // HTTP/2 pseudo-headers and Host are rebuilt from the URL, and Content-Length from the body,
+            // which may be reassembled from params or decoded text of a different length
+            if (!header.name().startsWith(":") && !header.name().equalsIgnoreCase("Host")
+                    && !header.name().equalsIgnoreCase("Content-Length")) {
+                headers.add(header);
+            }
+        }
+
+        String body = entry.postText;
+        if (body == null && !entry.postParams.isEmpty()) {
+            body = String.join("&", entry.postParams);
+        }
+
+        HttpRequest request = CurlParser.buildRequest(entry.method, entry.url, headers, body);
+        return HttpRequestResponse.httpRequestResponse(request, entry.status > 0 ? toResponse(entry) : null);
+    }
+
+    private HttpResponse toResponse(HarEntry entry) {
+        byte[] body;
+        if (entry.contentText == null) {
+            body = new byte[0];
+        } else if (entry.base64) {
+            body = Base64.getMimeDecoder().decode(entry.contentText);
+        } else {
+            body = entry.contentText.getBytes(StandardCharsets.UTF_8);
+        }
+
+        StringBuilder head = new StringBuilder();
+        head.append("HTTP/1.1 ").append(entry.status).append(" ").append(entry.statusText).append("\r\n");
+        for (HttpHeader header : entry.responseHeaders) {
+            String name = header.name();
+            // HAR content is already decoded, so encoding and length headers no longer apply
+            if (name.startsWith(":") || name.equalsIgnoreCase("Content-Encoding")
+                    || name.equalsIgnoreCase("Transfer-Encoding") || name.equalsIgnoreCase("Content-Length")) {
+                continue;
+            }
+            head.append(name).append(": ").append(header.value()).append("\r\n");
+        }
+        head.append("Content-Length: ").append(body.length).append("\r\n\r\n");
+
+        byte[] headBytes = head.toString().getBytes(StandardCharsets.ISO_8859_1);
+        byte[] raw = new byte[headBytes.length + body.length];
+        System.arraycopy(headBytes, 0, raw, 0, headBytes.length);
+        System.arraycopy(body, 0, raw, headBytes.length, body.length);
+
+        return HttpResponse.httpResponse(ByteArray.byteArray(raw));
+    }
+
+    private HarEntry readEntry(JsonStreamReader json) throws IOException {
+        HarEntry entry = new HarEntry();
+        if (skipNull(json)) {
+            return entry;
+        }
+
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "request" -> readRequest(json, entry);
+                case "response" -> readResponse(json, entry);
+                default -> json.skipValue();
+            }
+        }
+        json.endObject();
+
+        return entry;
+    }
+
+    private void readRequest(JsonStreamReader json, HarEntry entry) throws IOException {
+        if (skipNull(json)) {
+            return;
+        }
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "method" -> entry.method = json.nextString();
+                case "url" -> entry.url = json.nextString();
+                case "headers" -> readHeaders(json, entry.requestHeaders);
+                case "postData" -> readPostData(json, entry);
+                default -> json.skipValue();
+            }
+        }
+        json.endObject();
+    }
+
+    private void readPostData(JsonStreamReader json, HarEntry entry) throws IOException {
+        if (skipNull(json)) {
+            return;
+        }
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "text" -> entry.postText = json.nextString();
+                case "params" -> {
+                    if (skipNull(json)) {
+                        continue;
+                    }
+                    json.beginArray();
+                    while (json.hasNext()) {
+                        if (skipNull(json)) {
+                            continue;
+                        }
+                        String name = null;
+                        String value = "";
+                        json.beginObject();
+                        while (json.hasNext()) {
+                            switch (json.nextName()) {
+                                case "name" -> name = json.nextString();
+                                case "value" -> value = json.nextString();
+                                default -> json.skipValue();
+                            }
+                        }
+                        json.endObject();
+                        if (name != null) {
+                            entry.postParams.add(URLEncoder.encode(name, StandardCharsets.UTF_8) + "="
+                                    + URLEncoder.encode(value != null ? value : "", StandardCharsets.UTF_8));
+                        }
+                    }
+                    json.endArray();
+                }
+                default -> json.skipValue();
+            }
+        }
+        json.endObject();
+    }
+
+    private void readResponse(JsonStreamReader json, HarEntry entry) throws IOException {
+        if (skipNull(json)) {
+            return;
+        }
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "status" -> entry.status = (int) json.nextLong();
+                case "statusText" -> entry.statusText = json.nextString();
+                case "headers" -> readHeaders(json, entry.responseHeaders);
+                case "content" -> {
+                    if (skipNull(json)) {
+                        continue;
+                    }
+                    json.beginObject();
+                    while (json.hasNext()) {
+                        switch (json.nextName()) {
+                            case "text" -> entry.contentText = json.nextString();
+                            case "encoding" -> entry.base64 = "base64".equalsIgnoreCase(json.nextString());
+                            default -> json.skipValue();
+                        }
+                    }
+                    json.endObject();
+                }
+                default -> json.skipValue();
+            }
+        }
+        json.endObject();
+    }
+
+    private void readHeaders(JsonStreamReader json, List<HttpHeader> headers) throws IOException {
+        if (skipNull(json)) {
+            return;
+        }
+        json.beginArray();
+        while (json.hasNext()) {
+            if (skipNull(json)) {
+                continue;
+            }
+            String name = null;
+            String value = "";
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "name" -> name = json.nextString();
+                    case "value" -> value = json.nextString();
+                    default -> json.skipValue();
+                }
+            }
+            json.endObject();
+            if (name != null && !name.isEmpty()) {
+                headers.add(HttpHeader.httpHeader(name, value != null ? value : ""));
+            }
+        }
+        json.endArray();
+    }
+
+    /**
+     * Skip a value if it is null, as some exporters write for absent optional members
+     */
+    private static boolean skipNull(JsonStreamReader json) throws IOException {
+        if (json.peek() != JsonStreamReader.Token.NULL) {
+            return false;
+        }
+        json.skipValue();
+        return true;
+    }
+}
@@ -0,0 +1,250 @@
+package utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Minimal pull-style JSON reader. Reads from a Reader through a fixed buffer and
+ * never builds a tree, so memory use depends only on the values the caller reads.
+ * Values the caller is not interested in are skipped without being materialized.
+ */
+public class JsonStreamReader implements Closeable {
+    public enum Token { BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, STRING, NUMBER, BOOLEAN, NULL, END }
+
+    private final Reader reader;
+    private final char[] buffer = new char[64 * 1024];
+    private int pos = 0;
+    private int limit = 0;
+
+    public JsonStreamReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Type of the next value, skipping separators
+     */
+    public Token peek() throws IOException {
+        int c = peekSignificant();
+        return switch (c) {
+            case -1 -> Token.END;
+            case '{' -> Token.BEGIN_OBJECT;
+            case '}' -> Token.END_OBJECT;
+            case '[' -> Token.BEGIN_ARRAY;
+            case ']' -> Token.END_ARRAY;
+            case '"' -> Token.STRING;
+            case 't', 'f' -> Token.BOOLEAN;
+            case 'n' -> Token.NULL;
+            default -> Token.NUMBER;
+        };
+    }
+
+    /**
+     * True if the current object or array has more members
+     */
+    public boolean hasNext() throws IOException {
+        int c = peekSignificant();
+        return c != '}' && c != ']' && c != -1;
+    }
+
+    public void beginObject() throws IOException {
+        expect('{');
+    }
+
+    public void endObject() throws IOException {
+        expect('}');
+    }
+
+    public void beginArray() throws IOException {
+        expect('[');
+    }
+
+    public void endArray() throws IOException {
+        expect(']');
+    }
+
+    /**
+     * Read a member name and its ':' separator
+     */
+    public String nextName() throws IOException {
+        String name = nextString();
+        if (peekSignificant() != ':') {
+            throw new IOException("Expected ':' after member name \"" + name + "\"");
+        }
+        pos++;
+        return name;
+    }
+
+    /**
+     * Read a string value; numbers, booleans and null are returned as their literal text (null as null)
+     */
+    public String nextString() throws IOException {
+        int c = peekSignificant();
+        if (c != '"') {
+            String literal = readLiteral();
+            return "null".equals(literal) ? null : literal;
+        }
+        pos++;
+
+        StringBuilder sb = new StringBuilder();
+        while (true) {
+            int ch = read();
+            if (ch == -1) {
+                throw new IOException("Unterminated string");
+            }
+            if (ch == '"') {
+                return sb.toString();
+            }
+            if (ch != '\\') {
+                sb.append((char) ch);
+                continue;
+            }
+
+            int escaped = read();
+            switch (escaped) {
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case 'n' -> sb.append('\n');
+                case 'r' -> sb.append('\r');
+                case 't' -> sb.append('\t');
+                case 'u' -> {
+                    int value = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(read(), 16);
+                        if (digit < 0) {
+                            throw new IOException("Invalid \\u escape");
+                        }
+                        value = value * 16 + digit;
+                    }
+                    sb.append((char) value);
+                }
+                case -1 -> throw new IOException("Unterminated string");
+                default -> sb.append((char) escaped);
+            }
+        }
+    }
+
+    public long nextLong() throws IOException {
+        String value = nextString();
+        try {
+            return value != null ? (long) Double.parseDouble(value) : 0;
+        } catch (NumberFormatException e) {
+            throw new IOException("Expected a number but was " + value);
+        }
+    }
+
+    /**
+     * Skip the next value, including nested objects and arrays, without building strings
+     */
+    public void skipValue() throws IOException {
+        int depth = 0;
+        do {
+            int c = peekSignificant();
+            switch (c) {
+                case -1 -> {
+                    return;
+                }
+                case '{', '[' -> {
+                    pos++;
+                    depth++;
+                }
+                case '}', ']' -> {
+                    pos++;
+                    depth--;
+                }
+                case '"' -> {
+                    pos++;
+                    skipString();
+                    if (depth > 0 && peekSignificant() == ':') {
+                        pos++;
+                        // Member name inside a skipped object; its value follows
+                        continue;
+                    }
+                }
+                default -> readLiteral();
+            }
+        } while (depth > 0);
+    }
+
+    private void skipString() throws IOException {
+        while (true) {
+            int ch = read();
+            if (ch == -1 || ch == '"') {
+                return;
+            }
+            if (ch == '\\') {
+                read();
+            }
+        }
+    }
+
+    private String readLiteral() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        while (true) {
+            int c = peekChar();
+            if (c == -1 || c == ',' || c == '}' || c == ']' || c == ':' || Character.isWhitespace(c)) {
+                break;
+            }
+            sb.append((char) c);
+            pos++;
+        }
+        if (sb.length() == 0) {
+            throw new IOException("Unexpected character in JSON");
+        }
+        return sb.toString();
+    }
+
+    private void expect(char expected) throws IOException {
+        int c = peekSignificant();
+        if (c != expected) {
+            throw new IOException("Expected '" + expected + "' but found " + (c == -1 ? "end of input" : "'" + (char) c + "'"));
+        }
+        pos++;
+    }
+
+    /**
+     * Skip whitespace and ',' separators and return the next character without consuming it
+     */
+    private int peekSignificant() throws IOException {
+        while (true) {
+            int c = peekChar();
+            if (c == -1) {
+                return -1;
+            }
+            if (c == ',' || Character.isWhitespace(c)) {
+                pos++;
+                continue;
+            }
+            return c;
+        }
+    }
+
+    private int peekChar() throws IOException {
+        if (pos >= limit && !fill()) {
+            return -1;
+        }
+        return buffer[pos];
+    }
+
+    private int read() throws IOException {
+        if (pos >= limit && !fill()) {
+            return -1;
+        }
+        return buffer[pos++];
+    }
+
+    private boolean fill() throws IOException {
+        limit = reader.read(buffer, 0, buffer.length);
+        pos = 0;
+        if (limit <= 0) {
+            limit = 0;
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,101 @@
+package utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, lock-free latency histogram in microseconds. Values below 32 microseconds are
+ * exact; above that each power of two is split into 16 sub-buckets, so percentiles
+ * are within about 6% while memory stays constant however many values are recorded.
+ */
+public class LatencyHistogram {
+    private static final int LINEAR_BUCKETS = 32;
+    private static final int SUB_BUCKETS = 16;
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKET_COUNT = LINEAR_BUCKETS + (MAX_EXPONENT - 4) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong();
+
+    public void recordNanos(long nanos) {
+        record(Math.max(0, nanos / 1000));
+    }
+
+    public void record(long micros) {
+        counts.incrementAndGet(bucketFor(micros));
+        count.incrementAndGet();
+        sum.addAndGet(micros);
+        min.accumulateAndGet(micros, Math::min);
+        max.accumulateAndGet(micros, Math::max);
+    }
+
+    public long count() {
+        return count.get();
+    }
+
+    public long minMicros() {
+        return count.get() == 0 ? 0 : min.get();
+    }
+
+    public long maxMicros() {
+        return max.get();
+    }
+
+    public long meanMicros() {
+        long n = count.get();
+        return n == 0 ? 0 : sum.get() / n;
+    }
+
+    /**
+     * Latency at the given percentile (0-100), as the upper bound of its bucket
+     */
+    public long percentileMicros(double percentile) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Number of recorded values below the given latency, to bucket precision
+     */
+    public long countBelow(long micros) {
+        int limit = bucketFor(micros);
+        long below = 0;
+        for (int i = 0; i < limit; i++) {
+            below += counts.get(i);
+        }
+        return below;
+    }
+
+    private static int bucketFor(long micros) {
+        if (micros < LINEAR_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = Math.min(63 - Long.numberOfLeadingZeros(micros), MAX_EXPONENT - 1);
+        int sub = (int) ((micros >>> (exponent - 4)) & (SUB_BUCKETS - 1));
+        return Math.min(LINEAR_BUCKETS + (exponent - 5) * SUB_BUCKETS + sub, BUCKET_COUNT - 1);
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < LINEAR_BUCKETS) {
+            return bucket;
+        }
+        int exponent = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 5;
+        int sub = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << (exponent - 4)) - 1;
+    }
+}
@@ -0,0 +1,207 @@
+package utils;
+
+import java.util.*;
+
+/**
+ * Fixed-capacity ring of log entries; once full, each new entry evicts the oldest.
+ * Words are indexed as entries arrive so searches look at the vocabulary instead of
+ * rescanning every message.
+ */
+public class LogBuffer {
+    public enum Level {
+        INFO, SUCCESS, WARNING, ERROR;
+
+        /**
+         * Level from the ✓ / ✗ / ⚠ prefixes the panels already use
+         */
+        public static Level of(String message) {
+            String trimmed = message.trim();
+            if (trimmed.startsWith("✓")) {
+                return SUCCESS;
+            }
+            if (trimmed.startsWith("✗") || trimmed.startsWith("Error")) {
+                return ERROR;
+            }
+            if (trimmed.startsWith("⚠")) {
+                return WARNING;
+            }
+            return INFO;
+        }
+    }
+
+    /**
+     * One log line
+     */
+    public static class Entry {
+        private final long sequence;
+        private final long timestamp;
+        private final Level level;
+        private final String device;
+        private final String message;
+
+        Entry(long sequence, long timestamp, Level level, String device, String message) {
+            this.sequence = sequence;
+            this.timestamp = timestamp;
+            this.level = level;
+            this.device = device;
+            this.message = message;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public Level getLevel() {
+            return level;
+        }
+
+        public String getDevice() {
+            return device;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%tT %s%s", timestamp, device != null ? "[" + device + "] " : "", message);
+        }
+    }
+
+    private final Entry[] entries;
+    private int head;
+    private int size;
+    private long nextSequence;
+    // word -> sequences of the entries containing it, oldest first
+    private final Map<String, ArrayDeque<Long>> index = new HashMap<>();
+
+    public LogBuffer(int capacity) {
+        entries = new Entry[capacity];
+    }
+
+    /**
+     * Append an entry, evicting the oldest when full
+     */
+    public synchronized Entry add(String device, String message) {
+        Entry entry = new Entry(nextSequence++, System.currentTimeMillis(), Level.of(message), device, message);
+
+        if (size == entries.length) {
+            unindex(entries[head]);
+            entries[head] = entry;
+            head = (head + 1) % entries.length;
+        } else {
+            entries[(head + size) % entries.length] = entry;
+            size++;
+        }
+
+        for (String word : words(message)) {
+            index.computeIfAbsent(word, key -> new ArrayDeque<>()).addLast(entry.sequence);
+        }
+        return entry;
+    }
+
+    private void unindex(Entry evicted) {
+        for (String word : words(evicted.message)) {
+            ArrayDeque<Long> sequences = index.get(word);
+            // The evicted entry is the oldest, so it is at the head of every list it is in
+            sequences.pollFirst();
+            if (sequences.isEmpty()) {
+                index.remove(word);
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return entries.length;
+    }
+
+    /**
+     * Entry by position, 0 being the oldest still held
+     */
+    public synchronized Entry get(int position) {
+        return entries[(head + position) % entries.length];
+    }
+
+    public synchronized List<Entry> snapshot() {
+        List<Entry> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(get(i));
+        }
+        return list;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(entries, null);
+        head = 0;
+        size = 0;
+        index.clear();
+    }
+
+    /**
+     * Entries whose message contains the query, ignoring case, oldest first
+     */
+    public synchronized List<Entry> search(String query) {
+        if (size == 0) {
+            return new ArrayList<>();
+        }
+        String needle = query.toLowerCase(Locale.ROOT);
+        String longestWord = "";
+        for (String word : words(needle)) {
+            if (word.length() > longestWord.length()) {
+                longestWord = word;
+            }
+        }
+
+        if (longestWord.isEmpty()) {
+            List<Entry> matches = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                if (get(i).message.toLowerCase(Locale.ROOT).contains(needle)) {
+                    matches.add(get(i));
+                }
+            }
+            return matches;
+        }
+
+        // Any match contains the query's longest word inside one of its own words
+        TreeSet<Long> candidates = new TreeSet<>();
+        for (Map.Entry<String, ArrayDeque<Long>> word : index.entrySet()) {
+            if (word.getKey().contains(longestWord)) {
+                candidates.addAll(word.getValue());
+            }
+        }
+
+        long first = get(0).sequence;
+        List<Entry> matches = new ArrayList<>();
+        for (long sequence : candidates) {
+            Entry entry = get((int) (sequence - first));
+            if (entry.message.toLowerCase(Locale.ROOT).contains(needle)) {
+                matches.add(entry);
+            }
+        }
+        return matches;
+    }
+
+    private static Set<String> words(String text) {
+        Set<String> words = new HashSet<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return words;
+    }
+}
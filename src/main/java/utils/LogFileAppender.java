@@ -0,0 +1,175 @@
+package utils;
+
+import burp.api.montoya.MontoyaApi;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Writes log entries as JSON lines to ~/.bma/logs/bma.jsonl on a background task,
+ * rotating to bma.1.jsonl ... bma.3.jsonl at 5 MB. Callers never block: when the
+ * queue is full the line is dropped and counted in Diagnostics. After a write error the
+ * file is left alone for a minute (lines are dropped) and the error is reported once.
+ */
+public class LogFileAppender {
+    private static final long MAX_FILE_BYTES = 5L * 1024 * 1024;
+    private static final int KEEP_FILES = 3;
+    private static final int QUEUE_CAPACITY = 10_000;
+    private static final long RETRY_DELAY_MS = 60_000;
+    private static final Path DIRECTORY = Paths.get(System.getProperty("user.home"), ".bma", "logs");
+
+    private static final BlockingQueue<String> QUEUE = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private static TaskManager.Task writerTask;
+    private static MontoyaApi api;
+    // After a write error, lines are dropped instead of starting a new writer until this time
+    private static volatile long retryAt;
+    private static boolean failing;
+
+    private LogFileAppender() {
+    }
+
+    /**
+     * Give the appender somewhere to report write errors
+     */
+    public static synchronized void init(MontoyaApi montoyaApi) {
+        api = montoyaApi;
+    }
+
+    public static Path getDirectory() {
+        return DIRECTORY;
+    }
+
+    public static void append(String source, LogBuffer.Entry entry) {
+        if (retryAt != 0 && System.currentTimeMillis() < retryAt) {
+            Diagnostics.increment("log.file.dropped");
+            return;
+        }
+        String line = "{\"time\": " + Diagnostics.quote(Instant.ofEpochMilli(entry.getTimestamp()).toString())
+                + ", \"level\": " + Diagnostics.quote(entry.getLevel().name())
+                + ", \"source\": " + Diagnostics.quote(source)
+                + ", \"device\": " + (entry.getDevice() != null ? Diagnostics.quote(entry.getDevice()) : "null")
+                + ", \"message\": " + Diagnostics.quote(entry.getMessage()) + "}";
+
+        ensureStarted();
+        if (!QUEUE.offer(line)) {
+            Diagnostics.increment("log.file.dropped");
+        }
+    }
+
+    private static synchronized void ensureStarted() {
+        if (writerTask == null || writerTask.isDone()) {
+            try {
+                writerTask = TaskManager.io("log file writer", LogFileAppender::writeLoop);
+            } catch (RejectedExecutionException e) {
+                // Unloaded; the line stays in memory only
+            }
+        }
+    }
+
+    private static void writeLoop() {
+        Path file = DIRECTORY.resolve("bma.jsonl");
+        List<String> batch = new ArrayList<>();
+        BufferedWriter writer = null;
+        long written = 0;
+
+        try {
+            Files.createDirectories(DIRECTORY);
+            written = Files.exists(file) ? Files.size(file) : 0;
+            writer = open(file);
+            recovered();
+
+            while (true) {
+                boolean interrupted = false;
+                try {
+                    batch.add(QUEUE.take());
+                } catch (InterruptedException e) {
+                    // Unloading: write what is queued, then stop
+                    interrupted = true;
+                }
+                QUEUE.drainTo(batch);
+
+                for (String line : batch) {
+                    if (written >= MAX_FILE_BYTES) {
+                        writer.close();
+                        rotate(file);
+                        writer = open(file);
+                        written = 0;
+                    }
+                    writer.write(line);
+                    writer.write('\n');
+                    written += line.getBytes(StandardCharsets.UTF_8).length + 1;
+                }
+                writer.flush();
+                batch.clear();
+
+                if (interrupted) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            failed(e);
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException ignored) {
+                    // Nothing more to do
+                }
+            }
+        }
+    }
+
+    /**
+     * Back off instead of starting a new writer for every line, and say so once per outage
+     */
+    private static void failed(IOException e) {
+        Diagnostics.increment("log.file.errors");
+        int dropped = QUEUE.size();
+        QUEUE.clear();
+        Diagnostics.add("log.file.dropped", dropped);
+
+        synchronized (LogFileAppender.class) {
+            retryAt = System.currentTimeMillis() + RETRY_DELAY_MS;
+            if (failing) {
+                return;
+            }
+            failing = true;
+            if (api != null) {
+                api.logging().logToError("Log file " + DIRECTORY.resolve("bma.jsonl") + " could not be written ("
+                        + e.getMessage() + "); retrying every minute, lines are dropped until then");
+            }
+        }
+    }
+
+    private static synchronized void recovered() {
+        retryAt = 0;
+        if (failing) {
+            failing = false;
+            if (api != null) {
+                api.logging().logToOutput("Log file writing resumed");
+            }
+        }
+    }
+
+    private static BufferedWriter open(Path file) throws IOException {
+        return Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private static void rotate(Path file) throws IOException {
+        for (int i = KEEP_FILES - 1; i >= 1; i--) {
+            Path older = DIRECTORY.resolve("bma." + i + ".jsonl");
+            if (Files.exists(older)) {
+                Files.move(older, DIRECTORY.resolve("bma." + (i + 1) + ".jsonl"), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(file, DIRECTORY.resolve("bma.1.jsonl"), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,509 @@
+package utils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Off-heap ring of logcat entries for one device. Message bytes and a fixed-size record
+ * per entry live in direct buffers, so ingesting a line allocates nothing on the heap;
+ * Strings are only made for rows that are shown. Records are chained per tag and kept
+ * in arrival order, which gives tag and time lookups without a separate index.
+ */
+public class LogcatBuffer {
+    public static final int NO_UID = -1;
+    public static final int MAX_TAGS = 16384;
+    private static final String LEVEL_LETTERS = "VDIWEF";
+
+    // Record layout, RECORD_BYTES per entry
+    private static final int RECORD_BYTES = 48;
+    private static final int TIME = 0;
+    private static final int OFFSET = 8;
+    private static final int PREV_SAME_TAG = 16;
+    private static final int PID = 24;
+    private static final int TID = 28;
+    private static final int UID = 32;
+    private static final int TAG = 36;
+    private static final int LENGTH = 40;
+    private static final int PRIORITY = 44;
+    // Entries matched or searched per hold of the lock, so appends and the UI are not stalled by a long scan
+    private static final int MATCH_CHUNK = 2048;
+
+    private final ByteBuffer data;
+    private final ByteBuffer records;
+    private final int dataCapacity;
+    private final int maxRecords;
+    private final TagTable tags = new TagTable();
+    private long[] lastByTag = new long[256];
+
+    private long firstSeq;
+    private long nextSeq;
+    // Absolute byte position of the next message; data index is writePos % dataCapacity
+    private long writePos;
+
+    /**
+     * Which entries a view shows; priorities are Android's (2 = verbose ... 7 = fatal)
+     */
+    public static class Filter {
+        public int minPriority = 2;
+        public String tag;
+        public int uid = NO_UID;
+        public int[] pids;
+
+        public boolean isEmpty() {
+            return minPriority <= 2 && tag == null && uid == NO_UID && pids == null;
+        }
+    }
+
+    /**
+     * Receives each pattern found by {@link #match}
+     */
+    public interface MatchListener {
+        void onMatch(long seq, int pattern);
+    }
+
+    /**
+     * Growable list of sequence numbers that can drop its oldest entries cheaply
+     */
+    public static class SeqList {
+        private long[] values = new long[1024];
+        private int start;
+        private int end;
+
+        public void add(long seq) {
+            if (end == values.length) {
+                if (start > values.length / 2) {
+                    System.arraycopy(values, start, values, 0, end - start);
+                } else {
+                    values = Arrays.copyOf(values, values.length * 2);
+                    System.arraycopy(values, start, values, 0, end - start);
+                }
+                end -= start;
+                start = 0;
+            }
+            values[end++] = seq;
+        }
+
+        public long get(int index) {
+            return values[start + index];
+        }
+
+        public int size() {
+            return end - start;
+        }
+
+        /**
+         * Drop leading entries older than seq; returns how many were dropped
+         */
+        public int removeBelow(long seq) {
+            int removed = 0;
+            while (start < end && values[start] < seq) {
+                start++;
+                removed++;
+            }
+            return removed;
+        }
+
+        public void clear() {
+            start = 0;
+            end = 0;
+        }
+    }
+
+    public LogcatBuffer(int dataCapacity, int maxRecords) {
+        this.dataCapacity = dataCapacity;
+        this.maxRecords = maxRecords;
+        this.data = ByteBuffer.allocateDirect(dataCapacity);
+        this.records = ByteBuffer.allocateDirect(maxRecords * RECORD_BYTES);
+        Arrays.fill(lastByTag, -1);
+    }
+
+    /**
+     * Store one entry. Tag and message are slices of src; the oldest entries are evicted
+     * when either the record ring or the data ring is full.
+     */
+    public synchronized void append(long timeMicros, int pid, int tid, int uid, int priority,
+                                    byte[] src, int tagOffset, int tagLength, int messageOffset, int messageLength) {
+        int length = Math.min(messageLength, dataCapacity / 4);
+        int tagId = tags.idOf(src, tagOffset, tagLength);
+        if (tagId >= lastByTag.length) {
+            int oldLength = lastByTag.length;
+            lastByTag = Arrays.copyOf(lastByTag, Math.max(tagId + 1, oldLength * 2));
+            Arrays.fill(lastByTag, oldLength, lastByTag.length, -1);
+        }
+
+        while (nextSeq - firstSeq >= maxRecords
+                || (firstSeq < nextSeq && writePos + length - records.getLong(slot(firstSeq) + OFFSET) > dataCapacity)) {
+            firstSeq++;
+        }
+
+        int index = (int) (writePos % dataCapacity);
+        int firstPart = Math.min(length, dataCapacity - index);
+        data.put(index, src, messageOffset, firstPart);
+        if (firstPart < length) {
+            data.put(0, src, messageOffset + firstPart, length - firstPart);
+        }
+
+        int slot = slot(nextSeq);
+        records.putLong(slot + TIME, timeMicros);
+        records.putLong(slot + OFFSET, writePos);
+        records.putLong(slot + PREV_SAME_TAG, lastByTag[tagId]);
+        records.putInt(slot + PID, pid);
+        records.putInt(slot + TID, tid);
+        records.putInt(slot + UID, uid);
+        records.putInt(slot + TAG, tagId);
+        records.putInt(slot + LENGTH, length);
+        records.put(slot + PRIORITY, (byte) priority);
+
+        lastByTag[tagId] = nextSeq;
+        writePos += length;
+        nextSeq++;
+    }
+
+    private int slot(long seq) {
+        return (int) (seq % maxRecords) * RECORD_BYTES;
+    }
+
+    /**
+     * Oldest sequence number still held
+     */
+    public synchronized long firstSeq() {
+        return firstSeq;
+    }
+
+    /**
+     * Sequence number the next entry will get
+     */
+    public synchronized long nextSeq() {
+        return nextSeq;
+    }
+
+    public synchronized boolean contains(long seq) {
+        return seq >= firstSeq && seq < nextSeq;
+    }
+
+    public synchronized long timeMicros(long seq) {
+        return records.getLong(slot(seq) + TIME);
+    }
+
+    public synchronized int pid(long seq) {
+        return records.getInt(slot(seq) + PID);
+    }
+
+    public synchronized int tid(long seq) {
+        return records.getInt(slot(seq) + TID);
+    }
+
+    public synchronized int uid(long seq) {
+        return records.getInt(slot(seq) + UID);
+    }
+
+    public synchronized int priority(long seq) {
+        return records.get(slot(seq) + PRIORITY);
+    }
+
+    public synchronized String tag(long seq) {
+        return tags.name(records.getInt(slot(seq) + TAG));
+    }
+
+    public synchronized String message(long seq) {
+        int slot = slot(seq);
+        int length = records.getInt(slot + LENGTH);
+        int index = (int) (records.getLong(slot + OFFSET) % dataCapacity);
+        byte[] bytes = new byte[length];
+        int firstPart = Math.min(length, dataCapacity - index);
+        data.get(index, bytes, 0, firstPart);
+        if (firstPart < length) {
+            data.get(0, bytes, firstPart, length - firstPart);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * First entry logged at or after the given time. Entries arrive in time order, so this
+     * is a binary search; returns nextSeq() when every entry is older.
+     */
+    public synchronized long seqAtOrAfter(long timeMicros) {
+        long low = firstSeq;
+        long high = nextSeq;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (records.getLong(slot(mid) + TIME) < timeMicros) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Append the entries from seq on that match the filter; returns where the next scan should start
+     */
+    public synchronized long scan(long from, Filter filter, SeqList out) {
+        return scan(from, nextSeq, filter, out);
+    }
+
+    /**
+     * Append the matching entries with from <= seq < to
+     */
+    public synchronized long scan(long from, long to, Filter filter, SeqList out) {
+        long start = Math.max(from, firstSeq);
+        long end = Math.min(to, nextSeq);
+        if (filter.tag != null) {
+            int tagId = tags.find(filter.tag);
+            if (tagId < 0 || tagId >= lastByTag.length) {
+                return end;
+            }
+            // Walk the tag's chain back to the start, then emit in order
+            SeqList chain = new SeqList();
+            for (long seq = lastByTag[tagId]; seq >= start; seq = records.getLong(slot(seq) + PREV_SAME_TAG)) {
+                if (seq < end) {
+                    chain.add(seq);
+                }
+            }
+            for (int i = chain.size() - 1; i >= 0; i--) {
+                if (matches(chain.get(i), filter)) {
+                    out.add(chain.get(i));
+                }
+            }
+            return end;
+        }
+
+        for (long seq = start; seq < end; seq++) {
+            if (matches(seq, filter)) {
+                out.add(seq);
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Entries matching the filter whose tag or message contains the query, ignoring ASCII case.
+     * The lock is taken per chunk of entries, as in {@link #match}, so entries evicted in between
+     * are skipped and entries appended after the search started are not included.
+     */
+    public void search(String query, Filter filter, SeqList out) {
+        String lowerQuery = query.toLowerCase(Locale.ROOT);
+        byte[] needle = lowerQuery.getBytes(StandardCharsets.UTF_8);
+        boolean[] tagMatches;
+        int filterTag = -1;
+        long seq;
+        long end;
+        synchronized (this) {
+            if (filter.tag != null) {
+                filterTag = tags.find(filter.tag);
+                if (filterTag < 0 || filterTag >= lastByTag.length) {
+                    return;
+                }
+            }
+            tagMatches = new boolean[tags.size()];
+            for (int i = 0; i < tagMatches.length; i++) {
+                tagMatches[i] = tags.name(i).toLowerCase(Locale.ROOT).contains(lowerQuery);
+            }
+            seq = firstSeq;
+            end = nextSeq;
+        }
+
+        while (seq < end) {
+            synchronized (this) {
+                seq = Math.max(seq, firstSeq);
+                long chunkEnd = Math.min(end, seq + MATCH_CHUNK);
+                for (; seq < chunkEnd; seq++) {
+                    int slot = slot(seq);
+                    int tag = records.getInt(slot + TAG);
+                    if ((filterTag < 0 || tag == filterTag) && matches(seq, filter)
+                            && (needle.length == 0 || (tag < tagMatches.length && tagMatches[tag])
+                            || messageContains(slot, needle))) {
+                        out.add(seq);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Run an automaton over the messages of entries with from <= seq < to, each message on its
+     * own, reading the bytes in place; returns where the next call should start. The lock is
+     * taken per chunk of entries, so entries evicted in between are skipped. Listeners are
+     * called with the buffer locked, so they should only note the match.
+     */
+    public long match(long from, long to, AhoCorasick automaton, MatchListener listener) {
+        long end;
+        synchronized (this) {
+            end = Math.min(to, nextSeq);
+        }
+        long[] current = new long[1];
+        AhoCorasick.MatchListener adapter = (pattern, position) -> listener.onMatch(current[0], pattern);
+        long seq = from;
+        while (seq < end) {
+            synchronized (this) {
+                seq = Math.max(seq, firstSeq);
+                long chunkEnd = Math.min(end, seq + MATCH_CHUNK);
+                for (; seq < chunkEnd; seq++) {
+                    current[0] = seq;
+                    int slot = slot(seq);
+                    int length = records.getInt(slot + LENGTH);
+                    int index = (int) (records.getLong(slot + OFFSET) % dataCapacity);
+                    int state = 0;
+                    for (int i = 0; i < length; i++) {
+                        state = automaton.step(state, data.get(index), i, adapter);
+                        if (++index == dataCapacity) {
+                            index = 0;
+                        }
+                    }
+                }
+            }
+        }
+        return end;
+    }
+
+    private boolean matches(long seq, Filter filter) {
+        int slot = slot(seq);
+        if (records.get(slot + PRIORITY) < filter.minPriority) {
+            return false;
+        }
+        if (filter.uid != NO_UID) {
+            int uid = records.getInt(slot + UID);
+            if (uid != NO_UID) {
+                return uid == filter.uid;
+            }
+        }
+        if (filter.pids != null) {
+            int pid = records.getInt(slot + PID);
+            for (int candidate : filter.pids) {
+                if (candidate == pid) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private boolean messageContains(int slot, byte[] needle) {
+        int length = records.getInt(slot + LENGTH);
+        long offset = records.getLong(slot + OFFSET);
+        for (int i = 0; i + needle.length <= length; i++) {
+            int j = 0;
+            while (j < needle.length && lower(data.get((int) ((offset + i + j) % dataCapacity))) == needle[j]) {
+                j++;
+            }
+            if (j == needle.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Logcat's one-letter name for a priority
+     */
+    public static String levelLetter(int priority) {
+        int index = priority - 2;
+        return index >= 0 && index < LEVEL_LETTERS.length() ? String.valueOf(LEVEL_LETTERS.charAt(index)) : "?";
+    }
+
+    private static byte lower(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + 32) : b;
+    }
+
+    public synchronized void clear() {
+        firstSeq = nextSeq;
+    }
+
+    /**
+     * Tag names interned by their bytes, so known tags are looked up without a String
+     */
+    private static class TagTable {
+        private static final String OTHER = "(other)";
+        private int[] slots = new int[1024];
+        private byte[][] bytes = new byte[256][];
+        private String[] names = new String[256];
+        private final Map<String, Integer> byName = new HashMap<>();
+        private int size;
+
+        int idOf(byte[] src, int offset, int length) {
+            int mask = slots.length - 1;
+            for (int i = hash(src, offset, length) & mask; ; i = (i + 1) & mask) {
+                int id = slots[i] - 1;
+                if (id < 0) {
+                    return add(i, src, offset, length);
+                }
+                byte[] tag = bytes[id];
+                if (Arrays.equals(tag, 0, tag.length, src, offset, offset + length)) {
+                    return id;
+                }
+            }
+        }
+
+        private int add(int slot, byte[] src, int offset, int length) {
+            if (size >= MAX_TAGS) {
+                Integer other = byName.get(OTHER);
+                if (other != null) {
+                    return other;
+                }
+                // One id past the cap, so the last real tag keeps its own
+                byte[] otherBytes = OTHER.getBytes(StandardCharsets.UTF_8);
+                return append(findSlot(otherBytes), otherBytes, 0, otherBytes.length);
+            }
+            return append(slot, src, offset, length);
+        }
+
+        private int append(int slot, byte[] src, int offset, int length) {
+            if (size == bytes.length) {
+                bytes = Arrays.copyOf(bytes, size * 2);
+                names = Arrays.copyOf(names, size * 2);
+            }
+            int id = size++;
+            bytes[id] = Arrays.copyOfRange(src, offset, offset + length);
+            names[id] = new String(bytes[id], StandardCharsets.UTF_8);
+            byName.put(names[id], id);
+            slots[slot] = id + 1;
+            if (size * 2 > slots.length) {
+                rehash();
+            }
+            return id;
+        }
+
+        private int findSlot(byte[] tag) {
+            int mask = slots.length - 1;
+            int i = hash(tag, 0, tag.length) & mask;
+            while (slots[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+
+        private void rehash() {
+            slots = new int[slots.length * 2];
+            for (int id = 0; id < size; id++) {
+                slots[findSlot(bytes[id])] = id + 1;
+            }
+        }
+
+        private static int hash(byte[] src, int offset, int length) {
+            int h = 1;
+            for (int i = offset; i < offset + length; i++) {
+                h = 31 * h + src[i];
+            }
+            return h ^ (h >>> 16);
+        }
+
+        int find(String name) {
+            Integer id = byName.get(name);
+            return id != null ? id : -1;
+        }
+
+        String name(int id) {
+            return names[id];
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decodes the binary stream of {@code logcat -B} straight into a {@link LogcatBuffer}.
+ * Each entry is a little-endian logger_entry header (v1 to v4) followed by a priority byte,
+ * a NUL-terminated tag and a NUL-terminated message; entries are parsed in place in one
+ * reusable read buffer, so no per-line objects are created.
+ */
+public class LogcatDecoder {
+    // Largest payload logd sends is under 5 KB; the length field caps it at 64 KB anyway
+    private static final int READ_BUFFER_BYTES = 128 * 1024;
+    private static final int V1_HEADER_BYTES = 20;
+    private static final int MAX_HEADER_BYTES = 100;
+
+    // Log ids whose payload is binary rather than priority/tag/message text
+    private static final int LOG_ID_EVENTS = 2;
+    private static final int LOG_ID_STATS = 5;
+    private static final int LOG_ID_SECURITY = 6;
+
+    private final byte[] buf = new byte[READ_BUFFER_BYTES];
+    private volatile long entries;
+    private volatile long bytes;
+
+    /**
+     * Read until the stream ends, appending every text entry to the buffer
+     */
+    public void decode(InputStream in, LogcatBuffer buffer) throws IOException {
+        int start = 0;
+        int end = 0;
+        int n;
+        while ((n = in.read(buf, end, buf.length - end)) >= 0) {
+            end += n;
+            bytes += n;
+
+            while (end - start >= 4) {
+                int length = u16(start);
+                int headerSize = u16(start + 2);
+                if (headerSize == 0) {
+                    headerSize = V1_HEADER_BYTES;
+                }
+                if (headerSize < V1_HEADER_BYTES || headerSize > MAX_HEADER_BYTES) {
+                    throw new IOException("Unexpected logcat header size " + headerSize + "; is this logcat -B output?");
+                }
+                if (end - start < headerSize + length) {
+                    break;
+                }
+                decodeEntry(start, headerSize, length, buffer);
+                start += headerSize + length;
+            }
+
+            if (start > 0) {
+                System.arraycopy(buf, start, buf, 0, end - start);
+                end -= start;
+                start = 0;
+            }
+        }
+    }
+
+    private void decodeEntry(int start, int headerSize, int length, LogcatBuffer buffer) {
+        int pid = i32(start + 4);
+        int tid = i32(start + 8);
+        long sec = i32(start + 12) & 0xFFFFFFFFL;
+        long nsec = i32(start + 16) & 0xFFFFFFFFL;
+        // v3 and v4 headers carry the log id at 20; v4 adds the uid at 24
+        int logId = headerSize >= 24 ? i32(start + 20) : 0;
+        int uid = headerSize >= 28 ? i32(start + 24) : LogcatBuffer.NO_UID;
+        if (logId == LOG_ID_EVENTS || logId == LOG_ID_STATS || logId == LOG_ID_SECURITY || length < 2) {
+            return;
+        }
+
+        int payload = start + headerSize;
+        int payloadEnd = payload + length;
+        int priority = buf[payload];
+        int tagStart = payload + 1;
+        int tagEnd = indexOfNul(tagStart, payloadEnd);
+        int messageStart = Math.min(tagEnd + 1, payloadEnd);
+        int messageEnd = indexOfNul(messageStart, payloadEnd);
+        while (messageEnd > messageStart && (buf[messageEnd - 1] == '\n' || buf[messageEnd - 1] == '\r')) {
+            messageEnd--;
+        }
+
+        buffer.append(sec * 1_000_000L + nsec / 1_000L, pid, tid, uid, priority,
+                buf, tagStart, tagEnd - tagStart, messageStart, messageEnd - messageStart);
+        entries++;
+    }
+
+    private int indexOfNul(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buf[i] == 0) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    private int u16(int i) {
+        return (buf[i] & 0xFF) | (buf[i + 1] & 0xFF) << 8;
+    }
+
+    private int i32(int i) {
+        return (buf[i] & 0xFF) | (buf[i + 1] & 0xFF) << 8 | (buf[i + 2] & 0xFF) << 16 | buf[i + 3] << 24;
+    }
+
+    /**
+     * Text entries decoded so far
+     */
+    public long getEntries() {
+        return entries;
+    }
+
+    /**
+     * Bytes read so far
+     */
+    public long getBytes() {
+        return bytes;
+    }
+}
@@ -0,0 +1,50 @@
+package utils;
+
+import burp.api.montoya.proxy.http.InterceptedRequest;
+import burp.api.montoya.proxy.http.ProxyRequestHandler;
+import burp.api.montoya.proxy.http.ProxyRequestReceivedAction;
+import burp.api.montoya.proxy.http.ProxyRequestToBeSentAction;
+
+/**
+ * Notes when each proxied request arrived and from which device, so the Logcat request tab
+ * can show what the app logged around it. Recording is a hash and an array write; nothing
+ * is done while no logcat stream is running, and the index is only allocated when the first
+ * stream starts.
+ */
+public class LogcatRequestRecorder implements ProxyRequestHandler {
+    // About 14.5 MB for the last 256 K requests: 26 bytes per entry plus an 8 MB lookup table
+    private static final int CAPACITY = 256 * 1024;
+    private static volatile RequestTimeIndex index;
+
+    /**
+     * Allocate the index; called when a logcat stream starts
+     */
+    static synchronized void createIndex() {
+        if (index == null) {
+            index = new RequestTimeIndex(CAPACITY);
+        }
+    }
+
+    /**
+     * The index, or null if no logcat stream has been started yet
+     */
+    public static RequestTimeIndex getIndex() {
+        return index;
+    }
+
+    @Override
+    public ProxyRequestReceivedAction handleRequestReceived(InterceptedRequest interceptedRequest) {
+        RequestTimeIndex requests = index;
+        if (requests != null && LogcatSession.isAnyRunning()) {
+            long timeMicros = System.currentTimeMillis() * 1000L;
+            String device = LogcatSession.deviceForAddress(interceptedRequest.sourceIpAddress());
+            requests.record(RequestTimeIndex.key(interceptedRequest), timeMicros, device);
+        }
+        return ProxyRequestReceivedAction.continueWith(interceptedRequest);
+    }
+
+    @Override
+    public ProxyRequestToBeSentAction handleRequestToBeSent(InterceptedRequest interceptedRequest) {
+        return ProxyRequestToBeSentAction.continueWith(interceptedRequest);
+    }
+}
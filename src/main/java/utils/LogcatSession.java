@@ -0,0 +1,324 @@
+package utils;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Streams one device's logcat into its own {@link LogcatBuffer}. Sessions are kept per
+ * serial and keep running while another device is being viewed; unloading BMA stops them
+ * along with the adb processes they started.
+ */
+public class LogcatSession {
+    // About 25 MB off-heap per device: 16 MB of message text and 192 K entry records
+    private static final int DATA_BYTES = 16 * 1024 * 1024;
+    private static final int MAX_ENTRIES = 192 * 1024;
+    private static final int PID_REFRESH_MS = 2000;
+
+    private static final Pattern ADDRESS_PATTERN = Pattern.compile("inet (\\d+\\.\\d+\\.\\d+\\.\\d+)/");
+
+    private static final Map<String, LogcatSession> SESSIONS = new ConcurrentHashMap<>();
+    // Device network address -> serial, for telling which device sent a proxied request
+    private static final Map<InetAddress, String> ADDRESSES = new ConcurrentHashMap<>();
+
+    private final String serial;
+    private final LogcatBuffer buffer = new LogcatBuffer(DATA_BYTES, MAX_ENTRIES);
+    private volatile LogcatDecoder decoder;
+    private volatile Process process;
+    private volatile TaskManager.Task readerTask;
+    private volatile TaskManager.Task pidTask;
+    private volatile String error;
+    private volatile long clockOffsetMicros;
+
+    private volatile String targetPackage;
+    private volatile int targetUid = LogcatBuffer.NO_UID;
+    private volatile int[] targetPids;
+
+    private LogcatSession(String serial) {
+        this.serial = serial;
+    }
+
+    /**
+     * The session for a device, created stopped on first use
+     */
+    public static LogcatSession forDevice(String serial) {
+        return SESSIONS.computeIfAbsent(serial, LogcatSession::new);
+    }
+
+    public static List<LogcatSession> getSessions() {
+        return new ArrayList<>(SESSIONS.values());
+    }
+
+    public static boolean hasSessions() {
+        return !SESSIONS.isEmpty();
+    }
+
+    /**
+     * True while at least one device's logcat is streaming. Sessions stay registered after
+     * they stop, so their buffers can still be viewed; this tells whether new data is coming.
+     */
+    public static boolean isAnyRunning() {
+        for (LogcatSession session : SESSIONS.values()) {
+            if (session.isRunning()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Serial of the device a proxied request came from. Traffic through adb reverse or from
+     * an emulator arrives from the host itself, which is only attributed when a single
+     * device is streaming; otherwise returns null.
+     */
+    public static String deviceForAddress(InetAddress address) {
+        String serial = address != null ? ADDRESSES.get(address) : null;
+        if (serial != null) {
+            return serial;
+        }
+        String running = null;
+        for (LogcatSession session : SESSIONS.values()) {
+            if (session.isRunning()) {
+                if (running != null) {
+                    return null;
+                }
+                running = session.serial;
+            }
+        }
+        return running;
+    }
+
+    public String getSerial() {
+        return serial;
+    }
+
+    public LogcatBuffer getBuffer() {
+        return buffer;
+    }
+
+    public boolean isRunning() {
+        TaskManager.Task task = readerTask;
+        return task != null && !task.isDone();
+    }
+
+    /**
+     * Why the last stream ended, or null if it is running or ended normally
+     */
+    public String getError() {
+        return error;
+    }
+
+    public long getEntriesRead() {
+        LogcatDecoder d = decoder;
+        return d != null ? d.getEntries() : 0;
+    }
+
+    public long getBytesRead() {
+        LogcatDecoder d = decoder;
+        return d != null ? d.getBytes() : 0;
+    }
+
+    /**
+     * Start streaming; the device's existing log is read first, then new entries as they arrive
+     */
+    public synchronized void start() {
+        if (isRunning()) {
+            return;
+        }
+        error = null;
+        LogcatRequestRecorder.createIndex();
+        decoder = new LogcatDecoder();
+        readerTask = TaskManager.io("logcat " + serial, this::readLoop);
+    }
+
+    public synchronized void stop() {
+        Process p = process;
+        if (p != null) {
+            p.destroy();
+        }
+        if (readerTask != null) {
+            readerTask.cancel();
+        }
+        if (pidTask != null) {
+            pidTask.cancel();
+        }
+    }
+
+    /**
+     * How far the device clock is ahead of the host's, measured when streaming started.
+     * Logcat times are device times; request times are host times.
+     */
+    public long getClockOffsetMicros() {
+        return clockOffsetMicros;
+    }
+
+    private void readLoop() {
+        resolveAddresses();
+        measureClockOffset();
+
+        // exec-out gives a raw pipe; "shell" would run through a pty that mangles binary output
+        ProcessBuilder pb = new ProcessBuilder(ADBHelper.getAdbPath(), "-s", serial, "exec-out", "logcat", "-B");
+        try {
+            process = Diagnostics.start(pb);
+            try (InputStream in = process.getInputStream()) {
+                decoder.decode(in, buffer);
+            }
+            if (process.waitFor() != 0) {
+                error = "adb exited with code " + process.exitValue();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            error = e.getMessage();
+        } finally {
+            Process p = process;
+            if (p != null) {
+                p.destroy();
+            }
+            Diagnostics.add("logcat.entries", getEntriesRead());
+            Diagnostics.add("logcat.bytes", getBytesRead());
+        }
+    }
+
+    private void resolveAddresses() {
+        ADDRESSES.values().removeIf(serial::equals);
+        Matcher matcher = ADDRESS_PATTERN.matcher(adb("shell", "ip", "-o", "-4", "addr", "show"));
+        while (matcher.find()) {
+            try {
+                InetAddress address = InetAddress.getByName(matcher.group(1));
+                if (!address.isLoopbackAddress()) {
+                    ADDRESSES.put(address, serial);
+                }
+            } catch (Exception ignored) {
+                // Literal address; cannot fail to resolve
+            }
+        }
+    }
+
+    private void measureClockOffset() {
+        long before = System.currentTimeMillis() * 1000L;
+        String output = adb("shell", "date", "+%s%N").trim();
+        long after = System.currentTimeMillis() * 1000L;
+        try {
+            long deviceNanos = Long.parseLong(output);
+            clockOffsetMicros = deviceNanos / 1000L - (before + after) / 2;
+        } catch (NumberFormatException e) {
+            // Older toybox without %N; assume the clocks agree
+            clockOffsetMicros = 0;
+        }
+    }
+
+    public String getTargetPackage() {
+        return targetPackage;
+    }
+
+    /**
+     * Restrict to one app, or to everything when packageName is null. Entries are matched on
+     * the app's UID where the device's logd reports it (Android 7+), otherwise on the PIDs
+     * the app currently runs under, refreshed while streaming. Blocks on adb.
+     */
+    public void setTargetPackage(String packageName) {
+        if (pidTask != null) {
+            pidTask.cancel();
+        }
+        targetPackage = packageName;
+        targetUid = LogcatBuffer.NO_UID;
+        targetPids = null;
+        if (packageName == null) {
+            return;
+        }
+
+        // pm matches substrings, so pick the line for exactly this package
+        Matcher matcher = Pattern.compile("^package:" + Pattern.quote(packageName) + " uid:(\\d+)", Pattern.MULTILINE)
+                .matcher(adb("shell", "pm", "list", "packages", "-U", packageName));
+        if (matcher.find()) {
+            targetUid = Integer.parseInt(matcher.group(1));
+        }
+        refreshPids();
+        pidTask = TaskManager.io("logcat pids " + serial, () -> {
+            try {
+                while (packageName.equals(targetPackage)) {
+                    Thread.sleep(PID_REFRESH_MS);
+                    refreshPids();
+                }
+            } catch (InterruptedException e) {
+                // Target changed or unloading
+            }
+        });
+    }
+
+    private void refreshPids() {
+        String packageName = targetPackage;
+        if (packageName == null) {
+            return;
+        }
+        String output = adb("shell", "pidof", packageName).trim();
+        if (output.isEmpty()) {
+            // Keep the last known PIDs so the app's final lines still match after it exits
+            if (targetPids == null) {
+                targetPids = new int[0];
+            }
+            return;
+        }
+        List<Integer> pids = new ArrayList<>();
+        for (String pid : output.split("\\s+")) {
+            try {
+                pids.add(Integer.parseInt(pid));
+            } catch (NumberFormatException ignored) {
+                // Not a pid; pidof printed an error
+            }
+        }
+        targetPids = pids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Whether the target package was found on the device
+     */
+    public boolean isTargetResolved() {
+        int[] pids = targetPids;
+        return targetUid != LogcatBuffer.NO_UID || (pids != null && pids.length > 0);
+    }
+
+    /**
+     * Copy the app target into a view filter
+     */
+    public void applyTarget(LogcatBuffer.Filter filter) {
+        if (targetPackage == null) {
+            filter.uid = LogcatBuffer.NO_UID;
+            filter.pids = null;
+        } else {
+            filter.uid = targetUid;
+            int[] pids = targetPids;
+            filter.pids = pids != null ? pids : new int[0];
+        }
+    }
+
+    private String adb(String... args) {
+        List<String> command = new ArrayList<>(List.of(ADBHelper.getAdbPath(), "-s", serial));
+        command.addAll(List.of(args));
+        StringBuilder output = new StringBuilder();
+        try {
+            Process p = Diagnostics.start(new ProcessBuilder(command));
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(p.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    output.append(line).append("\n");
+                }
+            }
+            p.waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            error = e.getMessage();
+        }
+        return output.toString();
+    }
+}
@@ -0,0 +1,83 @@
+package utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.BindException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * A minimal HTTP server on the loopback interface for requests that only need a fixed kind of
+ * answer: each connection's request headers are read, one response is written and the connection
+ * is closed. Serves on a BMA I/O task until the extension unloads.
+ */
+final class LoopbackResponder {
+    private LoopbackResponder() {
+    }
+
+    /**
+     * Bind and start serving; returns the listening socket
+     *
+     * @param port     preferred port, falling back to any free one if taken; 0 for any
+     * @param response bytes of a complete response, produced for each connection
+     * @param onClosed run once the socket has closed
+     */
+    static ServerSocket start(String name, int port, Supplier<byte[]> response, Runnable onClosed) throws IOException {
+        ServerSocket server;
+        try {
+            server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        } catch (BindException e) {
+            if (port == 0) {
+                throw e;
+            }
+            server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        }
+        // Wake up every second to notice an unload
+        server.setSoTimeout(1000);
+        ServerSocket listening = server;
+        TaskManager.io(name, () -> serve(listening, response, onClosed));
+        return server;
+    }
+
+    private static void serve(ServerSocket server, Supplier<byte[]> response, Runnable onClosed) {
+        try (server) {
+            while (!Thread.currentThread().isInterrupted()) {
+                Socket accepted;
+                try {
+                    accepted = server.accept();
+                } catch (SocketTimeoutException e) {
+                    continue;
+                }
+                // A reset from one client must not stop the server for the others
+                try (Socket socket = accepted) {
+                    socket.setSoTimeout(5000);
+                    readHeaders(socket.getInputStream());
+                    OutputStream out = socket.getOutputStream();
+                    out.write(response.get());
+                    out.flush();
+                } catch (IOException e) {
+                    // That connection is lost; keep accepting
+                }
+            }
+        } catch (IOException e) {
+            // Closed
+        } finally {
+            onClosed.run();
+        }
+    }
+
+    /**
+     * Consume a request up to the blank line ending its headers
+     */
+    private static void readHeaders(InputStream in) throws IOException {
+        int matched = 0;
+        int b;
+        while (matched < 4 && (b = in.read()) >= 0) {
+            matched = (b == "\r\n\r\n".charAt(matched)) ? matched + 1 : (b == '\r' ? 1 : 0);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package utils;
+
+import burp.api.montoya.core.Annotations;
+import burp.api.montoya.proxy.http.InterceptedRequest;
+import burp.api.montoya.proxy.http.ProxyRequestHandler;
+import burp.api.montoya.proxy.http.ProxyRequestReceivedAction;
+import burp.api.montoya.proxy.http.ProxyRequestToBeSentAction;
+
+/**
+ * Adds the network profile of the emulator that sent a proxied request to its notes,
+ * so captured traffic shows which network conditions it was recorded under.
+ */
+public class NetworkConditionRecorder implements ProxyRequestHandler {
+
+    @Override
+    public ProxyRequestReceivedAction handleRequestReceived(InterceptedRequest interceptedRequest) {
+        if (EmulatorHelper.getActiveNetworkProfiles().isEmpty()) {
+            return ProxyRequestReceivedAction.continueWith(interceptedRequest);
+        }
+
+        // Only the sending emulator's profile; nothing when the sender is ambiguous
+        NetworkProfile profile = EmulatorHelper.networkProfileForSource(interceptedRequest.sourceIpAddress());
+        if (profile == null) {
+            return ProxyRequestReceivedAction.continueWith(interceptedRequest);
+        }
+
+        String note = "Network: " + profile.getName();
+        Annotations annotations = interceptedRequest.annotations();
+        String notes = annotations.hasNotes() ? annotations.notes() + "; " + note : note;
+        return ProxyRequestReceivedAction.continueWith(interceptedRequest, annotations.withNotes(notes));
+    }
+
+    @Override
+    public ProxyRequestToBeSentAction handleRequestToBeSent(InterceptedRequest interceptedRequest) {
+        return ProxyRequestToBeSentAction.continueWith(interceptedRequest);
+    }
+}
@@ -0,0 +1,68 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Emulator network shaping settings, applied with the console
+ * "network speed" and "network delay" commands.
+ */
+public class NetworkProfile {
+    private final String name;
+    private final String speed;   // console speed spec: "edge", "umts", "lte", "full" or "<up>:<down>" kbps
+    private final String delay;   // console delay spec: "edge", "umts", "none" or "<min>:<max>" ms
+
+    public NetworkProfile(String name, String speed, String delay) {
+        this.name = name;
+        this.speed = speed;
+        this.delay = delay;
+    }
+
+    /**
+     * Built-in profiles. The console has no packet loss setting, so "Lossy LTE"
+     * approximates a bad LTE link with LTE bandwidth and a wide latency range.
+     */
+    public static List<NetworkProfile> builtInProfiles() {
+        List<NetworkProfile> profiles = new ArrayList<>();
+        profiles.add(new NetworkProfile("No Shaping", "full", "none"));
+        profiles.add(new NetworkProfile("EDGE", "edge", "edge"));
+        profiles.add(new NetworkProfile("3G (UMTS)", "umts", "umts"));
+        profiles.add(new NetworkProfile("LTE", "lte", "none"));
+        profiles.add(new NetworkProfile("Lossy LTE", "lte", "150:1200"));
+        return profiles;
+    }
+
+    /**
+     * Custom profile from bandwidth in kbit/s and latency range in ms
+     */
+    public static NetworkProfile custom(int upKbps, int downKbps, int minDelayMs, int maxDelayMs) {
+        return new NetworkProfile(
+                "Custom " + upKbps + "/" + downKbps + "kbps " + minDelayMs + "-" + maxDelayMs + "ms",
+                upKbps + ":" + downKbps,
+                minDelayMs + ":" + maxDelayMs);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSpeed() {
+        return speed;
+    }
+
+    public String getDelay() {
+        return delay;
+    }
+
+    /**
+     * False for a profile that leaves bandwidth and latency unlimited, like "No Shaping"
+     */
+    public boolean isShaping() {
+        return !"full".equals(speed) || !"none".equals(delay);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,317 @@
+package utils;
+
+import burp.api.montoya.MontoyaApi;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Serves a proxy auto-config file to devices over adb reverse, so only chosen hosts are sent
+ * through Burp and everything else (Play Services, telemetry, updates) goes direct. The file
+ * is generated on each download from Burp's target scope and an extra host list.
+ */
+public class PacServer {
+    public static final int DEFAULT_PORT = 17800;
+    public static final String PATH = "/proxy.pac";
+    private static final Pattern INCLUDE_PATTERN = Pattern.compile("\"include\"\\s*:\\s*\\[");
+    private static final Pattern ENABLED_PATTERN = Pattern.compile("\"enabled\"\\s*:\\s*true");
+    private static final Pattern HOST_PATTERN = Pattern.compile("\"host\"\\s*:\\s*\"((?:[^\"\\\\]|\\\\.)*)\"");
+    private static final Pattern PREFIX_PATTERN = Pattern.compile("\"prefix\"\\s*:\\s*\"((?:[^\"\\\\]|\\\\.)*)\"");
+    private static final Pattern SUBDOMAINS_PATTERN = Pattern.compile("\"include_subdomains\"\\s*:\\s*true");
+
+    private static volatile ServerSocket server;
+    private static volatile Supplier<String> content = () -> "function FindProxyForURL(url, host) { return \"DIRECT\"; }\n";
+
+    private PacServer() {
+    }
+
+    /**
+     * Hosts that should go through Burp: exact names and "*.example.com" wildcards,
+     * plus regular expressions for Burp's advanced scope
+     */
+    public static class Rules {
+        private final Set<String> hosts = new LinkedHashSet<>();
+        private final Set<String> patterns = new LinkedHashSet<>();
+        private final List<String> skipped = new ArrayList<>();
+
+        /**
+         * Add a comma or whitespace separated host list
+         */
+        public Rules addHosts(String list) {
+            for (String host : list.split("[,\\s]+")) {
+                if (!host.isBlank()) {
+                    hosts.add(host.trim().toLowerCase(Locale.ROOT));
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Add the hosts of Burp's enabled target scope include rules
+         */
+        public Rules addBurpScope(MontoyaApi api) {
+            return addScope(api.burpSuite().exportProjectOptionsAsJson("target.scope"));
+        }
+
+        /**
+         * Add the hosts of a scope in Burp's project options JSON
+         */
+        Rules addScope(String json) {
+            for (String rule : includeRules(json)) {
+                if (!ENABLED_PATTERN.matcher(rule).find()) {
+                    continue;
+                }
+                Matcher host = HOST_PATTERN.matcher(rule);
+                Matcher prefix = PREFIX_PATTERN.matcher(rule);
+                if (host.find()) {
+                    // Every pattern is matched case-insensitively already
+                    String pattern = unescape(host.group(1)).replaceFirst("^\\(\\?i\\)", "");
+                    String problem = jsIncompatibility(pattern);
+                    if (problem != null) {
+                        skipped.add(pattern + " (" + problem + ")");
+                    } else {
+                        patterns.add(pattern.isEmpty() ? ".*" : pattern);
+                    }
+                } else if (prefix.find()) {
+                    String prefixHost = hostOf(unescape(prefix.group(1)));
+                    if (prefixHost != null) {
+                        hosts.add(prefixHost.toLowerCase(Locale.ROOT));
+                        // Simple mode's "Include subdomains"; the PAC file matches these with dnsDomainIs
+                        if (SUBDOMAINS_PATTERN.matcher(rule).find()) {
+                            hosts.add("*." + prefixHost.toLowerCase(Locale.ROOT));
+                        }
+                    }
+                }
+            }
+            return this;
+        }
+
+        public int size() {
+            return hosts.size() + patterns.size();
+        }
+
+        /**
+         * Scope host patterns left out because JavaScript would read them differently or reject them
+         */
+        public List<String> getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * The PAC script sending matching hosts to the proxy and everything else direct
+         */
+        public String toPac(String proxy) {
+            List<String> exact = new ArrayList<>();
+            StringBuilder sb = new StringBuilder();
+            sb.append("// Generated by BMA: hosts in scope go through Burp, everything else goes direct\n");
+            sb.append("var SUFFIXES = [");
+            String separator = "";
+            for (String host : hosts) {
+                if (host.startsWith("*.")) {
+                    sb.append(separator).append(quote(host.substring(1)));
+                    separator = ", ";
+                } else {
+                    exact.add(host);
+                }
+            }
+            sb.append("];\nvar HOSTS = {");
+            separator = "";
+            for (String host : exact) {
+                sb.append(separator).append(quote(host)).append(": true");
+                separator = ", ";
+            }
+            sb.append("};\nvar PATTERNS = [];\n");
+            // A pattern the device's engine still rejects is dropped rather than breaking the whole file
+            sb.append("function addPattern(source) {\n");
+            sb.append("    try { PATTERNS.push(new RegExp(source, \"i\")); } catch (e) {}\n");
+            sb.append("}\n");
+            for (String pattern : patterns) {
+                sb.append("addPattern(").append(quote(pattern)).append(");\n");
+            }
+            sb.append("\n");
+            sb.append("function FindProxyForURL(url, host) {\n");
+            sb.append("    host = host.toLowerCase();\n");
+            sb.append("    var proxied = HOSTS.hasOwnProperty(host);\n");
+            sb.append("    for (var i = 0; !proxied && i < SUFFIXES.length; i++) {\n");
+            sb.append("        proxied = dnsDomainIs(host, SUFFIXES[i]);\n");
+            sb.append("    }\n");
+            sb.append("    for (var j = 0; !proxied && j < PATTERNS.length; j++) {\n");
+            sb.append("        proxied = PATTERNS[j].test(host);\n");
+            sb.append("    }\n");
+            sb.append("    return proxied ? ").append(quote("PROXY " + proxy)).append(" : \"DIRECT\";\n");
+            sb.append("}\n");
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Serve PAC files produced by the given supplier; returns the port, which stays the same while BMA is loaded
+     */
+    public static synchronized int start(Supplier<String> pac) throws IOException {
+        content = pac;
+        if (server != null && !server.isClosed()) {
+            return server.getLocalPort();
+        }
+        server = LoopbackResponder.start("pac server", DEFAULT_PORT, PacServer::response, () -> server = null);
+        return server.getLocalPort();
+    }
+
+    private static byte[] response() {
+        byte[] body = content.get().getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length + 128);
+        out.writeBytes(("HTTP/1.1 200 OK\r\nContent-Type: application/x-ns-proxy-autoconfig\r\n"
+                + "Content-Length: " + body.length + "\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.writeBytes(body);
+        Diagnostics.increment("pac.served");
+        return out.toByteArray();
+    }
+
+    /**
+     * The flat rule objects inside the scope's "include" array
+     */
+    static List<String> includeRules(String json) {
+        List<String> rules = new ArrayList<>();
+        Matcher include = json != null ? INCLUDE_PATTERN.matcher(json) : null;
+        if (include == null || !include.find()) {
+            return rules;
+        }
+        // Walk to the closing bracket, collecting the top-level objects and skipping over
+        // strings (host patterns may contain brackets and braces)
+        boolean inString = false;
+        int depth = 0;
+        int start = -1;
+        for (int i = include.end(); i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (inString) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '{') {
+                if (depth++ == 0) {
+                    start = i;
+                }
+            } else if (c == '}') {
+                if (depth > 0 && --depth == 0) {
+                    rules.add(json.substring(start, i + 1));
+                }
+            } else if (c == ']' && depth == 0) {
+                break;
+            }
+        }
+        return rules;
+    }
+
+    /**
+     * Why a Java regular expression cannot be used as a JavaScript one, or null if it can.
+     * Catches the Java-only syntax Burp accepts: possessive quantifiers, atomic groups, inline
+     * flags, \A \Z \z \G \Q..\E \h \R \X \p{..} and character class unions and intersections.
+     */
+    static String jsIncompatibility(String regex) {
+        boolean inClass = false;
+        boolean afterQuantifier = false;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            char next = i + 1 < regex.length() ? regex.charAt(i + 1) : 0;
+            if (c == '\\') {
+                if (next == 0) {
+                    return "trailing backslash";
+                }
+                if ("AZzGQEhHRXpPVea".indexOf(next) >= 0) {
+                    return "\\" + next + " is Java-only";
+                }
+                i++;
+                afterQuantifier = false;
+                continue;
+            }
+            if (inClass) {
+                if (c == ']') {
+                    inClass = false;
+                } else if (c == '[') {
+                    return "nested character class";
+                } else if (c == '&' && next == '&') {
+                    return "character class intersection";
+                }
+                continue;
+            }
+
+            if (c == '+' && afterQuantifier) {
+                return "possessive quantifier";
+            }
+            if (c == '[') {
+                inClass = true;
+                int first = next == '^' ? i + 2 : i + 1;
+                if (first < regex.length() && regex.charAt(first) == ']') {
+                    // A literal ] in Java, an empty class in JavaScript
+                    return "] first in a character class";
+                }
+                i = first - 1;
+                afterQuantifier = false;
+            } else if (c == '(' && next == '?') {
+                char kind = i + 2 < regex.length() ? regex.charAt(i + 2) : 0;
+                char after = i + 3 < regex.length() ? regex.charAt(i + 3) : 0;
+                if (kind == '>') {
+                    return "atomic group";
+                }
+                boolean lookOrNamed = kind == ':' || kind == '=' || kind == '!'
+                        || (kind == '<' && (after == '=' || after == '!' || Character.isLetter(after)));
+                if (!lookOrNamed) {
+                    return "inline flags";
+                }
+                i++;
+                afterQuantifier = false;
+            } else {
+                afterQuantifier = c == '*' || c == '+' || c == '?' || c == '}';
+            }
+        }
+        return null;
+    }
+
+    private static String hostOf(String prefix) {
+        try {
+            return URI.create(prefix.contains("://") ? prefix : "http://" + prefix).getHost();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String unescape(String json) {
+        StringBuilder sb = new StringBuilder(json.length());
+        for (int i = 0; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (c == '\\' && i + 1 < json.length()) {
+                char next = json.charAt(++i);
+                switch (next) {
+                    case 'n' -> sb.append('\n');
+                    case 't' -> sb.append('\t');
+                    case 'u' -> {
+                        sb.append((char) Integer.parseInt(json.substring(i + 1, i + 5), 16));
+                        i += 4;
+                    }
+                    default -> sb.append(next);
+                }
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String quote(String text) {
+        return "\"" + text.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
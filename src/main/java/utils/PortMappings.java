@@ -0,0 +1,371 @@
+package utils;
+
+import burp.api.montoya.MontoyaApi;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * adb reverse/forward rules BMA wants on each device. Changes are applied by reading the
+ * device's current rules and adding or removing only the difference, so applying the same
+ * mappings again costs two list calls and nothing else. Rules BMA created are remembered
+ * across reloads, so ones it no longer wants (an old proxy port) are removed, while rules
+ * added by other tools are left alone. Mappings are re-applied when a device reconnects.
+ */
+public class PortMappings {
+    private static final String OWNED_KEY = "bma.portmappings.owned";
+
+    // serial -> purpose (e.g. "proxy") -> mapping
+    private static final Map<String, Map<String, Mapping>> DESIRED = new HashMap<>();
+    // serial -> rules BMA has created and not yet removed
+    private static final Map<String, Set<Mapping>> OWNED = new HashMap<>();
+    // serial -> lock held while a device's rules are being read and changed
+    private static final Map<String, Object> DEVICE_LOCKS = new ConcurrentHashMap<>();
+    private static MontoyaApi api;
+    private static boolean tracking;
+
+    private PortMappings() {
+    }
+
+    public enum Direction {
+        REVERSE("reverse"),
+        FORWARD("forward");
+
+        private final String command;
+
+        Direction(String command) {
+            this.command = command;
+        }
+
+        public String getCommand() {
+            return command;
+        }
+    }
+
+    /**
+     * One rule, with its endpoints in adb's argument order: device then host for reverse,
+     * host then device for forward
+     */
+    public static class Mapping {
+        private final Direction direction;
+        private final String first;
+        private final String second;
+
+        public Mapping(Direction direction, String first, String second) {
+            this.direction = direction;
+            this.first = first;
+            this.second = second;
+        }
+
+        /**
+         * Device port to the same host port, as used for the proxy
+         */
+        public static Mapping reverse(int devicePort, int hostPort) {
+            return new Mapping(Direction.REVERSE, "tcp:" + devicePort, "tcp:" + hostPort);
+        }
+
+        public static Mapping forward(int hostPort, int devicePort) {
+            return new Mapping(Direction.FORWARD, "tcp:" + hostPort, "tcp:" + devicePort);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Mapping)) {
+                return false;
+            }
+            Mapping other = (Mapping) o;
+            return direction == other.direction && first.equals(other.first) && second.equals(other.second);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(direction, first, second);
+        }
+
+        @Override
+        public String toString() {
+            return direction.getCommand() + " " + first + " " + second;
+        }
+    }
+
+    /**
+     * What one reconciliation changed on a device
+     */
+    public static class Change {
+        private final List<Mapping> added = new ArrayList<>();
+        private final List<Mapping> removed = new ArrayList<>();
+        private final List<String> errors = new ArrayList<>();
+
+        public List<Mapping> getAdded() {
+            return added;
+        }
+
+        public List<Mapping> getRemoved() {
+            return removed;
+        }
+
+        public List<String> getErrors() {
+            return errors;
+        }
+
+        public boolean isSuccess() {
+            return errors.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            List<String> parts = new ArrayList<>();
+            for (Mapping mapping : added) {
+                parts.add("+" + mapping);
+            }
+            for (Mapping mapping : removed) {
+                parts.add("-" + mapping);
+            }
+            parts.addAll(errors);
+            return parts.isEmpty() ? "already up to date" : String.join(", ", parts);
+        }
+    }
+
+    /**
+     * Give the registry the API for logging and for remembering owned rules; the first call wins
+     */
+    static synchronized void init(MontoyaApi montoyaApi) {
+        if (api != null) {
+            return;
+        }
+        api = montoyaApi;
+        String stored = api.persistence().preferences().getString(OWNED_KEY);
+        if (stored == null) {
+            return;
+        }
+        for (String line : stored.split("\n")) {
+            String[] parts = line.split("\t");
+            if (parts.length == 4) {
+                OWNED.computeIfAbsent(parts[0], s -> new LinkedHashSet<>())
+                        .add(new Mapping(Direction.valueOf(parts[1]), parts[2], parts[3]));
+            }
+        }
+    }
+
+    /**
+     * Set (or with null, drop) the mapping a device should have for a purpose, and apply the difference
+     */
+    public static Change set(String serial, String purpose, Mapping mapping) {
+        synchronized (PortMappings.class) {
+            Map<String, Mapping> wanted = DESIRED.computeIfAbsent(serial, s -> new LinkedHashMap<>());
+            if (mapping != null) {
+                wanted.put(purpose, mapping);
+            } else {
+                wanted.remove(purpose);
+            }
+        }
+        startTracking();
+        return reconcile(serial);
+    }
+
+    /**
+     * Bring a device's rules in line with its desired mappings. adb runs under a per-device
+     * lock, so a slow device holds up only its own reconciliations.
+     */
+    public static Change reconcile(String serial) {
+        synchronized (DEVICE_LOCKS.computeIfAbsent(serial, s -> new Object())) {
+            Set<Mapping> desired;
+            Set<Mapping> owned;
+            synchronized (PortMappings.class) {
+                desired = new LinkedHashSet<>(DESIRED.getOrDefault(serial, Map.of()).values());
+                owned = new LinkedHashSet<>(OWNED.getOrDefault(serial, Set.of()));
+            }
+
+            Change change = new Change();
+            Set<Mapping> forgotten = new HashSet<>();
+            Set<Mapping> adopted = new LinkedHashSet<>();
+            try (Diagnostics.Span span = Diagnostics.span("port mappings", serial)) {
+                Set<Mapping> current = new HashSet<>();
+                for (Direction direction : Direction.values()) {
+                    if (involves(direction, desired) || involves(direction, owned)) {
+                        current.addAll(list(serial, direction, change));
+                    }
+                }
+                if (!change.isSuccess()) {
+                    span.fail();
+                    return change;
+                }
+
+                // Rules BMA created earlier but no longer wants; gone ones (e.g. after a reboot) are just forgotten
+                for (Mapping mapping : owned) {
+                    if (desired.contains(mapping)) {
+                        continue;
+                    }
+                    if (!current.contains(mapping)
+                            || run(change, serial, mapping.direction.getCommand(), "--remove", mapping.first)) {
+                        forgotten.add(mapping);
+                        if (current.contains(mapping)) {
+                            change.removed.add(mapping);
+                        }
+                    }
+                }
+
+                for (Mapping mapping : desired) {
+                    if (current.contains(mapping)) {
+                        adopted.add(mapping);
+                    } else if (run(change, serial, mapping.direction.getCommand(), mapping.first, mapping.second)) {
+                        adopted.add(mapping);
+                        change.added.add(mapping);
+                    }
+                }
+
+                if (!change.isSuccess()) {
+                    span.fail();
+                }
+            }
+
+            if (!change.added.isEmpty() || !change.removed.isEmpty()) {
+                Diagnostics.add("portmappings.changed", change.added.size() + change.removed.size());
+            }
+            synchronized (PortMappings.class) {
+                Set<Mapping> ownedNow = OWNED.computeIfAbsent(serial, s -> new LinkedHashSet<>());
+                boolean changed = ownedNow.removeAll(forgotten);
+                changed |= ownedNow.addAll(adopted);
+                if (changed) {
+                    saveOwned();
+                }
+            }
+            return change;
+        }
+    }
+
+    private static boolean involves(Direction direction, Set<Mapping> mappings) {
+        for (Mapping mapping : mappings) {
+            if (mapping.direction == direction) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A device's current rules. "reverse --list" shows only the device's own rules as
+     * "transport device host"; "forward --list" shows every device's as "serial host device".
+     */
+    private static Set<Mapping> list(String serial, Direction direction, Change change) {
+        Set<Mapping> mappings = new HashSet<>();
+        StringBuilder output = new StringBuilder();
+        if (!run(change, serial, output, direction.getCommand(), "--list")) {
+            return mappings;
+        }
+        for (String line : output.toString().split("\n")) {
+            String[] parts = line.trim().split("\\s+");
+            if (parts.length != 3) {
+                continue;
+            }
+            if (direction == Direction.FORWARD && !parts[0].equals(serial)) {
+                continue;
+            }
+            mappings.add(new Mapping(direction, parts[1], parts[2]));
+        }
+        return mappings;
+    }
+
+    private static boolean run(Change change, String serial, String... command) {
+        return run(change, serial, new StringBuilder(), command);
+    }
+
+    /**
+     * Run "adb -s serial command", collecting its output; failures are added to the change
+     */
+    private static boolean run(Change change, String serial, StringBuilder output, String... command) {
+        List<String> fullCommand = new ArrayList<>();
+        fullCommand.add(ADBHelper.getAdbPath());
+        fullCommand.add("-s");
+        fullCommand.add(serial);
+        fullCommand.addAll(List.of(command));
+        try {
+            Process process = Diagnostics.start(new ProcessBuilder(fullCommand).redirectErrorStream(true));
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    output.append(line).append("\n");
+                }
+            }
+            if (process.waitFor() == 0) {
+                return true;
+            }
+            change.errors.add(String.join(" ", command) + " failed: " + output.toString().trim());
+        } catch (Exception e) {
+            change.errors.add(String.join(" ", command) + " failed: " + e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Persist OWNED; call with the class lock held
+     */
+    private static void saveOwned() {
+        if (api == null) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Set<Mapping>> entry : OWNED.entrySet()) {
+            for (Mapping mapping : entry.getValue()) {
+                sb.append(entry.getKey()).append('\t').append(mapping.direction.name()).append('\t')
+                        .append(mapping.first).append('\t').append(mapping.second).append('\n');
+            }
+        }
+        api.persistence().preferences().setString(OWNED_KEY, sb.toString());
+    }
+
+    /**
+     * Follow the shared device tracker and re-apply mappings to devices as they come (back) online
+     */
+    private static synchronized void startTracking() {
+        if (tracking) {
+            return;
+        }
+        tracking = true;
+        // Only touched by the tracker's deliveries, which come one at a time
+        Map<String, String> states = new HashMap<>();
+        DeviceTracker.subscribe(api, deviceList -> applyDeviceList(deviceList, states));
+    }
+
+    /**
+     * Reconcile each device with mappings that has just come online
+     */
+    private static void applyDeviceList(String deviceList, Map<String, String> states) {
+        Map<String, String> now = new HashMap<>();
+        for (String line : deviceList.split("\n")) {
+            String[] parts = line.trim().split("\\s+");
+            if (parts.length >= 2) {
+                now.put(parts[0], parts[1]);
+            }
+        }
+        for (Map.Entry<String, String> entry : now.entrySet()) {
+            String serial = entry.getKey();
+            boolean cameOnline = entry.getValue().equals("device") && !"device".equals(states.get(serial));
+            boolean wanted;
+            synchronized (PortMappings.class) {
+                wanted = !DESIRED.getOrDefault(serial, Map.of()).isEmpty();
+            }
+            if (cameOnline && wanted) {
+                TaskManager.io("port mappings " + serial, () -> {
+                    Change change = reconcile(serial);
+                    if (api != null && (!change.getAdded().isEmpty() || !change.isSuccess())) {
+                        api.logging().logToOutput((change.isSuccess() ? "✓" : "✗") + " Port mappings re-applied on "
+                                + serial + ": " + change);
+                    }
+                });
+            }
+        }
+        states.clear();
+        states.putAll(now);
+    }
+}
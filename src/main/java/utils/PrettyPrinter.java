@@ -0,0 +1,144 @@
+package utils;
+
+/**
+ * Single-pass indenters for JSON and XML bodies. They only re-indent and never
+ * build a document tree, so malformed input is formatted as far as possible
+ * instead of failing.
+ */
+public class PrettyPrinter {
+    private static final String INDENT = "  ";
+
+    /**
+     * Pretty-print the body if it looks like JSON or XML, otherwise return null
+     */
+    public static String format(String body) {
+        int start = 0;
+        while (start < body.length() && Character.isWhitespace(body.charAt(start))) {
+            start++;
+        }
+        if (start == body.length()) {
+            return null;
+        }
+
+        char first = body.charAt(start);
+        if (first == '{' || first == '[') {
+            return json(body);
+        }
+        if (first == '<') {
+            return xml(body);
+        }
+        return null;
+    }
+
+    public static String json(String json) {
+        StringBuilder out = new StringBuilder(json.length() + json.length() / 4);
+        int depth = 0;
+        boolean inString = false;
+
+        for (int i = 0; i < json.length(); i++) {
+            char c = json.charAt(i);
+
+            if (inString) {
+                out.append(c);
+                if (c == '\\' && i + 1 < json.length()) {
+                    out.append(json.charAt(++i));
+                } else if (c == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+
+            switch (c) {
+                case '"' -> {
+                    inString = true;
+                    out.append(c);
+                }
+                case '{', '[' -> {
+                    // Keep empty containers on one line
+                    int next = nextSignificant(json, i + 1);
+                    if (next < json.length() && json.charAt(next) == (c == '{' ? '}' : ']')) {
+                        out.append(c).append(json.charAt(next));
+                        i = next;
+                    } else {
+                        out.append(c);
+                        newline(out, ++depth);
+                    }
+                }
+                case '}', ']' -> {
+                    newline(out, depth = Math.max(0, depth - 1));
+                    out.append(c);
+                }
+                case ',' -> {
+                    out.append(c);
+                    newline(out, depth);
+                }
+                case ':' -> out.append(": ");
+                case ' ', '\t', '\r', '\n' -> {
+                    // Existing formatting is replaced
+                }
+                default -> out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    public static String xml(String xml) {
+        StringBuilder out = new StringBuilder(xml.length() + xml.length() / 4);
+        int depth = 0;
+        int i = 0;
+
+        while (i < xml.length()) {
+            if (xml.charAt(i) != '<') {
+                int next = xml.indexOf('<', i);
+                String text = xml.substring(i, next < 0 ? xml.length() : next).trim();
+                if (!text.isEmpty()) {
+                    newline(out, depth);
+                    out.append(text);
+                }
+                i = next < 0 ? xml.length() : next;
+                continue;
+            }
+
+            int end = tagEnd(xml, i);
+            String tag = xml.substring(i, end);
+            i = end;
+
+            boolean closing = tag.startsWith("</");
+            boolean selfContained = tag.endsWith("/>") || tag.startsWith("<?") || tag.startsWith("<!");
+            if (closing) {
+                depth = Math.max(0, depth - 1);
+            }
+            if (out.length() > 0) {
+                newline(out, depth);
+            }
+            out.append(tag);
+            if (!closing && !selfContained) {
+                depth++;
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Index just past the tag starting at start; comments and CDATA may contain '>'
+     */
+    private static int tagEnd(String xml, int start) {
+        String terminator = xml.startsWith("<!--", start) ? "-->" : xml.startsWith("<![CDATA[", start) ? "]]>" : ">";
+        int end = xml.indexOf(terminator, start + 1);
+        return end < 0 ? xml.length() : end + terminator.length();
+    }
+
+    private static int nextSignificant(String text, int from) {
+        while (from < text.length() && Character.isWhitespace(text.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    private static void newline(StringBuilder out, int depth) {
+        out.append('\n');
+        for (int i = 0; i < depth; i++) {
+            out.append(INDENT);
+        }
+    }
+}
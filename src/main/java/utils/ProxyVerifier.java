@@ -0,0 +1,184 @@
+package utils;
+
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.proxy.http.InterceptedRequest;
+import burp.api.montoya.proxy.http.ProxyRequestHandler;
+import burp.api.montoya.proxy.http.ProxyRequestReceivedAction;
+import burp.api.montoya.proxy.http.ProxyRequestToBeSentAction;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Checks the whole proxy path of a device: the device sends a uniquely tagged request to its
+ * configured proxy, this handler recognises the tag when Burp receives it and points it at a
+ * local responder, and the device times the round trip until the response comes back.
+ * In PAC mode the proxy is read from the PAC file the device downloads, so the reverse-mapped
+ * Burp port it names is what gets checked.
+ */
+public class ProxyVerifier implements ProxyRequestHandler {
+    public static final String VERIFY_HOST = "bma-verify.invalid";
+    private static final long SLOW_MILLIS = 500;
+    private static final int TIMEOUT_SECONDS = 10;
+    private static final Pattern FIELD_PATTERN = Pattern.compile("^BMA_(\\w+) ?(.*)$", Pattern.MULTILINE);
+    private static final byte[] RESPONSE = ("HTTP/1.1 204 No Content\r\nContent-Length: 0\r\nConnection: close\r\n\r\n")
+            .getBytes(StandardCharsets.US_ASCII);
+
+    // tag -> completed with the host time the request reached Burp
+    private static final Map<String, CompletableFuture<Long>> PENDING = new ConcurrentHashMap<>();
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static volatile ServerSocket responder;
+
+    @Override
+    public ProxyRequestReceivedAction handleRequestReceived(InterceptedRequest interceptedRequest) {
+        HttpService service = interceptedRequest.httpService();
+        if (service == null || !VERIFY_HOST.equals(service.host())) {
+            return ProxyRequestReceivedAction.continueWith(interceptedRequest);
+        }
+
+        String tag = interceptedRequest.path().substring(1);
+        CompletableFuture<Long> pending = PENDING.get(tag);
+        if (pending != null) {
+            pending.complete(System.nanoTime());
+        }
+        ServerSocket server = responder;
+        if (server == null) {
+            return ProxyRequestReceivedAction.drop();
+        }
+        // Answered locally so the device gets a response without anything leaving the machine
+        return ProxyRequestReceivedAction.doNotIntercept(
+                interceptedRequest.withService(HttpService.httpService("127.0.0.1", server.getLocalPort(), false)));
+    }
+
+    @Override
+    public ProxyRequestToBeSentAction handleRequestToBeSent(InterceptedRequest interceptedRequest) {
+        return ProxyRequestToBeSentAction.continueWith(interceptedRequest);
+    }
+
+    /**
+     * Verify one device; blocks for up to ten seconds, so call from a background task
+     */
+    public static DeviceResult verify(ADBHelper adbHelper, String serial) {
+        ensureResponder();
+        byte[] random = new byte[8];
+        RANDOM.nextBytes(random);
+        String tag = "bma-" + HexFormat.of().formatHex(random);
+        CompletableFuture<Long> received = new CompletableFuture<>();
+        PENDING.put(tag, received);
+        try {
+            return DeviceResult.run("proxy.verify", serial, () -> run(adbHelper, serial, tag, received));
+        } finally {
+            PENDING.remove(tag);
+        }
+    }
+
+    private static DeviceResult run(ADBHelper adbHelper, String serial, String tag, CompletableFuture<Long> received) {
+        // One shell round trip: read the proxy (from the PAC file in PAC mode), send the tagged
+        // request through it with nc, time it
+        String script = "NC=nc; command -v nc >/dev/null || NC='toybox nc'; "
+                + "P=$(settings get global http_proxy); "
+                + "case \"$P\" in ''|null|:0) "
+                + "U=$(settings get global global_proxy_pac_url); echo BMA_PAC $U; "
+                + "case \"$U\" in http://*) ;; *) echo BMA_PROXY none; exit 0;; esac; "
+                + "A=${U#http://}; A=${A%%/*}; "
+                + "P=$(printf 'GET /%s HTTP/1.0\\r\\nHost: %s\\r\\n\\r\\n' \"${U#http://*/}\" \"$A\" | $NC -w 5 ${A%:*} ${A##*:} 2>/dev/null"
+                + " | sed -n 's/.*\"PROXY \\([^\"]*\\)\".*/\\1/p' | head -n 1); "
+                + "[ -n \"$P\" ] || { echo BMA_PROXY none; exit 0; };; "
+                + "esac; echo BMA_PROXY $P; "
+                + "S=$(date +%s%N); "
+                + "printf 'GET http://" + VERIFY_HOST + "/" + tag + " HTTP/1.1\\r\\nHost: " + VERIFY_HOST
+                + "\\r\\nConnection: close\\r\\n\\r\\n' | $NC -w " + TIMEOUT_SECONDS + " ${P%:*} ${P##*:} > /dev/null 2>&1; "
+                + "echo BMA_EXIT $?; E=$(date +%s%N); echo BMA_START $S; echo BMA_END $E";
+        long commandStart = System.nanoTime();
+        String output = adbHelper.executeCommandOn(serial, "shell", script);
+        Map<String, String> fields = new HashMap<>();
+        Matcher matcher = FIELD_PATTERN.matcher(output);
+        while (matcher.find()) {
+            fields.put(matcher.group(1), matcher.group(2).trim());
+        }
+
+        String proxy = fields.get("PROXY");
+        if (proxy == null) {
+            return DeviceResult.failed(serial, "device did not respond: " + output.trim());
+        }
+        String pac = fields.getOrDefault("PAC", "");
+        if (proxy.equals("none")) {
+            return DeviceResult.failed(serial, pac.startsWith("http")
+                    ? "PAC mode, but the device could not read a proxy from " + pac + " (is the PAC server's adb reverse up?)"
+                    : "no proxy is set on the device");
+        }
+        String via = pac.isEmpty() ? proxy : proxy + " (from PAC file)";
+
+        Long receivedAt;
+        try {
+            // The device has finished by now; allow a moment for Burp's handler thread
+            receivedAt = received.get(1, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            return DeviceResult.failed(serial, "request to " + via + " never reached Burp" + diagnose(adbHelper, serial, proxy, fields));
+        } catch (Exception e) {
+            return DeviceResult.failed(serial, e.getMessage());
+        }
+
+        long roundTrip = -1;
+        try {
+            roundTrip = (Long.parseLong(fields.get("END")) - Long.parseLong(fields.get("START"))) / 1_000_000L;
+        } catch (Exception e) {
+            // No %N in this device's date; only the adb-inclusive host time is known
+        }
+        String timing = roundTrip >= 0
+                ? "round trip " + roundTrip + " ms"
+                : "reached Burp within " + (receivedAt - commandStart) / 1_000_000L + " ms of the adb call (device cannot time it)";
+        if (!"0".equals(fields.get("EXIT"))) {
+            timing += ", but no response came back";
+        }
+        if (roundTrip > SLOW_MILLIS) {
+            return new DeviceResult(serial, DeviceResult.Status.WARNING,
+                    "via " + via + ", " + timing + " (slower than " + SLOW_MILLIS + " ms)");
+        }
+        return DeviceResult.ok(serial, "via " + via + ", " + timing);
+    }
+
+    /**
+     * Why a tagged request did not arrive: nc missing, adb reverse gone, or the listener unreachable
+     */
+    private static String diagnose(ADBHelper adbHelper, String serial, String proxy, Map<String, String> fields) {
+        if ("127".equals(fields.get("EXIT"))) {
+            return " (no nc on the device)";
+        }
+        String host = proxy.substring(0, Math.max(0, proxy.lastIndexOf(':')));
+        String port = proxy.substring(proxy.lastIndexOf(':') + 1);
+        if (host.equals("127.0.0.1") || host.equals("localhost")) {
+            String reverses = adbHelper.executeCommandOn(serial, "reverse", "--list");
+            if (!reverses.contains("tcp:" + port + " ")) {
+                return " (adb reverse for tcp:" + port + " is gone; use Set Proxy again)";
+            }
+            return " (adb reverse is up; is Burp listening on port " + port + "?)";
+        }
+        return " (is Burp's listener bound to " + host + " and reachable from the device?)";
+    }
+
+    /**
+     * Start the local responder the tagged requests are sent on to
+     */
+    private static synchronized void ensureResponder() {
+        if (responder != null && !responder.isClosed()) {
+            return;
+        }
+        try {
+            responder = LoopbackResponder.start("proxy verify responder", 0, () -> RESPONSE, () -> responder = null);
+        } catch (IOException e) {
+            responder = null;
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package utils;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Replays curl commands through Burp's HTTP client with bounded concurrency and an
+ * optional requests-per-second cap. URL globs are expanded lazily, and results are
+ * folded into status/length buckets that keep latency histograms and a small random
+ * sample of responses, so memory does not grow with the number of requests sent.
+ */
+public class ReplayEngine {
+    // Distinct response lengths tracked exactly before lengths fold into power-of-two ranges
+    private static final int MAX_EXACT_LENGTH_BUCKETS = 256;
+
+    private final MontoyaApi api;
+    private final Config config;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong nextSlot = new AtomicLong();
+
+    public static class Config {
+        public int concurrency = 10;
+        public double requestsPerSecond = 0;
+        public int iterations = 1;
+        public boolean synchronizedWaves = false;
+        public int samplesPerBucket = 3;
+    }
+
+    /**
+     * Responses sharing a status code and length (or length range)
+     */
+    public static class Bucket {
+        private final int status;
+        private final long lengthLow;
+        private final long lengthHigh;
+        private final int maxSamples;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final List<HttpRequestResponse> samples = new ArrayList<>();
+        private long seen;
+
+        Bucket(int status, long lengthLow, long lengthHigh, int maxSamples) {
+            this.status = status;
+            this.lengthLow = lengthLow;
+            this.lengthHigh = lengthHigh;
+            this.maxSamples = maxSamples;
+        }
+
+        /**
+         * Reservoir sampling keeps a uniform sample of the bucket's responses
+         */
+        synchronized void add(HttpRequestResponse requestResponse, long nanos) {
+            latency.recordNanos(nanos);
+            if (requestResponse == null) {
+                return;
+            }
+            seen++;
+            if (samples.size() < maxSamples) {
+                samples.add(requestResponse);
+            } else {
+                long slot = ThreadLocalRandom.current().nextLong(seen);
+                if (slot < maxSamples) {
+                    samples.set((int) slot, requestResponse);
+                }
+            }
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public String getLengthLabel() {
+            return lengthLow == lengthHigh ? String.valueOf(lengthLow) : lengthLow + "-" + lengthHigh;
+        }
+
+        public long getLengthLow() {
+            return lengthLow;
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        public synchronized List<HttpRequestResponse> getSamples() {
+            return new ArrayList<>(samples);
+        }
+    }
+
+    public ReplayEngine(MontoyaApi api, Config config) {
+        this.api = api;
+        this.config = config;
+    }
+
+    /**
+     * Number of requests the commands expand to, without building any of them
+     */
+    public static long countVariants(List<String> curlCommands, int iterations) throws Exception {
+        long total = 0;
+        for (String command : curlCommands) {
+            CurlParser.Template template = new CurlParser().template(command);
+            total = Math.addExact(total, Math.multiplyExact(glob(template).size(), iterations));
+        }
+        return total;
+    }
+
+    /**
+     * The URL variants of a command; with --globoff the URL is sent as written
+     */
+    private static UrlGlob glob(CurlParser.Template template) throws Exception {
+        return template.isGlobOff() ? UrlGlob.literal(template.url()) : UrlGlob.parse(template.url());
+    }
+
+    /**
+     * Send every variant of every command; blocks until done or cancelled
+     */
+    public void run(List<String> curlCommands, Consumer<String> logger, BooleanSupplier cancelled) throws Exception {
+        int concurrency = Math.max(1, config.concurrency);
+        // Sends block on the network; the in-flight semaphore and wave size bound concurrency
+        ExecutorService pool = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("BMA-replay-", 0).factory());
+        // One permit per request being sent, so variants are built only as workers free up
+        Semaphore inFlight = new Semaphore(concurrency);
+        List<HttpRequest> wave = new ArrayList<>(concurrency);
+
+        try {
+            for (String command : curlCommands) {
+                CurlParser.Template template = new CurlParser().template(command);
+                UrlGlob glob = glob(template);
+                logger.accept("Replaying " + glob.size() * config.iterations + " request(s) for " + template.url());
+
+                for (int iteration = 0; iteration < config.iterations && !cancelled.getAsBoolean(); iteration++) {
+                    for (String url : glob) {
+                        if (cancelled.getAsBoolean()) {
+                            break;
+                        }
+
+                        HttpRequest request;
+                        try {
+                            request = template.build(url);
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                            logger.accept("✗ " + url + ": " + e.getMessage());
+                            continue;
+                        }
+
+                        if (config.synchronizedWaves) {
+                            wave.add(request);
+                            if (wave.size() == concurrency) {
+                                sendWave(pool, wave);
+                            }
+                        } else {
+                            inFlight.acquire();
+                            pool.execute(() -> {
+                                try {
+                                    pace(1);
+                                    send(request);
+                                } catch (InterruptedException e) {
+                                    Thread.currentThread().interrupt();
+                                } finally {
+                                    inFlight.release();
+                                }
+                            });
+                        }
+                    }
+                }
+            }
+
+            if (!wave.isEmpty() && !cancelled.getAsBoolean()) {
+                sendWave(pool, wave);
+            }
+            // Wait for the last requests to finish
+            inFlight.acquire(concurrency);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Release a wave of requests at the same instant and wait for all of them to complete.
+     * Montoya gives no access to the socket, so requests are synchronized on their start
+     * rather than on their last byte. A requests-per-second cap delays the whole wave, so
+     * waves are spaced out but each one still starts together.
+     */
+    private void sendWave(ExecutorService pool, List<HttpRequest> wave) throws InterruptedException {
+        CountDownLatch ready = new CountDownLatch(wave.size());
+        CountDownLatch go = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(wave.size());
+
+        for (HttpRequest request : wave) {
+            pool.execute(() -> {
+                try {
+                    ready.countDown();
+                    go.await();
+                    send(request);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        ready.await();
+        pace(wave.size());
+        go.countDown();
+        done.await();
+        wave.clear();
+    }
+
+    private void send(HttpRequest request) {
+        long start = System.nanoTime();
+        try {
+            HttpRequestResponse result = api.http().sendRequest(request);
+            long elapsed = System.nanoTime() - start;
+            sent.incrementAndGet();
+            latency.recordNanos(elapsed);
+
+            if (result == null || !result.hasResponse()) {
+                errors.incrementAndGet();
+                bucketFor(0, 0).add(result, elapsed);
+            } else {
+                bucketFor(result.response().statusCode(), result.response().body().length()).add(result, elapsed);
+            }
+        } catch (Exception e) {
+            sent.incrementAndGet();
+            errors.incrementAndGet();
+        }
+    }
+
+    /**
+     * Wait until the next of count consecutive send slots when a requests-per-second cap is set
+     */
+    private void pace(int count) throws InterruptedException {
+        if (config.requestsPerSecond <= 0) {
+            return;
+        }
+
+        long interval = (long) (1_000_000_000L / config.requestsPerSecond) * count;
+        long now = System.nanoTime();
+        long slot = nextSlot.getAndUpdate(previous -> Math.max(previous, now) + interval);
+        long wait = slot - now;
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    private Bucket bucketFor(int status, long length) {
+        Bucket exact = buckets.get(status + ":" + length + ":" + length);
+        if (exact != null) {
+            return exact;
+        }
+
+        long low = length;
+        long high = length;
+        if (buckets.size() >= MAX_EXACT_LENGTH_BUCKETS) {
+            int bits = 64 - Long.numberOfLeadingZeros(length);
+            low = bits == 0 ? 0 : 1L << (bits - 1);
+            high = bits == 0 ? 0 : (1L << bits) - 1;
+        }
+
+        long lengthLow = low;
+        long lengthHigh = high;
+        return buckets.computeIfAbsent(status + ":" + low + ":" + high,
+                key -> new Bucket(status, lengthLow, lengthHigh, config.samplesPerBucket));
+    }
+
+    /**
+     * Current buckets ordered by status, then length
+     */
+    public List<Bucket> getBuckets() {
+        List<Bucket> list = new ArrayList<>(buckets.values());
+        list.sort(Comparator.comparingInt(Bucket::getStatus).thenComparingLong(Bucket::getLengthLow));
+        return list;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public long getSent() {
+        return sent.get();
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+}
@@ -0,0 +1,188 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A request body described as a sequence of byte and file parts. Nothing is read
+ * until {@link #copyTo} is called, at which point files are memory-mapped and
+ * copied straight into the destination buffer, so the assembled request is the
+ * only heap copy of the body.
+ */
+public class RequestBody {
+    private final List<Part> parts = new ArrayList<>();
+
+    private interface Part {
+        long length() throws IOException;
+
+        void copyTo(byte[] dest, int offset) throws IOException;
+    }
+
+    private static class BytesPart implements Part {
+        private final byte[] bytes;
+
+        BytesPart(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public long length() {
+            return bytes.length;
+        }
+
+        @Override
+        public void copyTo(byte[] dest, int offset) {
+            System.arraycopy(bytes, 0, dest, offset, bytes.length);
+        }
+    }
+
+    /**
+     * File contents, optionally with CR and LF removed as curl does for -d @file. The file is
+     * mapped once, so the length and the copied bytes come from the same snapshot even if the
+     * file changes in between.
+     */
+    private static class FilePart implements Part {
+        private final Path file;
+        private final boolean stripNewlines;
+        private MappedByteBuffer mapping;
+        private long length = -1;
+
+        FilePart(Path file, boolean stripNewlines) {
+            this.file = file;
+            this.stripNewlines = stripNewlines;
+        }
+
+        @Override
+        public long length() throws IOException {
+            if (length < 0) {
+                mapping = map(file);
+                if (!stripNewlines) {
+                    length = mapping.remaining();
+                } else {
+                    MappedByteBuffer buffer = mapping.duplicate();
+                    long count = 0;
+                    while (buffer.hasRemaining()) {
+                        byte b = buffer.get();
+                        if (b != '\r' && b != '\n') {
+                            count++;
+                        }
+                    }
+                    length = count;
+                }
+            }
+            return length;
+        }
+
+        @Override
+        public void copyTo(byte[] dest, int offset) throws IOException {
+            length();
+            MappedByteBuffer buffer = mapping.duplicate();
+            if (!stripNewlines) {
+                buffer.get(dest, offset, (int) length);
+                return;
+            }
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                if (b != '\r' && b != '\n') {
+                    dest[offset++] = b;
+                }
+            }
+        }
+    }
+
+    public RequestBody append(byte[] bytes) {
+        if (bytes.length > 0) {
+            parts.add(new BytesPart(bytes));
+        }
+        return this;
+    }
+
+    public RequestBody append(String text) {
+        return append(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public RequestBody append(RequestBody other) {
+        parts.addAll(other.parts);
+        return this;
+    }
+
+    /**
+     * Append a file's contents verbatim
+     */
+    public RequestBody appendFile(Path file) throws IOException {
+        parts.add(new FilePart(checkReadable(file), false));
+        return this;
+    }
+
+    /**
+     * Append a file's contents with carriage returns and newlines removed
+     */
+    public RequestBody appendFileWithoutNewlines(Path file) throws IOException {
+        parts.add(new FilePart(checkReadable(file), true));
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return parts.isEmpty();
+    }
+
+    public long length() throws IOException {
+        long total = 0;
+        for (Part part : parts) {
+            total += part.length();
+        }
+        return total;
+    }
+
+    /**
+     * Copy every part into dest starting at offset; dest must have room for {@link #length()} bytes
+     */
+    public void copyTo(byte[] dest, int offset) throws IOException {
+        for (Part part : parts) {
+            part.copyTo(dest, offset);
+            offset += (int) part.length();
+        }
+    }
+
+    /**
+     * The whole body as a new array. Only for bodies that are known to be small.
+     */
+    public byte[] toByteArray() throws IOException {
+        long length = length();
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IOException("Body is too large (" + length + " bytes)");
+        }
+        byte[] bytes = new byte[(int) length];
+        copyTo(bytes, 0);
+        return bytes;
+    }
+
+    public String toText() throws IOException {
+        return new String(toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static Path checkReadable(Path file) throws IOException {
+        if (!Files.isRegularFile(file) || !Files.isReadable(file)) {
+            throw new IOException("Cannot read file: " + file);
+        }
+        return file;
+    }
+
+    private static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IOException("File is too large: " + file);
+            }
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+}
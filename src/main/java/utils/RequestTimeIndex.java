@@ -0,0 +1,159 @@
+package utils;
+
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.message.requests.HttpRequest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * When each proxied request arrived and which device sent it, kept in fixed-size primitive
+ * rings in arrival order. Requests are found again by a hash of their bytes through a
+ * direct-mapped table whose cells chain back through every earlier entry that hashed there,
+ * so identical requests (polls, retries, heartbeats) keep all their occurrences. The index
+ * allocates nothing per request; key() reads at most 8 KB of the request's ByteArray byte by
+ * byte, without copying it into a Java array.
+ */
+public class RequestTimeIndex {
+    public static final short NO_DEVICE = -1;
+    // Only the start of large requests is hashed, together with their length
+    private static final int HASHED_BYTES = 8192;
+    // Bounds a lookup for requests that repeat thousands of times
+    private static final int MAX_CHAIN = 1024;
+
+    private final long[] keys;
+    private final long[] times;
+    private final short[] devices;
+    private final long[] previous;  // sequence + 1 of the previous entry in the same cell, 0 = none
+    private final long[] table;     // sequence + 1 of the latest entry in each cell, 0 = empty
+    private final List<String> deviceNames = new ArrayList<>();
+    private final Map<String, Short> deviceIds = new HashMap<>();
+    private long next;
+
+    /**
+     * Where and when a request was seen
+     */
+    public static class Match {
+        private final long timeMicros;
+        private final String device;
+        private final int occurrences;
+
+        Match(long timeMicros, String device, int occurrences) {
+            this.timeMicros = timeMicros;
+            this.device = device;
+            this.occurrences = occurrences;
+        }
+
+        /**
+         * Host clock, microseconds since the epoch
+         */
+        public long getTimeMicros() {
+            return timeMicros;
+        }
+
+        /**
+         * Serial of the device that sent the request, or null if it could not be told apart
+         */
+        public String getDevice() {
+            return device;
+        }
+
+        /**
+         * How many identical requests are still indexed (at most the chain limit)
+         */
+        public int getOccurrences() {
+            return occurrences;
+        }
+    }
+
+    public RequestTimeIndex(int capacity) {
+        keys = new long[capacity];
+        times = new long[capacity];
+        devices = new short[capacity];
+        previous = new long[capacity];
+        // Four cells per entry keeps chains through unrelated requests short
+        table = new long[Integer.highestOneBit(capacity) * 4];
+    }
+
+    public synchronized void record(long key, long timeMicros, String device) {
+        int slot = (int) (next % keys.length);
+        int cell = cell(key);
+        keys[slot] = key;
+        times[slot] = timeMicros;
+        devices[slot] = deviceId(device);
+        previous[slot] = table[cell];
+        table[cell] = next + 1;
+        next++;
+    }
+
+    /**
+     * The latest request with this key, or null if it was not recorded or has been evicted
+     */
+    public Match lookup(long key) {
+        return lookup(key, -1);
+    }
+
+    /**
+     * The request with this key recorded closest to a time (host clock, microseconds since
+     * the epoch), or the latest one if the time is negative. Null if none is indexed.
+     */
+    public synchronized Match lookup(long key, long nearMicros) {
+        long oldest = Math.max(0, next - keys.length);
+        int best = -1;
+        int occurrences = 0;
+        long seq = table[cell(key)] - 1;
+        for (int steps = 0; seq >= oldest && steps < MAX_CHAIN; steps++) {
+            int slot = (int) (seq % keys.length);
+            if (keys[slot] == key) {
+                occurrences++;
+                if (best < 0 || (nearMicros >= 0 && Math.abs(times[slot] - nearMicros) < Math.abs(times[best] - nearMicros))) {
+                    best = slot;
+                }
+            }
+            seq = previous[slot] - 1;
+        }
+        if (best < 0) {
+            return null;
+        }
+        short device = devices[best];
+        return new Match(times[best], device == NO_DEVICE ? null : deviceNames.get(device), occurrences);
+    }
+
+    public synchronized long size() {
+        return Math.min(next, keys.length);
+    }
+
+    private int cell(long key) {
+        return (int) (key ^ (key >>> 32)) & (table.length - 1);
+    }
+
+    private short deviceId(String device) {
+        if (device == null) {
+            return NO_DEVICE;
+        }
+        Short id = deviceIds.get(device);
+        if (id == null) {
+            id = (short) deviceNames.size();
+            deviceNames.add(device);
+            deviceIds.put(device, id);
+        }
+        return id;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the request line, headers and the start of the body
+     */
+    public static long key(HttpRequest request) {
+        ByteArray bytes = request.toByteArray();
+        int length = bytes.length();
+        int hashed = Math.min(length, HASHED_BYTES);
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < hashed; i++) {
+            hash ^= bytes.getByte(i) & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash ^ length;
+    }
+}
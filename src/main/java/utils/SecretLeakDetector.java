@@ -0,0 +1,296 @@
+package utils;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.http.message.HttpHeader;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.proxy.http.InterceptedRequest;
+import burp.api.montoya.proxy.http.ProxyRequestHandler;
+import burp.api.montoya.proxy.http.ProxyRequestReceivedAction;
+import burp.api.montoya.proxy.http.ProxyRequestToBeSentAction;
+import burp.api.montoya.scanner.audit.issues.AuditIssue;
+import burp.api.montoya.scanner.audit.issues.AuditIssueConfidence;
+import burp.api.montoya.scanner.audit.issues.AuditIssueSeverity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds tokens from proxied traffic in device logs. Authorization headers, session cookies (by name),
+ * API key headers and JWTs seen in requests are collected into a dictionary; a background
+ * task compiles it into an {@link AhoCorasick} automaton and runs it over each streaming
+ * device's new logcat entries, raising a Burp issue the first time a token shows up on a device.
+ */
+public class SecretLeakDetector implements ProxyRequestHandler {
+    private static final int MIN_SECRET_LENGTH = 16;
+    private static final int MAX_SECRETS = 5000;
+    // Token and device pairs already reported; the oldest are forgotten first
+    private static final int MAX_REPORTED = 20_000;
+    private static final int SCAN_INTERVAL_MS = 500;
+    // New tokens go into a small automaton of their own; the full one is rebuilt, and new
+    // tokens are looked for in older entries, at most this often
+    private static final long REBUILD_INTERVAL_MS = 10_000;
+    // Apps often log a token just before sending it, so new tokens are also looked for this far
+    // before the request that carried them
+    private static final long RESCAN_MICROS = 60_000_000L;
+    private static final Pattern JWT_PATTERN = Pattern.compile("eyJ[A-Za-z0-9_-]{8,}\\.eyJ[A-Za-z0-9_-]{8,}\\.[A-Za-z0-9_-]*");
+    private static final Set<String> SECRET_HEADER_HINTS = Set.of("token", "api-key", "apikey", "secret", "session", "x-auth");
+    // Only cookies named like a session or credential; analytics and bot-management cookies
+    // (_ga, __cf_bm) are long and random too, and end up in logs without being secrets
+    private static final Set<String> SECRET_COOKIE_HINTS = Set.of("sess", "sid", "token", "auth", "jwt", "login", "remember");
+
+    private final MontoyaApi api;
+    // Insertion order, so the oldest token is dropped first
+    private final LinkedHashMap<String, Secret> secrets = new LinkedHashMap<>();
+    private final List<Secret> pending = new ArrayList<>();
+    private final Map<String, Long> cursors = new HashMap<>();
+    private final Set<String> reported = new LinkedHashSet<>();
+    private TaskManager.Task scanTask;
+
+    /**
+     * A token and the request it was first seen in
+     */
+    private static class Secret {
+        private final String value;
+        private final String kind;
+        private final HttpRequest request;
+        private final long seenMillis = System.currentTimeMillis();
+
+        Secret(String value, String kind, HttpRequest request) {
+            this.value = value;
+            this.kind = kind;
+            this.request = request;
+        }
+    }
+
+    public SecretLeakDetector(MontoyaApi api) {
+        this.api = api;
+    }
+
+    @Override
+    public ProxyRequestReceivedAction handleRequestReceived(InterceptedRequest interceptedRequest) {
+        // Only worth collecting while some device's log is being read
+        if (LogcatSession.isAnyRunning()) {
+            collect(interceptedRequest);
+        }
+        return ProxyRequestReceivedAction.continueWith(interceptedRequest);
+    }
+
+    @Override
+    public ProxyRequestToBeSentAction handleRequestToBeSent(InterceptedRequest interceptedRequest) {
+        return ProxyRequestToBeSentAction.continueWith(interceptedRequest);
+    }
+
+    private void collect(HttpRequest request) {
+        for (HttpHeader header : request.headers()) {
+            String name = header.name().toLowerCase(Locale.ROOT);
+            String value = header.value();
+            if (name.equals("authorization") || name.equals("proxy-authorization")) {
+                int space = value.indexOf(' ');
+                add(space > 0 ? value.substring(space + 1).trim() : value, "Authorization header", request);
+            } else if (name.equals("cookie")) {
+                for (String cookie : value.split(";")) {
+                    int equals = cookie.indexOf('=');
+                    if (equals > 0) {
+                        String cookieName = cookie.substring(0, equals).trim();
+                        String lower = cookieName.toLowerCase(Locale.ROOT);
+                        if (SECRET_COOKIE_HINTS.stream().anyMatch(lower::contains)) {
+                            add(cookie.substring(equals + 1).trim(), "Cookie " + cookieName, request);
+                        }
+                    }
+                }
+            } else if (SECRET_HEADER_HINTS.stream().anyMatch(name::contains)) {
+                add(value.trim(), "Header " + header.name(), request);
+            }
+            addJwts(value, request);
+        }
+        addJwts(request.path(), request);
+    }
+
+    private void addJwts(String text, HttpRequest request) {
+        if (!text.contains("eyJ")) {
+            return;
+        }
+        Matcher matcher = JWT_PATTERN.matcher(text);
+        while (matcher.find()) {
+            add(matcher.group(), "JWT", request);
+        }
+    }
+
+    private synchronized void add(String value, String kind, HttpRequest request) {
+        if (value.length() < MIN_SECRET_LENGTH || secrets.containsKey(value)) {
+            return;
+        }
+        Secret secret = new Secret(value, kind, request);
+        secrets.put(value, secret);
+        pending.add(secret);
+        if (secrets.size() > MAX_SECRETS) {
+            Iterator<String> oldest = secrets.keySet().iterator();
+            oldest.next();
+            oldest.remove();
+        }
+        Diagnostics.increment("secrets.collected");
+
+        if (scanTask == null || scanTask.isDone()) {
+            try {
+                scanTask = TaskManager.io("secret leak detector", this::scanLoop);
+            } catch (RejectedExecutionException e) {
+                // Unloaded
+            }
+        }
+    }
+
+    private void scanLoop() {
+        AhoCorasick all = null;
+        List<Secret> allSecrets = List.of();
+        AhoCorasick recent = null;
+        List<Secret> recentSecrets = new ArrayList<>();
+        long lastRebuild = 0;
+        // Tokens not yet looked for in older entries
+        List<Secret> lookBack = new ArrayList<>();
+        long lastLookBack = 0;
+        try {
+            while (true) {
+                Thread.sleep(SCAN_INTERVAL_MS);
+
+                List<Secret> added;
+                synchronized (this) {
+                    added = new ArrayList<>(pending);
+                    pending.clear();
+                }
+                if (!added.isEmpty()) {
+                    lookBack.addAll(added);
+                    recentSecrets.addAll(added);
+                    recent = compile(recentSecrets);
+                }
+                if (!lookBack.isEmpty() && System.currentTimeMillis() - lastLookBack >= REBUILD_INTERVAL_MS) {
+                    lookBack(lookBack);
+                    lookBack = new ArrayList<>();
+                    lastLookBack = System.currentTimeMillis();
+                }
+                if (!recentSecrets.isEmpty() && System.currentTimeMillis() - lastRebuild >= REBUILD_INTERVAL_MS) {
+                    synchronized (this) {
+                        allSecrets = new ArrayList<>(secrets.values());
+                    }
+                    all = compile(allSecrets);
+                    recent = null;
+                    recentSecrets = new ArrayList<>();
+                    lastRebuild = System.currentTimeMillis();
+                }
+
+                for (LogcatSession session : LogcatSession.getSessions()) {
+                    LogcatBuffer buffer = session.getBuffer();
+                    long cursor = cursors.getOrDefault(session.getSerial(), buffer.firstSeq());
+                    long end = buffer.nextSeq();
+                    if (all != null) {
+                        scan(session, all, allSecrets, cursor, end);
+                    }
+                    if (recent != null) {
+                        scan(session, recent, recentSecrets, cursor, end);
+                    }
+                    cursors.put(session.getSerial(), end);
+                }
+            }
+        } catch (InterruptedException e) {
+            // Unloading
+        }
+    }
+
+    /**
+     * Look for a batch of new tokens in the entries logged shortly before the earliest of their
+     * requests, up to the forward scan's cursor; one pass for the whole batch. Entries a token
+     * was already forward-scanned in may be matched again, which {@link #report} ignores.
+     */
+    private void lookBack(List<Secret> batch) {
+        long earliestMillis = Long.MAX_VALUE;
+        for (Secret secret : batch) {
+            earliestMillis = Math.min(earliestMillis, secret.seenMillis);
+        }
+        AhoCorasick automaton = compile(batch);
+        for (LogcatSession session : LogcatSession.getSessions()) {
+            // Devices not scanned yet will have every entry scanned for the batch
+            Long end = cursors.get(session.getSerial());
+            if (end == null) {
+                continue;
+            }
+            long from = session.getBuffer().seqAtOrAfter(earliestMillis * 1000L + session.getClockOffsetMicros() - RESCAN_MICROS);
+            if (from < end) {
+                scan(session, automaton, batch, from, end);
+            }
+        }
+        Diagnostics.increment("secrets.lookbacks");
+    }
+
+    private static AhoCorasick compile(List<Secret> list) {
+        List<byte[]> patterns = new ArrayList<>(list.size());
+        for (Secret secret : list) {
+            patterns.add(secret.value.getBytes(StandardCharsets.UTF_8));
+        }
+        return new AhoCorasick(patterns);
+    }
+
+    /**
+     * Look for the automaton's patterns in entries from <= seq < to of a session
+     */
+    private void scan(LogcatSession session, AhoCorasick automaton, List<Secret> patterns, long from, long to) {
+        List<long[]> hits = new ArrayList<>();
+        session.getBuffer().match(from, to, automaton, (seq, pattern) -> hits.add(new long[]{seq, pattern}));
+        for (long[] hit : hits) {
+            report(session, hit[0], patterns.get((int) hit[1]));
+        }
+    }
+
+    private void report(LogcatSession session, long seq, Secret secret) {
+        // An entry evicted before it could be shown doesn't count; a later one may still be reported
+        LogcatBuffer buffer = session.getBuffer();
+        if (!buffer.contains(seq)) {
+            return;
+        }
+        if (!reported.add(session.getSerial() + "\n" + secret.value)) {
+            return;
+        }
+        if (reported.size() > MAX_REPORTED) {
+            Iterator<String> oldest = reported.iterator();
+            oldest.next();
+            oldest.remove();
+        }
+        Diagnostics.increment("secrets.leaks");
+
+        String masked = mask(secret.value);
+        String tag = buffer.tag(seq);
+        String message = buffer.message(seq).replace(secret.value, masked);
+        String logged = String.format("%tF %<tT.%<tL %d %s %s: %s", buffer.timeMicros(seq) / 1000,
+                buffer.pid(seq), LogcatBuffer.levelLetter(buffer.priority(seq)), tag, message);
+
+        api.logging().logToOutput("⚠ " + secret.kind + " from " + secret.request.url() + " was logged on "
+                + session.getSerial() + " by " + tag + " (pid " + buffer.pid(seq) + ")");
+
+        String detail = "A token sent in this request (" + html(secret.kind) + ", <b>" + html(masked) + "</b>) "
+                + "appeared in the logcat output of device <b>" + html(session.getSerial()) + "</b>:<br><br>"
+                + "<code>" + html(logged) + "</code>";
+        api.siteMap().add(AuditIssue.auditIssue(
+                "Token leaked to device log",
+                detail,
+                "Do not log credentials or session tokens. Remove or redact the logging, and disable "
+                        + "HTTP client logging interceptors in release builds.",
+                secret.request.url(),
+                AuditIssueSeverity.MEDIUM,
+                AuditIssueConfidence.FIRM,
+                "Android logs can be read over adb, are collected in bug reports and crash tools, and "
+                        + "could be read by other apps on older Android versions.",
+                null,
+                AuditIssueSeverity.MEDIUM,
+                HttpRequestResponse.httpRequestResponse(secret.request, null)));
+    }
+
+    private static String mask(String value) {
+        return value.substring(0, 4) + "…" + value.substring(value.length() - 4);
+    }
+
+    private static String html(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
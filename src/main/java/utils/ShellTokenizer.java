@@ -0,0 +1,279 @@
+package utils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Splits a shell command line into words the way bash would, in a single pass.
+ * Supports single quotes, double quotes, ANSI-C $'...' strings, backslash escapes
+ * and line continuations. Runs in linear time and never backtracks.
+ */
+public class ShellTokenizer {
+
+    private ShellTokenizer() {
+    }
+
+    /**
+     * One word. Text is kept as chars; bytes written as \xNN or octal escapes in $'...' are
+     * kept as Latin-1 chars and marked, so {@link #bytes()} gives them back unchanged rather
+     * than UTF-8 encoded.
+     */
+    public static class Word {
+        private final String text;
+        // Indexes of chars that stand for raw bytes, or null when there are none
+        private final BitSet rawBytes;
+
+        Word(String text, BitSet rawBytes) {
+            this.text = text;
+            this.rawBytes = rawBytes;
+        }
+
+        public String text() {
+            return text;
+        }
+
+        public Word substring(int start) {
+            return new Word(text.substring(start), rawBytes != null ? rawBytes.get(start, text.length()) : null);
+        }
+
+        /**
+         * The word as it would be passed to a program: text as UTF-8, raw bytes as themselves
+         */
+        public byte[] bytes() {
+            return bytes(0, text.length());
+        }
+
+        public byte[] bytes(int start, int end) {
+            int raw = rawBytes != null ? rawBytes.nextSetBit(start) : -1;
+            if (raw < 0 || raw >= end) {
+                return text.substring(start, end).getBytes(StandardCharsets.UTF_8);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream(end - start);
+            int i = start;
+            while (raw >= 0 && raw < end) {
+                out.writeBytes(text.substring(i, raw).getBytes(StandardCharsets.UTF_8));
+                out.write(text.charAt(raw));
+                i = raw + 1;
+                raw = rawBytes.nextSetBit(i);
+            }
+            out.writeBytes(text.substring(i, end).getBytes(StandardCharsets.UTF_8));
+            return out.toByteArray();
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    /**
+     * A word being read; raw bytes are marked as they are appended
+     */
+    private static class WordBuilder {
+        private final StringBuilder text = new StringBuilder();
+        private BitSet rawBytes;
+
+        WordBuilder append(char c) {
+            text.append(c);
+            return this;
+        }
+
+        void append(CharSequence input, int start, int end) {
+            text.append(input, start, end);
+        }
+
+        void appendCodePoint(int codePoint) {
+            text.appendCodePoint(codePoint);
+        }
+
+        void appendRawByte(int value) {
+            if (rawBytes == null) {
+                rawBytes = new BitSet();
+            }
+            rawBytes.set(text.length());
+            text.append((char) (value & 0xFF));
+        }
+
+        Word build() {
+            Word word = new Word(text.toString(), rawBytes);
+            text.setLength(0);
+            rawBytes = null;
+            return word;
+        }
+    }
+
+    public static List<String> tokenize(CharSequence input) {
+        List<String> tokens = new ArrayList<>();
+        for (Word word : words(input)) {
+            tokens.add(word.text());
+        }
+        return tokens;
+    }
+
+    public static List<Word> words(CharSequence input) {
+        List<Word> tokens = new ArrayList<>();
+        WordBuilder word = new WordBuilder();
+        boolean inWord = false;
+        int length = input.length();
+        int i = 0;
+
+        while (i < length) {
+            char c = input.charAt(i);
+
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+                if (inWord) {
+                    tokens.add(word.build());
+                    inWord = false;
+                }
+                i++;
+            } else if (c == '\\') {
+                // Line continuation: backslash followed by (CR)LF disappears
+                if (i + 1 < length && input.charAt(i + 1) == '\n') {
+                    i += 2;
+                } else if (i + 2 < length && input.charAt(i + 1) == '\r' && input.charAt(i + 2) == '\n') {
+                    i += 3;
+                } else if (i + 1 < length) {
+                    word.append(input.charAt(i + 1));
+                    inWord = true;
+                    i += 2;
+                } else {
+                    i++;
+                }
+            } else if (c == '\'') {
+                int end = indexOf(input, '\'', i + 1);
+                word.append(input, i + 1, end);
+                inWord = true;
+                i = Math.min(end + 1, length);
+            } else if (c == '$' && i + 1 < length && input.charAt(i + 1) == '\'') {
+                i = readAnsiC(input, i + 2, word);
+                inWord = true;
+            } else if (c == '"') {
+                i = readDoubleQuoted(input, i + 1, word);
+                inWord = true;
+            } else {
+                word.append(c);
+                inWord = true;
+                i++;
+            }
+        }
+
+        if (inWord) {
+            tokens.add(word.build());
+        }
+        return tokens;
+    }
+
+    private static int indexOf(CharSequence input, char target, int from) {
+        for (int i = from; i < input.length(); i++) {
+            if (input.charAt(i) == target) {
+                return i;
+            }
+        }
+        // Unterminated quote: take the rest of the input
+        return input.length();
+    }
+
+    /**
+     * Inside double quotes a backslash only escapes $ ` " \ and newline
+     */
+    private static int readDoubleQuoted(CharSequence input, int i, WordBuilder word) {
+        int length = input.length();
+
+        while (i < length) {
+            char c = input.charAt(i);
+            if (c == '"') {
+                return i + 1;
+            }
+            if (c == '\\' && i + 1 < length) {
+                char next = input.charAt(i + 1);
+                if (next == '\n') {
+                    i += 2;
+                    continue;
+                }
+                if (next == '\r' && i + 2 < length && input.charAt(i + 2) == '\n') {
+                    i += 3;
+                    continue;
+                }
+                if (next == '$' || next == '`' || next == '"' || next == '\\') {
+                    word.append(next);
+                    i += 2;
+                    continue;
+                }
+            }
+            word.append(c);
+            i++;
+        }
+        return length;
+    }
+
+    /**
+     * ANSI-C quoting: $'...' with C-style escapes
+     */
+    private static int readAnsiC(CharSequence input, int i, WordBuilder word) {
+        int length = input.length();
+
+        while (i < length) {
+            char c = input.charAt(i);
+            if (c == '\'') {
+                return i + 1;
+            }
+            if (c != '\\' || i + 1 >= length) {
+                word.append(c);
+                i++;
+                continue;
+            }
+
+            char e = input.charAt(i + 1);
+            i += 2;
+            switch (e) {
+                case 'n' -> word.append('\n');
+                case 't' -> word.append('\t');
+                case 'r' -> word.append('\r');
+                case 'a' -> word.append('\u0007');
+                case 'b' -> word.append('\b');
+                case 'e', 'E' -> word.append('\u001B');
+                case 'f' -> word.append('\f');
+                case 'v' -> word.append('\u000B');
+                case 'x' -> i = appendEscapedValue(input, i, 16, 2, true, e, word);
+                case 'u' -> i = appendEscapedValue(input, i, 16, 4, false, e, word);
+                case 'U' -> i = appendEscapedValue(input, i, 16, 8, false, e, word);
+                case '0', '1', '2', '3', '4', '5', '6', '7' -> i = appendEscapedValue(input, i - 1, 8, 3, true, e, word);
+                default -> word.append(e); // \\ \' \" \? and unknown escapes
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Read up to maxDigits digits in the given radix starting at i and append the value,
+     * either as a raw byte (x and octal escapes) or as a Unicode code point (u and U escapes)
+     */
+    private static int appendEscapedValue(CharSequence input, int i, int radix, int maxDigits,
+                                          boolean isByte, char escape, WordBuilder word) {
+        int value = 0;
+        int digits = 0;
+
+        while (digits < maxDigits && i < input.length()) {
+            int d = Character.digit(input.charAt(i), radix);
+            if (d < 0) {
+                break;
+            }
+            value = value * radix + d;
+            digits++;
+            i++;
+        }
+
+        if (digits == 0) {
+            // Not an escape after all, keep it literally
+            word.append('\\').append(escape);
+        } else if (isByte) {
+            word.appendRawByte(value);
+        } else if (Character.isValidCodePoint(value)) {
+            word.appendCodePoint(value);
+        }
+        return i;
+    }
+}
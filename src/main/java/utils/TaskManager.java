@@ -0,0 +1,213 @@
+package utils;
+
+import burp.api.montoya.MontoyaApi;
+
+import javax.swing.*;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * All of BMA's background work. Blocking device and network I/O runs on virtual threads,
+ * CPU-bound work on a small platform pool. Tasks are named, report progress and can be
+ * cancelled; together with child processes and Swing timers they are released by
+ * {@link #shutdown(MontoyaApi)} when the extension is unloaded.
+ */
+public class TaskManager {
+    private static final int CPU_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
+
+    private static final ExecutorService IO = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("BMA-io-", 0).factory());
+    private static final ExecutorService CPU = Executors.newFixedThreadPool(CPU_THREADS,
+            Thread.ofPlatform().name("BMA-cpu-", 0).daemon(true).factory());
+
+    private static final Set<Task> TASKS = ConcurrentHashMap.newKeySet();
+    private static final Set<Process> PROCESSES = ConcurrentHashMap.newKeySet();
+    private static final Set<Timer> TIMERS = ConcurrentHashMap.newKeySet();
+
+    private TaskManager() {
+    }
+
+    /**
+     * A named background task
+     */
+    public static class Task {
+        private final String name;
+        private final long startNanos = System.nanoTime();
+        private volatile int progress;
+        private volatile Future<?> future;
+
+        Task(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Progress from 0 to 100, as last reported by the task
+         */
+        public int getProgress() {
+            return progress;
+        }
+
+        public void setProgress(int progress) {
+            this.progress = progress;
+        }
+
+        public long getElapsedMillis() {
+            return (System.nanoTime() - startNanos) / 1_000_000L;
+        }
+
+        public boolean isDone() {
+            Future<?> f = future;
+            return f != null && f.isDone();
+        }
+
+        public void cancel() {
+            Future<?> f = future;
+            if (f != null) {
+                f.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Run a SwingWorker on a virtual thread instead of Swing's shared worker pool.
+     * The worker's progress is reported on the task, and cancelling the task cancels the worker.
+     */
+    public static Task execute(String name, SwingWorker<?, ?> worker) {
+        Task task = register(name);
+        task.future = worker;
+        worker.addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName())) {
+                task.setProgress((Integer) e.getNewValue());
+            }
+        });
+        IO.execute(worker);
+        return task;
+    }
+
+    /**
+     * Run blocking work (adb, sockets, HTTP) on a virtual thread
+     */
+    public static Task io(String name, Runnable body) {
+        return submit(IO, name, body);
+    }
+
+    /**
+     * Run CPU-bound work on the platform pool
+     */
+    public static Task cpu(String name, Runnable body) {
+        return submit(CPU, name, body);
+    }
+
+    /**
+     * The shared CPU pool, for callers that fan work out through a CompletionService.
+     * Cancel your own futures when done; never shut it down.
+     */
+    public static ExecutorService cpuExecutor() {
+        return CPU;
+    }
+
+    public static int cpuThreads() {
+        return CPU_THREADS;
+    }
+
+    private static Task submit(ExecutorService executor, String name, Runnable body) {
+        Task task = register(name);
+        task.future = executor.submit(body);
+        return task;
+    }
+
+    private static Task register(String name) {
+        TASKS.removeIf(Task::isDone);
+        Task task = new Task(name);
+        TASKS.add(task);
+        return task;
+    }
+
+    /**
+     * Running tasks, oldest first
+     */
+    public static List<Task> getTasks() {
+        TASKS.removeIf(Task::isDone);
+        List<Task> tasks = new ArrayList<>(TASKS);
+        tasks.sort((a, b) -> Long.compare(a.startNanos, b.startNanos));
+        return tasks;
+    }
+
+    /**
+     * Destroy a child process on unload unless it has exited by then
+     */
+    public static void track(Process process) {
+        PROCESSES.add(process);
+        process.onExit().thenRun(() -> PROCESSES.remove(process));
+    }
+
+    /**
+     * A Swing timer that is stopped on unload
+     */
+    public static Timer timer(int delayMs, ActionListener listener) {
+        Timer timer = new Timer(delayMs, listener);
+        TIMERS.add(timer);
+        return timer;
+    }
+
+    /**
+     * Run an action on the Swing thread once, after a delay
+     */
+    public static void later(int delayMs, Runnable action) {
+        Timer timer = new Timer(delayMs, null);
+        timer.addActionListener(e -> {
+            TIMERS.remove(timer);
+            action.run();
+        });
+        timer.setRepeats(false);
+        TIMERS.add(timer);
+        timer.start();
+    }
+
+    /**
+     * Stop timers, cancel tasks, destroy BMA's own child processes (adb, logcat; emulators are
+     * started detached and keep running) and shut down the thread pools. Called from the extension unloading handler.
+     */
+    public static void shutdown(MontoyaApi api) {
+        TIMERS.forEach(Timer::stop);
+        TIMERS.clear();
+
+        List<Task> tasks = getTasks();
+        tasks.forEach(Task::cancel);
+
+        List<Process> processes = new ArrayList<>(PROCESSES);
+        processes.forEach(Process::destroy);
+        // Give them a second in total to exit cleanly
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        for (Process process : processes) {
+            try {
+                if (!process.waitFor(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        IO.shutdownNow();
+        CPU.shutdownNow();
+        try {
+            if (!IO.awaitTermination(2, TimeUnit.SECONDS) || !CPU.awaitTermination(2, TimeUnit.SECONDS)) {
+                api.logging().logToError("⚠ Some BMA tasks did not stop within 2 seconds");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        api.logging().logToOutput("BMA unloaded: cancelled " + tasks.size() + " task(s), stopped "
+                + processes.size() + " process(es)");
+    }
+}
@@ -0,0 +1,182 @@
+package utils;
+
+import burp.api.montoya.MontoyaApi;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Sends one app's web traffic to Burp without relying on the app honouring the proxy setting.
+ * On rooted devices, iptables rules matching the app's UID redirect its TCP 80/443 connections
+ * to a local port that adb reverse forwards to a Burp listener with invisible proxying enabled.
+ * Other apps and the system are not touched. Rules live in BMA's own chains, filled with one
+ * iptables-restore batch for IPv4 and one for IPv6. If the IPv6 batch is rejected, the previous
+ * IPv4 rules are put back, and the chains are hooked into OUTPUT only once both have loaded.
+ */
+public class TransparentProxy {
+    private static final String CHAIN = "BMA_APP";
+    private static final String SCRIPT_NAME = "bma-transparent.sh";
+    private static final String RULES_V4 = "bma-transparent.v4";
+    private static final String RULES_V6 = "bma-transparent.v6";
+    private static final int[] WEB_PORTS = {80, 443};
+
+    private final ADBHelper adbHelper;
+
+    public TransparentProxy(MontoyaApi api) {
+        this.adbHelper = new ADBHelper(api);
+    }
+
+    /**
+     * Redirect an app's web traffic to the Burp listener on a port, replacing any earlier
+     * redirect; blocks on adb, so call from a background task
+     */
+    public DeviceResult enable(String serial, String packageName, int port) {
+        return DeviceResult.run("transparent.enable", serial, () -> doEnable(serial, packageName, port));
+    }
+
+    /**
+     * Remove the redirect and its port mapping
+     */
+    public DeviceResult disable(String serial) {
+        return DeviceResult.run("transparent.disable", serial, () -> {
+            adb(serial, "root");
+            adb(serial, "wait-for-device");
+            String output = adbHelper.runRootScript(serial, SCRIPT_NAME, removeScript(), Map.of());
+            PortMappings.set(serial, "transparent", null);
+            return output.contains("BMA_REMOVED")
+                    ? DeviceResult.ok(serial, "redirect removed")
+                    : DeviceResult.failed(serial, failure(output));
+        });
+    }
+
+    private DeviceResult doEnable(String serial, String packageName, int port) throws IOException {
+        // pm matches substrings, so pick the line for exactly this package; one UID per user
+        Matcher matcher = Pattern.compile("^package:" + Pattern.quote(packageName) + " uid:([\\d,]+)", Pattern.MULTILINE)
+                .matcher(adb(serial, "shell", "pm", "list", "packages", "-U", packageName));
+        if (!matcher.find()) {
+            return DeviceResult.failed(serial, packageName + " is not installed");
+        }
+        List<String> uids = List.of(matcher.group(1).split(","));
+
+        adb(serial, "root");
+        adb(serial, "wait-for-device");
+
+        PortMappings.Change change = PortMappings.set(serial, "transparent", PortMappings.Mapping.reverse(port, port));
+        if (!change.isSuccess()) {
+            return DeviceResult.failed(serial, "adb reverse failed: " + change);
+        }
+
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        files.put(RULES_V4, ipv4Rules(uids, port).getBytes(StandardCharsets.UTF_8));
+        files.put(RULES_V6, ipv6Rules(uids).getBytes(StandardCharsets.UTF_8));
+        String output = adbHelper.runRootScript(serial, SCRIPT_NAME, applyScript(), files);
+        if (!output.contains("BMA_APPLIED")) {
+            return DeviceResult.failed(serial, failure(output));
+        }
+        Diagnostics.increment("transparent.enabled");
+        return DeviceResult.ok(serial, "redirecting " + packageName + " (uid " + String.join(",", uids)
+                + ") TCP 80/443 to Burp on port " + port + "; QUIC and IPv6 web traffic are blocked so the app falls back");
+    }
+
+    /**
+     * IPv4: redirect the app's web connections to the reverse-forwarded port, and reject its
+     * QUIC so it uses TCP
+     */
+    static String ipv4Rules(List<String> uids, int port) {
+        List<String> lines = new ArrayList<>();
+        lines.add("*nat");
+        lines.add(":" + CHAIN + " - [0:0]");
+        for (String uid : uids) {
+            for (int webPort : WEB_PORTS) {
+                lines.add("-A " + CHAIN + " ! -o lo -p tcp --dport " + webPort + " -m owner --uid-owner " + uid
+                        + " -j REDIRECT --to-ports " + port);
+            }
+        }
+        lines.add("COMMIT");
+        lines.add("*filter");
+        lines.add(":" + CHAIN + " - [0:0]");
+        for (String uid : uids) {
+            lines.add("-A " + CHAIN + " -p udp --dport 443 -m owner --uid-owner " + uid + " -j REJECT");
+        }
+        lines.add("COMMIT");
+        return String.join("\n", lines) + "\n";
+    }
+
+    /**
+     * IPv6: adb reverse only listens on IPv4 loopback, so reject the app's IPv6 web traffic
+     * and let it fall back to IPv4
+     */
+    static String ipv6Rules(List<String> uids) {
+        List<String> lines = new ArrayList<>();
+        lines.add("*filter");
+        lines.add(":" + CHAIN + " - [0:0]");
+        for (String uid : uids) {
+            for (int webPort : WEB_PORTS) {
+                lines.add("-A " + CHAIN + " ! -o lo -p tcp --dport " + webPort + " -m owner --uid-owner " + uid
+                        + " -j REJECT --reject-with tcp-reset");
+            }
+            lines.add("-A " + CHAIN + " -p udp --dport 443 -m owner --uid-owner " + uid + " -j REJECT");
+        }
+        lines.add("COMMIT");
+        return String.join("\n", lines) + "\n";
+    }
+
+    /**
+     * Load both batches as one change (declaring a chain in a --noflush restore empties it, so
+     * re-applying replaces the old rules), then hook the chains into OUTPUT once. The IPv4 chains
+     * are saved first and put back if the IPv6 batch fails. runRootScript's trap removes the
+     * batch files, also when a step fails.
+     */
+    private static String applyScript() {
+        List<String> lines = new ArrayList<>();
+        lines.add("set -e");
+        // Older iptables-restore has no -w; probe with an empty batch so real errors still show
+        lines.add("W=-w; iptables-restore -w -n < /dev/null 2>/dev/null || W=");
+        lines.add("hook() { $1 -w -t $2 -C OUTPUT -j " + CHAIN + " 2>/dev/null || $1 -w -t $2 -I OUTPUT 1 -j " + CHAIN + "; }");
+        lines.add("saved() { echo \"*$1\"; echo ':" + CHAIN + " - [0:0]'; iptables -w -t $1 -S " + CHAIN
+                + " 2>/dev/null | grep '^-A ' || true; echo COMMIT; }");
+        lines.add("OLD_V4=\"$(saved nat; saved filter)\"");
+        lines.add("ERR=$(iptables-restore $W -n < " + RULES_V4 + " 2>&1) || { echo \"iptables-restore failed: $ERR\"; exit 1; }");
+        lines.add("if ! ERR=$(ip6tables-restore $W -n < " + RULES_V6 + " 2>&1); then");
+        lines.add("  echo \"$OLD_V4\" | iptables-restore $W -n");
+        lines.add("  echo \"ip6tables-restore failed: $ERR (IPv4 rules rolled back)\"");
+        lines.add("  exit 1");
+        lines.add("fi");
+        lines.add("hook iptables nat");
+        lines.add("hook iptables filter");
+        lines.add("hook ip6tables filter");
+        lines.add("echo BMA_APPLIED");
+        return String.join("\n", lines) + "\n";
+    }
+
+    /**
+     * Unhook first, so traffic flows normally from that instant, then drop the chains
+     */
+    private static String removeScript() {
+        List<String> lines = new ArrayList<>();
+        lines.add("unhook() { while $1 -w -t $2 -D OUTPUT -j " + CHAIN + " 2>/dev/null; do :; done; "
+                + "$1 -w -t $2 -F " + CHAIN + " 2>/dev/null; $1 -w -t $2 -X " + CHAIN + " 2>/dev/null; true; }");
+        lines.add("unhook iptables nat");
+        lines.add("unhook iptables filter");
+        lines.add("unhook ip6tables filter");
+        lines.add("echo BMA_REMOVED");
+        return String.join("\n", lines) + "\n";
+    }
+
+    private static String failure(String output) {
+        if (output.contains(ADBHelper.NO_ROOT)) {
+            return "root is required (adb root or su)";
+        }
+        return output.trim();
+    }
+
+    private String adb(String serial, String... command) {
+        return adbHelper.executeCommandOn(serial, command);
+    }
+}
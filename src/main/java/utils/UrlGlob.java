@@ -0,0 +1,243 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * curl-style URL globbing: {a,b,c} sets and [1-100], [001-100], [a-z] and [1-100:10]
+ * ranges. Variants are computed on demand from their index, so a glob with
+ * millions of combinations costs no more memory than one with two.
+ */
+public class UrlGlob implements Iterable<String> {
+    private static final Pattern NUMERIC_RANGE = Pattern.compile("(\\d+)-(\\d+)(?::(\\d+))?");
+    private static final Pattern ALPHA_RANGE = Pattern.compile("([a-zA-Z])-([a-zA-Z])(?::(\\d+))?");
+
+    private final List<Segment> segments;
+    private final long size;
+
+    private interface Segment {
+        long size();
+
+        String get(long index);
+    }
+
+    private static class Literal implements Segment {
+        private final String text;
+
+        Literal(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public long size() {
+            return 1;
+        }
+
+        @Override
+        public String get(long index) {
+            return text;
+        }
+    }
+
+    private static class Alternatives implements Segment {
+        private final String[] values;
+
+        Alternatives(String[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public long size() {
+            return values.length;
+        }
+
+        @Override
+        public String get(long index) {
+            return values[(int) index];
+        }
+    }
+
+    private static class NumericRange implements Segment {
+        private final long start;
+        private final long step;
+        private final long count;
+        private final int width;
+
+        NumericRange(long start, long end, long step, int width) {
+            this.start = start;
+            this.step = step;
+            this.count = (end - start) / step + 1;
+            this.width = width;
+        }
+
+        @Override
+        public long size() {
+            return count;
+        }
+
+        @Override
+        public String get(long index) {
+            String value = Long.toString(start + index * step);
+            // [001-100] keeps the zero padding of the start value
+            return value.length() < width ? "0".repeat(width - value.length()) + value : value;
+        }
+    }
+
+    private static class AlphaRange implements Segment {
+        private final char start;
+        private final int step;
+        private final long count;
+
+        AlphaRange(char start, char end, int step) {
+            this.start = start;
+            this.step = step;
+            this.count = (end - start) / step + 1;
+        }
+
+        @Override
+        public long size() {
+            return count;
+        }
+
+        @Override
+        public String get(long index) {
+            return String.valueOf((char) (start + index * step));
+        }
+    }
+
+    private UrlGlob(List<Segment> segments) throws Exception {
+        this.segments = segments;
+        long total = 1;
+        for (Segment segment : segments) {
+            total = Math.multiplyExact(total, segment.size());
+        }
+        this.size = total;
+    }
+
+    /**
+     * The URL itself as the only variant, for commands run with --globoff
+     */
+    public static UrlGlob literal(String url) throws Exception {
+        return new UrlGlob(List.of(new Literal(url)));
+    }
+
+    public static UrlGlob parse(String url) throws Exception {
+        List<Segment> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+
+        for (int i = 0; i < url.length(); i++) {
+            char c = url.charAt(i);
+
+            if (c == '\\' && i + 1 < url.length() && "{}[]".indexOf(url.charAt(i + 1)) >= 0) {
+                literal.append(url.charAt(++i));
+                continue;
+            }
+
+            Segment segment = null;
+            int close = -1;
+            if (c == '{') {
+                close = url.indexOf('}', i + 1);
+                if (close > i) {
+                    segment = new Alternatives(url.substring(i + 1, close).split(",", -1));
+                }
+            } else if (c == '[') {
+                close = url.indexOf(']', i + 1);
+                if (close > i) {
+                    // Brackets that are not a range, such as an IPv6 host, stay literal
+                    segment = parseRange(url.substring(i + 1, close));
+                }
+            }
+
+            if (segment == null) {
+                literal.append(c);
+                continue;
+            }
+
+            if (literal.length() > 0) {
+                segments.add(new Literal(literal.toString()));
+                literal.setLength(0);
+            }
+            segments.add(segment);
+            i = close;
+        }
+
+        if (literal.length() > 0) {
+            segments.add(new Literal(literal.toString()));
+        }
+        return new UrlGlob(segments);
+    }
+
+    private static Segment parseRange(String range) throws Exception {
+        Matcher numeric = NUMERIC_RANGE.matcher(range);
+        if (numeric.matches()) {
+            long start = Long.parseLong(numeric.group(1));
+            long end = Long.parseLong(numeric.group(2));
+            long step = numeric.group(3) != null ? Long.parseLong(numeric.group(3)) : 1;
+            if (end < start || step < 1) {
+                throw new Exception("Invalid URL range [" + range + "]");
+            }
+            int width = numeric.group(1).startsWith("0") ? numeric.group(1).length() : 0;
+            return new NumericRange(start, end, step, width);
+        }
+
+        Matcher alpha = ALPHA_RANGE.matcher(range);
+        if (alpha.matches()) {
+            char start = alpha.group(1).charAt(0);
+            char end = alpha.group(2).charAt(0);
+            int step = alpha.group(3) != null ? Integer.parseInt(alpha.group(3)) : 1;
+            if (end < start || step < 1) {
+                throw new Exception("Invalid URL range [" + range + "]");
+            }
+            return new AlphaRange(start, end, step);
+        }
+        return null;
+    }
+
+    /**
+     * Number of URLs the glob expands to
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * The URL at the given position; the last glob varies fastest, as in curl
+     */
+    public String get(long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Variant " + index + " of " + size);
+        }
+
+        String[] parts = new String[segments.size()];
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            Segment segment = segments.get(i);
+            parts[i] = segment.get(index % segment.size());
+            index /= segment.size();
+        }
+        return String.join("", parts);
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<>() {
+            private long next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public String next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                return get(next++);
+            }
+        };
+    }
+}
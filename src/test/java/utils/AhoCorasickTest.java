@@ -0,0 +1,90 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AhoCorasickTest {
+    private static AhoCorasick automaton(String... patterns) {
+        List<byte[]> list = new ArrayList<>();
+        for (String pattern : patterns) {
+            list.add(pattern.getBytes(StandardCharsets.UTF_8));
+        }
+        return new AhoCorasick(list);
+    }
+
+    /**
+     * Every match as "pattern@end", sorted
+     */
+    private static List<String> matches(AhoCorasick automaton, byte[] input) {
+        List<String> found = new ArrayList<>();
+        int state = 0;
+        for (int i = 0; i < input.length; i++) {
+            state = automaton.step(state, input[i], i, (pattern, end) ->
+                    found.add(new String(automaton.pattern(pattern), StandardCharsets.UTF_8) + "@" + end));
+        }
+        Collections.sort(found);
+        return found;
+    }
+
+    private static List<String> matches(AhoCorasick automaton, String input) {
+        return matches(automaton, input.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void classicOverlappingPatterns() {
+        AhoCorasick automaton = automaton("he", "she", "his", "hers");
+        assertEquals(List.of("he@4", "hers@6", "she@4"), matches(automaton, "ushers"));
+    }
+
+    @Test
+    void patternsThatAreSuffixesOfOthers() {
+        AhoCorasick automaton = automaton("abc", "bc", "c");
+        assertEquals(List.of("abc@3", "bc@3", "c@3", "c@5"), matches(automaton, "abcxc"));
+    }
+
+    @Test
+    void patternsThatArePrefixesOfOthers() {
+        AhoCorasick automaton = automaton("to", "token", "tokens");
+        assertEquals(List.of("to@2", "token@5", "tokens@6"), matches(automaton, "tokens"));
+    }
+
+    @Test
+    void selfOverlappingPattern() {
+        assertEquals(List.of("aa@2", "aa@3", "aa@4"), matches(automaton("aa"), "aaaa"));
+    }
+
+    @Test
+    void failureLinksAfterPartialMatch() {
+        AhoCorasick automaton = automaton("abcd", "bce");
+        assertEquals(List.of("bce@4"), matches(automaton, "abce"));
+        assertEquals(List.of("abcd@5"), matches(automaton, "aabcd"));
+    }
+
+    @Test
+    void highBytes() {
+        List<byte[]> patterns = List.of(new byte[]{(byte) 0xFF, 0x00}, new byte[]{(byte) 0x80});
+        AhoCorasick automaton = new AhoCorasick(patterns);
+        List<Integer> found = new ArrayList<>();
+        int state = 0;
+        byte[] input = {0x01, (byte) 0xFF, 0x00, (byte) 0x80, (byte) 0xFF};
+        for (int i = 0; i < input.length; i++) {
+            state = automaton.step(state, input[i], i, (pattern, end) -> found.add(pattern * 100 + (int) end));
+        }
+        assertEquals(List.of(3, 104), found);
+    }
+
+    @Test
+    void emptyPatternsAndNoMatches() {
+        AhoCorasick automaton = automaton("", "secret");
+        assertEquals(2, automaton.size());
+        assertEquals(List.of(), matches(automaton, "nothing here but secre"));
+        assertEquals(List.of("secret@6"), matches(automaton, "secret"));
+        assertEquals(List.of(), matches(automaton(), "anything"));
+    }
+}
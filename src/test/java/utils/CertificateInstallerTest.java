@@ -0,0 +1,55 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CertificateInstallerTest {
+    // Self-signed EC fixture, subject C=GB/ST=PortSwigger/L=PortSwigger/O=PortSwigger/OU=PortSwigger CA/CN=PortSwigger CA
+    // (not Burp's own CA, whose country is PortSwigger); "openssl x509 -noout -subject_hash_old" prints 6b42a0db
+    private static final String PORTSWIGGER_CA = """
+            -----BEGIN CERTIFICATE-----
+            MIICWDCCAf+gAwIBAgIUOGYis0ZSgYzT6eegtP6elo1dVV8wCgYIKoZIzj0EAwIw
+            gYExCzAJBgNVBAYTAkdCMRQwEgYDVQQIDAtQb3J0U3dpZ2dlcjEUMBIGA1UEBwwL
+            UG9ydFN3aWdnZXIxFDASBgNVBAoMC1BvcnRTd2lnZ2VyMRcwFQYDVQQLDA5Qb3J0
+            U3dpZ2dlciBDQTEXMBUGA1UEAwwOUG9ydFN3aWdnZXIgQ0EwHhcNMjYxMDE5MTcz
+            OTU0WhcNMzYxMDE2MTczOTU0WjCBgTELMAkGA1UEBhMCR0IxFDASBgNVBAgMC1Bv
+            cnRTd2lnZ2VyMRQwEgYDVQQHDAtQb3J0U3dpZ2dlcjEUMBIGA1UECgwLUG9ydFN3
+            aWdnZXIxFzAVBgNVBAsMDlBvcnRTd2lnZ2VyIENBMRcwFQYDVQQDDA5Qb3J0U3dp
+            Z2dlciBDQTBZMBMGByqGSM49AgEGCCqGSM49AwEHA0IABFIxGviukuaylRtQp+IJ
+            V8u6r0Ir8D3eRr5MqzrFSZTMTHp7ihgD/sYtLldaVaV6zJ6c++IIKHADhqBr0jSP
+            IuOjUzBRMB0GA1UdDgQWBBRxKKzYRaSq9YtPuSpJlY0jmX3hPzAfBgNVHSMEGDAW
+            gBRxKKzYRaSq9YtPuSpJlY0jmX3hPzAPBgNVHRMBAf8EBTADAQH/MAoGCCqGSM49
+            BAMCA0cAMEQCIAZnK/V0QrH6ljpYw7qrlsVIWOeVMZS3oFKjow1cZXcVAiAfcr6Q
+            PJPN8AYkyWbdCopTs+Nz6Nrw33Q2OyNYbQaN8g==
+            -----END CERTIFICATE-----
+            """;
+
+    private static X509Certificate certificate(String pem) throws Exception {
+        return (X509Certificate) CertificateFactory.getInstance("X.509")
+                .generateCertificate(new ByteArrayInputStream(pem.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    void subjectHashOldMatchesOpenssl() throws Exception {
+        assertEquals("6b42a0db", CertificateInstaller.subjectHashOld(certificate(PORTSWIGGER_CA)));
+    }
+
+    @Test
+    void pemRoundTrip() throws Exception {
+        X509Certificate original = certificate(PORTSWIGGER_CA);
+        String pem = CertificateInstaller.toPem(original);
+        assertTrue(pem.startsWith("-----BEGIN CERTIFICATE-----\n"), pem);
+        assertTrue(pem.endsWith("\n-----END CERTIFICATE-----\n"), pem);
+        for (String line : pem.split("\n")) {
+            assertTrue(line.length() <= 64, line);
+        }
+        assertEquals(original, certificate(pem));
+    }
+}
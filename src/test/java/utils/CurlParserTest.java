@@ -0,0 +1,163 @@
+package utils;
+
+import burp.api.montoya.http.message.requests.HttpRequest;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CurlParserTest {
+    private static final Duration LINEAR_BOUND = Duration.ofSeconds(5);
+
+    private final CurlParser parser = new CurlParser();
+
+    @BeforeAll
+    static void installStubs() {
+        MontoyaStubs.install();
+    }
+
+    private String raw(String command) throws Exception {
+        HttpRequest request = parser.parse(command, null);
+        return new String(request.toByteArray().getBytes(), StandardCharsets.ISO_8859_1);
+    }
+
+    private static String head(String raw) {
+        return raw.substring(0, raw.indexOf("\r\n\r\n") + 2);
+    }
+
+    private static String body(String raw) {
+        return raw.substring(raw.indexOf("\r\n\r\n") + 4);
+    }
+
+    @Test
+    void methodHeadersAndUrl() throws Exception {
+        String raw = raw("curl -X PUT -H 'A: b' -H \"C:d\" 'https://example.com:8443/p?q=1'");
+        assertEquals("PUT /p?q=1 HTTP/1.1\r\nHost: example.com:8443\r\nA: b\r\nC: d\r\n", head(raw));
+    }
+
+    @Test
+    void schemeDefaultsToHttp() throws Exception {
+        assertTrue(raw("curl example.com").startsWith("GET / HTTP/1.1\r\nHost: example.com\r\n"));
+    }
+
+    @Test
+    void combinedShortOptionsWithAttachedValue() throws Exception {
+        String raw = raw("curl -sSLXPATCH -HX-A:1 http://h/");
+        assertTrue(raw.startsWith("PATCH / HTTP/1.1\r\n"), raw);
+        assertTrue(raw.contains("\r\nX-A: 1\r\n"), raw);
+    }
+
+    @Test
+    void dataImpliesFormPost() throws Exception {
+        String raw = raw("curl http://h/ -d a=1 --data-raw 'b=@2'");
+        assertTrue(raw.startsWith("POST / HTTP/1.1\r\n"), raw);
+        assertTrue(raw.contains("Content-Type: application/x-www-form-urlencoded\r\n"), raw);
+        assertTrue(raw.contains("Content-Length: 8\r\n"), raw);
+        assertEquals("a=1&b=@2", body(raw));
+    }
+
+    @Test
+    void jsonSetsHeadersAndConcatenates() throws Exception {
+        String raw = raw("curl --json '{\"a\":' --json '1}' http://h/");
+        assertTrue(raw.contains("Content-Type: application/json\r\n"), raw);
+        assertTrue(raw.contains("Accept: application/json\r\n"), raw);
+        assertEquals("{\"a\":1}", body(raw));
+    }
+
+    @Test
+    void getMovesDataToQuery() throws Exception {
+        String raw = raw("curl -G -d a=1 -d b=2 'http://h/p?x=0'");
+        assertTrue(raw.startsWith("GET /p?x=0&a=1&b=2 HTTP/1.1\r\n"), raw);
+        assertEquals("", body(raw));
+    }
+
+    @Test
+    void getPercentEncodesRawBytesInQuery() throws Exception {
+        String raw = raw("curl -G --data-binary $'a=\\xff\\u00e9 b#' http://h/p");
+        assertTrue(raw.startsWith("GET /p?a=%FF%C3%A9%20b%23 HTTP/1.1\r\n"), raw);
+    }
+
+    @Test
+    void dataUrlencode() throws Exception {
+        assertEquals("q=a%20b%26c", body(raw("curl --data-urlencode 'q=a b&c' http://h/")));
+    }
+
+    @Test
+    void headAndExplicitMethodWins() throws Exception {
+        assertTrue(raw("curl -I http://h/").startsWith("HEAD / HTTP/1.1\r\n"));
+        assertTrue(raw("curl -X DELETE -d a http://h/").startsWith("DELETE / HTTP/1.1\r\n"));
+    }
+
+    @Test
+    void cookieUserAgentAndReferer() throws Exception {
+        String raw = raw("curl -b 'a=1' -A agent -e http://r/ http://h/");
+        assertTrue(raw.contains("Cookie: a=1\r\nUser-Agent: agent\r\nReferer: http://r/\r\n"), raw);
+    }
+
+    @Test
+    void optionValuesAreNotTakenAsUrl() throws Exception {
+        assertTrue(raw("curl -o out.txt --max-time 5 -w '%{http_code}' --compressed http://h/x").startsWith("GET /x "));
+    }
+
+    @Test
+    void doubleDashEndsOptions() throws Exception {
+        assertTrue(raw("curl -- http://h/-x").startsWith("GET /-x "));
+    }
+
+    @Test
+    void missingUrlIsRejected() {
+        assertThrows(Exception.class, () -> parser.parse("curl -s", null));
+    }
+
+    @Test
+    void globOffIsRecorded() throws Exception {
+        assertTrue(parser.template("curl -g 'http://h/?q={\"a\":1,\"b\":2}'").isGlobOff());
+        assertTrue(parser.template("curl -sg http://h/").isGlobOff());
+        assertTrue(parser.template("curl --globoff http://h/").isGlobOff());
+        assertFalse(parser.template("curl http://h/{a,b}").isGlobOff());
+    }
+
+    @Test
+    void ansiCByteEscapesStayRawInBodies() throws Exception {
+        byte[] expected = {0x00, (byte) 0x89, (byte) 0xff};
+        for (String option : new String[]{"--data-binary", "--data-raw", "-d", "--json"}) {
+            String raw = raw("curl " + option + " $'\\x00\\x89\\xff' http://h/");
+            assertArrayEquals(expected, body(raw).getBytes(StandardCharsets.ISO_8859_1), option);
+            assertTrue(raw.contains("Content-Length: 3\r\n"), raw);
+        }
+    }
+
+    @Test
+    void ansiCOctalBytesAndTextMix() throws Exception {
+        String raw = raw("curl --data-binary $'\\x89PNG\\r\\n\\032\\n\\u00e9' http://h/");
+        byte[] expected = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n', (byte) 0xc3, (byte) 0xa9};
+        assertArrayEquals(expected, body(raw).getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    void urlencodedRawBytes() throws Exception {
+        assertEquals("b=%FF%C3%A9", body(raw("curl --data-urlencode $'b=\\xff\\u00e9' http://h/")));
+    }
+
+    @Test
+    void hundredThousandShortOptionsAreLinear() {
+        String separate = "curl " + "-s ".repeat(100_000) + "http://h/";
+        assertTimeoutPreemptively(LINEAR_BOUND, () -> parser.parse(separate, null));
+        String combined = "curl -" + "s".repeat(100_000) + " http://h/";
+        assertTimeoutPreemptively(LINEAR_BOUND, () -> parser.parse(combined, null));
+    }
+
+    @Test
+    void manyHeadersAreLinear() {
+        String command = "curl http://h/" + " -H 'X-A: 1'".repeat(100_000);
+        assertTimeoutPreemptively(LINEAR_BOUND, () -> parser.parse(command, null));
+    }
+}
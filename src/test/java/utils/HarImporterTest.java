@@ -0,0 +1,135 @@
+package utils;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HarImporterTest {
+    private static final String GET_ENTRY = "{\"request\": {\"method\": \"GET\", \"url\": \"https://example.com/a?b=1\","
+            + " \"headers\": [{\"name\": \":authority\", \"value\": \"example.com\"}, {\"name\": \"X-A\", \"value\": \"1\"}]},"
+            + " \"response\": {\"status\": 200, \"statusText\": \"OK\", \"headers\": [],"
+            + " \"content\": {\"text\": \"aGk=\", \"encoding\": \"base64\"}}, \"timings\": {\"wait\": 1}}";
+
+    @TempDir
+    Path tempDir;
+
+    private final List<String> calls = new ArrayList<>();
+    private final List<HttpRequestResponse> added = new ArrayList<>();
+    private final List<String> log = new ArrayList<>();
+
+    @BeforeAll
+    static void installStubs() {
+        MontoyaStubs.install();
+    }
+
+    /**
+     * MontoyaApi whose site map and Repeater note what they are given
+     */
+    private MontoyaApi api() {
+        return stub(MontoyaApi.class);
+    }
+
+    private <T> T stub(Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getName().equals("add") || method.getName().equals("sendToRepeater")) {
+                calls.add(method.getName());
+                if (args[0] instanceof HttpRequestResponse item) {
+                    added.add(item);
+                }
+                return null;
+            }
+            return method.getReturnType().isInterface() ? stub(method.getReturnType()) : null;
+        }));
+    }
+
+    private int importHar(String json, HarImporter.Destination destination) throws Exception {
+        Path har = tempDir.resolve("test.har");
+        Files.writeString(har, json, StandardCharsets.UTF_8);
+        return new HarImporter(api()).importHar(har, destination, log::add, progress -> { }, () -> false);
+    }
+
+    private static String har(String... entries) {
+        return "{\"log\": {\"version\": \"1.2\", \"creator\": {\"name\": \"t\"}, \"entries\": ["
+                + String.join(", ", entries) + "]}}";
+    }
+
+    @Test
+    void importsIntoTheSiteMap() throws Exception {
+        String post = "{\"request\": {\"method\": \"POST\", \"url\": \"http://example.com/form\", \"headers\": [],"
+                + " \"postData\": {\"mimeType\": \"application/x-www-form-urlencoded\","
+                + " \"params\": [{\"name\": \"a b\", \"value\": \"1&2\"}, null]}}, \"response\": {\"status\": 0}}";
+        assertEquals(2, importHar(har(GET_ENTRY, post), HarImporter.Destination.SITE_MAP));
+        assertEquals(List.of("add", "add"), calls);
+        assertEquals("✓ Imported 2 entries", log.get(log.size() - 1));
+    }
+
+    @Test
+    void nullOptionalMembersAreSkipped() throws Exception {
+        String nulls = "{\"request\": {\"method\": \"POST\", \"url\": \"http://example.com/\", \"headers\": null,"
+                + " \"postData\": null}, \"response\": {\"status\": 204, \"headers\": [null], \"content\": null}}";
+        String nullParams = "{\"request\": {\"method\": \"POST\", \"url\": \"http://example.com/\","
+                + " \"postData\": {\"params\": null, \"text\": null}}, \"response\": null}";
+        assertEquals(3, importHar(har(nulls, nullParams, GET_ENTRY), HarImporter.Destination.SITE_MAP));
+        assertEquals("✓ Imported 3 entries", log.get(log.size() - 1));
+    }
+
+    @Test
+    void badEntriesAreCountedWithoutAbortingTheImport() throws Exception {
+        String noUrl = "{\"request\": {\"method\": \"GET\"}}";
+        String badUrl = "{\"request\": {\"url\": \"not a url\"}}";
+        assertEquals(1, importHar(har(noUrl, "null", badUrl, GET_ENTRY), HarImporter.Destination.SITE_MAP));
+        assertEquals(List.of("add"), calls);
+        assertTrue(log.contains("✗ Entry 1: Entry has no request URL"), log.toString());
+        assertTrue(log.contains("✗ Entry 2: Entry has no request URL"), log.toString());
+        assertEquals("✓ Imported 1 entries, 3 failed", log.get(log.size() - 1));
+    }
+
+    @Test
+    void nullMethodIsCountedAsFailed() throws Exception {
+        String nullMethod = "{\"request\": {\"method\": null, \"url\": \"http://example.com/\"}}";
+        assertEquals(1, importHar(har(nullMethod, GET_ENTRY), HarImporter.Destination.SITE_MAP));
+        assertTrue(log.contains("✗ Entry 1: Entry has no request method"), log.toString());
+        assertEquals("✓ Imported 1 entries, 1 failed", log.get(log.size() - 1));
+    }
+
+    @Test
+    void contentLengthFollowsTheRebuiltBody() throws Exception {
+        String post = "{\"request\": {\"method\": \"POST\", \"url\": \"http://example.com/form\","
+                + " \"headers\": [{\"name\": \"Content-Length\", \"value\": \"99\"}],"
+                + " \"postData\": {\"params\": [{\"name\": \"a b\", \"value\": \"1&2\"}, {\"name\": \"c\"}]}}}";
+        assertEquals(1, importHar(har(post), HarImporter.Destination.SITE_MAP));
+        assertEquals("POST /form HTTP/1.1\r\nHost: example.com\r\nContent-Length: 12\r\n\r\na+b=1%262&c=",
+                added.get(0).request().toString());
+    }
+
+    @Test
+    void repeaterImportsAreCapped() throws Exception {
+        List<String> entries = new ArrayList<>();
+        for (int i = 0; i < HarImporter.MAX_REPEATER_ENTRIES + 20; i++) {
+            entries.add(GET_ENTRY);
+        }
+        assertEquals(HarImporter.MAX_REPEATER_ENTRIES,
+                importHar(har(entries.toArray(new String[0])), HarImporter.Destination.REPEATER));
+        assertEquals(HarImporter.MAX_REPEATER_ENTRIES, calls.size());
+        assertTrue(log.get(log.size() - 1).contains("Repeater limit"), log.get(log.size() - 1));
+    }
+
+    @Test
+    void membersOutsideEntriesAreSkipped() throws Exception {
+        String json = "{\"before\": {\"log\": []}, \"log\": {\"pages\": [{\"id\": \"p\"}], \"entries\": ["
+                + GET_ENTRY + "], \"comment\": \"x\"}, \"after\": 1}";
+        assertEquals(1, importHar(json, HarImporter.Destination.SITE_MAP));
+    }
+}
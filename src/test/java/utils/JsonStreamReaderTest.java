@@ -0,0 +1,90 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JsonStreamReaderTest {
+    private static JsonStreamReader reader(String json) {
+        return new JsonStreamReader(new StringReader(json));
+    }
+
+    @Test
+    void objectsArraysAndScalars() throws Exception {
+        JsonStreamReader json = reader("{\"a\": [1, 2.5, -3e2], \"b\": true, \"c\": null, \"d\": \"x\"}");
+        json.beginObject();
+        assertEquals("a", json.nextName());
+        json.beginArray();
+        assertEquals(1, json.nextLong());
+        assertEquals(2, json.nextLong());
+        assertEquals(-300, json.nextLong());
+        assertFalse(json.hasNext());
+        json.endArray();
+        assertEquals("b", json.nextName());
+        assertEquals(JsonStreamReader.Token.BOOLEAN, json.peek());
+        assertEquals("true", json.nextString());
+        assertEquals("c", json.nextName());
+        assertEquals(JsonStreamReader.Token.NULL, json.peek());
+        assertNull(json.nextString());
+        assertEquals("d", json.nextName());
+        assertEquals("x", json.nextString());
+        json.endObject();
+        assertEquals(JsonStreamReader.Token.END, json.peek());
+    }
+
+    @Test
+    void escapes() throws Exception {
+        JsonStreamReader json = reader("[\"q\\\"b\\\\s\\/n\\n t\\tu\\u00e9\\u20AC\"]");
+        json.beginArray();
+        assertEquals("q\"b\\s/n\n t\tué€", json.nextString());
+        json.endArray();
+    }
+
+    @Test
+    void skipNestedValues() throws Exception {
+        JsonStreamReader json = reader("{\"skip\": {\"x\": [1, {\"y\": \"}]\"}], \"z\": {}}, \"keep\": 7}");
+        json.beginObject();
+        assertEquals("skip", json.nextName());
+        json.skipValue();
+        assertEquals("keep", json.nextName());
+        assertEquals(7, json.nextLong());
+        json.endObject();
+    }
+
+    @Test
+    void skipScalarsAndNull() throws Exception {
+        JsonStreamReader json = reader("[null, \"s\", 12, false, [], 3]");
+        json.beginArray();
+        for (int i = 0; i < 5; i++) {
+            json.skipValue();
+        }
+        assertEquals(3, json.nextLong());
+        assertFalse(json.hasNext());
+    }
+
+    @Test
+    void stringsLongerThanTheBuffer() throws Exception {
+        String value = "a".repeat(200_000);
+        JsonStreamReader json = reader("[\"" + value + "\", \"" + value + "\", 1]");
+        json.beginArray();
+        assertEquals(value, json.nextString());
+        json.skipValue();
+        assertEquals(1, json.nextLong());
+    }
+
+    @Test
+    void malformedInput() throws Exception {
+        assertThrows(IOException.class, () -> reader("\"open").nextString());
+        assertThrows(IOException.class, () -> reader("\"a\" 1").nextName());
+        JsonStreamReader json = reader("[1]");
+        assertThrows(IOException.class, json::beginObject);
+        assertThrows(IOException.class, () -> reader("\"x\"").nextLong());
+        assertEquals(JsonStreamReader.Token.END, reader("").peek());
+    }
+}
@@ -0,0 +1,89 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+    @Test
+    void empty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.minMicros());
+        assertEquals(0, histogram.maxMicros());
+        assertEquals(0, histogram.meanMicros());
+        assertEquals(0, histogram.percentileMicros(50));
+    }
+
+    @Test
+    void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int micros = 0; micros < 32; micros++) {
+            histogram.record(micros);
+        }
+        assertEquals(32, histogram.count());
+        assertEquals(0, histogram.minMicros());
+        assertEquals(31, histogram.maxMicros());
+        assertEquals(15, histogram.meanMicros());
+        assertEquals(0, histogram.percentileMicros(0));
+        assertEquals(15, histogram.percentileMicros(50));
+        assertEquals(28, histogram.percentileMicros(90));
+        assertEquals(31, histogram.percentileMicros(100));
+    }
+
+    @Test
+    void firstLogBucketBoundaries() {
+        // 32 and 33 share a bucket; 34 starts the next one
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(31);
+        histogram.record(32);
+        histogram.record(33);
+        histogram.record(34);
+        histogram.record(1000);
+        assertEquals(1, histogram.countBelow(32));
+        assertEquals(1, histogram.countBelow(33));
+        assertEquals(3, histogram.countBelow(34));
+        assertEquals(33, histogram.percentileMicros(40));
+        assertEquals(35, histogram.percentileMicros(80));
+    }
+
+    @Test
+    void percentileIsClampedToMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(32);
+        assertEquals(32, histogram.percentileMicros(100));
+    }
+
+    @Test
+    void percentilesWithinOneSubBucket() {
+        for (long micros : new long[]{47, 100, 1_000, 65_535, 65_536, 123_456, 1_000_000_000L}) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            histogram.record(micros);
+            histogram.record(micros * 10);
+            long p50 = histogram.percentileMicros(50);
+            assertTrue(p50 >= micros && p50 <= micros + micros / 16, micros + " -> " + p50);
+        }
+    }
+
+    @Test
+    void nearestRankPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(10);
+        }
+        histogram.record(20);
+        assertEquals(10, histogram.percentileMicros(99));
+        assertEquals(20, histogram.percentileMicros(99.5));
+        assertEquals(20, histogram.percentileMicros(100));
+    }
+
+    @Test
+    void nanosAreTruncatedToMicros() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordNanos(1_999);
+        histogram.recordNanos(-5);
+        assertEquals(0, histogram.minMicros());
+        assertEquals(1, histogram.maxMicros());
+    }
+}
@@ -0,0 +1,87 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LogBufferTest {
+    private static List<String> messages(List<LogBuffer.Entry> entries) {
+        List<String> messages = new ArrayList<>();
+        for (LogBuffer.Entry entry : entries) {
+            messages.add(entry.getMessage());
+        }
+        return messages;
+    }
+
+    @Test
+    void fullBufferDropsTheOldestLines() {
+        LogBuffer buffer = new LogBuffer(3);
+        for (int i = 0; i < 5; i++) {
+            buffer.add("emulator-5554", "line " + i);
+        }
+        assertEquals(3, buffer.size());
+        assertEquals(List.of("line 2", "line 3", "line 4"), messages(buffer.snapshot()));
+        assertEquals(2, buffer.get(0).getSequence());
+        assertEquals(4, buffer.get(2).getSequence());
+    }
+
+    @Test
+    void evictedLinesLeaveTheIndex() {
+        LogBuffer buffer = new LogBuffer(2);
+        buffer.add(null, "alpha shared");
+        buffer.add(null, "beta shared");
+        buffer.add(null, "gamma shared");
+        assertEquals(List.of(), buffer.search("alpha"));
+        assertEquals(List.of("beta shared", "gamma shared"), messages(buffer.search("shared")));
+
+        // Wrap the ring several times; positions are still resolved from sequences correctly
+        for (int i = 0; i < 7; i++) {
+            buffer.add(null, "round " + i);
+        }
+        assertEquals(List.of(), buffer.search("shared"));
+        assertEquals(List.of("round 6"), messages(buffer.search("round 6")));
+        assertEquals(List.of("round 5", "round 6"), messages(buffer.search("ROUND")));
+    }
+
+    @Test
+    void repeatedWordsAreIndexedOnce() {
+        LogBuffer buffer = new LogBuffer(2);
+        buffer.add(null, "retry retry retry");
+        buffer.add(null, "other");
+        buffer.add(null, "retry once");
+        assertEquals(List.of("retry once"), messages(buffer.search("retry")));
+    }
+
+    @Test
+    void searchMatchesInsideWordsAndAcrossPunctuation() {
+        LogBuffer buffer = new LogBuffer(10);
+        buffer.add(null, "✓ Proxy set to 127.0.0.1:8080");
+        buffer.add(null, "✗ Failed to set proxy");
+        assertEquals(List.of("✓ Proxy set to 127.0.0.1:8080"), messages(buffer.search("0.1:80")));
+        assertEquals(2, buffer.search("rox").size());
+        // No word characters: every line is scanned
+        assertEquals(List.of("✓ Proxy set to 127.0.0.1:8080"), messages(buffer.search(":")));
+    }
+
+    @Test
+    void clearEmptiesTheIndex() {
+        LogBuffer buffer = new LogBuffer(2);
+        buffer.add(null, "before");
+        buffer.clear();
+        assertEquals(List.of(), buffer.search("before"));
+        buffer.add(null, "after");
+        assertEquals(List.of("after"), messages(buffer.search("after")));
+    }
+
+    @Test
+    void levelsFromPrefixes() {
+        assertEquals(LogBuffer.Level.SUCCESS, LogBuffer.Level.of("✓ done"));
+        assertEquals(LogBuffer.Level.ERROR, LogBuffer.Level.of("  ✗ failed"));
+        assertEquals(LogBuffer.Level.ERROR, LogBuffer.Level.of("Error: x"));
+        assertEquals(LogBuffer.Level.WARNING, LogBuffer.Level.of("⚠ slow"));
+        assertEquals(LogBuffer.Level.INFO, LogBuffer.Level.of("Checking..."));
+    }
+}
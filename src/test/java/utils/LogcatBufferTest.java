@@ -0,0 +1,132 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogcatBufferTest {
+    private static void append(LogcatBuffer buffer, long timeMicros, String tag, String message) {
+        byte[] src = (tag + message).getBytes(StandardCharsets.UTF_8);
+        int tagLength = tag.getBytes(StandardCharsets.UTF_8).length;
+        buffer.append(timeMicros, 100, 101, LogcatBuffer.NO_UID, 4, src, 0, tagLength, tagLength, src.length - tagLength);
+    }
+
+    private static List<Long> seqs(LogcatBuffer.SeqList list) {
+        List<Long> seqs = new ArrayList<>();
+        for (int i = 0; i < list.size(); i++) {
+            seqs.add(list.get(i));
+        }
+        return seqs;
+    }
+
+    @Test
+    void fullRecordRingEvictsTheOldest() {
+        LogcatBuffer buffer = new LogcatBuffer(1024, 4);
+        for (int i = 0; i < 6; i++) {
+            append(buffer, i, "t", "message " + i);
+        }
+        assertEquals(2, buffer.firstSeq());
+        assertEquals(6, buffer.nextSeq());
+        assertFalse(buffer.contains(1));
+        assertTrue(buffer.contains(2));
+        assertFalse(buffer.contains(6));
+        for (long seq = 2; seq < 6; seq++) {
+            assertEquals("message " + seq, buffer.message(seq));
+            assertEquals(seq, buffer.timeMicros(seq));
+        }
+    }
+
+    @Test
+    void fullDataRingEvictsTheOldestAndWrapsMessages() {
+        // 20-byte messages in 128 bytes: the seventh starts at 120 and wraps to the front
+        LogcatBuffer buffer = new LogcatBuffer(128, 100);
+        for (int i = 0; i < 8; i++) {
+            append(buffer, i, "t", (char) ('a' + i) + "123456789012345678" + (char) ('a' + i));
+        }
+        assertEquals(2, buffer.firstSeq());
+        assertEquals(8, buffer.nextSeq());
+        for (int i = 2; i < 8; i++) {
+            assertEquals((char) ('a' + i) + "123456789012345678" + (char) ('a' + i), buffer.message(i));
+        }
+    }
+
+    @Test
+    void searchAndMatchReadAcrossTheWrap() {
+        LogcatBuffer buffer = new LogcatBuffer(128, 100);
+        for (int i = 0; i < 4; i++) {
+            append(buffer, i, "t", "x".repeat(28));
+        }
+        // Starts at 112 and wraps after "TOKE"
+        append(buffer, 4, "t", "abcdefghijklTOKEN123");
+        assertEquals(1, buffer.firstSeq());
+        assertEquals("abcdefghijklTOKEN123", buffer.message(4));
+
+        LogcatBuffer.SeqList found = new LogcatBuffer.SeqList();
+        buffer.search("token", new LogcatBuffer.Filter(), found);
+        assertEquals(List.of(4L), seqs(found));
+
+        List<Long> matched = new ArrayList<>();
+        AhoCorasick automaton = new AhoCorasick(List.of("TOKEN".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(5, buffer.match(0, buffer.nextSeq(), automaton, (seq, pattern) -> matched.add(seq)));
+        assertEquals(List.of(4L), matched);
+    }
+
+    @Test
+    void longMessagesAreTrimmedToAQuarterOfTheData() {
+        LogcatBuffer buffer = new LogcatBuffer(64, 10);
+        append(buffer, 0, "t", "0123456789abcdefOVERFLOW");
+        assertEquals("0123456789abcdef", buffer.message(0));
+    }
+
+    @Test
+    void tagChainsSkipEvictedEntries() {
+        LogcatBuffer buffer = new LogcatBuffer(1024, 4);
+        append(buffer, 0, "a", "1");
+        append(buffer, 1, "b", "2");
+        append(buffer, 2, "a", "3");
+        append(buffer, 3, "b", "4");
+        append(buffer, 4, "a", "5");
+        append(buffer, 5, "a", "6");
+
+        LogcatBuffer.Filter filter = new LogcatBuffer.Filter();
+        filter.tag = "a";
+        LogcatBuffer.SeqList out = new LogcatBuffer.SeqList();
+        assertEquals(6, buffer.scan(0, filter, out));
+        assertEquals(List.of(2L, 4L, 5L), seqs(out));
+
+        filter.tag = "missing";
+        out.clear();
+        buffer.scan(0, filter, out);
+        assertEquals(0, out.size());
+    }
+
+    @Test
+    void timeLookupAfterEviction() {
+        LogcatBuffer buffer = new LogcatBuffer(1024, 4);
+        for (int i = 0; i < 8; i++) {
+            append(buffer, i * 10L, "t", "m");
+        }
+        assertEquals(4, buffer.seqAtOrAfter(0));
+        assertEquals(5, buffer.seqAtOrAfter(45));
+        assertEquals(5, buffer.seqAtOrAfter(50));
+        assertEquals(8, buffer.seqAtOrAfter(71));
+    }
+
+    @Test
+    void clearKeepsSequenceNumbers() {
+        LogcatBuffer buffer = new LogcatBuffer(1024, 4);
+        append(buffer, 0, "t", "m");
+        append(buffer, 1, "t", "m");
+        buffer.clear();
+        assertEquals(2, buffer.firstSeq());
+        assertFalse(buffer.contains(1));
+        append(buffer, 2, "t", "after");
+        assertEquals("after", buffer.message(2));
+    }
+}
@@ -0,0 +1,161 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LogcatDecoderTest {
+    private static final int MAIN = 0;
+    private static final int EVENTS = 2;
+
+    /**
+     * One logger_entry: v1 has a zero header size field and 20 bytes of header, v2/v3 have 24
+     * (euid or log id at 20) and v4 has 28 (uid at 24)
+     */
+    private static byte[] entry(int headerSize, int logId, int uid, byte[] payload) {
+        int size = headerSize == 0 ? 20 : headerSize;
+        ByteBuffer header = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        header.putShort((short) payload.length);
+        header.putShort((short) headerSize);
+        header.putInt(1234);
+        header.putInt(1240);
+        header.putInt(1_700_000_000);
+        header.putInt(123_456_789);
+        if (size >= 24) {
+            header.putInt(logId);
+        }
+        if (size >= 28) {
+            header.putInt(uid);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(header.array());
+        out.writeBytes(payload);
+        return out.toByteArray();
+    }
+
+    private static byte[] text(int priority, String tag, String message) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(priority);
+        out.writeBytes(tag.getBytes(StandardCharsets.UTF_8));
+        out.write(0);
+        out.writeBytes(message.getBytes(StandardCharsets.UTF_8));
+        out.write(0);
+        return out.toByteArray();
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+
+    private static LogcatBuffer decode(InputStream in) throws IOException {
+        LogcatBuffer buffer = new LogcatBuffer(64 * 1024, 1024);
+        new LogcatDecoder().decode(in, buffer);
+        return buffer;
+    }
+
+    @Test
+    void v1Header() throws Exception {
+        LogcatBuffer buffer = decode(new ByteArrayInputStream(entry(0, 0, 0, text(4, "ActivityManager", "Start proc\n"))));
+        assertEquals(1, buffer.nextSeq());
+        assertEquals(1234, buffer.pid(0));
+        assertEquals(1240, buffer.tid(0));
+        assertEquals(1_700_000_000_123_456L, buffer.timeMicros(0));
+        assertEquals(LogcatBuffer.NO_UID, buffer.uid(0));
+        assertEquals(4, buffer.priority(0));
+        assertEquals("ActivityManager", buffer.tag(0));
+        assertEquals("Start proc", buffer.message(0));
+    }
+
+    @Test
+    void v2AndV3HeadersOfTwentyFourBytes() throws Exception {
+        byte[] v2 = entry(24, 0, 0, text(3, "a", "euid 0"));
+        byte[] v3 = entry(24, MAIN, 0, text(5, "b", "main"));
+        LogcatBuffer buffer = decode(new ByteArrayInputStream(concat(v2, v3)));
+        assertEquals(2, buffer.nextSeq());
+        assertEquals("euid 0", buffer.message(0));
+        assertEquals("b", buffer.tag(1));
+        assertEquals(LogcatBuffer.NO_UID, buffer.uid(1));
+    }
+
+    @Test
+    void v4HeaderCarriesTheUid() throws Exception {
+        LogcatBuffer buffer = decode(new ByteArrayInputStream(entry(28, MAIN, 10123, text(6, "App", "boom\r\n"))));
+        assertEquals(10123, buffer.uid(0));
+        assertEquals("boom", buffer.message(0));
+    }
+
+    @Test
+    void binaryLogsAreSkipped() throws Exception {
+        byte[] events = entry(28, EVENTS, 1000, new byte[]{1, 2, 3, 4, 5, 6});
+        byte[] tooShort = entry(28, MAIN, 1000, new byte[]{4});
+        byte[] kept = entry(28, MAIN, 1000, text(4, "t", "kept"));
+        LogcatBuffer buffer = decode(new ByteArrayInputStream(concat(events, tooShort, kept)));
+        assertEquals(1, buffer.nextSeq());
+        assertEquals("kept", buffer.message(0));
+    }
+
+    @Test
+    void entriesSplitAcrossReads() throws Exception {
+        byte[] stream = concat(entry(28, MAIN, 1, text(4, "one", "first")), entry(24, MAIN, 0, text(4, "two", "second")));
+        // Hand out a byte at a time, so every header and payload arrives in pieces
+        InputStream trickle = new ByteArrayInputStream(stream) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 1));
+            }
+        };
+        LogcatDecoder decoder = new LogcatDecoder();
+        LogcatBuffer buffer = new LogcatBuffer(64 * 1024, 1024);
+        decoder.decode(trickle, buffer);
+        assertEquals(2, decoder.getEntries());
+        assertEquals(stream.length, decoder.getBytes());
+        assertEquals("first", buffer.message(0));
+        assertEquals("second", buffer.message(1));
+    }
+
+    @Test
+    void truncatedLastEntryIsDropped() throws Exception {
+        byte[] complete = entry(28, MAIN, 1, text(4, "t", "complete"));
+        byte[] partial = entry(28, MAIN, 1, text(4, "t", "cut off"));
+        byte[] stream = concat(complete, Arrays.copyOf(partial, partial.length - 3));
+        LogcatBuffer buffer = decode(new ByteArrayInputStream(stream));
+        assertEquals(1, buffer.nextSeq());
+        assertEquals("complete", buffer.message(0));
+
+        // A stream ending inside the first four bytes of a header
+        assertEquals(1, decode(new ByteArrayInputStream(concat(complete, new byte[]{9, 0}))).nextSeq());
+    }
+
+    @Test
+    void missingTerminatorsEndAtThePayload() throws Exception {
+        byte[] noMessageNul = {4, 't', 'a', 'g', 0, 'm', 's', 'g'};
+        byte[] noTagNul = {4, 't', 'a', 'g'};
+        LogcatBuffer buffer = decode(new ByteArrayInputStream(concat(entry(28, MAIN, 1, noMessageNul),
+                entry(28, MAIN, 1, noTagNul))));
+        assertEquals(2, buffer.nextSeq());
+        assertEquals("tag", buffer.tag(0));
+        assertEquals("msg", buffer.message(0));
+        assertEquals("tag", buffer.tag(1));
+        assertEquals("", buffer.message(1));
+    }
+
+    @Test
+    void textInputIsRejected() {
+        byte[] text = "--------- beginning of main\n".getBytes(StandardCharsets.US_ASCII);
+        assertThrows(IOException.class, () -> decode(new ByteArrayInputStream(text)));
+    }
+}
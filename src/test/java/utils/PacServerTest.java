@@ -0,0 +1,62 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PacServerTest {
+    @Test
+    void includeRulesKeepsRegexesWithBracesAndBrackets() {
+        String json = "{\"target\":{\"scope\":{\"advanced_mode\":true,\"include\":["
+                + "{\"enabled\":true,\"host\":\"^api[0-9]{1,3}\\\\.example\\\\.com$\",\"protocol\":\"any\"},"
+                + "{\"enabled\":false,\"host\":\"^x{2}\\\"}]\"},"
+                + "{\"enabled\":true,\"prefix\":\"https://b.example.com/\"}"
+                + "],\"exclude\":[{\"enabled\":true,\"host\":\"^c$\"}]}}}";
+        List<String> rules = PacServer.includeRules(json);
+        assertEquals(3, rules.size());
+        assertTrue(rules.get(0).contains("{1,3}"), rules.get(0));
+        assertTrue(rules.get(1).endsWith("\"^x{2}\\\"}]\"}"), rules.get(1));
+        assertTrue(rules.get(2).contains("b.example.com"), rules.get(2));
+    }
+
+    @Test
+    void simpleScopeRulesHonourIncludeSubdomains() {
+        String json = "{\"target\":{\"scope\":{\"advanced_mode\":false,\"include\":["
+                + "{\"enabled\":true,\"include_subdomains\":true,\"prefix\":\"https://A.example.com/api\"},"
+                + "{\"enabled\":true,\"include_subdomains\":false,\"prefix\":\"http://b.example.com\"},"
+                + "{\"enabled\":false,\"include_subdomains\":true,\"prefix\":\"https://c.example.com/\"}"
+                + "]}}}";
+        PacServer.Rules rules = new PacServer.Rules().addScope(json);
+        assertEquals(3, rules.size());
+        String pac = rules.toPac("127.0.0.1:8080");
+        assertTrue(pac.contains("var SUFFIXES = [\".a.example.com\"];"), pac);
+        assertTrue(pac.contains("var HOSTS = {\"a.example.com\": true, \"b.example.com\": true};"), pac);
+    }
+
+    @Test
+    void includeRulesWithoutScope() {
+        assertEquals(List.of(), PacServer.includeRules(null));
+        assertEquals(List.of(), PacServer.includeRules("{\"target\":{}}"));
+    }
+
+    @Test
+    void javaScriptCompatibleRegexes() {
+        for (String regex : new String[]{"^api[0-9]{1,3}\\.example\\.com$", ".*\\.example\\.(com|net)$",
+                "^(?:a|b)+?x$", "^(?=a)(?!b)(?<=c)(?<!d)(?<name>e)$", "[\\]a-z]", "a\\+{2}", ""}) {
+            assertNull(PacServer.jsIncompatibility(regex), regex);
+        }
+    }
+
+    @Test
+    void javaOnlyRegexes() {
+        for (String regex : new String[]{"a++", "a*+b", "a{2}+", "(?>a)", "(?i)a", "(?s:a)", "\\Aa\\z",
+                "\\Qa.b\\E", "\\p{Lu}", "[a-z&&[^q]]", "[a[b]]", "[]a]", "a\\"}) {
+            assertNotNull(PacServer.jsIncompatibility(regex), regex);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class ShellTokenizerTest {
+    // Generous for slow CI machines; a quadratic tokenizer takes minutes on these inputs
+    private static final Duration LINEAR_BOUND = Duration.ofSeconds(5);
+
+    @Test
+    void splitsOnUnquotedWhitespace() {
+        assertEquals(List.of("curl", "-s", "http://example.com"), ShellTokenizer.tokenize("  curl\t-s \n http://example.com  "));
+    }
+
+    @Test
+    void singleQuotesAreLiteral() {
+        assertEquals(List.of("a b\\c $x \"y\""), ShellTokenizer.tokenize("'a b\\c $x \"y\"'"));
+    }
+
+    @Test
+    void doubleQuotesOnlyEscapeSpecialCharacters() {
+        assertEquals(List.of("a\"b$c\\d\\e"), ShellTokenizer.tokenize("\"a\\\"b\\$c\\\\d\\e\""));
+    }
+
+    @Test
+    void adjacentQuotedPartsJoinIntoOneWord() {
+        assertEquals(List.of("abcd"), ShellTokenizer.tokenize("a'b'\"c\"$'d'"));
+    }
+
+    @Test
+    void emptyQuotesAreAnEmptyWord() {
+        assertEquals(List.of("-d", ""), ShellTokenizer.tokenize("-d ''"));
+    }
+
+    @Test
+    void backslashEscapesOutsideQuotes() {
+        assertEquals(List.of("a b", "'"), ShellTokenizer.tokenize("a\\ b \\'"));
+    }
+
+    @Test
+    void ansiCEscapes() {
+        assertEquals(List.of("a\nb\tc\r\u001B'\\"), ShellTokenizer.tokenize("$'a\\nb\\tc\\r\\e\\'\\\\'"));
+        assertEquals(List.of("AAé€"), ShellTokenizer.tokenize("$'\\x41\\101\\u00e9\\U000020AC'"));
+    }
+
+    @Test
+    void wordBytesKeepRawEscapesAndEncodeText() {
+        ShellTokenizer.Word word = ShellTokenizer.words("é$'\\xff\\351\\u00e9'").get(0);
+        assertArrayEquals(new byte[]{(byte) 0xc3, (byte) 0xa9, (byte) 0xff, (byte) 0xe9, (byte) 0xc3, (byte) 0xa9}, word.bytes());
+        assertArrayEquals(new byte[]{(byte) 0xff, (byte) 0xe9}, word.bytes(1, 3));
+        assertArrayEquals(new byte[]{(byte) 0xff}, word.substring(1).bytes(0, 1));
+    }
+
+    @Test
+    void ansiCIncompleteEscapesStayLiteral() {
+        assertEquals(List.of("\\xg"), ShellTokenizer.tokenize("$'\\xg'"));
+    }
+
+    @Test
+    void lineContinuations() {
+        assertEquals(List.of("curl", "-H", "A: b", "url"), ShellTokenizer.tokenize("curl \\\n  -H 'A: b' \\\r\n  url"));
+        assertEquals(List.of("ab"), ShellTokenizer.tokenize("\"a\\\nb\""));
+    }
+
+    @Test
+    void unterminatedQuotesTakeTheRestOfTheInput() {
+        assertEquals(List.of("a", "b c"), ShellTokenizer.tokenize("a 'b c"));
+        assertEquals(List.of("b c"), ShellTokenizer.tokenize("\"b c"));
+    }
+
+    @Test
+    void megabyteOfBackslashesIsLinear() {
+        String input = "\\".repeat(1 << 20);
+        List<String> tokens = assertTimeoutPreemptively(LINEAR_BOUND, () -> ShellTokenizer.tokenize(input));
+        assertEquals(1 << 19, tokens.get(0).length());
+    }
+
+    @Test
+    void unbalancedQuotesAreLinear() {
+        String input = "\"'".repeat(500_000) + "$'";
+        assertTimeoutPreemptively(LINEAR_BOUND, () -> ShellTokenizer.tokenize(input));
+        String nested = "'\"".repeat(500_000);
+        assertTimeoutPreemptively(LINEAR_BOUND, () -> ShellTokenizer.tokenize(nested));
+    }
+
+    @Test
+    void manyAnsiCEscapesAreLinear() {
+        String input = "$'" + "\\x4".repeat(300_000) + "\\u12".repeat(300_000);
+        assertTimeoutPreemptively(LINEAR_BOUND, () -> ShellTokenizer.tokenize(input));
+    }
+
+    @Test
+    void manyLineContinuationsAreLinear() {
+        String input = "curl" + " \\\n".repeat(500_000) + "url";
+        List<String> tokens = assertTimeoutPreemptively(LINEAR_BOUND, () -> ShellTokenizer.tokenize(input));
+        assertEquals(List.of("curl", "url"), tokens);
+    }
+}
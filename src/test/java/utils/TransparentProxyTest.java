@@ -0,0 +1,47 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TransparentProxyTest {
+    @Test
+    void ipv4RedirectsWebPortsAndRejectsQuicPerUid() {
+        assertEquals("""
+                *nat
+                :BMA_APP - [0:0]
+                -A BMA_APP ! -o lo -p tcp --dport 80 -m owner --uid-owner 10123 -j REDIRECT --to-ports 8080
+                -A BMA_APP ! -o lo -p tcp --dport 443 -m owner --uid-owner 10123 -j REDIRECT --to-ports 8080
+                -A BMA_APP ! -o lo -p tcp --dport 80 -m owner --uid-owner 1010123 -j REDIRECT --to-ports 8080
+                -A BMA_APP ! -o lo -p tcp --dport 443 -m owner --uid-owner 1010123 -j REDIRECT --to-ports 8080
+                COMMIT
+                *filter
+                :BMA_APP - [0:0]
+                -A BMA_APP -p udp --dport 443 -m owner --uid-owner 10123 -j REJECT
+                -A BMA_APP -p udp --dport 443 -m owner --uid-owner 1010123 -j REJECT
+                COMMIT
+                """, TransparentProxy.ipv4Rules(List.of("10123", "1010123"), 8080));
+    }
+
+    @Test
+    void ipv6RejectsWebTrafficSoTheAppFallsBackToIpv4() {
+        assertEquals("""
+                *filter
+                :BMA_APP - [0:0]
+                -A BMA_APP ! -o lo -p tcp --dport 80 -m owner --uid-owner 10123 -j REJECT --reject-with tcp-reset
+                -A BMA_APP ! -o lo -p tcp --dport 443 -m owner --uid-owner 10123 -j REJECT --reject-with tcp-reset
+                -A BMA_APP -p udp --dport 443 -m owner --uid-owner 10123 -j REJECT
+                COMMIT
+                """, TransparentProxy.ipv6Rules(List.of("10123")));
+    }
+
+    @Test
+    void everyBatchDeclaresItsChainSoReapplyingReplacesIt() {
+        // A --noflush restore empties a chain it declares, so no uid leaves an empty chain
+        assertEquals("*nat\n:BMA_APP - [0:0]\nCOMMIT\n*filter\n:BMA_APP - [0:0]\nCOMMIT\n",
+                TransparentProxy.ipv4Rules(List.of(), 8080));
+        assertEquals("*filter\n:BMA_APP - [0:0]\nCOMMIT\n", TransparentProxy.ipv6Rules(List.of()));
+    }
+}
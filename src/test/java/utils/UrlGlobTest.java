@@ -0,0 +1,73 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UrlGlobTest {
+    private static List<String> expand(String url) throws Exception {
+        List<String> urls = new ArrayList<>();
+        UrlGlob.parse(url).forEach(urls::add);
+        return urls;
+    }
+
+    @Test
+    void lastGlobVariesFastest() throws Exception {
+        assertEquals(List.of("http://h/a/1", "http://h/a/2", "http://h/b/1", "http://h/b/2"),
+                expand("http://h/{a,b}/[1-2]"));
+    }
+
+    @Test
+    void zeroPaddingFollowsTheStartValue() throws Exception {
+        assertEquals(List.of("http://h/001", "http://h/002", "http://h/003"), expand("http://h/[001-003]"));
+        assertEquals(List.of("http://h/08", "http://h/09", "http://h/10"), expand("http://h/[08-10]"));
+        assertEquals(List.of("http://h/9", "http://h/10"), expand("http://h/[9-10]"));
+    }
+
+    @Test
+    void steps() throws Exception {
+        assertEquals(List.of("http://h/1", "http://h/4", "http://h/7", "http://h/10"), expand("http://h/[1-10:3]"));
+        assertEquals(List.of("http://h/1", "http://h/4", "http://h/7"), expand("http://h/[1-9:3]"));
+        assertEquals(List.of("http://h/a", "http://h/c", "http://h/e"), expand("http://h/[a-e:2]"));
+    }
+
+    @Test
+    void ipv6LiteralsStayLiteral() throws Exception {
+        assertEquals(List.of("http://[::1]:8080/"), expand("http://[::1]:8080/"));
+        assertEquals(List.of("http://[fe80::1-2]/x1", "http://[fe80::1-2]/x2"), expand("http://[fe80::1-2]/x[1-2]"));
+    }
+
+    @Test
+    void escapedAndUnclosedBrackets() throws Exception {
+        assertEquals(List.of("http://h/{a,b}"), expand("http://h/\\{a,b\\}"));
+        assertEquals(List.of("http://h/{a"), expand("http://h/{a"));
+        assertEquals(List.of("http://h/", "http://h/x"), expand("http://h/{,x}"));
+    }
+
+    @Test
+    void variantsAreComputedFromTheirIndex() throws Exception {
+        UrlGlob glob = UrlGlob.parse("http://h/[1-1000]/[1-1000]");
+        assertEquals(1_000_000, glob.size());
+        assertEquals("http://h/1/1", glob.get(0));
+        assertEquals("http://h/2/1", glob.get(1000));
+        assertEquals("http://h/1000/1000", glob.get(999_999));
+        assertThrows(IndexOutOfBoundsException.class, () -> glob.get(1_000_000));
+    }
+
+    @Test
+    void literalIgnoresGlobs() throws Exception {
+        assertEquals("http://h/[1-2]", UrlGlob.literal("http://h/[1-2]").get(0));
+        assertEquals(1, UrlGlob.literal("http://h/{a,b}").size());
+    }
+
+    @Test
+    void invalidRanges() {
+        assertThrows(Exception.class, () -> UrlGlob.parse("http://h/[5-1]"));
+        assertThrows(Exception.class, () -> UrlGlob.parse("http://h/[1-5:0]"));
+        assertThrows(Exception.class, () -> UrlGlob.parse("http://h/[z-a]"));
+    }
+}
@@ -0,0 +1,123 @@
+package utils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Montoya's static factories delegate to an object factory that only Burp provides. Tests and
+ * benchmarks install this one instead: headers, services and byte arrays keep their values, and
+ * a request keeps the raw bytes it was built from, so tests can check exactly what was assembled
+ * and benchmarks measure the parser's own work rather than Burp's message parsing.
+ */
+public final class MontoyaStubs {
+    private static boolean installed;
+
+    private MontoyaStubs() {
+    }
+
+    public static synchronized void install() {
+        if (installed) {
+            return;
+        }
+        try {
+            Class<?> locator = Class.forName("burp.api.montoya.internal.ObjectFactoryLocator");
+            Field factoryField = locator.getField("FACTORY");
+            factoryField.set(null, proxy(factoryField.getType(), MontoyaStubs::factoryMethod));
+            installed = true;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Montoya API is not on the classpath", e);
+        }
+    }
+
+    private static Object factoryMethod(Object proxy, Method method, Object[] args) {
+        String name = method.getName();
+        if (name.equals("httpHeader") && args != null && args.length == 2) {
+            return proxy(method.getReturnType(), (p, m, a) -> switch (m.getName()) {
+                case "name" -> args[0];
+                case "value" -> args[1];
+                case "toString" -> args[0] + ": " + args[1];
+                default -> defaultValue(p, m, a);
+            });
+        }
+        if (name.equals("byteArray") && args != null && args.length == 1 && args[0] instanceof byte[] bytes) {
+            return proxy(method.getReturnType(), (p, m, a) -> switch (m.getName()) {
+                case "length" -> bytes.length;
+                case "getBytes" -> bytes;
+                case "getByte" -> bytes[(Integer) a[0]];
+                case "toString" -> new String(bytes, StandardCharsets.ISO_8859_1);
+                default -> defaultValue(p, m, a);
+            });
+        }
+        if (name.equals("httpService") && args != null && args.length == 3) {
+            return proxy(method.getReturnType(), (p, m, a) -> switch (m.getName()) {
+                case "host" -> args[0];
+                case "port" -> args[1];
+                case "secure" -> args[2];
+                default -> defaultValue(p, m, a);
+            });
+        }
+        if (name.equals("httpRequest") && args != null && args.length == 2) {
+            return proxy(method.getReturnType(), (p, m, a) -> switch (m.getName()) {
+                case "httpService" -> args[0];
+                case "toByteArray" -> args[1];
+                case "toString" -> args[1].toString();
+                default -> defaultValue(p, m, a);
+            });
+        }
+        if (name.equals("httpRequestResponse") && args != null && args.length == 2) {
+            return proxy(method.getReturnType(), (p, m, a) -> switch (m.getName()) {
+                case "request" -> args[0];
+                case "response" -> args[1];
+                default -> defaultValue(p, m, a);
+            });
+        }
+        return defaultValue(proxy, method, args);
+    }
+
+    /**
+     * Interfaces become further placeholders; everything else gets its zero value
+     */
+    private static Object defaultValue(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return method.getDeclaringClass().getSimpleName() + "@stub";
+            default:
+                break;
+        }
+
+        Class<?> type = method.getReturnType();
+        if (type == String.class) {
+            return "";
+        }
+        if (type.isInterface()) {
+            return proxy(type, MontoyaStubs::defaultValue);
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        return null;
+    }
+
+    private static Object proxy(Class<?> type, InvocationHandler handler) {
+        return Proxy.newProxyInstance(MontoyaStubs.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}